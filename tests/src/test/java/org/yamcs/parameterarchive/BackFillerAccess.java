@@ -0,0 +1,18 @@
+package org.yamcs.parameterarchive;
+
+import java.util.Collections;
+import java.util.Map;
+
+import org.yamcs.YConfiguration;
+
+/**
+ * Creates back fillers with a given configuration for the integration tests
+ */
+public class BackFillerAccess {
+
+    public static BackFiller newBackFiller(ParameterArchive parchive, int numThreads) {
+        YConfiguration config = YConfiguration.wrap(Map.of("automaticBackfilling", false,
+                "monitorStreams", Collections.emptyList(), "numThreads", numThreads));
+        return new BackFiller(parchive, config, false);
+    }
+}
@@ -17,6 +17,8 @@ import org.yamcs.client.archive.ArchiveClient;
 import org.yamcs.client.archive.ArchiveClient.ListOptions;
 import org.yamcs.client.archive.ArchiveClient.RangeOptions;
 import org.yamcs.parameter.ParameterRetrievalService;
+import org.yamcs.parameterarchive.BackFiller;
+import org.yamcs.parameterarchive.BackFillerAccess;
 import org.yamcs.parameterarchive.ParameterArchive;
 import org.yamcs.protobuf.Pvalue.AcquisitionStatus;
 import org.yamcs.protobuf.Pvalue.ParameterValue;
@@ -564,6 +566,48 @@ public class ParameterArchiveIntegrationTest extends AbstractIntegrationTest {
 
     }
 
+    @Test
+    public void testParallelBackfilling() throws Exception {
+        // start 1000 seconds before the end of an interval such that the data covers three intervals
+        long t0 = ParameterArchive.getIntervalEnd(TimeEncoding.parse("2025-05-01T00:00:00")) + 1 - 1000_000;
+        int n = 10000;
+        generatePkt13AndPps(TimeEncoding.toString(t0), n);
+        long start = t0;
+        long stop = t0 + 1000L * n;
+
+        buildParameterArchive(TimeEncoding.toString(start), TimeEncoding.toString(stop));
+        var values1 = listAllValues(start, stop);
+        assertEquals(n, values1.size());
+
+        parameterArchive.purge();
+        assertEquals(0, listAllValues(start, stop).size());
+
+        BackFiller backFiller = BackFillerAccess.newBackFiller(parameterArchive, 4);
+        try {
+            backFiller.scheduleFillingTask(start, stop).get();
+        } finally {
+            backFiller.shutDown();
+        }
+        var values2 = listAllValues(start, stop);
+        assertEquals(values1, values2);
+    }
+
+    List<ParameterValue> listAllValues(long start, long stop) throws Exception {
+        Page<ParameterValue> page = archiveClient
+                .listValues("/REFMDB/SUBSYS1/FloatPara1_1_2", TimeEncoding.toJavaInstant(start),
+                        TimeEncoding.toJavaInstant(stop), ListOptions.noRealtime(true),
+                        ListOptions.noReplay(true), ListOptions.ascending(true), ListOptions.limit(1000))
+                .get();
+        List<ParameterValue> values = new ArrayList<>();
+        while (true) {
+            page.iterator().forEachRemaining(values::add);
+            if (!page.hasNextPage()) {
+                return values;
+            }
+            page = page.getNextPage().get();
+        }
+    }
+
     List<ParameterValue> listValues(Instant start, Instant stop, boolean noReplay, boolean noRealtime)
             throws Exception {
         Page<ParameterValue> page = archiveClient
@@ -0,0 +1,218 @@
+package org.yamcs.alarms;
+
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.yamcs.ProcessorConfig;
+import org.yamcs.events.EventProducerFactory;
+import org.yamcs.parameter.ParameterValue;
+import org.yamcs.protobuf.Pvalue.MonitoringResult;
+import org.yamcs.utils.TimeEncoding;
+import org.yamcs.xtce.Parameter;
+
+/**
+ * Latency of the operator acknowledgements while one thread pushes alarm transitions at a fixed rate to a parameter
+ * alarm server with a listener which takes some time to process each notification.
+ * <p>
+ * The acknowledge latency is the one of the {@code acknowledge} method; the {@code update} method includes the wait
+ * for the next transition slot so its timing is not meaningful.
+ * <p>
+ * Because with asynchronous notifications the work of the listener is deferred rather than avoided, at the end of
+ * each iteration the maximum notification queue depth and the average/maximum notification lag (time between the
+ * transition and its delivery to the listener) are printed next to the acknowledge latency.
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Group)
+public class AlarmServerBenchmark {
+    static final int NUM_PARAMS = 1000;
+
+    /**
+     * if true, the listeners are notified from a separate thread
+     */
+    @Param({ "false", "true" })
+    boolean asyncNotifications;
+
+    /**
+     * the time spent by the listener for each notification
+     */
+    @Param({ "50000" })
+    long listenerDelayNs;
+
+    /**
+     * the rate of the alarm transitions
+     */
+    @Param({ "10000" })
+    int transitionsPerSecond;
+
+    ScheduledThreadPoolExecutor timer;
+    ParameterAlarmServer alarmServer;
+    SlowListener listener;
+    Parameter[] params;
+    int count;
+
+    long periodNs;
+    long iterationStartNs;
+    long iterationCount;
+    int maxQueueDepth;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        EventProducerFactory.setMockup(true);
+        TimeEncoding.setUp();
+
+        ProcessorConfig procConfig = new ProcessorConfig();
+        procConfig.setAlarmLoadDays(-1);
+        procConfig.setAlarmAsyncNotifications(asyncNotifications);
+        timer = new ScheduledThreadPoolExecutor(1);
+        alarmServer = new ParameterAlarmServer("benchmark", procConfig, timer);
+        listener = new SlowListener(listenerDelayNs);
+        alarmServer.addAlarmListener(listener);
+        periodNs = 1_000_000_000L / transitionsPerSecond;
+
+        params = new Parameter[NUM_PARAMS];
+        for (int i = 0; i < NUM_PARAMS; i++) {
+            params[i] = new Parameter("p" + i);
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void setupIteration() {
+        iterationStartNs = System.nanoTime();
+        iterationCount = 0;
+        maxQueueDepth = 0;
+        listener.reset();
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDownIteration() {
+        double elapsedSec = (System.nanoTime() - iterationStartNs) / 1e9;
+        System.out.printf("%n    transitions/s: %.0f, max notification queue depth: %d, "
+                + "notification lag avg: %.1f us, max: %.1f us%n",
+                iterationCount / elapsedSec, maxQueueDepth, listener.avgLagUs(), listener.maxLagNs / 1000.0);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        alarmServer.stopAsyncNotifications();
+        timer.shutdown();
+    }
+
+    /**
+     * Alternates the parameters between out of limits and in limits, such that there are always alarms to acknowledge
+     */
+    @Benchmark
+    @Group("burst")
+    @GroupThreads(1)
+    public void update() {
+        // wait for the slot of the next transition
+        long next = iterationStartNs + iterationCount * periodNs;
+        while (System.nanoTime() < next) {
+            Thread.onSpinWait();
+        }
+        iterationCount++;
+
+        int i = count++;
+        ParameterValue pv = new ParameterValue(params[i % NUM_PARAMS]);
+        pv.setMonitoringResult((i / NUM_PARAMS) % 2 == 0 ? MonitoringResult.WARNING : MonitoringResult.IN_LIMITS);
+        // not used by the alarm server, it allows the listener to compute the notification lag
+        pv.setAcquisitionTime(System.nanoTime());
+        alarmServer.update(pv, 1);
+        maxQueueDepth = Math.max(maxQueueDepth, alarmServer.getNotificationQueueDepth());
+    }
+
+    @Benchmark
+    @Group("burst")
+    @GroupThreads(1)
+    public ActiveAlarm<ParameterValue> acknowledge() {
+        ThreadLocalRandom r = ThreadLocalRandom.current();
+        // look for an alarm to acknowledge, giving up after a while if the update thread is not running
+        for (int k = 0; k < NUM_PARAMS; k++) {
+            ActiveAlarm<ParameterValue> alarm = alarmServer.getActiveAlarm(params[r.nextInt(NUM_PARAMS)]);
+            if (alarm != null && !alarm.isAcknowledged()) {
+                return alarmServer.acknowledge(alarm, "operator", TimeEncoding.getWallclockTime(), null);
+            }
+        }
+        return null;
+    }
+
+    static class SlowListener implements AlarmListener<ParameterValue> {
+        final long delayNs;
+        // updated by one thread at a time (see recordLag), read at the end of the iteration
+        volatile long lagCount;
+        volatile long totalLagNs;
+        volatile long maxLagNs;
+
+        SlowListener(long delayNs) {
+            this.delayNs = delayNs;
+        }
+
+        void reset() {
+            lagCount = 0;
+            totalLagNs = 0;
+            maxLagNs = 0;
+        }
+
+        double avgLagUs() {
+            long n = lagCount;
+            return n == 0 ? 0 : totalLagNs / (n * 1000.0);
+        }
+
+        @Override
+        public void notifyValueUpdate(ActiveAlarm<ParameterValue> activeAlarm) {
+            recordLag(activeAlarm);
+            work();
+        }
+
+        @Override
+        public void notifySeverityIncrease(ActiveAlarm<ParameterValue> activeAlarm) {
+            recordLag(activeAlarm);
+            work();
+        }
+
+        @Override
+        public void notifyUpdate(AlarmNotificationType notificationType, ActiveAlarm<ParameterValue> activeAlarm) {
+            // the acknowledgements do not change the current value so they cannot be used for the lag
+            if (notificationType != AlarmNotificationType.ACKNOWLEDGED) {
+                recordLag(activeAlarm);
+            }
+            work();
+        }
+
+        // called only for the notifications produced by the update thread
+        private void recordLag(ActiveAlarm<ParameterValue> activeAlarm) {
+            long lag = System.nanoTime() - activeAlarm.getCurrentValue().getAcquisitionTime();
+            lagCount++;
+            totalLagNs += lag;
+            if (lag > maxLagNs) {
+                maxLagNs = lag;
+            }
+        }
+
+        private void work() {
+            long t0 = System.nanoTime();
+            while (System.nanoTime() - t0 < delayNs) {
+                Thread.onSpinWait();
+            }
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package org.yamcs.algorithms;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.yamcs.Processor;
+import org.yamcs.ProcessorFactory;
+import org.yamcs.YConfiguration;
+import org.yamcs.events.EventProducerFactory;
+import org.yamcs.mdb.Mdb;
+import org.yamcs.mdb.MdbFactory;
+import org.yamcs.mdb.ProcessingContext;
+import org.yamcs.parameter.ParameterValue;
+import org.yamcs.utils.ValueUtility;
+import org.yamcs.xtce.CustomAlgorithm;
+import org.yamcs.xtce.Parameter;
+import org.yamcs.yarch.rocksdb.RdbStorageEngine;
+
+/**
+ * Invocation of a JavaScript algorithm run by the script engine and compiled to bytecode.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class CompiledScriptAlgorithmBenchmark {
+    static final String TEXT = "var x = bv.value - 12;\n"
+            + "if (x < 0) {\n"
+            + "  bscc.value = 0;\n"
+            + "} else {\n"
+            + "  bscc.value = Math.min(1, Math.sqrt(x * x + 0.25) / 1.5);\n"
+            + "}";
+
+    @Param({ "script", "compiled" })
+    String executorType;
+
+    Processor processor;
+    AlgorithmExecutor executor;
+    ParameterValue pv;
+    ProcessingContext pctx;
+    int count;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        extractMdb();
+        YConfiguration.setupTest(null);
+        EventProducerFactory.setMockup(false);
+        MdbFactory.reset();
+        AlgorithmManager am = new AlgorithmManager();
+        processor = ProcessorFactory.create("BogusSAT", "CompiledScriptAlgorithmBenchmark", am);
+        Mdb mdb = processor.getMdb();
+
+        Parameter bv = mdb.getParameter("/BogusSAT/SC001/BusElectronics/Battery_Voltage");
+        CustomAlgorithm algo = ((CustomAlgorithm) mdb
+                .getAlgorithm("/BogusSAT/SC001/BusElectronics/ComputeBatterySOC_Custom")).copy();
+        algo.setAlgorithmText(TEXT);
+
+        AlgorithmExecutorFactory scriptFactory = new ScriptAlgorithmEngine().makeExecutorFactory(am, am.globalCtx,
+                "JavaScript", YConfiguration.emptyConfig());
+        if ("compiled".equals(executorType)) {
+            executor = new CompiledScriptAlgorithmExecutorFactory(scriptFactory).makeExecutor(algo, am.globalCtx);
+            if (!(executor instanceof CompiledScriptAlgorithmExecutor)) {
+                throw new IllegalStateException("The algorithm has not been compiled");
+            }
+        } else {
+            executor = scriptFactory.makeExecutor(algo, am.globalCtx);
+        }
+
+        pv = new ParameterValue(bv);
+        pctx = ProcessingContext.createForTestTm(pv);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        processor.quit();
+        RdbStorageEngine.getInstance().shutdown();
+    }
+
+    /**
+     * Copies the MDB from the yamcs-core test jar to the location given in yamcs.BogusSAT.yaml, such that the benchmark
+     * does not depend on the working directory
+     */
+    static void extractMdb() throws IOException {
+        Path dir = Path.of(System.getProperty("java.io.tmpdir"), "yamcs-benchmark-data", "mdb");
+        Files.createDirectories(dir);
+        try (InputStream in = CompiledScriptAlgorithmBenchmark.class.getResourceAsStream("/xtce/BogusSAT-1.xml")) {
+            Files.copy(in, dir.resolve("BogusSAT-1.xml"), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    @Benchmark
+    public AlgorithmExecutionResult execute() {
+        int i = count++;
+        pv.setEngValue(ValueUtility.getFloatValue(12 + (i % 100) / 100f));
+        executor.update(pctx);
+        return executor.execute(i, i, pctx);
+    }
+}
@@ -0,0 +1,66 @@
+package org.yamcs.mdb;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.yamcs.YConfiguration;
+import org.yamcs.tests.RefMdbPacketGenerator;
+import org.yamcs.utils.TimeEncoding;
+
+/**
+ * Decoding of the packets of the reference MDB with all the parameters subscribed.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class XtceTmExtractorBenchmark {
+
+    /**
+     * PKT1_1: integers and floats, PKT1_3: strings, PKT1_4: strings converted to numbers, PKT1_5: binary encoded
+     * strings
+     */
+    @Param({ "PKT1_1", "PKT1_3", "PKT1_4", "PKT1_5" })
+    String packet;
+
+    XtceTmExtractor extractor;
+    byte[] pkt;
+    long now;
+    int seqCount;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        YConfiguration.setupTest(null);
+        Mdb mdb = MdbFactory.createInstanceByConfig("refmdb", false);
+        extractor = new XtceTmExtractor(mdb);
+        extractor.provideAll();
+
+        RefMdbPacketGenerator gen = new RefMdbPacketGenerator();
+        pkt = switch (packet) {
+        case "PKT1_1" -> gen.generate_PKT1_1();
+        case "PKT1_3" -> gen.generate_PKT1_3();
+        case "PKT1_4" -> gen.generate_PKT14();
+        case "PKT1_5" -> gen.generate_PKT1_5();
+        default -> throw new IllegalArgumentException("Unknown packet " + packet);
+        };
+        now = TimeEncoding.getWallclockTime();
+    }
+
+    @Benchmark
+    public ContainerProcessingResult processPacket() {
+        return extractor.processPacket(pkt, now, now, seqCount++);
+    }
+}
@@ -0,0 +1,95 @@
+package org.yamcs.parameter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.yamcs.utils.TimeEncoding;
+import org.yamcs.utils.ValueUtility;
+import org.yamcs.xtce.Parameter;
+
+/**
+ * Adding deliveries to the processor parameter cache and retrieving the cached values of one parameter.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class ArrayParameterCacheBenchmark {
+
+    /**
+     * number of parameters in each delivery
+     */
+    @Param({ "10", "100", "1000" })
+    int deliverySize;
+
+    /**
+     * maximum number of entries kept in the cache for each parameter
+     */
+    @Param({ "1024" })
+    int maxNumEntries;
+
+    List<Parameter> params;
+    ArrayParameterCache updateCache;
+    ArrayParameterCache fullCache;
+    long time;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        TimeEncoding.setUp();
+        params = new ArrayList<>();
+        for (int i = 0; i < deliverySize; i++) {
+            Parameter p = new Parameter("param" + i);
+            p.setQualifiedName("/benchmark/param" + i);
+            params.add(p);
+        }
+        // the duration is large enough for the cache to be limited by the number of entries
+        ParameterCacheConfig pcc = new ParameterCacheConfig(true, true, 1000L * maxNumEntries * 2, maxNumEntries);
+        updateCache = new ArrayParameterCache("benchmark", pcc);
+        fullCache = new ArrayParameterCache("benchmark", pcc);
+
+        time = TimeEncoding.getWallclockTime();
+        for (int i = 0; i < maxNumEntries; i++) {
+            fullCache.update(delivery(time));
+            time += 1000;
+        }
+    }
+
+    List<ParameterValue> delivery(long t) {
+        List<ParameterValue> pvlist = new ArrayList<>(params.size());
+        for (int i = 0; i < params.size(); i++) {
+            ParameterValue pv = new ParameterValue(params.get(i));
+            pv.setGenerationTime(t);
+            pv.setAcquisitionTime(t);
+            pv.setRawValue(ValueUtility.getUint32Value(i));
+            pv.setEngValue(ValueUtility.getDoubleValue(i * 0.5));
+            pvlist.add(pv);
+        }
+        return pvlist;
+    }
+
+    @Benchmark
+    public void update() {
+        updateCache.update(delivery(time));
+        time += 1000;
+    }
+
+    @Benchmark
+    public List<ParameterValue> getAllValues() {
+        return fullCache.getAllValues(params.get(params.size() / 2));
+    }
+}
@@ -0,0 +1,87 @@
+package org.yamcs.parameter;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.yamcs.utils.TimeEncoding;
+import org.yamcs.utils.ValueUtility;
+import org.yamcs.xtce.Parameter;
+
+/**
+ * Concurrent access to the last value cache: one thread updating the values (as the processor does) while the other
+ * threads are reading them (as the subscribers, algorithms and API calls do).
+ * <p>
+ * The number of reader threads can be changed with the JMH -tg option, e.g. -tg 1,8 for 8 readers.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Group)
+public class LastValueCacheBenchmark {
+
+    @Param({ "1000" })
+    int numParameters;
+
+    /**
+     * the number of parameters with buffering enabled (i.e. keeping more than the last value)
+     */
+    @Param({ "0", "100" })
+    int numBuffered;
+
+    Parameter[] params;
+    ParameterValue[] values;
+    LastValueCache lvc;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        TimeEncoding.setUp();
+        lvc = new LastValueCache();
+        params = new Parameter[numParameters];
+        values = new ParameterValue[numParameters];
+        long now = TimeEncoding.getWallclockTime();
+        for (int i = 0; i < numParameters; i++) {
+            params[i] = new Parameter("param" + i);
+            params[i].setQualifiedName("/benchmark/param" + i);
+            ParameterValue pv = new ParameterValue(params[i]);
+            pv.setGenerationTime(now);
+            pv.setEngValue(ValueUtility.getDoubleValue(i));
+            values[i] = pv;
+            if (i < numBuffered) {
+                lvc.enableBuffering(params[i], 16);
+            }
+            lvc.add(pv);
+        }
+    }
+
+    @Benchmark
+    @Group("readWrite")
+    @GroupThreads(1)
+    public void writer() {
+        int idx = ThreadLocalRandom.current().nextInt(numParameters);
+        lvc.add(values[idx]);
+    }
+
+    @Benchmark
+    @Group("readWrite")
+    @GroupThreads(3)
+    public ParameterValue reader() {
+        int idx = ThreadLocalRandom.current().nextInt(numParameters);
+        return lvc.getValue(params[idx]);
+    }
+}
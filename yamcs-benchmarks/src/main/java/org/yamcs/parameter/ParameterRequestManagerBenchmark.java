@@ -0,0 +1,167 @@
+package org.yamcs.parameter;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.yamcs.InvalidIdentification;
+import org.yamcs.Processor;
+import org.yamcs.ProcessorFactory;
+import org.yamcs.YConfiguration;
+import org.yamcs.events.EventProducerFactory;
+import org.yamcs.mdb.Mdb;
+import org.yamcs.mdb.MdbFactory;
+import org.yamcs.protobuf.Yamcs.NamedObjectId;
+import org.yamcs.utils.TimeEncoding;
+import org.yamcs.utils.ValueUtility;
+import org.yamcs.xtce.Parameter;
+import org.yamcs.yarch.rocksdb.RdbStorageEngine;
+
+import com.google.common.util.concurrent.AbstractService;
+
+/**
+ * Distribution of a delivery of parameter values to a number of subscribers, each subscribed to a random subset of
+ * the parameters of the reference MDB.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class ParameterRequestManagerBenchmark {
+
+    @Param({ "1", "10", "100" })
+    int numSubscribers;
+
+    /**
+     * number of parameters in each subscription
+     */
+    @Param({ "10", "100" })
+    int subscriptionSize;
+
+    /**
+     * number of parameter values in each delivery
+     */
+    @Param({ "10", "200" })
+    int deliverySize;
+
+    Processor processor;
+    ParameterRequestManager prm;
+    ParameterValueList delivery;
+
+    @Setup(Level.Trial)
+    public void setup(Blackhole bh) throws Exception {
+        YConfiguration.setupTest(null);
+        EventProducerFactory.setMockup(false);
+        MdbFactory.reset();
+        processor = ProcessorFactory.create("benchmark", "ParameterRequestManagerBenchmark",
+                new BenchmarkParameterProvider());
+        prm = processor.getParameterProcessorManager().getParameterRequestManager();
+
+        List<Parameter> params = new ArrayList<>(processor.getMdb().getParameters());
+        Random random = new Random(0);
+        for (int i = 0; i < numSubscribers; i++) {
+            Collections.shuffle(params, random);
+            prm.addRequest(new ArrayList<>(params.subList(0, Math.min(subscriptionSize, params.size()))),
+                    (ParameterConsumer) (subscriptionId, items) -> bh.consume(items));
+        }
+
+        Collections.shuffle(params, random);
+        long now = TimeEncoding.getWallclockTime();
+        delivery = new ParameterValueList();
+        for (Parameter p : params.subList(0, Math.min(deliverySize, params.size()))) {
+            ParameterValue pv = new ParameterValue(p);
+            pv.setGenerationTime(now);
+            pv.setAcquisitionTime(now);
+            pv.setEngValue(ValueUtility.getDoubleValue(3.14));
+            delivery.add(pv);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        processor.quit();
+        RdbStorageEngine.getInstance().shutdown();
+    }
+
+    @Benchmark
+    public void update() {
+        // the PRM takes ownership of the list passed to update, so pass a copy
+        prm.update(new ParameterValueList(delivery));
+    }
+
+    /**
+     * Pretends to provide all the parameters, the values are passed directly to the PRM by the benchmark
+     */
+    static class BenchmarkParameterProvider extends AbstractService implements ParameterProvider {
+        Mdb mdb;
+
+        @Override
+        public void init(Processor processor, YConfiguration config, Object spec) {
+            this.mdb = processor.getMdb();
+            processor.getParameterProcessorManager().addParameterProvider(this);
+        }
+
+        @Override
+        public void setParameterProcessor(ParameterProcessor parameterProcessor) {
+        }
+
+        @Override
+        public void startProviding(Parameter paramDef) {
+        }
+
+        @Override
+        public void startProvidingAll() {
+        }
+
+        @Override
+        public void stopProviding(Parameter paramDef) {
+        }
+
+        @Override
+        public boolean canProvide(NamedObjectId paraId) {
+            return mdb.getParameter(paraId) != null;
+        }
+
+        @Override
+        public Parameter getParameter(NamedObjectId paraId) throws InvalidIdentification {
+            Parameter p = mdb.getParameter(paraId);
+            if (p == null) {
+                throw new InvalidIdentification(paraId);
+            }
+            return p;
+        }
+
+        @Override
+        public boolean canProvide(Parameter param) {
+            return true;
+        }
+
+        @Override
+        protected void doStart() {
+            notifyStarted();
+        }
+
+        @Override
+        protected void doStop() {
+            notifyStopped();
+        }
+    }
+}
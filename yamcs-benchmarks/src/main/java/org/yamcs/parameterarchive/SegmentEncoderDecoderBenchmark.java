@@ -0,0 +1,90 @@
+package org.yamcs.parameterarchive;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.yamcs.utils.DecodingException;
+import org.yamcs.utils.TimeEncoding;
+import org.yamcs.utils.ValueUtility;
+
+/**
+ * Encoding and decoding of the parameter archive segments, as done when writing respectively reading the archive.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class SegmentEncoderDecoderBenchmark {
+
+    @Param({ "time", "int", "float", "double", "string" })
+    String segmentType;
+
+    /**
+     * number of values in the segment
+     */
+    @Param({ "500" })
+    int segmentSize;
+
+    long interval;
+    BaseSegment segment;
+    byte[] encoded;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        TimeEncoding.setUp();
+        interval = ParameterArchive.getInterval(TimeEncoding.getWallclockTime());
+
+        if ("time".equals(segmentType)) {
+            SortedTimeSegment s = new SortedTimeSegment(interval);
+            for (int i = 0; i < segmentSize; i++) {
+                // one value per second with a few milliseconds of jitter
+                s.add(interval + 1000L * i + (i * 7) % 5);
+            }
+            segment = s;
+        } else {
+            ValueSegment s = switch (segmentType) {
+            case "int" -> new IntValueSegment(false);
+            case "float" -> new FloatValueSegment();
+            case "double" -> new DoubleValueSegment();
+            case "string" -> new StringValueSegment(true);
+            default -> throw new IllegalArgumentException("Unknown segment type " + segmentType);
+            };
+            for (int i = 0; i < segmentSize; i++) {
+                s.add(switch (segmentType) {
+                // a slowly increasing counter
+                case "int" -> ValueUtility.getUint32Value(1000 + i / 10);
+                case "float" -> ValueUtility.getFloatValue((float) Math.sin(i / 50.0));
+                case "double" -> ValueUtility.getDoubleValue(Math.sin(i / 50.0));
+                // a few states, as for an enumerated parameter
+                default -> ValueUtility.getStringValue("STATE_" + (i / 20) % 4);
+                });
+            }
+            s.consolidate();
+            segment = (BaseSegment) s;
+        }
+        encoded = SegmentEncoderDecoder.encode(segment);
+    }
+
+    @Benchmark
+    public byte[] encode() {
+        return SegmentEncoderDecoder.encode(segment);
+    }
+
+    @Benchmark
+    public BaseSegment decode() throws DecodingException {
+        return SegmentEncoderDecoder.decode(encoded, interval);
+    }
+}
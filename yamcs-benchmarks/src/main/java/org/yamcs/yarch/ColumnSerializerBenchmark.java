@@ -0,0 +1,124 @@
+package org.yamcs.yarch;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.yamcs.StandardTupleDefinitions;
+import org.yamcs.parameter.ParameterValue;
+import org.yamcs.time.Instant;
+import org.yamcs.utils.ByteArray;
+import org.yamcs.utils.TimeEncoding;
+import org.yamcs.utils.ValueUtility;
+
+/**
+ * Serialisation and deserialisation of the columns of a tuple with the serializers used for writing the tables.
+ * <p>
+ * The tm tuple has the columns of a telemetry packet tuple (without the link which is an enum), the pp tuple has a
+ * few header columns followed by a number of parameter values.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class ColumnSerializerBenchmark {
+
+    @Param({ "tm", "pp" })
+    String tupleType;
+
+    /**
+     * number of parameter values in the pp tuple
+     */
+    @Param({ "20" })
+    int numParameters;
+
+    Tuple tuple;
+    ColumnSerializer<Object>[] serializers;
+    ByteArray out;
+    byte[] serialized;
+
+    @Setup(Level.Trial)
+    @SuppressWarnings("unchecked")
+    public void setup() {
+        TimeEncoding.setUp();
+        long now = TimeEncoding.getWallclockTime();
+        TupleDefinition tdef = new TupleDefinition();
+        List<Object> values = new ArrayList<>();
+
+        if ("tm".equals(tupleType)) {
+            tdef.addColumn(StandardTupleDefinitions.GENTIME_COLUMN, DataType.TIMESTAMP);
+            tdef.addColumn(StandardTupleDefinitions.SEQNUM_COLUMN, DataType.INT);
+            tdef.addColumn(StandardTupleDefinitions.TM_RECTIME_COLUMN, DataType.TIMESTAMP);
+            tdef.addColumn(StandardTupleDefinitions.TM_STATUS_COLUMN, DataType.INT);
+            tdef.addColumn(StandardTupleDefinitions.TM_PACKET_COLUMN, DataType.BINARY);
+            tdef.addColumn(StandardTupleDefinitions.TM_ERTIME_COLUMN, DataType.HRES_TIMESTAMP);
+            tdef.addColumn(StandardTupleDefinitions.TM_OBT_COLUMN, DataType.LONG);
+            byte[] packet = new byte[1024];
+            for (int i = 0; i < packet.length; i++) {
+                packet[i] = (byte) i;
+            }
+            values.add(now);
+            values.add(1234);
+            values.add(now);
+            values.add(0);
+            values.add(packet);
+            values.add(Instant.get(now, 123456));
+            values.add(987654321L);
+        } else {
+            tdef.addColumn(StandardTupleDefinitions.PARAMETER_COL_GENTIME, DataType.TIMESTAMP);
+            tdef.addColumn(StandardTupleDefinitions.PARAMETER_COL_SEQ_NUM, DataType.INT);
+            values.add(now);
+            values.add(1234);
+            for (int i = 0; i < numParameters; i++) {
+                String name = "/benchmark/subsys/param" + i;
+                tdef.addColumn(name, DataType.PARAMETER_VALUE);
+                ParameterValue pv = new ParameterValue(name);
+                pv.setGenerationTime(now);
+                pv.setAcquisitionTime(now);
+                pv.setRawValue(ValueUtility.getUint32Value(i));
+                pv.setEngValue(ValueUtility.getDoubleValue(i * 3.14));
+                values.add(pv);
+            }
+        }
+        tuple = new Tuple(tdef, values);
+        serializers = new ColumnSerializer[tdef.size()];
+        for (int i = 0; i < tdef.size(); i++) {
+            serializers[i] = ColumnSerializerFactory.getBasicColumnSerializerV3(tdef.getColumn(i).getType());
+        }
+        out = new ByteArray(4096);
+        serialized = serialize();
+    }
+
+    @Benchmark
+    public byte[] serialize() {
+        out.reset();
+        for (int i = 0; i < serializers.length; i++) {
+            serializers[i].serialize(out, tuple.getColumn(i));
+        }
+        return out.toArray();
+    }
+
+    @Benchmark
+    public void deserialize(Blackhole bh) {
+        ByteArray in = ByteArray.wrap(serialized);
+        TupleDefinition tdef = tuple.getDefinition();
+        for (int i = 0; i < serializers.length; i++) {
+            bh.consume(serializers[i].deserialize(in, tdef.getColumn(i)));
+        }
+    }
+}
@@ -0,0 +1,182 @@
+package org.yamcs.yarch.rocksdb;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.rocksdb.BlockBasedTableConfig;
+import org.rocksdb.BloomFilter;
+import org.rocksdb.CompressionType;
+import org.rocksdb.FlushOptions;
+import org.rocksdb.LRUCache;
+import org.rocksdb.Options;
+import org.rocksdb.ReadOptions;
+import org.rocksdb.RocksDB;
+import org.rocksdb.Slice;
+import org.rocksdb.WriteBatch;
+import org.rocksdb.WriteOptions;
+import org.yamcs.utils.ByteArrayUtils;
+import org.yamcs.utils.FileUtils;
+
+/**
+ * Prefix seeks over a table with many partitions, as done by the histogram and secondary index lookups.
+ * <p>
+ * The keys are made of a tbsIndex followed by a row number. Each partition is written to only one of the SST files,
+ * and the files are kept in level 0 so that they all overlap.
+ * <p>
+ * With prefixBloom=false the database and the iterator are configured as before the prefix bloom filters were
+ * introduced; each seek then reads a block from every file. With prefixBloom=true they are configured as by
+ * {@link RdbConfig} and {@link YRDB#newPrefixIterator(byte[])}, so the seeks skip the files whose bloom filter does
+ * not contain the prefix.
+ * <p>
+ * The seekMissing benchmark looks up prefixes falling between the existing partitions.
+ * <p>
+ * The data fits in the block cache, so the results show the CPU cost of the seeks rather than the disk reads.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class PrefixSeekBenchmark {
+    static {
+        RocksDB.loadLibrary();
+    }
+
+    @Param({ "false", "true" })
+    boolean prefixBloom;
+
+    @Param({ "20" })
+    int numFiles;
+
+    @Param({ "1000" })
+    int numPartitions;
+
+    @Param({ "100" })
+    int rowsPerPartition;
+
+    /**
+     * number of rows read after each seek
+     */
+    @Param({ "10" })
+    int rowsRead;
+
+    Path dir;
+    Options options;
+    LRUCache cache;
+    RocksDB db;
+    Random random = new Random(1);
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        dir = Files.createTempDirectory("prefix-seek-benchmark");
+        cache = new LRUCache(64 * 1024 * 1024);
+
+        BlockBasedTableConfig tableConfig = new BlockBasedTableConfig();
+        tableConfig.setBlockSize(256L * 1024);
+        tableConfig.setFormatVersion(5);
+        tableConfig.setBlockCache(cache);
+
+        options = new Options();
+        options.setCreateIfMissing(true);
+        options.setCompressionType(CompressionType.LZ4_COMPRESSION);
+        options.setDisableAutoCompactions(true);
+        options.setLevel0SlowdownWritesTrigger(1000);
+        options.setLevel0StopWritesTrigger(1000);
+        if (prefixBloom) {
+            options.useFixedLengthPrefixExtractor(RdbStorageEngine.TBS_INDEX_SIZE);
+            options.setMemtablePrefixBloomSizeRatio(RdbConfig.DEFAULT_MEMTABLE_PREFIX_BLOOM_SIZE_RATIO);
+            tableConfig.setFilterPolicy(new BloomFilter(RdbConfig.DEFAULT_BLOOM_FILTER_BITS_PER_KEY));
+            tableConfig.setWholeKeyFiltering(true);
+        }
+        options.setTableFormatConfig(tableConfig);
+        db = RocksDB.open(options, dir.toString());
+
+        byte[] value = new byte[256];
+        random.nextBytes(value);
+        try (WriteOptions wo = new WriteOptions(); FlushOptions fo = new FlushOptions().setWaitForFlush(true)) {
+            for (int f = 0; f < numFiles; f++) {
+                try (WriteBatch batch = new WriteBatch()) {
+                    for (int p = f; p < numPartitions; p += numFiles) {
+                        for (int i = 0; i < rowsPerPartition; i++) {
+                            batch.put(key(existingPrefix(p), i), value);
+                        }
+                    }
+                    db.write(wo, batch);
+                }
+                db.flush(fo);
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        db.close();
+        options.close();
+        cache.close();
+        FileUtils.deleteRecursively(dir);
+    }
+
+    @Benchmark
+    public void seekExisting(Blackhole bh) {
+        seek(existingPrefix(random.nextInt(numPartitions)), bh);
+    }
+
+    @Benchmark
+    public void seekMissing(Blackhole bh) {
+        seek(missingPrefix(random.nextInt(numPartitions)), bh);
+    }
+
+    private void seek(byte[] prefix, Blackhole bh) {
+        try (DbIterator it = newPrefixIterator(prefix)) {
+            for (int i = 0; i < rowsRead && it.isValid(); i++) {
+                bh.consume(it.value());
+                it.next();
+            }
+        }
+    }
+
+    private DbIterator newPrefixIterator(byte[] prefix) {
+        if (!prefixBloom) {
+            return new AscendingRangeIterator(db.newIterator(), prefix, prefix);
+        }
+        ReadOptions readOptions = new ReadOptions();
+        Slice upperBound = YRDB.upperBound(prefix);
+        readOptions.setIterateUpperBound(upperBound);
+        readOptions.setAutoPrefixMode(true);
+        AscendingRangeIterator it = new AscendingRangeIterator(db.newIterator(readOptions), prefix, prefix);
+        it.closeAfter(readOptions, upperBound);
+        return it;
+    }
+
+    private static byte[] existingPrefix(int partition) {
+        return ByteArrayUtils.encodeInt(2 * partition + 2, new byte[RdbStorageEngine.TBS_INDEX_SIZE], 0);
+    }
+
+    private static byte[] missingPrefix(int partition) {
+        return ByteArrayUtils.encodeInt(2 * partition + 1, new byte[RdbStorageEngine.TBS_INDEX_SIZE], 0);
+    }
+
+    private static byte[] key(byte[] prefix, int row) {
+        byte[] key = new byte[prefix.length + 8];
+        System.arraycopy(prefix, 0, key, 0, prefix.length);
+        ByteArrayUtils.encodeLong(row, key, prefix.length);
+        return key;
+    }
+}
@@ -0,0 +1,57 @@
+package org.yamcs.yarch.streamsql;
+
+import java.io.StringReader;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.yamcs.utils.parser.ParseException;
+
+/**
+ * Parsing of StreamSQL statements into their executable form, as done for each API request using a SQL query and
+ * for the statements executed at startup.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class StreamSqlParserBenchmark {
+
+    @Param({ "createStream", "select", "selectWhere", "createTable", "insert" })
+    String statement;
+
+    String query;
+
+    @Setup
+    public void setup() {
+        query = switch (statement) {
+        case "createStream" -> "create stream tm_realtime (gentime timestamp, seqNum int, rectime timestamp,"
+                + " status int, packet binary, ertime hres_timestamp, obt long, link enum)";
+        case "select" -> "select * from tm";
+        case "selectWhere" -> "select gentime, seqNum, packet from tm where gentime >= 1000 and gentime < 200000"
+                + " and pname in ('/YSS/SIMULATOR/FlightData', '/YSS/SIMULATOR/Power') order desc limit 100";
+        case "createTable" -> "create table if not exists tm (gentime timestamp, seqNum int, packet binary,"
+                + " pname enum, primary key(gentime, seqNum)) histogram(pname) partition by time_and_value"
+                + " (gentime('YYYY'), pname) table_format=compressed";
+        case "insert" -> "insert into tm select * from tm_realtime where seqNum > 0";
+        default -> throw new IllegalArgumentException("Unknown statement " + statement);
+        };
+    }
+
+    @Benchmark
+    public StreamSqlStatement parse() throws ParseException, StreamSqlException {
+        StreamSqlParser parser = new StreamSqlParser(new StringReader(query));
+        return parser.OneStatement();
+    }
+}
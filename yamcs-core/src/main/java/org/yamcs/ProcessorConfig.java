@@ -46,6 +46,10 @@ public class ProcessorConfig {
     // if positive, the number of days to load the past alarms at startup
     private double alarmLoadDays = 30;
 
+    // if true, the alarm listeners are notified in a dedicated thread
+    boolean alarmAsyncNotifications = false;
+    int alarmAsyncNotificationQueueSize = 10000;
+
     /**
      * If this is set to true, the {@link MetaCommandProcessor} will release commands without binary encoding if a
      * MetaCommand has no container associated.
@@ -126,6 +130,8 @@ public class ProcessorConfig {
         spec.addOption("parameterServer", OptionType.STRING).withDefault("enabled");
         spec.addOption("eventServer", OptionType.STRING).withDefault("disabled");
         spec.addOption("eventAlarmMinViolations", OptionType.INTEGER).withDefault(1);
+        spec.addOption("asyncNotifications", OptionType.BOOLEAN).withDefault(false);
+        spec.addOption("asyncNotificationQueueSize", OptionType.INTEGER).withDefault(10000);
 
         return spec;
     }
@@ -149,6 +155,9 @@ public class ProcessorConfig {
         eventAlarmServerEnabled = "enabled".equalsIgnoreCase(alarmConfig.getString("eventServer", null));
         eventAlarmMinViolations = alarmConfig.getInt("eventAlarmMinViolations", eventAlarmMinViolations);
         alarmLoadDays = alarmConfig.getDouble("alarmLoadDays", alarmLoadDays);
+        alarmAsyncNotifications = alarmConfig.getBoolean("asyncNotifications", alarmAsyncNotifications);
+        alarmAsyncNotificationQueueSize = alarmConfig.getInt("asyncNotificationQueueSize",
+                alarmAsyncNotificationQueueSize);
     }
 
     /**
@@ -247,6 +256,28 @@ public class ProcessorConfig {
         this.alarmLoadDays = alarmLoadDays;
     }
 
+    /**
+     * Returns true if the alarm servers notify their listeners in a dedicated thread, in the order of the
+     * notifications, instead of the thread changing the alarm.
+     * 
+     * @return true if the alarm notifications are asynchronous
+     */
+    public boolean isAlarmAsyncNotifications() {
+        return alarmAsyncNotifications;
+    }
+
+    public void setAlarmAsyncNotifications(boolean alarmAsyncNotifications) {
+        this.alarmAsyncNotifications = alarmAsyncNotifications;
+    }
+
+    public int getAlarmAsyncNotificationQueueSize() {
+        return alarmAsyncNotificationQueueSize;
+    }
+
+    public void setAlarmAsyncNotificationQueueSize(int alarmAsyncNotificationQueueSize) {
+        this.alarmAsyncNotificationQueueSize = alarmAsyncNotificationQueueSize;
+    }
+
     @Override
     public String toString() {
         return "ProcessorConfig [checkParameterAlarms=" + checkParameterAlarms + ", parameterAlarmServerEnabled="
@@ -254,6 +285,7 @@ public class ProcessorConfig {
                 + maxTcSize + ", recordInitialValues=" + recordInitialValues + ", recordLocalValues="
                 + recordLocalValues + ", eventAlarmMinViolations=" + eventAlarmMinViolations + ", subscribeAll="
                 + subscribeAll + ", generateEvents=" + generateEvents + ", containerProcOptions=" + containerProcOptions
-                + ", alarmLoadDays=" + alarmLoadDays + "]";
+                + ", alarmLoadDays=" + alarmLoadDays + ", alarmAsyncNotifications=" + alarmAsyncNotifications
+                + ", alarmAsyncNotificationQueueSize=" + alarmAsyncNotificationQueueSize + "]";
     }
 }
@@ -12,6 +12,8 @@ import org.slf4j.LoggerFactory;
 import org.yamcs.mdb.Mdb;
 import org.yamcs.mdb.MdbFactory;
 import org.yamcs.xtce.SequenceContainer;
+import org.yamcs.yarch.AsyncStreamSubscriber;
+import org.yamcs.yarch.AsyncStreamSubscriber.OverflowPolicy;
 
 /**
  * Stores the value of the streamConfiguration parameter from yamcs.instance.yaml Used to create the streams at Yamcs
@@ -125,9 +127,27 @@ public class StreamConfig {
         } else {
             entry = new StreamConfigEntry(type, streamName, processor);
         }
+        if (streamConf.containsKey("asyncDelivery")) {
+            if (type == StandardStreamType.SQL_FILE) {
+                throw new ConfigurationException("asyncDelivery cannot be used with sqlFile entries");
+            }
+            entry.asyncDelivery = parseAsyncDelivery(streamName, streamConf.getConfig("asyncDelivery"));
+        }
         entries.add(entry);
     }
 
+    private static AsyncStreamSubscriber.Config parseAsyncDelivery(String streamName, YConfiguration conf) {
+        int queueSize = conf.getInt("queueSize", AsyncStreamSubscriber.Config.DEFAULT_QUEUE_SIZE);
+        int maxBatchSize = conf.getInt("maxBatchSize", AsyncStreamSubscriber.Config.DEFAULT_MAX_BATCH_SIZE);
+        OverflowPolicy policy = conf.getEnum("overflowPolicy", OverflowPolicy.class, OverflowPolicy.BLOCK);
+        try {
+            return new AsyncStreamSubscriber.Config(queueSize, maxBatchSize, policy);
+        } catch (IllegalArgumentException e) {
+            throw new ConfigurationException("Invalid asyncDelivery configuration for stream " + streamName + ": "
+                    + e.getMessage());
+        }
+    }
+
     /**
      * get all stream configurations
      * 
@@ -184,6 +204,11 @@ public class StreamConfig {
          */
         String processor;
 
+        /**
+         * if not null, the stream delivers the tuples asynchronously to its subscribers
+         */
+        AsyncStreamSubscriber.Config asyncDelivery;
+
         public StreamConfigEntry(StandardStreamType type, String name, String processor) {
             super();
             this.type = type;
@@ -211,6 +236,14 @@ public class StreamConfig {
         public String getProcessor() {
             return processor;
         }
+
+        /**
+         * Return the configuration of the asynchronous delivery or null if the stream delivers synchronously the tuples
+         * to its subscribers
+         */
+        public AsyncStreamSubscriber.Config getAsyncDelivery() {
+            return asyncDelivery;
+        }
     }
 
     public TmStreamConfigEntry getTmEntry(String streamName) {
@@ -9,6 +9,7 @@ import org.slf4j.LoggerFactory;
 import org.yamcs.StreamConfig.StreamConfigEntry;
 import org.yamcs.utils.parser.ParseException;
 import org.yamcs.yarch.ExecutionContext;
+import org.yamcs.yarch.Stream;
 import org.yamcs.yarch.Tuple;
 import org.yamcs.yarch.TupleDefinition;
 import org.yamcs.yarch.YarchDatabase;
@@ -74,6 +75,15 @@ public class StreamInitializer {
             } else {
                 throw new IllegalArgumentException("Unknown stream type " + sce.type);
             }
+            if (sce.getAsyncDelivery() != null) {
+                Stream s = ydb.getStream(sce.name);
+                if (s == null) {
+                    throw new ConfigurationException("Cannot enable asynchronous delivery on stream " + sce.name
+                            + ": the stream does not exist");
+                }
+                s.enableAsyncDelivery(sce.getAsyncDelivery());
+                log.debug("Enabled asynchronous delivery on stream {}: {}", sce.name, sce.getAsyncDelivery());
+            }
         }
     }
 
@@ -3,9 +3,16 @@ package org.yamcs.alarms;
 import static org.yamcs.alarms.AlarmStreamer.CNAME_TRIGGER_TIME;
 
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
 
 import org.yamcs.YamcsServer;
 import org.yamcs.logging.Log;
@@ -22,6 +29,7 @@ import org.yamcs.yarch.streamsql.StreamSqlException;
 import org.yamcs.yarch.streamsql.StreamSqlResult;
 
 import com.google.common.util.concurrent.AbstractService;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 
 public abstract class AbstractAlarmServer<S, T> extends AbstractService {
     final protected Log log;
@@ -31,9 +39,14 @@ public abstract class AbstractAlarmServer<S, T> extends AbstractService {
     Map<Stream, StreamSubscriber> susbscribers = new HashMap<>();
 
     // NUM_LOCKS has to be power of 2
-    static final int NUM_LOCKS = 32;
+    static final int NUM_LOCKS = 256;
     Object[] locks;
 
+    // if not null, the listeners are notified in this single thread executor instead of the caller thread
+    private ThreadPoolExecutor notifier;
+    // number of times a notification could not be queued immediately because the queue was full
+    private final AtomicLong notifierBlockedCount = new AtomicLong();
+
     protected Map<S, ActiveAlarm<T>> activeAlarms = new ConcurrentHashMap<>();
     protected CopyOnWriteArrayList<AlarmListener<T>> alarmListeners = new CopyOnWriteArrayList<>();
 
@@ -70,24 +83,114 @@ public abstract class AbstractAlarmServer<S, T> extends AbstractService {
         alarmListeners.remove(listener);
     }
 
+    /**
+     * Deliver the notifications to the listeners in a dedicated thread, in the order they are produced.
+     * <p>
+     * The listeners receive a snapshot of the alarm taken when the notification was produced, such that a slow
+     * listener does not hold the lock of the alarm subject.
+     * <p>
+     * At most {@code queueSize} notifications are kept waiting for delivery; when the queue is full, the thread
+     * producing the notification is blocked until there is space. This bounds the memory and the delay of the
+     * notifications if the listeners cannot keep up.
+     */
+    protected void enableAsyncNotifications(int queueSize) {
+        if (notifier == null) {
+            notifier = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(queueSize),
+                    new ThreadFactoryBuilder().setNameFormat("alarm-notifier-" + yamcsInstance).setDaemon(true)
+                            .build(),
+                    this::blockUntilQueued);
+        }
+    }
+
+    private void blockUntilQueued(Runnable r, ThreadPoolExecutor executor) {
+        if (executor.isShutdown()) {
+            throw new RejectedExecutionException("Alarm notifier stopped");
+        }
+        notifierBlockedCount.incrementAndGet();
+        try {
+            executor.getQueue().put(r);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RejectedExecutionException(e);
+        }
+    }
+
+    /**
+     * @return the number of notifications waiting to be delivered to the listeners (always 0 if the async
+     *         notifications are not enabled)
+     */
+    public int getNotificationQueueDepth() {
+        return notifier == null ? 0 : notifier.getQueue().size();
+    }
+
+    /**
+     * @return the number of times a notification could not be queued immediately because the queue was full and the
+     *         producer had to wait
+     */
+    public long getNotificationBlockedCount() {
+        return notifierBlockedCount.get();
+    }
+
+    /**
+     * Delivers the pending notifications and stops the notification thread, if async notifications are enabled.
+     */
+    protected void stopAsyncNotifications() {
+        if (notifier == null) {
+            return;
+        }
+        notifier.shutdown();
+        try {
+            if (!notifier.awaitTermination(10, TimeUnit.SECONDS)) {
+                log.warn("Timeout waiting for the delivery of the alarm notifications");
+                notifier.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
     void notifyUpdate(AlarmNotificationType notificationType, ActiveAlarm<T> alarm) {
         if (alarm.getTriggerValue() != null) {
-            alarmListeners.forEach(l -> l.notifyUpdate(notificationType, alarm));
+            deliver(alarm, (l, a) -> l.notifyUpdate(notificationType, a));
         } // else the alarm has never been triggered probably due to the minViolatios not being met
     }
 
     void notifySeverityIncrease(ActiveAlarm<T> alarm) {
         if (alarm.getTriggerValue() != null) {
-            alarmListeners.forEach(l -> l.notifySeverityIncrease(alarm));
+            deliver(alarm, AlarmListener::notifySeverityIncrease);
         } // else the alarm has never been triggered probably due to the minViolatios not being met
     }
 
     void notifyValueUpdate(ActiveAlarm<T> alarm) {
         if (alarm.getTriggerValue() != null) {
-            alarmListeners.forEach(l -> l.notifyValueUpdate(alarm));
+            deliver(alarm, AlarmListener::notifyValueUpdate);
         } // else the alarm has never been triggered probably due to the minViolatios not being met
     }
 
+    private void deliver(ActiveAlarm<T> alarm, BiConsumer<AlarmListener<T>, ActiveAlarm<T>> notification) {
+        if (notifier == null) {
+            alarmListeners.forEach(l -> notification.accept(l, alarm));
+        } else if (!alarmListeners.isEmpty()) {
+            ActiveAlarm<T> snapshot = new ActiveAlarm<>(alarm);
+            // the listeners registered after this point will not receive this notification (they may have already
+            // seen a more recent state of the alarm)
+            List<AlarmListener<T>> listeners = List.copyOf(alarmListeners);
+            try {
+                notifier.execute(() -> {
+                    for (AlarmListener<T> l : listeners) {
+                        try {
+                            notification.accept(l, snapshot);
+                        } catch (Exception e) {
+                            log.error("Error invoking alarm listener", e);
+                        }
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                log.debug("Alarm server stopped, dropping notification for {}", alarm);
+            }
+        }
+    }
+
     protected void loadAlarmsFromDb(double numDays, Map<S, ActiveAlarm<T>> alarms) {
         Mdb mdb = MdbFactory.getInstance(yamcsInstance);
         YarchDatabaseInstance ydb = YarchDatabase.getInstance(yamcsInstance);
@@ -129,7 +232,8 @@ public abstract class AbstractAlarmServer<S, T> extends AbstractService {
     }
 
     protected Object getLock(S alarmId) {
-        return locks[alarmId.hashCode() & (NUM_LOCKS - 1)];
+        int h = alarmId.hashCode();
+        return locks[(h ^ (h >>> 16)) & (NUM_LOCKS - 1)];
     }
 
     protected abstract void addActiveAlarmFromTuple(Mdb mdb, Tuple t, Map<S, ActiveAlarm<T>> alarms);
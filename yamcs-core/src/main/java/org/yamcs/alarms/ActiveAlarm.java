@@ -85,6 +85,33 @@ public class ActiveAlarm<T> {
         this(pv, autoAck, latching, counter.getAndIncrement());
     }
 
+    /**
+     * Creates a snapshot of the given alarm, with the same id.
+     * <p>
+     * The alarm server calls it while holding the lock of the alarm subject.
+     */
+    ActiveAlarm(ActiveAlarm<T> other) {
+        this.autoAcknowledge = other.autoAcknowledge;
+        this.latching = other.latching;
+        this.id = other.id;
+        this.processOK = other.processOK;
+        this.triggered = other.triggered;
+        this.acknowledged = other.acknowledged;
+        this.triggerValue = other.triggerValue;
+        this.mostSevereValue = other.mostSevereValue;
+        this.currentValue = other.currentValue;
+        this.shelveTime = other.shelveTime;
+        this.violations = other.violations;
+        this.valueCount = other.valueCount;
+        this.ackEvent = other.ackEvent;
+        this.clearEvent = other.clearEvent;
+        this.resetEvent = other.resetEvent;
+        this.shelveEvent = other.shelveEvent;
+        this.shelved = other.shelved;
+        this.shelveDuration = other.shelveDuration;
+        this.pending = other.pending;
+    }
+
     public boolean isAutoAcknowledge() {
         return autoAcknowledge;
     }
@@ -33,6 +33,9 @@ public abstract class AlarmServer<S, T> extends AbstractAlarmServer<S, T> {
     public AlarmServer(String yamcsInstance, ProcessorConfig procConfig, ScheduledThreadPoolExecutor timer) {
         super(yamcsInstance);
         this.timer = timer;
+        if (procConfig.isAlarmAsyncNotifications()) {
+            enableAsyncNotifications(procConfig.getAlarmAsyncNotificationQueueSize());
+        }
         if (procConfig.getAlarmLoadDays() > 0) {
             loadAlarmsFromDb(procConfig.getAlarmLoadDays(), activeAlarms);
         }
@@ -50,17 +53,15 @@ public abstract class AlarmServer<S, T> extends AbstractAlarmServer<S, T> {
      *             when the specified id does not match the id of the active alarm
      */
     public ActiveAlarm<T> getActiveAlarm(S subject, int id) throws AlarmSequenceException {
-        var lock = getLock(subject);
-        synchronized (lock) {
-            ActiveAlarm<T> alarm = activeAlarms.get(subject);
-            if (alarm != null) {
-                if (alarm.getId() != id) {
-                    throw new AlarmSequenceException(alarm.getId(), id);
-                }
-                return alarm;
+        // the id of an alarm never changes so the lock of the subject is not required
+        ActiveAlarm<T> alarm = activeAlarms.get(subject);
+        if (alarm != null) {
+            if (alarm.getId() != id) {
+                throw new AlarmSequenceException(alarm.getId(), id);
             }
-            return null;
+            return alarm;
         }
+        return null;
     }
 
     /**
@@ -194,15 +195,20 @@ public abstract class AlarmServer<S, T> extends AbstractAlarmServer<S, T> {
     private void checkShelved() {
         long t = TimeEncoding.getWallclockTime();
 
-        for (ActiveAlarm<T> alarm : activeAlarms.values()) {
+        for (var entry : activeAlarms.entrySet()) {
+            ActiveAlarm<T> alarm = entry.getValue();
             if (alarm.isShelved()) {
                 long exp = alarm.getShelveExpiration();
                 if (exp == -1) {
                     continue;
                 }
                 if (exp <= t) {
-                    alarm.unshelve();
-                    notifyUpdate(AlarmNotificationType.UNSHELVED, alarm);
+                    synchronized (getLock(entry.getKey())) {
+                        if (alarm.isShelved()) {
+                            alarm.unshelve();
+                            notifyUpdate(AlarmNotificationType.UNSHELVED, alarm);
+                        }
+                    }
                 }
             }
         }
@@ -361,6 +367,7 @@ public abstract class AlarmServer<S, T> extends AbstractAlarmServer<S, T> {
 
     @Override
     public void doStop() {
+        stopAsyncNotifications();
         // run the notifyShutdown in order to save the latest alarm information to the database
         for (var alarm : activeAlarms.values()) {
             alarmListeners.forEach(l -> l.notifyShutdown(alarm));
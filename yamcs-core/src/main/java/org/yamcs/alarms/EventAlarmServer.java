@@ -82,6 +82,7 @@ public class EventAlarmServer extends AlarmServer<EventId, Event> {
     @Override
     public void doStop() {
         eventStream.removeSubscriber(eventStreamSubscriber);
+        stopAsyncNotifications();
         notifyStopped();
     }
 
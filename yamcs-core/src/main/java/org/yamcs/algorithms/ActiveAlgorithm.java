@@ -1,5 +1,7 @@
 package org.yamcs.algorithms;
 
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
 import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.CopyOnWriteArrayList;
@@ -27,6 +29,8 @@ import com.google.protobuf.util.Timestamps;
  */
 public class ActiveAlgorithm {
     static final Logger log = LoggerFactory.getLogger(ActiveAlgorithm.class);
+    static final ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+    static final boolean cpuTimeSupported = threadMXBean.isCurrentThreadCpuTimeSupported();
     EventProducer eventProducer;
 
     /**
@@ -62,6 +66,13 @@ public class ActiveAlgorithm {
      */
     long totalExecTimeNs;
 
+    /**
+     * How much CPU time the algorithm used in total nanoseconds
+     * <p>
+     * Stays 0 if the JVM does not support measuring the CPU time of the current thread
+     */
+    long totalCpuTimeNs;
+
     /**
      * How many times the algorithm run with error
      */
@@ -113,6 +124,7 @@ public class ActiveAlgorithm {
         lastRun = System.currentTimeMillis();
 
         long t0 = System.nanoTime();
+        long c0 = cpuTime();
         try {
             AlgorithmExecutionResult result = executor.execute(acqTime, genTime, ctx);
             propagateResultToListeners(result);
@@ -134,10 +146,17 @@ public class ActiveAlgorithm {
         }
         long t1 = System.nanoTime();
         totalExecTimeNs += (t1 - t0);
+        if (c0 >= 0) {
+            totalCpuTimeNs += (cpuTime() - c0);
+        }
 
         return output;
     }
 
+    private static long cpuTime() {
+        return cpuTimeSupported ? threadMXBean.getCurrentThreadCpuTime() : -1;
+    }
+
     private void propagateResultToListeners(AlgorithmExecutionResult result) {
         try {
             execListeners.forEach(
@@ -201,6 +220,7 @@ public class ActiveAlgorithm {
         }
         statusb.setLastRun(Timestamps.fromMillis(lastRun));
         statusb.setExecTimeNs(totalExecTimeNs);
+        statusb.setCpuTimeNs(totalCpuTimeNs);
 
         return statusb;
     }
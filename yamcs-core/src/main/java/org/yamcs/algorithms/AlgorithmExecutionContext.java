@@ -1,10 +1,16 @@
 package org.yamcs.algorithms;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 
 import org.yamcs.events.EventProducer;
 import org.yamcs.logging.Log;
@@ -16,6 +22,12 @@ import org.yamcs.parameter.ParameterValueList;
 import org.yamcs.protobuf.AlgorithmStatus;
 import org.yamcs.xtce.Algorithm;
 import org.yamcs.xtce.Algorithm.Scope;
+import org.yamcs.xtce.InputParameter;
+import org.yamcs.xtce.OnParameterUpdateTrigger;
+import org.yamcs.xtce.OutputParameter;
+import org.yamcs.xtce.Parameter;
+import org.yamcs.xtce.ParameterInstanceRef;
+import org.yamcs.xtce.TriggerSetType;
 
 /**
  * A context is a collection of active algorithms. Each algorithm has only one instance active in a given context.
@@ -24,13 +36,22 @@ import org.yamcs.xtce.Algorithm.Scope;
  * <p>
  * The {@link #process(long, ProcessingContext)} method will trigger calling all the active algorithms from this context in
  * order.
- *
+ * <p>
+ * If a pool is set, the algorithms are grouped in levels according to the dependencies between their outputs and
+ * inputs. The levels are processed in order and the triggered algorithms of one level run concurrently in the pool;
+ * their results are added to the processing context in the order of activation once the whole level has finished.
  */
 public class AlgorithmExecutionContext {
     static final Log log = new Log(AlgorithmExecutionContext.class);
 
     CopyOnWriteArrayList<ActiveAlgorithm> executionOrder = new CopyOnWriteArrayList<>();
 
+    // algorithms grouped by their depth in the dependency graph, computed when required
+    private volatile List<List<ActiveAlgorithm>> levels;
+
+    // if set, the independent algorithms are run in parallel in this pool
+    private ForkJoinPool pool;
+
     // algorithm tracers fqn -> AlgorithmTrace
     final Map<String, AlgorithmTrace> tracers = new HashMap<>();
 
@@ -66,26 +87,95 @@ public class AlgorithmExecutionContext {
         } else if (cmdParams != null && !cmdParams.isEmpty()) {
             genTime = cmdParams.getFirst().getGenerationTime();
         }
+        if (pool != null) {
+            processLevels(acqTime, genTime, pctx);
+            return;
+        }
         for (ActiveAlgorithm activeAlgo : executionOrder) {
             boolean shouldRun = activeAlgo.update(pctx);
             if (shouldRun) {
                 log.trace("Running algorithm {}", activeAlgo.getAlgorithm().getName());
                 List<ParameterValue> r = runAlgorithm(activeAlgo, acqTime, genTime, pctx);
-                if (r == null || r.isEmpty()) {
-                    continue;
+                addResult(activeAlgo, r, pctx);
+            }
+        }
+    }
+
+    private void processLevels(long acqTime, long genTime, ProcessingContext pctx) {
+        for (List<ActiveAlgorithm> level : getLevels()) {
+            List<ActiveAlgorithm> toRun = new ArrayList<>(level.size());
+            for (ActiveAlgorithm activeAlgo : level) {
+                if (activeAlgo.update(pctx)) {
+                    toRun.add(activeAlgo);
+                }
+            }
+            if (toRun.isEmpty()) {
+                continue;
+            }
+            List<List<ParameterValue>> results = runConcurrently(toRun, acqTime, genTime, pctx);
+            for (int i = 0; i < toRun.size(); i++) {
+                ActiveAlgorithm activeAlgo = toRun.get(i);
+                checkErrorCount(activeAlgo);
+                addResult(activeAlgo, results.get(i), pctx);
+            }
+        }
+    }
+
+    /**
+     * Runs the algorithms in the pool and returns their outputs in the same order.
+     * <p>
+     * The script algorithms share the script engine of their factory so they are run one after the other in the same
+     * task.
+     */
+    private List<List<ParameterValue>> runConcurrently(List<ActiveAlgorithm> toRun, long acqTime, long genTime,
+            ProcessingContext pctx) {
+        int n = toRun.size();
+        if (n == 1) {
+            return Collections.singletonList(toRun.get(0).runAlgorithm(acqTime, genTime, pctx));
+        }
+        List<List<ParameterValue>> results = new ArrayList<>(Collections.nCopies(n, null));
+        List<ForkJoinTask<?>> tasks = new ArrayList<>(n);
+        List<Integer> scriptAlgos = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            ActiveAlgorithm activeAlgo = toRun.get(i);
+            if (activeAlgo.executor instanceof ScriptAlgorithmExecutor) {
+                scriptAlgos.add(i);
+            } else {
+                int idx = i;
+                tasks.add(pool.submit(() -> {
+                    results.set(idx, activeAlgo.runAlgorithm(acqTime, genTime, pctx));
+                }));
+            }
+        }
+        if (!scriptAlgos.isEmpty()) {
+            tasks.add(pool.submit(() -> {
+                for (int idx : scriptAlgos) {
+                    results.set(idx, toRun.get(idx).runAlgorithm(acqTime, genTime, pctx));
                 }
-                if (activeAlgo.getScope() == Scope.GLOBAL) {
-                    if (tmParams != null) {
-                        tmParams.addAll(r);
-                    }
-                } else if (cmdParams != null) {
-                    for (ParameterValue pv : r) {
-                        if (pv.getParameter().isCommandParameter()) {
-                            cmdParams.add(pv);
-                        } else if (tmParams != null) {
-                            tmParams.add(pv);
-                        }
-                    }
+            }));
+        }
+        for (ForkJoinTask<?> task : tasks) {
+            task.join();
+        }
+        return results;
+    }
+
+    private void addResult(ActiveAlgorithm activeAlgo, List<ParameterValue> r, ProcessingContext pctx) {
+        if (r == null || r.isEmpty()) {
+            return;
+        }
+        ParameterValueList tmParams = pctx.getTmParams();
+        ParameterValueList cmdParams = pctx.getCmdParams();
+        if (activeAlgo.getScope() == Scope.GLOBAL) {
+            if (tmParams != null) {
+                tmParams.addAll(r);
+            }
+        } else if (cmdParams != null) {
+            for (ParameterValue pv : r) {
+                if (pv.getParameter().isCommandParameter()) {
+                    cmdParams.add(pv);
+                } else if (tmParams != null) {
+                    tmParams.add(pv);
                 }
             }
         }
@@ -93,6 +183,11 @@ public class AlgorithmExecutionContext {
 
     List<ParameterValue> runAlgorithm(ActiveAlgorithm activeAlgo, long acqTime, long genTime, ProcessingContext pctx) {
         List<ParameterValue> params = activeAlgo.runAlgorithm(acqTime, genTime, pctx);
+        checkErrorCount(activeAlgo);
+        return params;
+    }
+
+    private void checkErrorCount(ActiveAlgorithm activeAlgo) {
         if (activeAlgo.getErrorCount() >= maxErrCount) {
             Algorithm algo = activeAlgo.getAlgorithm();
             log.warn("Algorithm {} has faulted {} times, deactivating", algo.getQualifiedName(),
@@ -106,8 +201,91 @@ public class AlgorithmExecutionContext {
             algorithmsInError.put(algo.getQualifiedName(), status.build());
 
             executionOrder.remove(activeAlgo);
+            levels = null;
         }
-        return params;
+    }
+
+    private List<List<ActiveAlgorithm>> getLevels() {
+        List<List<ActiveAlgorithm>> l = levels;
+        if (l == null) {
+            l = computeLevels(executionOrder);
+            levels = l;
+        }
+        return l;
+    }
+
+    /**
+     * Groups the algorithms by their depth in the graph connecting the algorithms producing a parameter to the ones
+     * using it as input or trigger. The algorithms of one level do not depend on each other.
+     * <p>
+     * Within a level, the algorithms keep their relative order from the list.
+     */
+    static List<List<ActiveAlgorithm>> computeLevels(List<ActiveAlgorithm> algorithms) {
+        Map<Parameter, List<ActiveAlgorithm>> producers = new HashMap<>();
+        for (ActiveAlgorithm activeAlgo : algorithms) {
+            for (OutputParameter op : activeAlgo.getOutputList()) {
+                producers.computeIfAbsent(op.getParameter(), p -> new ArrayList<>()).add(activeAlgo);
+            }
+        }
+        Map<ActiveAlgorithm, Integer> depths = new HashMap<>();
+        List<List<ActiveAlgorithm>> result = new ArrayList<>();
+        for (ActiveAlgorithm activeAlgo : algorithms) {
+            int depth = getDepth(activeAlgo, producers, depths, new HashSet<>());
+            while (result.size() <= depth) {
+                result.add(new ArrayList<>());
+            }
+            result.get(depth).add(activeAlgo);
+        }
+        return result;
+    }
+
+    // the dependency cycles (which should not exist) are broken where they are found
+    private static int getDepth(ActiveAlgorithm activeAlgo, Map<Parameter, List<ActiveAlgorithm>> producers,
+            Map<ActiveAlgorithm, Integer> depths, Set<ActiveAlgorithm> visiting) {
+        Integer d = depths.get(activeAlgo);
+        if (d != null) {
+            return d;
+        }
+        visiting.add(activeAlgo);
+        int depth = 0;
+        for (Parameter p : getDependencies(activeAlgo)) {
+            for (ActiveAlgorithm producer : producers.getOrDefault(p, Collections.emptyList())) {
+                if (!visiting.contains(producer)) {
+                    depth = Math.max(depth, getDepth(producer, producers, depths, visiting) + 1);
+                }
+            }
+        }
+        visiting.remove(activeAlgo);
+        depths.put(activeAlgo, depth);
+        return depth;
+    }
+
+    private static List<Parameter> getDependencies(ActiveAlgorithm activeAlgo) {
+        List<Parameter> l = new ArrayList<>();
+        for (InputParameter ip : activeAlgo.getInputList()) {
+            ParameterInstanceRef pref = ip.getParameterInstance();
+            // the past instances are not produced in the current processing cycle
+            if (pref != null && pref.getInstance() >= 0) {
+                l.add(pref.getParameter());
+            }
+        }
+        TriggerSetType tst = activeAlgo.getTriggerSet();
+        if (tst != null) {
+            for (OnParameterUpdateTrigger trigger : tst.getOnParameterUpdateTriggers()) {
+                l.add(trigger.getParameter());
+            }
+        }
+        return l;
+    }
+
+    /**
+     * Sets the pool used to run concurrently the algorithms which do not depend on each other.
+     * <p>
+     * If null (the default), the algorithms are run one after the other in the thread calling
+     * {@link #process(long, ProcessingContext)}.
+     */
+    public void setPool(ForkJoinPool pool) {
+        this.pool = pool;
     }
 
     public String getName() {
@@ -120,6 +298,7 @@ public class AlgorithmExecutionContext {
 
     public void addAlgorithm(ActiveAlgorithm activeAlgorithm) {
         executionOrder.add(activeAlgorithm);
+        levels = null;
     }
 
     /**
@@ -135,6 +314,7 @@ public class AlgorithmExecutionContext {
         Optional<ActiveAlgorithm> algo = getByFqn(algoFqn);
         if (algo.isPresent()) {
             executionOrder.remove(algo.get());
+            levels = null;
             algo.get().executor.dispose();
             return algo.get();
         } else {
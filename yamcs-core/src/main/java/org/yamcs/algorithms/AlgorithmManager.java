@@ -10,6 +10,7 @@ import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
@@ -68,6 +69,8 @@ import com.google.protobuf.util.Timestamps;
 public class AlgorithmManager extends AbstractProcessorService
         implements ParameterProvider, ProcessorService, ParameterProcessor {
     static final String KEY_ALGO_NAME = "algoName";
+    static final String KEY_COMPILE_SCRIPTS = "compileScripts";
+    static final String KEY_PARALLELISM = "parallelism";
     static final String JDK_BUILTIN_NASHORN_ENGINE_NAME = "Oracle Nashorn";
 
     Mdb mdb;
@@ -108,6 +111,9 @@ public class AlgorithmManager extends AbstractProcessorService
 
     int maxErrCount;
 
+    // runs the independent algorithms in parallel if the parallelism is greater than 1
+    ForkJoinPool pool;
+
     @Override
     public Spec getSpec() {
         Spec spec = new Spec();
@@ -118,6 +124,14 @@ public class AlgorithmManager extends AbstractProcessorService
         spec.addOption("maxErrorsBeforeAutomaticDeactivation", OptionType.INTEGER)
                 .withDescription("If an algorithm errors this number of times, it will be deactivated")
                 .withDefault(10);
+        spec.addOption(KEY_COMPILE_SCRIPTS, OptionType.BOOLEAN)
+                .withDescription("If true, the JavaScript algorithms using only numbers and booleans are translated "
+                        + "to Java and compiled to bytecode. The other algorithms are run by the script engine.")
+                .withDefault(false);
+        spec.addOption(KEY_PARALLELISM, OptionType.INTEGER)
+                .withDescription("Number of threads used to run the algorithms which do not depend on each other. "
+                        + "With the default of 1 all the algorithms run one after the other in the processing thread.")
+                .withDefault(1);
         return spec;
     }
 
@@ -136,7 +150,10 @@ public class AlgorithmManager extends AbstractProcessorService
             }
 
             List<String> engineNames = sef.getNames();
-            ScriptAlgorithmEngine engine = new ScriptAlgorithmEngine();
+            AlgorithmEngine engine = new ScriptAlgorithmEngine();
+            if (engineNames.contains("JavaScript")) {
+                engine = new CompiledScriptAlgorithmEngine(engine);
+            }
             for (String name : engineNames) {
                 registerAlgorithmEngine(name, engine);
             }
@@ -161,7 +178,13 @@ public class AlgorithmManager extends AbstractProcessorService
         mdb = processor.getMdb();
         timer = processor.getTimer();
 
+        int parallelism = config.getInt(KEY_PARALLELISM, 1);
+        if (parallelism > 1) {
+            pool = new ForkJoinPool(parallelism);
+        }
+
         globalCtx = new AlgorithmExecutionContext("global", processor.getProcessorData(), maxErrCount);
+        globalCtx.setPool(pool);
         contexts.add(globalCtx);
 
         for (Algorithm algo : mdb.getAlgorithms()) {
@@ -238,6 +261,7 @@ public class AlgorithmManager extends AbstractProcessorService
      */
     public AlgorithmExecutionContext createContext(String name) {
         AlgorithmExecutionContext ctx = new AlgorithmExecutionContext(name, processor.getProcessorData(), maxErrCount);
+        ctx.setPool(pool);
         contexts.add(ctx);
         return ctx;
     }
@@ -495,6 +519,9 @@ public class AlgorithmManager extends AbstractProcessorService
         if (timer != null) {
             timer.shutdownNow();
         }
+        if (pool != null) {
+            pool.shutdown();
+        }
         notifyStopped();
     }
 
@@ -0,0 +1,30 @@
+package org.yamcs.algorithms;
+
+import org.yamcs.YConfiguration;
+
+/**
+ * Engine for JavaScript algorithms which compiles the algorithms to bytecode if the {@code compileScripts} option of
+ * the {@link AlgorithmManager} is enabled.
+ * <p>
+ * The algorithms that cannot be compiled, as well as all the algorithms if the option is disabled, are executed by
+ * the script engine.
+ */
+public class CompiledScriptAlgorithmEngine implements AlgorithmEngine {
+    final AlgorithmEngine scriptEngine;
+
+    public CompiledScriptAlgorithmEngine(AlgorithmEngine scriptEngine) {
+        this.scriptEngine = scriptEngine;
+    }
+
+    @Override
+    public AlgorithmExecutorFactory makeExecutorFactory(AlgorithmManager algorithmManager,
+            AlgorithmExecutionContext context, String language, YConfiguration config) {
+        AlgorithmExecutorFactory scriptFactory = scriptEngine.makeExecutorFactory(algorithmManager, context,
+                language, config);
+        if (config.getBoolean(AlgorithmManager.KEY_COMPILE_SCRIPTS, false)) {
+            return new CompiledScriptAlgorithmExecutorFactory(scriptFactory);
+        } else {
+            return scriptFactory;
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package org.yamcs.algorithms;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.yamcs.mdb.ProcessingContext;
+import org.yamcs.parameter.ParameterValue;
+import org.yamcs.parameter.RawEngValue;
+import org.yamcs.parameter.Value;
+import org.yamcs.protobuf.Yamcs.Value.Type;
+import org.yamcs.xtce.CustomAlgorithm;
+import org.yamcs.xtce.OutputParameter;
+import org.yamcs.xtce.Parameter;
+
+/**
+ * Base class for the executors generated by the {@link CompiledScriptAlgorithmExecutorFactory} from the text of
+ * JavaScript algorithms.
+ * <p>
+ * The generated {@link #doExecute(Object[], boolean[])} reads the inputs with {@link #number(int)} and
+ * {@link #bool(int)} and sets the values of the outputs. The outputs are converted to parameter values the same way
+ * as for the algorithms executed by the script engine.
+ */
+public abstract class CompiledScriptAlgorithmExecutor extends AbstractAlgorithmExecutor {
+    final int numOutputs;
+    // the output values as set by the algorithm (Double or Boolean)
+    final Object[] outputs;
+    final boolean[] updated;
+
+    public CompiledScriptAlgorithmExecutor(CustomAlgorithm algorithmDef, AlgorithmExecutionContext execCtx) {
+        super(algorithmDef, execCtx);
+        numOutputs = algorithmDef.getOutputList().size();
+        outputs = new Object[numOutputs];
+        updated = new boolean[numOutputs];
+    }
+
+    @Override
+    public synchronized AlgorithmExecutionResult execute(long acqTime, long genTime, ProcessingContext ctx) {
+        Arrays.fill(outputs, null);
+        Arrays.fill(updated, true);
+        Object returnValue;
+        try {
+            returnValue = doExecute(outputs, updated);
+        } catch (AlgorithmException e) {
+            throw e;
+        } catch (RuntimeException e) {
+            throw new AlgorithmException(inputValues, e.toString());
+        }
+
+        List<ParameterValue> outputValues = new ArrayList<>(numOutputs);
+        List<OutputParameter> outputList = algorithmDef.getOutputList();
+        for (int k = 0; k < numOutputs; k++) {
+            if (!updated[k] || outputs[k] == null) {
+                continue;
+            }
+            Parameter p = outputList.get(k).getParameter();
+            Value v = ScriptAlgorithmExecutor.getEngValue(p.getParameterType(), outputs[k]);
+            if (v == null) {
+                String msg = "Cannot convert algorithm output value '" + outputs[k] + "' of type "
+                        + outputs[k].getClass().getSimpleName() + " into values for the type "
+                        + p.getParameterType().getQualifiedName() + "("
+                        + p.getParameterType().getClass().getSimpleName() + ")";
+                execCtx.getEventProducer().sendWarning(getAlgorithm().getName(), msg);
+                throw new AlgorithmException(inputValues, msg);
+            }
+            ParameterValue pv = new ParameterValue(p);
+            pv.setEngValue(v);
+            pv.setAcquisitionTime(acqTime);
+            pv.setGenerationTime(genTime);
+            outputValues.add(pv);
+        }
+        return new AlgorithmExecutionResult(inputValues, returnValue, outputValues);
+    }
+
+    /**
+     * Executes the algorithm.
+     *
+     * @param outputs
+     *            - the values of the outputs, initially null
+     * @param updated
+     *            - the updated flag of the outputs, initially true
+     * @return the return value of the algorithm
+     */
+    protected abstract Object doExecute(Object[] outputs, boolean[] updated);
+
+    /**
+     * @return the engineering value of the input with the given index converted to double
+     */
+    protected double number(int idx) {
+        Value v = getInputValue(idx);
+        switch (v.getType()) {
+        case DOUBLE:
+            return v.getDoubleValue();
+        case FLOAT:
+            return v.getFloatValue();
+        case SINT32:
+            return v.getSint32Value();
+        case UINT32:
+            return Integer.toUnsignedLong(v.getUint32Value());
+        case SINT64:
+            return v.getSint64Value();
+        case UINT64:
+            return v.getUint64Value();
+        default:
+            throw new AlgorithmException(inputValues, "Input " + inputName(idx) + " is not a number: " + v);
+        }
+    }
+
+    /**
+     * @return the engineering value of the input with the given index which has to be a boolean
+     */
+    protected boolean bool(int idx) {
+        Value v = getInputValue(idx);
+        if (v.getType() != Type.BOOLEAN) {
+            throw new AlgorithmException(inputValues, "Input " + inputName(idx) + " is not a boolean: " + v);
+        }
+        return v.getBooleanValue();
+    }
+
+    private Value getInputValue(int idx) {
+        RawEngValue rev = inputValues.get(idx);
+        if (rev == null || rev.getEngValue() == null) {
+            throw new AlgorithmException(inputValues, "Input " + inputName(idx) + " has no value");
+        }
+        return rev.getEngValue();
+    }
+
+    private String inputName(int idx) {
+        return algorithmDef.getInputList().get(idx).getEffectiveInputName();
+    }
+
+    /**
+     * Converts the number to a 32 bit integer like the JavaScript bitwise operators do
+     */
+    protected static int int32(double d) {
+        if (Double.isNaN(d) || Double.isInfinite(d)) {
+            return 0;
+        }
+        return (int) (long) (d % 4294967296.0);
+    }
+
+    /**
+     * Math.trunc
+     */
+    protected static double trunc(double d) {
+        return d < 0 ? Math.ceil(d) : Math.floor(d);
+    }
+
+    /**
+     * Math.pow with the JavaScript semantics for the NaN exponent and for the base 1
+     */
+    protected static double pow(double a, double b) {
+        if (Double.isNaN(b) || (Math.abs(a) == 1 && Double.isInfinite(b))) {
+            return Double.NaN;
+        }
+        return Math.pow(a, b);
+    }
+}
@@ -0,0 +1,67 @@
+package org.yamcs.algorithms;
+
+import java.lang.reflect.Constructor;
+import java.util.List;
+
+import org.codehaus.janino.SimpleCompiler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.yamcs.algorithms.JavaScriptTranslator.UnsupportedScriptException;
+import org.yamcs.xtce.CustomAlgorithm;
+
+/**
+ * Creates executors for JavaScript algorithms by translating the algorithm text into Java (see
+ * {@link JavaScriptTranslator}) and compiling it with Janino.
+ * <p>
+ * The algorithms which cannot be translated or compiled are executed by the script engine.
+ */
+public class CompiledScriptAlgorithmExecutorFactory implements AlgorithmExecutorFactory {
+    static final Logger log = LoggerFactory.getLogger(CompiledScriptAlgorithmExecutorFactory.class);
+
+    final AlgorithmExecutorFactory scriptFactory;
+
+    /**
+     *
+     * @param scriptFactory
+     *            - the factory used for the algorithms that cannot be compiled
+     */
+    public CompiledScriptAlgorithmExecutorFactory(AlgorithmExecutorFactory scriptFactory) {
+        this.scriptFactory = scriptFactory;
+    }
+
+    @Override
+    public AlgorithmExecutor makeExecutor(CustomAlgorithm alg, AlgorithmExecutionContext execCtx)
+            throws AlgorithmException {
+        String className = "Algorithm_" + alg.getQualifiedName().replaceAll("[^A-Za-z0-9_]", "_");
+        String code;
+        try {
+            code = new JavaScriptTranslator(alg).translate(className);
+        } catch (UnsupportedScriptException e) {
+            log.debug("Algorithm {} cannot be compiled ({}), using the script engine", alg.getQualifiedName(),
+                    e.getMessage());
+            return scriptFactory.makeExecutor(alg, execCtx);
+        }
+
+        try {
+            log.debug("Compiling:\n{}", code);
+            SimpleCompiler compiler = new SimpleCompiler();
+            compiler.setParentClassLoader(getClass().getClassLoader());
+            compiler.cook(code);
+            @SuppressWarnings("unchecked")
+            Class<? extends AlgorithmExecutor> clazz = (Class<? extends AlgorithmExecutor>) compiler
+                    .getClassLoader().loadClass(JavaScriptTranslator.PACKAGE_NAME + "." + className);
+            Constructor<? extends AlgorithmExecutor> constructor = clazz
+                    .getConstructor(CustomAlgorithm.class, AlgorithmExecutionContext.class);
+            return constructor.newInstance(alg, execCtx);
+        } catch (Exception e) {
+            log.warn("Failed to compile the translation of algorithm {}, using the script engine: {}",
+                    alg.getQualifiedName(), e.getMessage());
+            return scriptFactory.makeExecutor(alg, execCtx);
+        }
+    }
+
+    @Override
+    public List<String> getLanguages() {
+        return scriptFactory.getLanguages();
+    }
+}
@@ -0,0 +1,653 @@
+package org.yamcs.algorithms;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.yamcs.xtce.BooleanDataType;
+import org.yamcs.xtce.CustomAlgorithm;
+import org.yamcs.xtce.DataType;
+import org.yamcs.xtce.FloatDataType;
+import org.yamcs.xtce.InputParameter;
+import org.yamcs.xtce.IntegerDataType;
+import org.yamcs.xtce.OnParameterUpdateTrigger;
+import org.yamcs.xtce.OutputParameter;
+import org.yamcs.xtce.ParameterInstanceRef;
+import org.yamcs.xtce.TriggerSetType;
+
+/**
+ * Translates the arithmetic and conditional subset of JavaScript algorithms into the Java source of a
+ * {@link CompiledScriptAlgorithmExecutor}.
+ * <p>
+ * The supported subset consists of:
+ * <ul>
+ * <li>the {@code value} of the integer, float and boolean inputs which always have a value when the algorithm runs
+ * (see {@link #alwaysSet(InputParameter)}) and the {@code value} and {@code updated} of the outputs;</li>
+ * <li>local variables declared with {@code var}, {@code let} or {@code const} and initialised with a number or a
+ * boolean; each name can be declared only once in the algorithm and the {@code const} variables cannot be
+ * assigned;</li>
+ * <li>the {@code if}/{@code else} and {@code return} statements;</li>
+ * <li>the arithmetic, bitwise, relational, equality, logical and conditional operators;</li>
+ * <li>the numeric functions and constants of the {@code Math} object.</li>
+ * </ul>
+ * The types are checked statically: numbers are doubles like in JavaScript and the operators are not allowed to mix
+ * numbers and booleans. Anything else results in an {@link UnsupportedScriptException} and the algorithm is run by the
+ * script engine.
+ */
+class JavaScriptTranslator {
+    static final String PACKAGE_NAME = "org.yamcs.algorithms.compiledjs";
+
+    enum Type {
+        NUMBER, BOOLEAN
+    }
+
+    record Expr(String code, Type type) {
+    }
+
+    // Math function name -> java code with the arguments as %s
+    static final Map<String, String> MATH_FUNCTIONS_1 = new HashMap<>();
+    static final Map<String, String> MATH_FUNCTIONS_2 = new HashMap<>();
+    static {
+        for (String f : new String[] { "abs", "sqrt", "cbrt", "sin", "cos", "tan", "asin", "acos", "atan", "exp",
+                "log", "log10", "floor", "ceil", "sinh", "cosh", "tanh", "expm1", "log1p" }) {
+            MATH_FUNCTIONS_1.put(f, "Math." + f + "(%s)");
+        }
+        MATH_FUNCTIONS_1.put("sign", "Math.signum(%s)");
+        MATH_FUNCTIONS_1.put("round", "Math.floor(%s + 0.5)");
+        MATH_FUNCTIONS_1.put("trunc", "trunc(%s)");
+        MATH_FUNCTIONS_2.put("atan2", "Math.atan2(%s, %s)");
+        MATH_FUNCTIONS_2.put("pow", "pow(%s, %s)");
+        MATH_FUNCTIONS_2.put("min", "Math.min(%s, %s)");
+        MATH_FUNCTIONS_2.put("max", "Math.max(%s, %s)");
+    }
+
+    static final Map<String, String> MATH_CONSTANTS = Map.of("PI", "Math.PI", "E", "Math.E",
+            "LN2", "0.6931471805599453", "LN10", "2.302585092994046", "SQRT2", "1.4142135623730951");
+
+    final CustomAlgorithm algorithm;
+    final Map<String, Integer> inputs = new HashMap<>();
+    final Map<String, Type> inputTypes = new HashMap<>();
+    final Map<String, Integer> outputs = new HashMap<>();
+    final Map<String, Type> locals = new LinkedHashMap<>();
+    // the locals which can be referenced at the current position (the let and const are scoped to their block)
+    final Set<String> visibleLocals = new HashSet<>();
+    final Set<String> constants = new HashSet<>();
+    // the let and const declared in the blocks being parsed
+    final Deque<List<String>> blockScopes = new ArrayDeque<>();
+
+    List<Token> tokens;
+    int pos;
+
+    JavaScriptTranslator(CustomAlgorithm algorithm) {
+        this.algorithm = algorithm;
+    }
+
+    /**
+     * Generates the source code of the class with the given name.
+     *
+     * @throws UnsupportedScriptException
+     *             if the algorithm uses anything outside the supported subset
+     */
+    String translate(String className) throws UnsupportedScriptException {
+        List<InputParameter> inputList = algorithm.getInputList();
+        for (int i = 0; i < inputList.size(); i++) {
+            InputParameter ip = inputList.get(i);
+            String name = ip.getEffectiveInputName();
+            Type type = null;
+            if (ip.getParameterInstance() != null && ip.getParameterInstance().getMemberPath() == null) {
+                type = getType(ip.getParameterInstance().getDataType());
+            }
+            if (inputs.put(name, i) != null) {
+                throw new UnsupportedScriptException("duplicate input " + name);
+            }
+            if (type != null) {
+                inputTypes.put(name, type);
+            }
+        }
+        List<OutputParameter> outputList = algorithm.getOutputList();
+        for (int i = 0; i < outputList.size(); i++) {
+            String name = outputList.get(i).getEffectiveOutputName();
+            if (inputs.containsKey(name) || outputs.put(name, i) != null) {
+                throw new UnsupportedScriptException("duplicate output " + name);
+            }
+        }
+
+        tokens = tokenize(algorithm.getAlgorithmText());
+        pos = 0;
+        StringBuilder body = new StringBuilder();
+        while (peek().type != TokenType.EOF) {
+            statement(body, "            ");
+        }
+
+        StringBuilder sb = new StringBuilder();
+        sb.append("package ").append(PACKAGE_NAME).append(";\n\n");
+        sb.append("import org.yamcs.algorithms.AlgorithmExecutionContext;\n");
+        sb.append("import org.yamcs.algorithms.CompiledScriptAlgorithmExecutor;\n");
+        sb.append("import org.yamcs.xtce.CustomAlgorithm;\n\n");
+        sb.append("public class ").append(className).append(" extends CompiledScriptAlgorithmExecutor {\n");
+        sb.append("    public ").append(className)
+                .append("(CustomAlgorithm algorithmDef, AlgorithmExecutionContext execCtx) {\n")
+                .append("        super(algorithmDef, execCtx);\n")
+                .append("    }\n\n");
+        sb.append("    protected Object doExecute(Object[] outputs, boolean[] updated) {\n");
+        for (var e : locals.entrySet()) {
+            sb.append("        ").append(e.getValue() == Type.NUMBER ? "double " : "boolean ")
+                    .append(local(e.getKey())).append(e.getValue() == Type.NUMBER ? " = Double.NaN;\n" : " = false;\n");
+        }
+        // the if allows the algorithm to end with a return statement
+        sb.append("        if (true) {\n");
+        sb.append(body);
+        sb.append("        }\n");
+        sb.append("        return null;\n");
+        sb.append("    }\n");
+        sb.append("}\n");
+        return sb.toString();
+    }
+
+    private static Type getType(DataType dtype) {
+        if (dtype instanceof IntegerDataType || dtype instanceof FloatDataType) {
+            return Type.NUMBER;
+        } else if (dtype instanceof BooleanDataType) {
+            return Type.BOOLEAN;
+        } else {
+            return null;
+        }
+    }
+
+    private void statement(StringBuilder sb, String indent) throws UnsupportedScriptException {
+        Token t = next();
+        if (t.is("{")) {
+            blockScopes.push(new ArrayList<>());
+            while (!peek().is("}")) {
+                if (peek().type == TokenType.EOF) {
+                    throw unsupported(peek());
+                }
+                statement(sb, indent);
+            }
+            next();
+            visibleLocals.removeAll(blockScopes.pop());
+        } else if (t.is(";")) {
+            // empty statement
+        } else if (t.isIdent("if")) {
+            expect("(");
+            Expr cond = expr(Type.BOOLEAN);
+            expect(")");
+            sb.append(indent).append("if (").append(cond.code).append(") {\n");
+            statement(sb, indent + "    ");
+            if (peek().isIdent("else")) {
+                next();
+                sb.append(indent).append("} else {\n");
+                statement(sb, indent + "    ");
+            }
+            sb.append(indent).append("}\n");
+        } else if (t.isIdent("var") || t.isIdent("let") || t.isIdent("const")) {
+            do {
+                Token name = next();
+                if (name.type != TokenType.IDENT || isReserved(name.text) || inputs.containsKey(name.text)
+                        || outputs.containsKey(name.text)) {
+                    throw unsupported(name);
+                }
+                // all the locals are mapped to one Java variable, so the shadowing (or redeclaration) of a variable
+                // cannot be translated
+                if (locals.containsKey(name.text)) {
+                    throw new UnsupportedScriptException(
+                            "variable " + name.text + " declared more than once on line " + name.line);
+                }
+                expect("=");
+                Expr e = expr(null);
+                locals.put(name.text, e.type);
+                visibleLocals.add(name.text);
+                if (!t.isIdent("var") && !blockScopes.isEmpty()) {
+                    blockScopes.peek().add(name.text);
+                }
+                if (t.isIdent("const")) {
+                    constants.add(name.text);
+                }
+                sb.append(indent).append(local(name.text)).append(" = ").append(e.code).append(";\n");
+            } while (accept(","));
+            endOfStatement();
+        } else if (t.isIdent("return")) {
+            if (accept(";") || peek().is("}") || peek().type == TokenType.EOF || peek().line != t.line) {
+                sb.append(indent).append("return null;\n");
+            } else {
+                Expr e = expr(null);
+                endOfStatement();
+                sb.append(indent).append("return ").append(box(e)).append(";\n");
+            }
+        } else if (t.type == TokenType.IDENT && outputs.containsKey(t.text)) {
+            int idx = outputs.get(t.text);
+            expect(".");
+            Token member = next();
+            expect("=");
+            if (member.isIdent("value")) {
+                Expr e = expr(null);
+                sb.append(indent).append("outputs[").append(idx).append("] = ").append(box(e)).append(";\n");
+            } else if (member.isIdent("updated")) {
+                Expr e = expr(Type.BOOLEAN);
+                sb.append(indent).append("updated[").append(idx).append("] = ").append(e.code).append(";\n");
+            } else {
+                throw unsupported(member);
+            }
+            endOfStatement();
+        } else if (t.type == TokenType.IDENT && visibleLocals.contains(t.text)) {
+            if (constants.contains(t.text)) {
+                throw new UnsupportedScriptException("assignment to constant " + t.text + " on line " + t.line);
+            }
+            Type type = locals.get(t.text);
+            Token op = next();
+            String lv = local(t.text);
+            if (op.is("=")) {
+                Expr e = expr(type);
+                sb.append(indent).append(lv).append(" = ").append(e.code).append(";\n");
+            } else if (type == Type.NUMBER && (op.is("+=") || op.is("-=") || op.is("*=") || op.is("/="))) {
+                Expr e = expr(Type.NUMBER);
+                sb.append(indent).append(lv).append(" ").append(op.text).append(" ").append(e.code).append(";\n");
+            } else {
+                throw unsupported(op);
+            }
+            endOfStatement();
+        } else {
+            throw unsupported(t);
+        }
+    }
+
+    private void endOfStatement() throws UnsupportedScriptException {
+        // automatic semicolon insertion at the end of the line, before a closing brace and at the end of the text
+        Token t = peek();
+        if (t.is(";")) {
+            next();
+        } else if (!t.is("}") && t.type != TokenType.EOF && t.line == tokens.get(pos - 1).line) {
+            throw unsupported(t);
+        }
+    }
+
+    private Expr expr(Type expected) throws UnsupportedScriptException {
+        Token t = peek();
+        Expr e = conditional();
+        if (expected != null && e.type != expected) {
+            throw new UnsupportedScriptException("expected " + expected + " expression on line " + t.line);
+        }
+        return e;
+    }
+
+    private Expr conditional() throws UnsupportedScriptException {
+        Expr cond = binary(0);
+        if (accept("?")) {
+            check(cond, Type.BOOLEAN);
+            Expr e1 = conditional();
+            expect(":");
+            Expr e2 = conditional();
+            if (e1.type != e2.type) {
+                throw new UnsupportedScriptException("conditional expression with different types");
+            }
+            return new Expr("(" + cond.code + " ? " + e1.code + " : " + e2.code + ")", e1.type);
+        }
+        return cond;
+    }
+
+    // the binary operators by increasing precedence
+    static final String[][] BINARY_OPERATORS = {
+            { "||" }, { "&&" }, { "|" }, { "^" }, { "&" },
+            { "==", "!=", "===", "!==" }, { "<", "<=", ">", ">=" },
+            { "<<", ">>", ">>>" }, { "+", "-" }, { "*", "/", "%" } };
+
+    private Expr binary(int level) throws UnsupportedScriptException {
+        if (level == BINARY_OPERATORS.length) {
+            return unary();
+        }
+        Expr left = binary(level + 1);
+        while (true) {
+            Token op = peek();
+            if (op.type != TokenType.PUNCT || !contains(BINARY_OPERATORS[level], op.text)) {
+                return left;
+            }
+            next();
+            Expr right = binary(level + 1);
+            left = combine(op, left, right);
+        }
+    }
+
+    private Expr combine(Token op, Expr left, Expr right) throws UnsupportedScriptException {
+        String a = left.code;
+        String b = right.code;
+        switch (op.text) {
+        case "||":
+        case "&&":
+            check(left, Type.BOOLEAN);
+            check(right, Type.BOOLEAN);
+            return new Expr("(" + a + " " + op.text + " " + b + ")", Type.BOOLEAN);
+        case "==":
+        case "===":
+        case "!=":
+        case "!==":
+            if (left.type != right.type) {
+                throw new UnsupportedScriptException("comparison between different types on line " + op.line);
+            }
+            String jop = op.text.startsWith("!") ? "!=" : "==";
+            return new Expr("(" + a + " " + jop + " " + b + ")", Type.BOOLEAN);
+        case "<":
+        case "<=":
+        case ">":
+        case ">=":
+            check(left, Type.NUMBER);
+            check(right, Type.NUMBER);
+            return new Expr("(" + a + " " + op.text + " " + b + ")", Type.BOOLEAN);
+        case "|":
+        case "^":
+        case "&":
+        case "<<":
+        case ">>":
+            check(left, Type.NUMBER);
+            check(right, Type.NUMBER);
+            return new Expr("((double) (int32(" + a + ") " + op.text + " int32(" + b + ")))", Type.NUMBER);
+        case ">>>":
+            check(left, Type.NUMBER);
+            check(right, Type.NUMBER);
+            return new Expr("((double) ((int32(" + a + ") >>> int32(" + b + ")) & 0xFFFFFFFFL))", Type.NUMBER);
+        default: // + - * / %
+            check(left, Type.NUMBER);
+            check(right, Type.NUMBER);
+            return new Expr("(" + a + " " + op.text + " " + b + ")", Type.NUMBER);
+        }
+    }
+
+    private Expr unary() throws UnsupportedScriptException {
+        Token t = peek();
+        if (t.is("!")) {
+            next();
+            Expr e = unary();
+            check(e, Type.BOOLEAN);
+            return new Expr("(!" + e.code + ")", Type.BOOLEAN);
+        } else if (t.is("-")) {
+            next();
+            Expr e = unary();
+            check(e, Type.NUMBER);
+            return new Expr("(-" + e.code + ")", Type.NUMBER);
+        } else if (t.is("+")) {
+            next();
+            Expr e = unary();
+            check(e, Type.NUMBER);
+            return e;
+        } else if (t.is("~")) {
+            next();
+            Expr e = unary();
+            check(e, Type.NUMBER);
+            return new Expr("((double) ~int32(" + e.code + "))", Type.NUMBER);
+        }
+        return primary();
+    }
+
+    private Expr primary() throws UnsupportedScriptException {
+        Token t = next();
+        if (t.type == TokenType.NUMBER) {
+            return new Expr(t.text, Type.NUMBER);
+        } else if (t.is("(")) {
+            Expr e = conditional();
+            expect(")");
+            return e;
+        } else if (t.isIdent("true") || t.isIdent("false")) {
+            return new Expr(t.text, Type.BOOLEAN);
+        } else if (t.isIdent("Math")) {
+            expect(".");
+            Token name = next();
+            if (name.type != TokenType.IDENT) {
+                throw unsupported(name);
+            }
+            if (MATH_CONSTANTS.containsKey(name.text)) {
+                return new Expr(MATH_CONSTANTS.get(name.text), Type.NUMBER);
+            }
+            expect("(");
+            List<Expr> args = new ArrayList<>();
+            if (!peek().is(")")) {
+                do {
+                    args.add(expr(Type.NUMBER));
+                } while (accept(","));
+            }
+            expect(")");
+            return mathFunction(name, args);
+        } else if (t.type == TokenType.IDENT && inputs.containsKey(t.text)) {
+            Type type = inputTypes.get(t.text);
+            expect(".");
+            Token member = next();
+            if (type == null || !member.isIdent("value")) {
+                throw unsupported(member);
+            }
+            int idx = inputs.get(t.text);
+            if (!alwaysSet(algorithm.getInputList().get(idx))) {
+                // the script engine passes null for the inputs without value
+                throw new UnsupportedScriptException("input " + t.text + " may have no value on line " + t.line);
+            }
+            return new Expr((type == Type.NUMBER ? "number(" : "bool(") + idx + ")", type);
+        } else if (t.type == TokenType.IDENT && visibleLocals.contains(t.text)) {
+            return new Expr(local(t.text), locals.get(t.text));
+        } else {
+            throw unsupported(t);
+        }
+    }
+
+    /**
+     * Returns true if the input has a value whenever the algorithm runs: either it is mandatory or the algorithm is
+     * triggered only by the updates of the input parameter.
+     */
+    boolean alwaysSet(InputParameter ip) {
+        if (ip.isMandatory()) {
+            return true;
+        }
+        ParameterInstanceRef pref = ip.getParameterInstance();
+        TriggerSetType triggerSet = algorithm.getTriggerSet();
+        if (pref == null || pref.getInstance() != 0 || triggerSet == null
+                || !triggerSet.getOnPeriodicRateTriggers().isEmpty()
+                || triggerSet.getOnParameterUpdateTriggers().isEmpty()) {
+            return false;
+        }
+        for (OnParameterUpdateTrigger trigger : triggerSet.getOnParameterUpdateTriggers()) {
+            if (trigger.getParameter() != pref.getParameter()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private Expr mathFunction(Token name, List<Expr> args) throws UnsupportedScriptException {
+        String f1 = MATH_FUNCTIONS_1.get(name.text);
+        if (f1 != null && args.size() == 1) {
+            return new Expr(String.format(f1, args.get(0).code), Type.NUMBER);
+        }
+        String f2 = MATH_FUNCTIONS_2.get(name.text);
+        if (f2 != null && args.size() == 2) {
+            return new Expr(String.format(f2, args.get(0).code, args.get(1).code), Type.NUMBER);
+        }
+        if (("min".equals(name.text) || "max".equals(name.text)) && args.size() > 2) {
+            String code = args.get(0).code;
+            for (int i = 1; i < args.size(); i++) {
+                code = String.format(f2, code, args.get(i).code);
+            }
+            return new Expr(code, Type.NUMBER);
+        }
+        throw unsupported(name);
+    }
+
+    private static void check(Expr e, Type type) throws UnsupportedScriptException {
+        if (e.type != type) {
+            throw new UnsupportedScriptException("expected " + type + " operand in " + e.code);
+        }
+    }
+
+    private static String box(Expr e) {
+        return (e.type == Type.NUMBER ? "Double.valueOf(" : "Boolean.valueOf(") + e.code + ")";
+    }
+
+    private static String local(String name) {
+        return "l_" + name;
+    }
+
+    private static boolean contains(String[] a, String s) {
+        for (String x : a) {
+            if (x.equals(s)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isReserved(String name) {
+        return "true".equals(name) || "false".equals(name) || "Math".equals(name);
+    }
+
+    private Token peek() {
+        return tokens.get(pos);
+    }
+
+    private Token next() {
+        Token t = tokens.get(pos);
+        if (t.type != TokenType.EOF) {
+            pos++;
+        }
+        return t;
+    }
+
+    private boolean accept(String punct) {
+        if (peek().is(punct)) {
+            pos++;
+            return true;
+        }
+        return false;
+    }
+
+    private void expect(String punct) throws UnsupportedScriptException {
+        Token t = next();
+        if (!t.is(punct)) {
+            throw unsupported(t);
+        }
+    }
+
+    private static UnsupportedScriptException unsupported(Token t) {
+        if (t.type == TokenType.EOF) {
+            return new UnsupportedScriptException("unexpected end of the algorithm text");
+        }
+        return new UnsupportedScriptException("'" + t.text + "' not supported on line " + t.line);
+    }
+
+    enum TokenType {
+        NUMBER, IDENT, PUNCT, EOF
+    }
+
+    record Token(TokenType type, String text, int line) {
+        boolean is(String punct) {
+            return type == TokenType.PUNCT && text.equals(punct);
+        }
+
+        boolean isIdent(String name) {
+            return type == TokenType.IDENT && text.equals(name);
+        }
+    }
+
+    // the punctuators, the longer ones first
+    static final String[] PUNCTUATORS = { ">>>", "===", "!==", "==", "!=", "<=", ">=", "&&", "||", "<<", ">>",
+            "+=", "-=", "*=", "/=", "++", "--", "+", "-", "*", "/", "%", "<", ">", "!", "=", "(", ")", "{", "}", ";",
+            ",", ".", "?", ":", "&", "|", "^", "~" };
+
+    static List<Token> tokenize(String text) throws UnsupportedScriptException {
+        List<Token> tokens = new ArrayList<>();
+        int line = 1;
+        int i = 0;
+        int n = text.length();
+        while (i < n) {
+            char c = text.charAt(i);
+            if (c == '\n') {
+                line++;
+                i++;
+            } else if (Character.isWhitespace(c)) {
+                i++;
+            } else if (text.startsWith("//", i)) {
+                while (i < n && text.charAt(i) != '\n') {
+                    i++;
+                }
+            } else if (text.startsWith("/*", i)) {
+                int end = text.indexOf("*/", i + 2);
+                if (end < 0) {
+                    throw new UnsupportedScriptException("unterminated comment on line " + line);
+                }
+                for (int k = i; k < end; k++) {
+                    if (text.charAt(k) == '\n') {
+                        line++;
+                    }
+                }
+                i = end + 2;
+            } else if (Character.isDigit(c) || (c == '.' && i + 1 < n && Character.isDigit(text.charAt(i + 1)))) {
+                int start = i;
+                double v;
+                if (c == '0' && i + 1 < n && (text.charAt(i + 1) == 'x' || text.charAt(i + 1) == 'X')) {
+                    i += 2;
+                    while (i < n && Character.digit(text.charAt(i), 16) >= 0) {
+                        i++;
+                    }
+                    try {
+                        v = Long.parseLong(text.substring(start + 2, i), 16);
+                    } catch (NumberFormatException e) {
+                        throw new UnsupportedScriptException("invalid number on line " + line);
+                    }
+                } else {
+                    while (i < n && (Character.isDigit(text.charAt(i)) || text.charAt(i) == '.')) {
+                        i++;
+                    }
+                    if (i < n && (text.charAt(i) == 'e' || text.charAt(i) == 'E')) {
+                        i++;
+                        if (i < n && (text.charAt(i) == '+' || text.charAt(i) == '-')) {
+                            i++;
+                        }
+                        while (i < n && Character.isDigit(text.charAt(i))) {
+                            i++;
+                        }
+                    }
+                    try {
+                        v = Double.parseDouble(text.substring(start, i));
+                    } catch (NumberFormatException e) {
+                        throw new UnsupportedScriptException("invalid number on line " + line);
+                    }
+                }
+                if (i < n && Character.isJavaIdentifierPart(text.charAt(i))) {
+                    throw new UnsupportedScriptException("invalid number on line " + line);
+                }
+                tokens.add(new Token(TokenType.NUMBER, Double.toString(v), line));
+            } else if (Character.isJavaIdentifierStart(c)) {
+                int start = i;
+                while (i < n && Character.isJavaIdentifierPart(text.charAt(i))) {
+                    i++;
+                }
+                tokens.add(new Token(TokenType.IDENT, text.substring(start, i), line));
+            } else {
+                String punct = null;
+                for (String p : PUNCTUATORS) {
+                    if (text.startsWith(p, i)) {
+                        punct = p;
+                        break;
+                    }
+                }
+                if (punct == null) {
+                    throw new UnsupportedScriptException("'" + c + "' not supported on line " + line);
+                }
+                tokens.add(new Token(TokenType.PUNCT, punct, line));
+                i += punct.length();
+            }
+        }
+        tokens.add(new Token(TokenType.EOF, "", line));
+        return tokens;
+    }
+
+    /**
+     * Thrown when the algorithm text is not in the subset supported by the translator
+     */
+    @SuppressWarnings("serial")
+    static class UnsupportedScriptException extends Exception {
+        UnsupportedScriptException(String message) {
+            super(message);
+        }
+    }
+}
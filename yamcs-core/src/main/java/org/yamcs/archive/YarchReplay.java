@@ -4,7 +4,6 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 
@@ -18,9 +17,13 @@ import org.yamcs.protobuf.Yamcs.ReplayStatus;
 import org.yamcs.protobuf.Yamcs.ReplayStatus.ReplayState;
 import org.yamcs.utils.TimeEncoding;
 import org.yamcs.utils.parser.ParseException;
+import org.yamcs.yarch.AsyncStreamSubscriber;
+import org.yamcs.yarch.AsyncStreamSubscriber.OverflowPolicy;
 import org.yamcs.yarch.SqlBuilder;
 import org.yamcs.yarch.Stream;
 import org.yamcs.yarch.StreamSubscriber;
+import org.yamcs.yarch.TableDefinition;
+import org.yamcs.yarch.TimePartitionSchema;
 import org.yamcs.yarch.Tuple;
 import org.yamcs.yarch.YarchDatabase;
 import org.yamcs.yarch.YarchDatabaseInstance;
@@ -35,7 +38,12 @@ import org.yamcs.yarch.streamsql.StreamSqlException;
  * <p>
  * This class can also handle pause/resume: simply stop sending data
  * <p>
- * seek: closes the streams and creates new ones with a different starting time.
+ * seek: closes the streams and creates new ones with a different starting time. If the new time is a little ahead of
+ * the current position and in the same time partitions, the streams are kept open and the data up to the new time is
+ * skipped instead.
+ * <p>
+ * The tuples are read ahead of the replay in a bounded queue (see {@link AsyncStreamSubscriber}), such that the
+ * reading of the tables is not stalled by the pacing of the replay.
  * 
  */
 public class YarchReplay implements StreamSubscriber {
@@ -45,6 +53,17 @@ public class YarchReplay implements StreamSubscriber {
      */
     public final static long MAX_WAIT_TIME = 10000;
 
+    /**
+     * maximum distance in time for which a forward seek skips the data in the open streams instead of creating new
+     * ones
+     */
+    public final static long MAX_FORWARD_SKIP = 60000;
+
+    /**
+     * number of tuples read ahead of the replay
+     */
+    static final int READ_AHEAD_SIZE = 256;
+
     ReplayServer replayServer;
     volatile String streamName;
     volatile boolean quitting = false;
@@ -58,14 +77,20 @@ public class YarchReplay implements StreamSubscriber {
     volatile ReplayOptions currentRequest;
 
     Map<ProtoDataType, ReplayHandler> handlers;
+    // the tables read by the handlers, used to check the time partitions when seeking
+    List<TableDefinition> tables;
 
     private long lastDataSentTime = -1; // time when the last data has been sent
     private long lastDataTime; // time of the last data
 
-    private Semaphore semaphore = new Semaphore(0);
-    boolean dropTuple = false; // set to true when jumping to a different time
+    // notified to wake up the thread waiting for the time of the next tuple
+    private final Object pacingLock = new Object();
+    private boolean pacingChanged = false;
+    // the stream currently replayed; the tuples coming from other streams are discarded
+    private volatile Stream stream;
+    // if valid, the tuples older than this time are skipped
+    private volatile long skipUntil = TimeEncoding.INVALID_INSTANT;
     volatile boolean ignoreClose;
-    volatile boolean sleeping;
     ReplayListener listener;
     volatile long replayTime;
     final YarchDatabaseInstance ydb;
@@ -99,6 +124,7 @@ public class YarchReplay implements StreamSubscriber {
         currentRequest = req;
 
         handlers = new HashMap<>();
+        tables = new ArrayList<>();
 
         if (currentRequest.hasParameterRequest()) {
             throw new YamcsException(
@@ -107,6 +133,7 @@ public class YarchReplay implements StreamSubscriber {
 
         if (currentRequest.hasEventRequest()) {
             handlers.put(ProtoDataType.EVENT, new EventReplayHandler());
+            addTable(EventRecorder.TABLE_NAME);
         }
         if (currentRequest.hasPacketRequest()) {
             if (ydb.getTable(XtceTmRecorder.TABLE_NAME) == null) {
@@ -114,6 +141,7 @@ public class YarchReplay implements StreamSubscriber {
                         XtceTmRecorder.TABLE_NAME);
             } else {
                 handlers.put(ProtoDataType.TM_PACKET, new XtceTmReplayHandler(mdb));
+                addTable(XtceTmRecorder.TABLE_NAME);
             }
         }
         if (currentRequest.hasPpRequest()) {
@@ -122,6 +150,7 @@ public class YarchReplay implements StreamSubscriber {
                         ParameterRecorder.TABLE_NAME);
             } else {
                 handlers.put(ProtoDataType.PP, new ParameterReplayHandler(mdb));
+                addTable(ParameterRecorder.TABLE_NAME);
             }
         }
         if (currentRequest.hasCommandHistoryRequest()) {
@@ -130,6 +159,7 @@ public class YarchReplay implements StreamSubscriber {
                         CommandHistoryRecorder.TABLE_NAME);
             } else {
                 handlers.put(ProtoDataType.CMD_HISTORY, new CommandHistoryReplayHandler(instance, mdb));
+                addTable(CommandHistoryRecorder.TABLE_NAME);
             }
         }
 
@@ -138,6 +168,13 @@ public class YarchReplay implements StreamSubscriber {
         }
     }
 
+    private void addTable(String tableName) {
+        TableDefinition tblDef = ydb.getTable(tableName);
+        if (tblDef != null) {
+            tables.add(tblDef);
+        }
+    }
+
     public ReplayState getState() {
         return state;
     }
@@ -160,6 +197,7 @@ public class YarchReplay implements StreamSubscriber {
             break;
         case PAUSED:
             state = ReplayState.RUNNING;
+            wakeUp();
             break;
         case ERROR:
         case CLOSED:
@@ -220,7 +258,11 @@ public class YarchReplay implements StreamSubscriber {
         ydb.execute(query, args.toArray());
         Stream s = ydb.getStream(streamName);
 
+        s.enableAsyncDelivery(new AsyncStreamSubscriber.Config(READ_AHEAD_SIZE,
+                AsyncStreamSubscriber.Config.DEFAULT_MAX_BATCH_SIZE, OverflowPolicy.BLOCK));
         s.addSubscriber(this);
+        stream = s;
+        skipUntil = TimeEncoding.INVALID_INSTANT;
 
         lastDataTime = replayTime = currentRequest.playFrom;
 
@@ -232,6 +274,15 @@ public class YarchReplay implements StreamSubscriber {
             newReplayTime = currentRequest.rangeStart;
         }
         log.debug("Seek at {} autostart: {}", TimeEncoding.toString(newReplayTime), autostart);
+        if (autostart && skipTo(newReplayTime)) {
+            log.debug("Skipping forward in the open stream");
+            currentRequest.setPlayFrom(newReplayTime);
+            for (ReplayHandler rh : handlers.values()) {
+                rh.setRequest(currentRequest);
+            }
+            resume();
+            return;
+        }
         closeExistingStream();
         lastDataSentTime = -1;
         lastDataTime = newReplayTime;
@@ -245,6 +296,63 @@ public class YarchReplay implements StreamSubscriber {
         }
     }
 
+    /**
+     * Switches a paused replay to running; does nothing if it is already running
+     */
+    private synchronized void resume() {
+        if (state == ReplayState.PAUSED) {
+            state = ReplayState.RUNNING;
+            wakeUp();
+        }
+    }
+
+    /**
+     * Moves the replay to the new time by skipping the data of the open stream, if possible: the new time has to be
+     * ahead of the current position by at most {@link #MAX_FORWARD_SKIP} and in the same time partitions of the
+     * tables, such that the iterators already open are positioned near the data to be sent.
+     * 
+     * @return true if the data is skipped, false if a new stream has to be created
+     */
+    private boolean skipTo(long newReplayTime) {
+        synchronized (pacingLock) {
+            if (!canSkipTo(newReplayTime)) {
+                return false;
+            }
+            skipUntil = newReplayTime;
+            lastDataSentTime = -1;
+            lastDataTime = replayTime = newReplayTime;
+            // the tuple waiting to be sent is older than the new time
+            pacingChanged = true;
+            pacingLock.notifyAll();
+            return true;
+        }
+    }
+
+    private boolean canSkipTo(long newReplayTime) {
+        // the stream may be closed with the data still in the read-ahead queue, so only check that it exists
+        if (stream == null || currentRequest.isReverse()) {
+            return false;
+        }
+        if (state != ReplayState.RUNNING && state != ReplayState.PAUSED) {
+            return false;
+        }
+        long t = replayTime;
+        if (newReplayTime < t || newReplayTime - t > MAX_FORWARD_SKIP) {
+            return false;
+        }
+        if (currentRequest.hasRangeStop() && newReplayTime >= currentRequest.getRangeStop()) {
+            return false;
+        }
+        for (TableDefinition tblDef : tables) {
+            TimePartitionSchema schema = tblDef.getPartitioningSpec().getTimePartitioningSchema();
+            if (schema != null && schema.getPartitionInfo(t).getStart() != schema.getPartitionInfo(newReplayTime)
+                    .getStart()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     public void changeRange(long start, long stop) throws YamcsException {
         YarchDatabaseInstance db = YarchDatabase.getInstance(instance);
         Stream stream = db.getStream(streamName);
@@ -262,25 +370,26 @@ public class YarchReplay implements StreamSubscriber {
     private void closeExistingStream() {
         if (state != ReplayState.INITIALIZATION) {
             state = ReplayState.INITIALIZATION;
-            YarchDatabaseInstance db = YarchDatabase.getInstance(instance);
-            Stream s = db.getStream(streamName);
+            // the stream may be already closed by itself if all its data has been read ahead
+            Stream s = stream;
+
+            // the tuple already emitted and waiting in the onTuple method is discarded since it does not come from
+            // the current stream
+            stream = null;
+            wakeUp();
+
             if (s != null) {
-                s.removeSubscriber(this);
-                String query = "CLOSE STREAM " + streamName;
-                log.debug("running query: {}", query);
+                log.debug("Closing stream {}", s.getName());
                 try {
-                    db.executeDiscardingResult(query);
-                } catch (StreamSqlException | ParseException e) {
-                    throw new RuntimeException(e);
+                    // make sure no tuple of the old stream is sent after the new stream has been started
+                    if (!s.removeSubscriberAndWait(this, 10, TimeUnit.SECONDS)) {
+                        log.warn("Timeout waiting for the delivery of the data from stream {} to finish",
+                                s.getName());
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
                 }
-            }
-
-            // if paused, there is a tuple already emitted and ready to be processed in the onTuple method.
-            // we want to get rid of it
-            if (sleeping) {
-                dropTuple = true;
-                log.debug("Releasing semaphore");
-                semaphore.release();
+                s.close();
             }
         }
     }
@@ -288,6 +397,7 @@ public class YarchReplay implements StreamSubscriber {
     public void changeSpeed(SpeedSpec newSpeed) {
         log.debug("Changing speed to {}", newSpeed);
         currentRequest.setSpeed(newSpeed);
+        wakeUp();
     }
 
     public void changeEndAction(EndAction endAction) {
@@ -297,6 +407,7 @@ public class YarchReplay implements StreamSubscriber {
 
     public void pause() {
         state = ReplayState.PAUSED;
+        wakeUp();
     }
 
     public synchronized void quit() {
@@ -305,6 +416,7 @@ public class YarchReplay implements StreamSubscriber {
         }
         quitting = true;
         log.debug("Replay quitting");
+        wakeUp();
 
         try {
             YarchDatabaseInstance db = YarchDatabase.getInstance(instance);
@@ -319,41 +431,56 @@ public class YarchReplay implements StreamSubscriber {
 
     @Override
     public void onTuple(Stream s, Tuple t) {
-        if (quitting) {
+        if (quitting || s != stream) {
             return;
         }
         long time = t.getTimestampColumn("gentime");
+        if (isSkipped(time)) {
+            return;
+        }
 
         try {
             sleepUntilTime(time);
 
-            if (dropTuple) {
-                dropTuple = false;
-                return;
+            synchronized (pacingLock) {
+                // the replay may have been moved to a different time while waiting
+                if (quitting || s != stream || isSkipped(time)) {
+                    return;
+                }
+                replayTime = time;
+                lastDataTime = time;
             }
 
-            replayTime = time;
-
             ProtoDataType type = ProtoDataType.forNumber((Integer) t.getColumn(0));
             Object data = handlers.get(type).transform(t);
             if (data != null) {
                 listener.newData(type, data);
             }
             lastDataSentTime = System.currentTimeMillis();
-            lastDataTime = time;
 
-            if (currentRequest.getSpeed().getType() == Type.STEP_BY_STEP) {
-                // Force user to trigger next step.
+            if (currentRequest.getSpeed().getType() == Type.STEP_BY_STEP && s == stream) {
+                // Force user to trigger next step (unless the replay has been moved meanwhile).
                 state = ReplayState.PAUSED;
                 signalStateChange();
             }
         } catch (InterruptedException e) {
-            // this is caught when the stream is closed (either due to quit or seek)
             Thread.currentThread().interrupt();
         }
     }
 
-    private void sleepUntilTime(long time) throws InterruptedException {
+    private boolean isSkipped(long time) {
+        long skip = skipUntil;
+        if (skip == TimeEncoding.INVALID_INSTANT) {
+            return false;
+        }
+        if (time < skip) {
+            return true;
+        }
+        skipUntil = TimeEncoding.INVALID_INSTANT;
+        return false;
+    }
+
+    private long getWaitTime(long time) {
         long waitTime = 0;
         SpeedSpec speed = currentRequest.getSpeed();
         switch (speed.getType()) {
@@ -374,31 +501,67 @@ public class YarchReplay implements StreamSubscriber {
         case STEP_BY_STEP:
             break;
         }
+        return waitTime;
+    }
 
-        if (waitTime > 0) {
-            sleeping = true;
-
-            double d = (time - lastDataTime) / (double) waitTime;
+    /**
+     * Waits until the tuple with the given time has to be sent, according to the speed of the replay.
+     * <p>
+     * The wait is interrupted when the replay is moved to a different time or quit; it is recomputed when the speed
+     * changes and suspended while the replay is paused.
+     */
+    private void sleepUntilTime(long time) throws InterruptedException {
+        long waitTime = getWaitTime(time);
+        if (waitTime <= 0) {
+            return;
+        }
+        Stream s = stream;
+        long startTime = lastDataTime;
+        synchronized (pacingLock) {
+            double d = (time - startTime) / (double) waitTime;
 
             // update the replay time every second
-            while (true) {
+            while (waitTime > 0 && !isPacingInterrupted(s)) {
+                boolean paused = state == ReplayState.PAUSED;
                 long sleepTime = Math.min(waitTime, 1000);
+                long t0 = System.nanoTime();
+                pacingLock.wait(sleepTime);
+                long slept = (System.nanoTime() - t0) / 1_000_000;
 
-                if (semaphore.tryAcquire(sleepTime, TimeUnit.MILLISECONDS)) {
+                if (isPacingInterrupted(s)) {
                     break;
                 }
-                if (state == ReplayState.PAUSED) {
+                if (pacingChanged) {
+                    pacingChanged = false;
+                    // the speed may have changed, continue from the current replay time
+                    lastDataTime = replayTime;
+                    waitTime = getWaitTime(time);
+                    d = waitTime > 0 ? (time - replayTime) / (double) waitTime : 0;
+                    continue;
+                }
+                if (paused || state == ReplayState.PAUSED) {
                     continue;
                 }
-                waitTime -= sleepTime;
+                waitTime -= slept;
                 if (waitTime > 0) {
-                    replayTime += d * sleepTime;
-                } else {
-                    break;
+                    replayTime += d * slept;
                 }
             }
         }
-        sleeping = false;
+    }
+
+    private boolean isPacingInterrupted(Stream s) {
+        return quitting || s != stream || skipUntil != TimeEncoding.INVALID_INSTANT;
+    }
+
+    /**
+     * Wakes up the thread waiting for the time of the next tuple
+     */
+    private void wakeUp() {
+        synchronized (pacingLock) {
+            pacingChanged = true;
+            pacingLock.notifyAll();
+        }
     }
 
     @Override
@@ -24,6 +24,7 @@ import io.netty.handler.codec.http.websocketx.WebSocketServerProtocolHandler;
 import io.netty.handler.codec.http.websocketx.extensions.compression.WebSocketServerCompressionHandler;
 import io.netty.handler.codec.protobuf.ProtobufDecoder;
 import io.netty.handler.codec.protobuf.ProtobufVarint32FrameDecoder;
+import io.netty.handler.flush.FlushConsolidationHandler;
 import io.netty.handler.timeout.IdleStateHandler;
 
 public class ApiHandler extends HttpHandler {
@@ -121,8 +122,11 @@ public class ApiHandler extends HttpHandler {
 
         var pipeline = nettyContext.pipeline();
         pipeline.addLast(new HttpObjectAggregator(65536));
+        pipeline.addLast(new WebSocketMetricsHandler(httpServer.getMetricRegistry()));
         pipeline.addLast(new WebSocketFrameDropper(waterMark.high()));
-        pipeline.addLast(new WebSocketServerCompressionHandler());
+        if (wsConfig.getBoolean("compression")) {
+            pipeline.addLast(new WebSocketServerCompressionHandler());
+        }
 
         // Add websocket-specific handlers to channel pipeline
         String webSocketPath = req.uri();
@@ -136,6 +140,12 @@ public class ApiHandler extends HttpHandler {
             pipeline.addLast(new IdleStateHandler(0, 0, pingWhenIdleFor));
         }
 
+        // Messages written from the same event loop iteration (or while reading) are flushed together
+        var flushAfterMessages = wsConfig.getInt("flushAfterMessages");
+        if (flushAfterMessages > 0) {
+            pipeline.addLast(new FlushConsolidationHandler(flushAfterMessages, true));
+        }
+
         pipeline.addLast(new WebSocketFrameHandler(httpServer, req, user, waterMark));
 
         // Effectively trigger websocket-handler (will attempt handshake)
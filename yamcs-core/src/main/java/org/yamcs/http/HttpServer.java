@@ -171,6 +171,8 @@ public class HttpServer extends AbstractYamcsService {
         // Value in seconds. Both nginx and apache have a default timeout of 60 seconds before
         // they will close an idle WebSocket connection, therefore we choose a value well below that.
         websocketSpec.addOption("pingWhenIdleFor", OptionType.INTEGER).withDefault(40);
+        websocketSpec.addOption("flushAfterMessages", OptionType.INTEGER).withDefault(256);
+        websocketSpec.addOption("compression", OptionType.BOOLEAN).withDefault(true);
 
         Spec bindingSpec = new Spec();
         bindingSpec.addOption("address", OptionType.STRING);
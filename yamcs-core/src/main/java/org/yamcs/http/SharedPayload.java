@@ -0,0 +1,123 @@
+package org.yamcs.http;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+import org.yamcs.protobuf.ServerMessage;
+
+import com.google.protobuf.Any;
+import com.google.protobuf.CodedOutputStream;
+import com.google.protobuf.InvalidProtocolBufferException;
+import com.google.protobuf.Message;
+import com.google.protobuf.util.JsonFormat;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.ByteBufOutputStream;
+import io.netty.util.AbstractReferenceCounted;
+import io.netty.util.ReferenceCounted;
+
+/**
+ * The data of a {@link ServerMessage} shared by all the WebSocket clients subscribed to the same topic.
+ * <p>
+ * The message is packed and encoded only once, the first time a client requires it in the protobuf or the json
+ * format. The protobuf encoding is kept in a reference counted buffer containing the complete {@code data} field of
+ * the {@link ServerMessage}, such that it can be appended without copy after the per-call header.
+ */
+class SharedPayload extends AbstractReferenceCounted {
+    private final Message message;
+    private Any any;
+    private ByteBuf protobuf;
+    private String json;
+
+    SharedPayload(Message message) {
+        this.message = message;
+    }
+
+    Message getMessage() {
+        return message;
+    }
+
+    private Any getAny() {
+        if (any == null) {
+            any = Any.pack(message, HttpServer.TYPE_URL_PREFIX);
+        }
+        return any;
+    }
+
+    /**
+     * Returns the protobuf encoding of the data field (including its tag and length).
+     * <p>
+     * The returned buffer is owned by this object and must not be released or modified by the caller. Use
+     * {@link ByteBuf#retainedDuplicate()} to obtain a buffer that outlives this object.
+     */
+    synchronized ByteBuf getProtobuf(ByteBufAllocator alloc) {
+        if (protobuf == null) {
+            Any data = getAny();
+            int size = CodedOutputStream.computeMessageSize(ServerMessage.DATA_FIELD_NUMBER, data);
+            ByteBuf buf = alloc.buffer(size);
+            try (ByteBufOutputStream bufOut = new ByteBufOutputStream(buf)) {
+                CodedOutputStream out = CodedOutputStream.newInstance(bufOut, size);
+                out.writeMessage(ServerMessage.DATA_FIELD_NUMBER, data);
+                out.flush();
+            } catch (IOException e) {
+                buf.release();
+                throw new UncheckedIOException(e);
+            }
+            protobuf = buf;
+        }
+        return protobuf;
+    }
+
+    /**
+     * Returns the json representation of the data field value.
+     */
+    synchronized String getJson(JsonFormat.Printer printer) throws InvalidProtocolBufferException {
+        if (json == null) {
+            json = printer.print(getAny());
+        }
+        return json;
+    }
+
+    /**
+     * Writes the fields of the {@link ServerMessage} preceding the data in a new buffer.
+     */
+    static ByteBuf encodeHeader(ByteBufAllocator alloc, String type, int call, int seq) throws IOException {
+        int size = CodedOutputStream.computeStringSize(ServerMessage.TYPE_FIELD_NUMBER, type);
+        if (call != 0) {
+            size += CodedOutputStream.computeInt32Size(ServerMessage.CALL_FIELD_NUMBER, call);
+        }
+        if (seq != 0) {
+            size += CodedOutputStream.computeInt32Size(ServerMessage.SEQ_FIELD_NUMBER, seq);
+        }
+        ByteBuf buf = alloc.buffer(size);
+        try (ByteBufOutputStream bufOut = new ByteBufOutputStream(buf)) {
+            CodedOutputStream out = CodedOutputStream.newInstance(bufOut, size);
+            out.writeString(ServerMessage.TYPE_FIELD_NUMBER, type);
+            if (call != 0) {
+                out.writeInt32(ServerMessage.CALL_FIELD_NUMBER, call);
+            }
+            if (seq != 0) {
+                out.writeInt32(ServerMessage.SEQ_FIELD_NUMBER, seq);
+            }
+            out.flush();
+        } catch (IOException e) {
+            buf.release();
+            throw e;
+        }
+        return buf;
+    }
+
+    @Override
+    protected synchronized void deallocate() {
+        if (protobuf != null) {
+            protobuf.release();
+            protobuf = null;
+        }
+    }
+
+    @Override
+    public ReferenceCounted touch(Object hint) {
+        return this;
+    }
+}
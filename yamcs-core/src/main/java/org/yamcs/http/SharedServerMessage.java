@@ -0,0 +1,66 @@
+package org.yamcs.http;
+
+import org.yamcs.protobuf.ServerMessage;
+
+import io.netty.util.ReferenceCounted;
+
+/**
+ * Equivalent of a {@link ServerMessage} whose data is a {@link SharedPayload}.
+ * <p>
+ * Holds a reference to the payload which is released by the {@link WebSocketServerMessageHandler} once the frame has
+ * been created (or by netty if the message is discarded before reaching the handler).
+ */
+class SharedServerMessage implements ReferenceCounted {
+    final String type;
+    final int call;
+    final int seq;
+    final SharedPayload payload;
+
+    /**
+     * The payload is retained by this constructor
+     */
+    SharedServerMessage(String type, int call, int seq, SharedPayload payload) {
+        this.type = type;
+        this.call = call;
+        this.seq = seq;
+        this.payload = payload;
+        payload.retain();
+    }
+
+    @Override
+    public int refCnt() {
+        return payload.refCnt();
+    }
+
+    @Override
+    public ReferenceCounted retain() {
+        payload.retain();
+        return this;
+    }
+
+    @Override
+    public ReferenceCounted retain(int increment) {
+        payload.retain(increment);
+        return this;
+    }
+
+    @Override
+    public ReferenceCounted touch() {
+        return this;
+    }
+
+    @Override
+    public ReferenceCounted touch(Object hint) {
+        return this;
+    }
+
+    @Override
+    public boolean release() {
+        return payload.release();
+    }
+
+    @Override
+    public boolean release(int decrement) {
+        return payload.release(decrement);
+    }
+}
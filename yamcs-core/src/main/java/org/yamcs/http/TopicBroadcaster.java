@@ -0,0 +1,123 @@
+package org.yamcs.http;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+import org.yamcs.api.Observer;
+import org.yamcs.logging.Log;
+
+import com.google.protobuf.Message;
+
+/**
+ * Distributes the items produced by one source to all the observers subscribed to a topic.
+ * <p>
+ * Each published item is converted at most once to a message, and the message is encoded at most once for all the
+ * WebSocket clients; each client receives the shared encoding preceded by its own call and sequence number.
+ * <p>
+ * The broadcasters are created and started on demand by {@link TopicBroadcasters}.
+ *
+ * @param <S>
+ *            the type of items produced by the source
+ * @param <T>
+ *            the type of messages sent to the observers
+ */
+public class TopicBroadcaster<S, T extends Message> {
+    private static final Log log = new Log(TopicBroadcaster.class);
+
+    private final List<Subscription<S, T>> subscriptions = new CopyOnWriteArrayList<>();
+
+    void addSubscription(Subscription<S, T> subscription) {
+        subscriptions.add(subscription);
+    }
+
+    void removeSubscription(Subscription<S, T> subscription) {
+        subscriptions.remove(subscription);
+    }
+
+    public int getSubscriberCount() {
+        return subscriptions.size();
+    }
+
+    /**
+     * Sends the message to all the subscribers.
+     */
+    public void publish(T message) {
+        publish(null, s -> message);
+    }
+
+    /**
+     * Converts the item to a message and sends it to all the subscribers whose filter accepts the item.
+     * <p>
+     * The converter is not called if there is no such subscriber.
+     * <p>
+     * A subscription whose filter or observer throws an exception is unsubscribed and its observer is completed
+     * exceptionally, the other subscribers still receive the item.
+     */
+    public void publish(S item, Function<? super S, ? extends T> converter) {
+        T message = null;
+        SharedPayload payload = null;
+        try {
+            for (Subscription<S, T> subscription : subscriptions) {
+                if (!accepts(subscription, item)) {
+                    continue;
+                }
+                if (message == null) {
+                    message = converter.apply(item);
+                }
+                try {
+                    if (subscription.observer instanceof WebSocketObserver) {
+                        if (payload == null) {
+                            payload = new SharedPayload(message);
+                        }
+                        ((WebSocketObserver) subscription.observer).next(payload);
+                    } else {
+                        subscription.observer.next(message);
+                    }
+                } catch (Exception e) {
+                    removeFailed(subscription, e);
+                }
+            }
+        } finally {
+            if (payload != null) {
+                payload.release();
+            }
+        }
+    }
+
+    private boolean accepts(Subscription<S, T> subscription, S item) {
+        try {
+            return subscription.filter == null || subscription.filter.test(item);
+        } catch (Exception e) {
+            removeFailed(subscription, e);
+            return false;
+        }
+    }
+
+    private void removeFailed(Subscription<S, T> subscription, Exception e) {
+        log.warn("Removing subscription of {} after error", subscription.observer, e);
+        if (subscription.unsubscribeAction != null) {
+            subscription.unsubscribeAction.run();
+        } else {
+            subscriptions.remove(subscription);
+        }
+        try {
+            subscription.observer.completeExceptionally(e);
+        } catch (Exception e1) {
+            log.debug("Failed to complete {}", subscription.observer, e1);
+        }
+    }
+
+    static class Subscription<S, T extends Message> {
+        final Observer<T> observer;
+        final Predicate<? super S> filter;
+        // set by TopicBroadcasters, stops the source when the last subscription goes away
+        volatile Runnable unsubscribeAction;
+
+        Subscription(Observer<T> observer, Predicate<? super S> filter) {
+            this.observer = observer;
+            this.filter = filter;
+        }
+    }
+}
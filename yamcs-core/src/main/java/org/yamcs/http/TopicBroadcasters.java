@@ -0,0 +1,100 @@
+package org.yamcs.http;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.BiFunction;
+import java.util.function.Predicate;
+
+import org.yamcs.api.Observer;
+import org.yamcs.http.TopicBroadcaster.Subscription;
+
+import com.google.protobuf.Message;
+
+/**
+ * Keeps one {@link TopicBroadcaster} for each key (e.g. instance or processor) with at least one subscriber.
+ * <p>
+ * The source of a broadcaster is started when the first observer subscribes and stopped when the last one
+ * unsubscribes. If the source cannot be started, no broadcaster is kept and the observer does not receive any item.
+ *
+ * @param <K>
+ *            the key type
+ * @param <S>
+ *            the type of items produced by the source
+ * @param <T>
+ *            the type of messages sent to the observers
+ */
+public class TopicBroadcasters<K, S, T extends Message> {
+
+    private final Map<K, Entry<S, T>> broadcasters = new HashMap<>();
+    private final BiFunction<K, TopicBroadcaster<S, T>, Runnable> sourceStarter;
+
+    /**
+     * @param sourceStarter
+     *            called when a broadcaster is created; it should connect the source of the given key to the
+     *            broadcaster and return the action which disconnects it, or null if the source cannot be started.
+     */
+    public TopicBroadcasters(BiFunction<K, TopicBroadcaster<S, T>, Runnable> sourceStarter) {
+        this.sourceStarter = sourceStarter;
+    }
+
+    /**
+     * Subscribes the observer to the broadcaster of the given key.
+     *
+     * @param filter
+     *            if not null, only the items matching the filter are sent to the observer
+     * @return an action unsubscribing the observer, typically used as the cancel handler of the observer
+     */
+    public synchronized Runnable subscribe(K key, Observer<T> observer, Predicate<? super S> filter) {
+        Entry<S, T> entry = broadcasters.get(key);
+        if (entry == null) {
+            entry = new Entry<>();
+            entry.stopAction = sourceStarter.apply(key, entry.broadcaster);
+            if (entry.stopAction == null) {
+                return () -> {
+                };
+            }
+            broadcasters.put(key, entry);
+        }
+        Subscription<S, T> subscription = new Subscription<>(observer, filter);
+        Entry<S, T> e = entry;
+        subscription.unsubscribeAction = () -> unsubscribe(key, e, subscription);
+        entry.broadcaster.addSubscription(subscription);
+
+        return subscription.unsubscribeAction;
+    }
+
+    private synchronized void unsubscribe(K key, Entry<S, T> entry, Subscription<S, T> subscription) {
+        entry.broadcaster.removeSubscription(subscription);
+        if (entry.broadcaster.getSubscriberCount() == 0 && broadcasters.get(key) == entry) {
+            broadcasters.remove(key);
+            entry.stopAction.run();
+        }
+    }
+
+    /**
+     * Stops the source and drops the broadcaster of the given key, typically called when the source terminates by
+     * itself.
+     * <p>
+     * The observers still subscribed do not receive any more items; the observers subscribing afterwards get a new
+     * broadcaster.
+     */
+    public synchronized void remove(K key) {
+        Entry<S, T> entry = broadcasters.remove(key);
+        if (entry != null) {
+            entry.stopAction.run();
+        }
+    }
+
+    /**
+     * Returns the broadcaster of the given key or null if there is no subscriber for that key.
+     */
+    public synchronized TopicBroadcaster<S, T> get(K key) {
+        Entry<S, T> entry = broadcasters.get(key);
+        return entry == null ? null : entry.broadcaster;
+    }
+
+    static class Entry<S, T extends Message> {
+        final TopicBroadcaster<S, T> broadcaster = new TopicBroadcaster<>();
+        Runnable stopAction;
+    }
+}
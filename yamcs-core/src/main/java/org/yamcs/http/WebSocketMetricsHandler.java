@@ -0,0 +1,60 @@
+package org.yamcs.http;
+
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelOutboundHandlerAdapter;
+import io.netty.channel.ChannelPromise;
+import io.netty.handler.codec.http.websocketx.WebSocketFrame;
+
+/**
+ * Measures the frames, bytes and flushes written to a WebSocket connection.
+ * <p>
+ * It is placed after the frame dropper and compression handlers, so it counts the (compressed) frames which are
+ * actually sent and the flushes remaining after consolidation.
+ * <p>
+ * The meters are registered in the {@link HttpServer#getMetricRegistry() metric registry} of the HTTP server under the
+ * name {@code yamcs.websocket.<channelId>.<meter>} and are removed when the channel is closed.
+ */
+public class WebSocketMetricsHandler extends ChannelOutboundHandlerAdapter {
+
+    static final String PREFIX = "yamcs.websocket.";
+
+    private final MetricRegistry metricRegistry;
+    private String prefix;
+
+    private Meter frames;
+    private Meter bytes;
+    private Meter flushes;
+
+    public WebSocketMetricsHandler(MetricRegistry metricRegistry) {
+        this.metricRegistry = metricRegistry;
+    }
+
+    @Override
+    public void handlerAdded(ChannelHandlerContext ctx) throws Exception {
+        prefix = PREFIX + ctx.channel().id().asShortText() + ".";
+        frames = metricRegistry.meter(prefix + "frames");
+        bytes = metricRegistry.meter(prefix + "bytes");
+        flushes = metricRegistry.meter(prefix + "flushes");
+        ctx.channel().closeFuture().addListener(f -> {
+            metricRegistry.removeMatching((name, metric) -> name.startsWith(prefix));
+        });
+    }
+
+    @Override
+    public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) throws Exception {
+        if (msg instanceof WebSocketFrame) {
+            frames.mark();
+            bytes.mark(((WebSocketFrame) msg).content().readableBytes());
+        }
+        ctx.write(msg, promise);
+    }
+
+    @Override
+    public void flush(ChannelHandlerContext ctx) throws Exception {
+        flushes.mark();
+        ctx.flush();
+    }
+}
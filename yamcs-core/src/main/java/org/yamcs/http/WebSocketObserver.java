@@ -73,6 +73,27 @@ public class WebSocketObserver implements Observer<Message> {
         sendMessage(ctx.getTopic().getName(), message, lowPriority ? LOW : NORMAL);
     }
 
+    /**
+     * Same as {@link #next(Message)} but uses the payload already encoded for other subscribers of the same topic.
+     */
+    synchronized void next(SharedPayload payload) {
+        if (!replied) {
+            pendingMessages.add(payload.getMessage());
+            return;
+        }
+
+        messageCount++;
+
+        if (!ctx.nettyContext.channel().isOpen()) {
+            ctx.cancel(null);
+            return;
+        }
+
+        var serverMessage = new SharedServerMessage(ctx.getTopic().getName(), ctx.getId(), messageCount, payload);
+        ctx.nettyContext.channel().attr(WebSocketFramePriority.ATTR).set(lowPriority ? LOW : NORMAL);
+        ctx.nettyContext.channel().writeAndFlush(serverMessage);
+    }
+
     private void sendMessage(String type, Message data, WebSocketFramePriority priority) {
         ServerMessage serverMessage = ServerMessage.newBuilder()
                 .setType(type)
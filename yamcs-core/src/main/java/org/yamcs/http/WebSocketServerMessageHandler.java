@@ -2,8 +2,11 @@ package org.yamcs.http;
 
 import org.yamcs.protobuf.ServerMessage;
 
+import com.google.gson.JsonPrimitive;
+
 import io.netty.buffer.ByteBuf;
 import io.netty.buffer.ByteBufOutputStream;
+import io.netty.buffer.CompositeByteBuf;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelOutboundHandlerAdapter;
 import io.netty.channel.ChannelPromise;
@@ -14,6 +17,9 @@ import io.netty.handler.codec.http.websocketx.WebSocketFrame;
 /**
  * Encodes {@link ServerMessage} to either {@link BinaryWebSocketFrame} or {@link TextWebSocketFrame} depending if the
  * protobuf or json has to be sent.
+ * <p>
+ * The {@link SharedServerMessage} are encoded by concatenating the per-call header with the already encoded shared
+ * data.
  */
 public class WebSocketServerMessageHandler extends ChannelOutboundHandlerAdapter {
 
@@ -27,6 +33,18 @@ public class WebSocketServerMessageHandler extends ChannelOutboundHandlerAdapter
 
     @Override
     public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) throws Exception {
+        if (msg instanceof SharedServerMessage) {
+            SharedServerMessage sharedMessage = (SharedServerMessage) msg;
+            WebSocketFrame frame;
+            try {
+                frame = toFrame(ctx, sharedMessage);
+            } finally {
+                sharedMessage.release();
+            }
+            ctx.write(frame, promise);
+            return;
+        }
+
         ServerMessage serverMessage = (ServerMessage) msg;
         WebSocketFrame frame;
 
@@ -43,4 +61,26 @@ public class WebSocketServerMessageHandler extends ChannelOutboundHandlerAdapter
 
         ctx.write(frame, promise);
     }
+
+    private WebSocketFrame toFrame(ChannelHandlerContext ctx, SharedServerMessage msg) throws Exception {
+        SharedPayload payload = msg.payload;
+        if (protobuf) {
+            ByteBuf data = payload.getProtobuf(ctx.alloc());
+            ByteBuf header = SharedPayload.encodeHeader(ctx.alloc(), msg.type, msg.call, msg.seq);
+            CompositeByteBuf buf = ctx.alloc().compositeBuffer(2);
+            buf.addComponents(true, header, data.retainedDuplicate());
+            return new BinaryWebSocketFrame(buf);
+        } else {
+            StringBuilder sb = new StringBuilder();
+            sb.append("{\n  \"type\": ").append(new JsonPrimitive(msg.type));
+            if (msg.call != 0) {
+                sb.append(",\n  \"call\": ").append(msg.call);
+            }
+            if (msg.seq != 0) {
+                sb.append(",\n  \"seq\": ").append(msg.seq);
+            }
+            sb.append(",\n  \"data\": ").append(payload.getJson(httpServer.getJsonPrinter())).append("\n}");
+            return new TextWebSocketFrame(sb.toString());
+        }
+    }
 }
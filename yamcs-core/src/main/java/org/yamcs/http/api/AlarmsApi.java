@@ -39,6 +39,8 @@ import org.yamcs.http.Context;
 import org.yamcs.http.HttpException;
 import org.yamcs.http.InternalServerErrorException;
 import org.yamcs.http.NotFoundException;
+import org.yamcs.http.TopicBroadcaster;
+import org.yamcs.http.TopicBroadcasters;
 import org.yamcs.http.api.XtceToGpbAssembler.DetailLevel;
 import org.yamcs.http.audit.AuditLog;
 import org.yamcs.mdb.Mdb;
@@ -122,6 +124,10 @@ public class AlarmsApi extends AbstractAlarmsApi<Context> {
 
     private AuditLog auditLog;
 
+    // alarm notifications, shared by all the subscribers of the same processor
+    private TopicBroadcasters<Processor, ActiveAlarm<?>, AlarmData> alarmBroadcasters = new TopicBroadcasters<>(
+            AlarmsApi::listenAlarms);
+
     public AlarmsApi(AuditLog auditLog) {
         this.auditLog = auditLog;
         auditLog.addPrivilegeChecker(getClass().getSimpleName(), user -> {
@@ -480,12 +486,22 @@ public class AlarmsApi extends AbstractAlarmsApi<Context> {
     }
 
     @Override
-    @SuppressWarnings({ "rawtypes", "unchecked" })
     public void subscribeAlarms(Context ctx, SubscribeAlarmsRequest request, Observer<AlarmData> observer) {
         ctx.checkSystemPrivilege(SystemPrivilege.ReadAlarms);
         boolean includePending = request.hasIncludePending() && request.getIncludePending();
         Processor processor = ProcessingApi.verifyProcessor(request.getInstance(), request.getProcessor());
 
+        for (AbstractAlarmServer<?, ?> alarmServer : getAlarmServers(processor)) {
+            for (ActiveAlarm<?> activeAlarm : alarmServer.getActiveAlarms().values()) {
+                AlarmData alarmData = toAlarmData(AlarmNotificationType.ACTIVE, activeAlarm, false, true);
+                observer.next(alarmData);
+            }
+        }
+        observer.setCancelHandler(alarmBroadcasters.subscribe(processor, observer,
+                activeAlarm -> includePending || !activeAlarm.isPending()));
+    }
+
+    private static List<AbstractAlarmServer<?, ?>> getAlarmServers(Processor processor) {
         List<AbstractAlarmServer<?, ?>> alarmServers = new ArrayList<>();
         if (processor.hasAlarmServer()) {
             alarmServers.add(processor.getParameterProcessorManager().getAlarmServer());
@@ -494,53 +510,43 @@ public class AlarmsApi extends AbstractAlarmsApi<Context> {
             alarmServers.add(processor.getEventAlarmServer());
         }
 
-        AlarmMirrorService alarmMirrorService = getMirrorService(request.getInstance());
+        AlarmMirrorService alarmMirrorService = getMirrorService(processor.getInstance());
         if (alarmMirrorService != null) {
             alarmServers.add(alarmMirrorService.getParameterServer());
             alarmServers.add(alarmMirrorService.getEventServer());
         }
+        return alarmServers;
+    }
+
+    @SuppressWarnings({ "rawtypes", "unchecked" })
+    private static Runnable listenAlarms(Processor processor,
+            TopicBroadcaster<ActiveAlarm<?>, AlarmData> broadcaster) {
+        List<AbstractAlarmServer<?, ?>> alarmServers = getAlarmServers(processor);
         boolean sendDetail = true;
 
         AlarmListener listener = new AlarmListener() {
 
             @Override
             public void notifyUpdate(org.yamcs.alarms.AlarmNotificationType notificationType, ActiveAlarm activeAlarm) {
-                if (includePending || !activeAlarm.isPending()) {
-                    AlarmNotificationType type = protoNotificationType.get(notificationType);
-                    AlarmData alarmData = toAlarmData(type, activeAlarm, false, sendDetail);
-                    observer.next(alarmData);
-                }
+                AlarmNotificationType type = protoNotificationType.get(notificationType);
+                broadcaster.publish(activeAlarm, a -> toAlarmData(type, a, false, sendDetail));
             }
 
             @Override
             public void notifySeverityIncrease(ActiveAlarm activeAlarm) {
-                if (includePending || !activeAlarm.isPending()) {
-                    AlarmData alarmData = toAlarmData(AlarmNotificationType.SEVERITY_INCREASED, activeAlarm, false,
-                            sendDetail);
-                    observer.next(alarmData);
-                }
+                broadcaster.publish(activeAlarm,
+                        a -> toAlarmData(AlarmNotificationType.SEVERITY_INCREASED, a, false, sendDetail));
             }
 
             @Override
             public void notifyValueUpdate(ActiveAlarm activeAlarm) {
-                if (includePending || !activeAlarm.isPending()) {
-                    AlarmData alarmData = toAlarmData(AlarmNotificationType.VALUE_UPDATED, activeAlarm, false,
-                            sendDetail);
-                    observer.next(alarmData);
-                }
+                broadcaster.publish(activeAlarm,
+                        a -> toAlarmData(AlarmNotificationType.VALUE_UPDATED, a, false, sendDetail));
             }
         };
 
-        observer.setCancelHandler(() -> {
-            alarmServers.forEach(alarmServer -> alarmServer.removeAlarmListener(listener));
-        });
-        for (AbstractAlarmServer<?, ?> alarmServer : alarmServers) {
-            for (ActiveAlarm<?> activeAlarm : alarmServer.getActiveAlarms().values()) {
-                AlarmData alarmData = toAlarmData(AlarmNotificationType.ACTIVE, activeAlarm, false, sendDetail);
-                observer.next(alarmData);
-            }
-            alarmServer.addAlarmListener(listener);
-        }
+        alarmServers.forEach(alarmServer -> alarmServer.addAlarmListener(listener));
+        return () -> alarmServers.forEach(alarmServer -> alarmServer.removeAlarmListener(listener));
     }
 
     @Override
@@ -10,6 +10,7 @@ import java.util.function.Consumer;
 import org.yamcs.logging.Log;
 import org.yamcs.parameter.Value;
 import org.yamcs.parameter.ValueArray;
+import org.yamcs.parameterarchive.ParameterRollup.Bucket;
 import org.yamcs.parameterarchive.ParameterValueArray;
 import org.yamcs.protobuf.Yamcs.Value.Type;
 import org.yamcs.utils.TimeEncoding;
@@ -35,6 +36,9 @@ public class Downsampler implements Consumer<ParameterValueArray> {
     private boolean useRawValue;
     private long lastSampleTime;
     private long gapTime;
+    private long step;
+    // width of the rollup buckets the intervals are aligned to (0 if not aligned)
+    private long bucketWidth;
 
     public Downsampler(long start, long stop) {
         this(start, stop, DEFAULT_SAMPLE_COUNT);
@@ -50,7 +54,7 @@ public class Downsampler implements Consumer<ParameterValueArray> {
         this.gapTime = DEFAULT_GAP_TIME;
 
         // Initialize intervals
-        long step = (stop - start) / sampleCount;
+        step = (stop - start) / sampleCount;
         if (step == 0) {
             step = 1;
         }
@@ -59,6 +63,27 @@ public class Downsampler implements Consumer<ParameterValueArray> {
         }
     }
 
+    /**
+     * Rebuilds the intervals such that each of them is made of whole rollup buckets of the given width (the buckets
+     * start at multiples of the width). The duration of the intervals is rounded up to a multiple of the width and
+     * the first interval is clipped at the start of the range.
+     * <p>
+     * Has to be called before processing any value; without it, all the buckets are refused by
+     * {@link #process(Bucket)}.
+     */
+    public void alignIntervals(long bucketWidth) {
+        if (bucketWidth <= 0) {
+            throw new IllegalArgumentException("bucketWidth should be positive");
+        }
+        this.bucketWidth = bucketWidth;
+        long alignedStep = ((step + bucketWidth - 1) / bucketWidth) * bucketWidth;
+        samplesByTime.clear();
+        samplesByTime.put(start, null);
+        for (long i = Math.floorDiv(start, bucketWidth) * bucketWidth + alignedStep; i < stop; i += alignedStep) {
+            samplesByTime.put(i, null);
+        }
+    }
+
     public void setUseRawValue(boolean useRawValue) {
         this.useRawValue = useRawValue;
     }
@@ -178,7 +203,7 @@ public class Downsampler implements Consumer<ParameterValueArray> {
             return;
         }
 
-        lastSampleTime = entry.getKey();
+        lastSampleTime = Math.max(lastSampleTime, entry.getKey());
         Sample sample = entry.getValue();
         if (sample == null) {
             var newSample = new Sample(entry.getKey(), time, value, expireMillis);
@@ -188,6 +213,46 @@ public class Downsampler implements Consumer<ParameterValueArray> {
         }
     }
 
+    /**
+     * Adds the pre-aggregated values of a parameter archive rollup bucket.
+     * <p>
+     * The bucket is used only if its time slot (of the width given to {@link #alignIntervals(long)}) is entirely
+     * within the range and within one interval. Otherwise it is refused and its values have to be processed
+     * individually.
+     * 
+     * @return true if the bucket has been used, false if it has been refused
+     */
+    public boolean process(Bucket bucket) {
+        if (bucketWidth == 0) {
+            return false;
+        }
+        long time = bucket.getStart();
+        long end = time + bucketWidth - 1;
+        if (time < start || end > stop) {
+            return false;
+        }
+        Entry<Long, Sample> entry = samplesByTime.floorEntry(time);
+        if (entry == null) {
+            return false;
+        }
+        Long next = samplesByTime.higherKey(entry.getKey());
+        if (next != null && end >= next) {
+            return false;
+        }
+        if (bucket.getCount() == 0) {
+            return true;
+        }
+
+        lastSampleTime = Math.max(lastSampleTime, entry.getKey());
+        Sample sample = entry.getValue();
+        if (sample == null) {
+            samplesByTime.put(entry.getKey(), new Sample(entry.getKey(), bucket));
+        } else {
+            sample.process(bucket);
+        }
+        return true;
+    }
+
     public List<Sample> collect() {
         if (samplesByTime == null) {
             return Collections.emptyList();
@@ -251,9 +316,50 @@ public class Downsampler implements Consumer<ParameterValueArray> {
             n = 1;
         }
 
+        // sample with the values of a rollup bucket
+        Sample(long t, Bucket bucket) {
+            this.t = t;
+            this.expireMillis = -1;
+            min = bucket.getMin();
+            max = bucket.getMax();
+            avg = bucket.getAvg();
+            n = bucket.getCount();
+            minTime = bucket.getMinTime();
+            maxTime = bucket.getMaxTime();
+            firstTime = bucket.getFirstTime();
+            lastTime = bucket.getLastTime();
+        }
+
+        // the buckets are not necessarily received in chronological order
+        void process(Bucket bucket) {
+            if (bucket.getMin() < min) {
+                min = bucket.getMin();
+                minTime = bucket.getMinTime();
+            }
+            if (bucket.getMax() > max) {
+                max = bucket.getMax();
+                maxTime = bucket.getMaxTime();
+            }
+            if (bucket.getFirstTime() < firstTime) {
+                firstTime = bucket.getFirstTime();
+            }
+            if (bucket.getLastTime() > lastTime) {
+                lastTime = bucket.getLastTime();
+            }
+            int n1 = n + bucket.getCount();
+            avg = avg * ((double) n / n1) + bucket.getSum() / n1;
+            n = n1;
+        }
+
+        // the values are not necessarily received after the buckets of the same interval
         public void process(long valueTime, double value, long expireMillis) {
-            this.expireMillis = expireMillis;
-            lastTime = valueTime;
+            if (valueTime >= lastTime) {
+                this.expireMillis = expireMillis;
+                lastTime = valueTime;
+            }
+            if (valueTime < firstTime) {
+                firstTime = valueTime;
+            }
             if (value < min) {
                 min = value;
                 minTime = valueTime;
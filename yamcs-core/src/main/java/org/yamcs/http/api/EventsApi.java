@@ -1,5 +1,6 @@
 package org.yamcs.http.api;
 
+import static org.yamcs.StandardTupleDefinitions.BODY_COLUMN;
 import static org.yamcs.StandardTupleDefinitions.GENTIME_COLUMN;
 import static org.yamcs.StandardTupleDefinitions.SOURCE_COLUMN;
 
@@ -27,6 +28,8 @@ import org.yamcs.events.EventProducerFactory;
 import org.yamcs.http.BadRequestException;
 import org.yamcs.http.Context;
 import org.yamcs.http.MediaType;
+import org.yamcs.http.TopicBroadcaster;
+import org.yamcs.http.TopicBroadcasters;
 import org.yamcs.logging.Log;
 import org.yamcs.protobuf.AbstractEventsApi;
 import org.yamcs.protobuf.CreateEventRequest;
@@ -71,6 +74,10 @@ public class EventsApi extends AbstractEventsApi<Context> {
     private ConcurrentMap<String, EventProducer> eventProducerMap = new ConcurrentHashMap<>();
     private AtomicInteger eventSequenceNumber = new AtomicInteger();
 
+    // realtime events, shared by all the subscribers of the same stream (the stream changes if the instance restarts)
+    private TopicBroadcasters<Stream, Tuple, Event> eventBroadcasters = new TopicBroadcasters<>(
+            this::subscribeRealtimeEvents);
+
     @Override
     public void listEvents(Context ctx, ListEventsRequest request, Observer<ListEventsResponse> observer) {
         String instance = InstancesApi.verifyInstance(request.getInstance());
@@ -260,11 +267,31 @@ public class EventsApi extends AbstractEventsApi<Context> {
     @Override
     public Observer<SubscribeEventsRequest> subscribeEvents(Context ctx, Observer<Event> observer) {
         ctx.checkSystemPrivilege(SystemPrivilege.ReadEvents);
-        var clientObserver = new SubscribeEventsObserver(observer);
+        var clientObserver = new SubscribeEventsObserver(observer, eventBroadcasters);
         observer.setCancelHandler(() -> clientObserver.complete());
         return clientObserver;
     }
 
+    private Runnable subscribeRealtimeEvents(Stream stream, TopicBroadcaster<Tuple, Event> broadcaster) {
+        var subscriber = new StreamSubscriber() {
+            @Override
+            public void onTuple(Stream stream, Tuple tuple) {
+                broadcaster.publish(tuple, t -> fromDbEvent((Db.Event) t.getColumn(BODY_COLUMN)));
+            }
+
+            @Override
+            public void streamClosed(Stream stream) {
+                eventBroadcasters.remove(stream);
+            }
+        };
+        stream.addSubscriber(subscriber);
+        if (stream.isClosed()) { // closed before the subscriber was added, streamClosed may not be called
+            stream.removeSubscriber(subscriber);
+            return null;
+        }
+        return () -> stream.removeSubscriber(subscriber);
+    }
+
     @Override
     public void streamEvents(Context ctx, StreamEventsRequest request, Observer<Event> observer) {
         String instance = InstancesApi.verifyInstance(request.getInstance());
@@ -11,6 +11,8 @@ import org.yamcs.client.utils.WellKnownTypes;
 import org.yamcs.http.BadRequestException;
 import org.yamcs.http.Context;
 import org.yamcs.http.NotFoundException;
+import org.yamcs.http.TopicBroadcaster;
+import org.yamcs.http.TopicBroadcasters;
 import org.yamcs.http.audit.AuditLog;
 import org.yamcs.management.LinkManager;
 import org.yamcs.mdb.MdbFactory;
@@ -36,6 +38,10 @@ import com.google.protobuf.Struct;
 
 public class LinksApi extends AbstractLinksApi<Context> {
 
+    // link updates, polled once for all the subscribers of the same instance
+    private final TopicBroadcasters<String, LinkEvent, LinkEvent> linkBroadcasters = new TopicBroadcasters<>(
+            LinksApi::pollLinks);
+
     public LinksApi(AuditLog auditLog) {
         auditLog.addPrivilegeChecker(getClass().getSimpleName(), user -> {
             return user.hasSystemPrivilege(SystemPrivilege.ReadLinks);
@@ -60,17 +66,28 @@ public class LinksApi extends AbstractLinksApi<Context> {
         String instance = InstancesApi.verifyInstance(request.getInstance());
         YamcsServerInstance ysi = InstancesApi.verifyInstanceObj(instance);
 
-        LinkManager linkManager = ysi.getLinkManager();
+        // the shared poller may only send the next update after up to one second
+        observer.next(toLinkEvent(instance, ysi.getLinkManager()));
+        observer.setCancelHandler(linkBroadcasters.subscribe(instance, observer, null));
+    }
 
+    private static Runnable pollLinks(String instance, TopicBroadcaster<LinkEvent, LinkEvent> broadcaster) {
         var exec = YamcsServer.getServer().getThreadPoolExecutor();
         var future = exec.scheduleAtFixedRate(() -> {
-            var b = LinkEvent.newBuilder();
-            for (var link : linkManager.getLinks()) {
-                b.addLinks(toLink(instance, link));
+            YamcsServerInstance ysi = YamcsServer.getServer().getInstance(instance);
+            if (ysi != null) {
+                broadcaster.publish(toLinkEvent(instance, ysi.getLinkManager()));
             }
-            observer.next(b.build());
-        }, 0, 1, TimeUnit.SECONDS);
-        observer.setCancelHandler(() -> future.cancel(false));
+        }, 1, 1, TimeUnit.SECONDS);
+        return () -> future.cancel(false);
+    }
+
+    private static LinkEvent toLinkEvent(String instance, LinkManager linkManager) {
+        var b = LinkEvent.newBuilder();
+        for (var link : linkManager.getLinks()) {
+            b.addLinks(toLink(instance, link));
+        }
+        return b.build();
     }
 
     @Override
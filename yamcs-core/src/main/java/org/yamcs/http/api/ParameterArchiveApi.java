@@ -190,7 +190,13 @@ public class ParameterArchiveApi extends AbstractParameterArchiveApi<Context> {
                 .withoutRealtime(request.getNorealtime())
                 .withoutParchive(request.hasSource() && isReplayAsked(request.getSource()))
                 .build();
-        prs.retrieveScalar(pid, opts, sampler)
+        long resolution = (stop - start) / Math.max(sampleCount, 1);
+        int tier = prs.getRollupTier(pid, opts, resolution);
+        if (tier > 0) {
+            // such that the rollup buckets do not cross the boundaries of the intervals
+            sampler.alignIntervals(1000L * tier);
+        }
+        prs.retrieveSamples(pid, opts, resolution, sampler::process, sampler)
                 .thenRun(() -> {
                     TimeSeries.Builder series = TimeSeries.newBuilder();
                     for (Sample s : sampler.collect()) {
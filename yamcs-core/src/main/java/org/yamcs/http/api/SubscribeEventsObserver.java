@@ -1,76 +1,59 @@
 package org.yamcs.http.api;
 
-import static org.yamcs.StandardTupleDefinitions.BODY_COLUMN;
-
 import org.yamcs.api.Observer;
 import org.yamcs.archive.EventRecorder;
+import org.yamcs.http.TopicBroadcasters;
 import org.yamcs.protobuf.Event;
 import org.yamcs.protobuf.SubscribeEventsRequest;
 import org.yamcs.yarch.Stream;
-import org.yamcs.yarch.StreamSubscriber;
 import org.yamcs.yarch.Tuple;
 import org.yamcs.yarch.YarchDatabase;
-import org.yamcs.yarch.protobuf.Db;
 
-public class SubscribeEventsObserver implements Observer<SubscribeEventsRequest>, StreamSubscriber {
+public class SubscribeEventsObserver implements Observer<SubscribeEventsRequest> {
 
     private Observer<Event> responseObserver;
 
-    private Stream stream;
+    private TopicBroadcasters<Stream, Tuple, Event> broadcasters;
 
-    private EventFilter filter;
+    private Runnable unsubscribeAction;
 
-    public SubscribeEventsObserver(Observer<Event> responseObserver) {
+    public SubscribeEventsObserver(Observer<Event> responseObserver,
+            TopicBroadcasters<Stream, Tuple, Event> broadcasters) {
         this.responseObserver = responseObserver;
+        this.broadcasters = broadcasters;
     }
 
     @Override
     public void next(SubscribeEventsRequest request) {
-        if (stream != null) {
-            stream.removeSubscriber(this);
-            stream = null;
-        }
+        unsubscribe();
 
-        filter = request.hasFilter()
+        EventFilter filter = request.hasFilter()
                 ? EventFilterFactory.create(request.getFilter())
                 : null;
 
         var instance = InstancesApi.verifyInstance(request.getInstance());
-        var ydb = YarchDatabase.getInstance(instance);
-        stream = ydb.getStream(EventRecorder.REALTIME_EVENT_STREAM_NAME);
+        // resolved for each subscription, the stream is recreated if the instance restarts
+        var stream = YarchDatabase.getInstance(instance).getStream(EventRecorder.REALTIME_EVENT_STREAM_NAME);
         if (stream == null) {
             return; // No error, just don't send data
         }
-
-        stream.addSubscriber(this);
+        unsubscribeAction = broadcasters.subscribe(stream, responseObserver, filter == null ? null : filter::matches);
     }
 
-    @Override
-    public void onTuple(Stream stream, Tuple tuple) {
-        if (filter != null && !filter.matches(tuple)) {
-            return;
+    private void unsubscribe() {
+        if (unsubscribeAction != null) {
+            unsubscribeAction.run();
+            unsubscribeAction = null;
         }
-
-        var event = (Db.Event) tuple.getColumn(BODY_COLUMN);
-        responseObserver.next(EventsApi.fromDbEvent(event));
-    }
-
-    @Override
-    public void streamClosed(Stream stream) {
-        // Ignore
     }
 
     @Override
     public void completeExceptionally(Throwable t) {
-        if (stream != null) {
-            stream.removeSubscriber(this);
-        }
+        unsubscribe();
     }
 
     @Override
     public void complete() {
-        if (stream != null) {
-            stream.removeSubscriber(this);
-        }
+        unsubscribe();
     }
 }
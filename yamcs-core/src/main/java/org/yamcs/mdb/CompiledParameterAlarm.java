@@ -0,0 +1,280 @@
+package org.yamcs.mdb;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.yamcs.mdb.MatchCriteriaEvaluator.MatchResult;
+import org.yamcs.parameter.ParameterValue;
+import org.yamcs.protobuf.Pvalue.MonitoringResult;
+import org.yamcs.protobuf.Pvalue.RangeCondition;
+import org.yamcs.xtce.AlarmLevels;
+import org.yamcs.xtce.AlarmRanges;
+import org.yamcs.xtce.AlarmType;
+import org.yamcs.xtce.EnumeratedParameterType;
+import org.yamcs.xtce.EnumerationAlarm;
+import org.yamcs.xtce.EnumerationAlarm.EnumerationAlarmItem;
+import org.yamcs.xtce.EnumerationContextAlarm;
+import org.yamcs.xtce.FloatParameterType;
+import org.yamcs.xtce.IntegerParameterType;
+import org.yamcs.xtce.MatchCriteria;
+import org.yamcs.xtce.NumericAlarm;
+import org.yamcs.xtce.NumericContextAlarm;
+import org.yamcs.xtce.ParameterType;
+import org.yamcs.xtce.util.DoubleRange;
+
+/**
+ * The alarm definitions of a parameter type in a form which can be checked quickly for each value.
+ * <p>
+ * The context match criteria are resolved to their evaluators, the numeric alarm ranges are flattened into arrays of
+ * thresholds ordered by severity and the enumeration alarms into a map from the label to the monitoring result.
+ * <p>
+ * The object is built for one {@link ParameterType} instance; since the overrides of the alarms replace the parameter
+ * type, a new one has to be built if the type of the parameter changes.
+ */
+final class CompiledParameterAlarm {
+    // used when there is no applicable alarm
+    static final Alarm NO_ALARM = new Alarm(null, 1);
+
+    final ParameterType ptype;
+    final MatchCriteriaEvaluator[] contextEvaluators;
+    final Alarm[] contextAlarms;
+    // may be null
+    final Alarm defaultAlarm;
+
+    private CompiledParameterAlarm(ParameterType ptype, MatchCriteriaEvaluator[] contextEvaluators,
+            Alarm[] contextAlarms, Alarm defaultAlarm) {
+        this.ptype = ptype;
+        this.contextEvaluators = contextEvaluators;
+        this.contextAlarms = contextAlarms;
+        this.defaultAlarm = defaultAlarm;
+    }
+
+    /**
+     *
+     * @return the compiled alarm or null if the parameter type has no alarm supported by the alarm checker
+     */
+    static CompiledParameterAlarm compile(ParameterType ptype, ProcessorData pdata) {
+        if (ptype instanceof FloatParameterType fpt) {
+            return compileNumeric(ptype, fpt.getContextAlarmList(), fpt.getDefaultAlarm(), pdata);
+        } else if (ptype instanceof IntegerParameterType ipt) {
+            return compileNumeric(ptype, ipt.getContextAlarmList(), ipt.getDefaultAlarm(), pdata);
+        } else if (ptype instanceof EnumeratedParameterType ept) {
+            return compileEnumerated(ept, pdata);
+        } else {
+            return null;
+        }
+    }
+
+    private static CompiledParameterAlarm compileNumeric(ParameterType ptype, List<NumericContextAlarm> contextAlarms,
+            NumericAlarm defaultAlarm, ProcessorData pdata) {
+        List<MatchCriteria> contexts = new ArrayList<>();
+        List<Alarm> alarms = new ArrayList<>();
+        if (contextAlarms != null) {
+            for (NumericContextAlarm nca : contextAlarms) {
+                contexts.add(nca.getContextMatch());
+                alarms.add(new NumericRangesAlarm(nca));
+            }
+        }
+        Alarm compiledDefault = defaultAlarm == null ? null : new NumericRangesAlarm(defaultAlarm);
+        return build(ptype, contexts, alarms, compiledDefault, pdata);
+    }
+
+    private static CompiledParameterAlarm compileEnumerated(EnumeratedParameterType ept, ProcessorData pdata) {
+        List<MatchCriteria> contexts = new ArrayList<>();
+        List<Alarm> alarms = new ArrayList<>();
+        if (ept.getContextAlarmList() != null) {
+            for (EnumerationContextAlarm eca : ept.getContextAlarmList()) {
+                contexts.add(eca.getContextMatch());
+                alarms.add(new EnumerationLevelsAlarm(eca));
+            }
+        }
+        EnumerationAlarm defaultAlarm = ept.getDefaultAlarm();
+        Alarm compiledDefault = defaultAlarm == null ? null : new EnumerationLevelsAlarm(defaultAlarm);
+        return build(ept, contexts, alarms, compiledDefault, pdata);
+    }
+
+    private static CompiledParameterAlarm build(ParameterType ptype, List<MatchCriteria> contexts, List<Alarm> alarms,
+            Alarm defaultAlarm, ProcessorData pdata) {
+        MatchCriteriaEvaluator[] evaluators = new MatchCriteriaEvaluator[contexts.size()];
+        for (int i = 0; i < evaluators.length; i++) {
+            evaluators[i] = pdata.getEvaluator(contexts.get(i));
+        }
+        return new CompiledParameterAlarm(ptype, evaluators, alarms.toArray(new Alarm[0]), defaultAlarm);
+    }
+
+    /**
+     * Returns the alarm applicable in the given context: the first context alarm whose context matches or the default
+     * alarm if none matches.
+     *
+     * @return the applicable alarm or null if there is none
+     */
+    Alarm getApplicableAlarm(ProcessingContext processingCtx) {
+        for (int i = 0; i < contextEvaluators.length; i++) {
+            if (contextEvaluators[i].evaluate(processingCtx) == MatchResult.OK) {
+                return contextAlarms[i];
+            }
+        }
+        return defaultAlarm;
+    }
+
+    static class Alarm {
+        // may be null for NO_ALARM
+        final AlarmType alarmType;
+        final int minViolations;
+        final boolean autoAck;
+        final boolean latching;
+
+        Alarm(AlarmType alarmType, int minViolations) {
+            this.alarmType = alarmType;
+            this.minViolations = minViolations;
+            this.autoAck = alarmType != null && alarmType.isAutoAck();
+            this.latching = alarmType != null && alarmType.isLatching();
+        }
+    }
+
+    /**
+     * Numeric alarm with the static ranges flattened into arrays ordered from the most to the least severe.
+     * <p>
+     * The exclusive limits are converted to inclusive ones using the adjacent double value, such that checking one
+     * range takes two comparisons. The open ends of the ranges are converted to infinite limits.
+     */
+    static final class NumericRangesAlarm extends Alarm {
+        final boolean hasRanges;
+        // the value is out of range k if it is smaller than low[k] or greater than high[k]
+        final double[] low;
+        final double[] high;
+        final MonitoringResult[] results;
+
+        final DoubleRange watchRange;
+        final DoubleRange warningRange;
+        final DoubleRange distressRange;
+        final DoubleRange criticalRange;
+        final DoubleRange severeRange;
+
+        NumericRangesAlarm(NumericAlarm alarm) {
+            super(alarm, alarm.getMinViolations());
+            AlarmRanges ranges = alarm.getStaticAlarmRanges();
+            hasRanges = ranges != null;
+            if (ranges == null) {
+                watchRange = warningRange = distressRange = criticalRange = severeRange = null;
+                low = high = new double[0];
+                results = new MonitoringResult[0];
+                return;
+            }
+            watchRange = ranges.getWatchRange();
+            warningRange = ranges.getWarningRange();
+            distressRange = ranges.getDistressRange();
+            criticalRange = ranges.getCriticalRange();
+            severeRange = ranges.getSevereRange();
+
+            DoubleRange[] orderedRanges = { severeRange, criticalRange, distressRange, warningRange, watchRange };
+            MonitoringResult[] orderedResults = { MonitoringResult.SEVERE, MonitoringResult.CRITICAL,
+                    MonitoringResult.DISTRESS, MonitoringResult.WARNING, MonitoringResult.WATCH };
+            int n = 0;
+            for (DoubleRange r : orderedRanges) {
+                if (r != null) {
+                    n++;
+                }
+            }
+            low = new double[n];
+            high = new double[n];
+            results = new MonitoringResult[n];
+            int k = 0;
+            for (int i = 0; i < orderedRanges.length; i++) {
+                DoubleRange r = orderedRanges[i];
+                if (r == null) {
+                    continue;
+                }
+                low[k] = lowLimit(r);
+                high[k] = highLimit(r);
+                results[k] = orderedResults[i];
+                k++;
+            }
+        }
+
+        private static double lowLimit(DoubleRange r) {
+            double min = r.getMin();
+            if (Double.isNaN(min)) {
+                return Double.NEGATIVE_INFINITY;
+            }
+            return r.isMinInclusive() ? min : Math.nextUp(min);
+        }
+
+        private static double highLimit(DoubleRange r) {
+            double max = r.getMax();
+            if (Double.isNaN(max)) {
+                return Double.POSITIVE_INFINITY;
+            }
+            return r.isMaxInclusive() ? max : Math.nextDown(max);
+        }
+
+        /**
+         * Sets the monitoring result, the range condition and the alarm ranges of the parameter value
+         */
+        void check(ParameterValue pv, double v) {
+            MonitoringResult mr = MonitoringResult.IN_LIMITS;
+            for (int k = 0; k < low.length; k++) {
+                if (v < low[k]) {
+                    mr = results[k];
+                    pv.setRangeCondition(RangeCondition.LOW);
+                    break;
+                } else if (v > high[k]) {
+                    mr = results[k];
+                    pv.setRangeCondition(RangeCondition.HIGH);
+                    break;
+                }
+            }
+            pv.setMonitoringResult(mr);
+            pv.setWatchRange(watchRange);
+            pv.setWarningRange(warningRange);
+            pv.setDistressRange(distressRange);
+            pv.setCriticalRange(criticalRange);
+            pv.setSevereRange(severeRange);
+        }
+    }
+
+    /**
+     * Enumeration alarm with the alarm levels converted to monitoring results indexed by label.
+     */
+    static final class EnumerationLevelsAlarm extends Alarm {
+        final Map<String, MonitoringResult> results = new HashMap<>();
+        final MonitoringResult defaultResult;
+
+        EnumerationLevelsAlarm(EnumerationAlarm alarm) {
+            super(alarm, alarm.getMinViolations());
+            defaultResult = toMonitoringResult(alarm.getDefaultAlarmLevel());
+            // if the same label appears multiple times, the last one is used
+            for (EnumerationAlarmItem eai : alarm.getAlarmList()) {
+                results.put(eai.getEnumerationLabel(), toMonitoringResult(eai.getAlarmLevel()));
+            }
+        }
+
+        MonitoringResult getMonitoringResult(String label) {
+            return results.getOrDefault(label, defaultResult);
+        }
+
+        static MonitoringResult toMonitoringResult(AlarmLevels level) {
+            if (level == null) {
+                return null;
+            }
+            switch (level) {
+            case NORMAL:
+                return MonitoringResult.IN_LIMITS;
+            case WATCH:
+                return MonitoringResult.WATCH;
+            case WARNING:
+                return MonitoringResult.WARNING;
+            case DISTRESS:
+                return MonitoringResult.DISTRESS;
+            case CRITICAL:
+                return MonitoringResult.CRITICAL;
+            case SEVERE:
+                return MonitoringResult.SEVERE;
+            default:
+                return null;
+            }
+        }
+    }
+}
@@ -4,6 +4,7 @@ import static org.yamcs.xtce.NameDescription.PATH_SEPARATOR;
 
 import java.io.IOException;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -42,6 +43,8 @@ import org.yamcs.xtce.XtceDb;
 public class Mdb extends XtceDb {
     private static final long serialVersionUID = 2L;
     final Map<String, SpaceSystemWriter> subsystemWriters;
+    // the last allocated parameter index
+    private transient int lastParameterIndex;
 
     public Mdb(SpaceSystem spaceSystem, Map<String, SpaceSystemWriter> susbsystemWriters) {
         super(spaceSystem);
@@ -72,14 +75,31 @@ public class Mdb extends XtceDb {
             WriterWithPath wwp = getWriter(p.getSubsystemName());
             writers.put(wwp.path, wwp.writer);
         }
-        // add the parameters to the MDB
+        // add the parameters to the MDB; the indices are allocated only if they have been added
         super.doAddParameters(parameters, createSpaceSystems, createSpaceSystems);
+        allocateIndices(parameters);
 
         for (var entry : writers.entrySet()) {
             entry.getValue().write(entry.getKey(), this);
         }
     }
 
+    /**
+     * Allocates the {@link Parameter#getIndex() indices} of the parameters which do not have one yet, such that the
+     * parameters of this MDB have consecutive indices. Called after loading the MDB.
+     */
+    void allocateParameterIndices() {
+        allocateIndices(getParameters());
+    }
+
+    private synchronized void allocateIndices(Collection<Parameter> parameters) {
+        for (Parameter p : parameters) {
+            if (p.getIndex() == 0) {
+                p.setIndex(++lastParameterIndex);
+            }
+        }
+    }
+
     /**
      * Get the MDB writer for this qualified name
      * <p>
@@ -156,6 +176,7 @@ public class Mdb extends XtceDb {
             p = SystemParameter.getForFullyQualifiedName(parameterQualifiedNamed);
             p.setParameterType(ptype);
             doAddParameter(p, true, true);
+            allocateIndices(List.of(p));
         } else {
             if (p.getParameterType() != ptype) {
                 throw new IllegalArgumentException("A parameter with name " + parameterQualifiedNamed
@@ -193,6 +193,7 @@ public class MdbFactory {
                 log.warn("Cannot save serialized MDB", e);
             }
         }
+        mdb.allocateParameterIndices();
 
         return mdb;
     }
@@ -6,26 +6,17 @@ import java.util.Set;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.yamcs.parameter.ParameterValue;
+import org.yamcs.parameter.Value;
 import org.yamcs.alarms.AlarmReporter;
 import org.yamcs.alarms.AlarmServer;
-import org.yamcs.mdb.MatchCriteriaEvaluator.MatchResult;
+import org.yamcs.mdb.CompiledParameterAlarm.Alarm;
+import org.yamcs.mdb.CompiledParameterAlarm.EnumerationLevelsAlarm;
+import org.yamcs.mdb.CompiledParameterAlarm.NumericRangesAlarm;
 import org.yamcs.parameter.LastValueCache;
+import org.yamcs.parameter.ParameterIndexMap;
 import org.yamcs.parameter.ParameterProcessorManager;
 import org.yamcs.protobuf.Pvalue.MonitoringResult;
-import org.yamcs.protobuf.Pvalue.RangeCondition;
-import org.yamcs.protobuf.Yamcs.Value.Type;
-import org.yamcs.xtce.AlarmLevels;
-import org.yamcs.xtce.AlarmRanges;
-import org.yamcs.xtce.AlarmType;
 import org.yamcs.xtce.EnumeratedParameterType;
-import org.yamcs.xtce.EnumerationAlarm;
-import org.yamcs.xtce.EnumerationAlarm.EnumerationAlarmItem;
-import org.yamcs.xtce.util.DoubleRange;
-import org.yamcs.xtce.EnumerationContextAlarm;
-import org.yamcs.xtce.FloatParameterType;
-import org.yamcs.xtce.IntegerParameterType;
-import org.yamcs.xtce.NumericAlarm;
-import org.yamcs.xtce.NumericContextAlarm;
 import org.yamcs.xtce.Parameter;
 import org.yamcs.xtce.ParameterType;
 
@@ -45,6 +36,9 @@ public class ParameterAlarmChecker {
     LastValueCache lastValueCache;
     final ProcessorData pdata;
 
+    // alarm definitions compiled for fast checking, rebuilt when the type of the parameter changes
+    final ParameterIndexMap<CompiledParameterAlarm> compiledAlarms = new ParameterIndexMap<>();
+
     public ParameterAlarmChecker(ParameterProcessorManager ppm, ProcessorData pdata) {
         this.ppm = ppm;
         this.lastValueCache = ppm.getLastValueCache();
@@ -63,6 +57,9 @@ public class ParameterAlarmChecker {
         }
         Set<Parameter> params = ptype.getDependentParameters();
         ppm.subscribeToProviders(params);
+        if (ptype.hasAlarm()) {
+            getCompiledAlarm(p, ptype);
+        }
     }
 
     /**
@@ -100,238 +97,104 @@ public class ParameterAlarmChecker {
      * Updates the ParameterValue with monitoring (out of limits) information
      */
     private void performAlarmChecking(ProcessingContext processingCtx, ParameterValue pv, ParameterType ptype) {
-        if (ptype instanceof FloatParameterType) {
-            performAlarmCheckingFloat(processingCtx, (FloatParameterType) ptype, pv);
-        } else if (ptype instanceof EnumeratedParameterType) {
-            performAlarmCheckingEnumerated(processingCtx, (EnumeratedParameterType) ptype, pv);
-        } else if (ptype instanceof IntegerParameterType) {
-            performAlarmCheckingInteger(processingCtx, (IntegerParameterType) ptype, pv);
+        CompiledParameterAlarm calarm = getCompiledAlarm(pv.getParameter(), ptype);
+        if (calarm == null) {
+            return;
         }
-    }
-
-    private void performAlarmCheckingInteger(ProcessingContext processingCtx,
-            IntegerParameterType ipt, ParameterValue pv) {
-        long intCalValue = 0;
-        if (pv.getEngValue().getType() == Type.SINT32) {
-            intCalValue = pv.getEngValue().getSint32Value();
-        } else if (pv.getEngValue().getType() == Type.UINT32) {
-            intCalValue = 0xFFFFFFFFL & pv.getEngValue().getUint32Value();
-        } else if (pv.getEngValue().getType() == Type.SINT64) {
-            intCalValue = pv.getEngValue().getSint64Value();
-        } else if (pv.getEngValue().getType() == Type.UINT64) {
-            intCalValue = pv.getEngValue().getUint64Value();
+        if (ptype instanceof EnumeratedParameterType) {
+            performAlarmCheckingEnumerated(processingCtx, calarm, pv);
         } else {
-            throw new IllegalStateException("Unexpected integer value");
-        }
-
-        // Determine applicable ranges based on context
-        boolean mon = false;
-        AlarmType alarmType = null;
-        AlarmRanges staticAlarmRanges = null;
-        int minViolations = 1;
-        boolean autoAck = false;
-        boolean latching = false;
-        if (ipt.getContextAlarmList() != null) {
-            for (NumericContextAlarm nca : ipt.getContextAlarmList()) {
-                MatchCriteriaEvaluator evaluator = pdata.getEvaluator(nca.getContextMatch());
-                if (evaluator.evaluate(processingCtx) == MatchResult.OK) {
-                    mon = true;
-                    alarmType = nca;
-                    staticAlarmRanges = nca.getStaticAlarmRanges();
-                    minViolations = nca.getMinViolations();
-                    autoAck = nca.isAutoAck();
-                    latching = nca.isLatching();
-                    break;
-                }
-            }
-        }
-
-        NumericAlarm defaultAlarm = ipt.getDefaultAlarm();
-        if (!mon && defaultAlarm != null) {
-            alarmType = defaultAlarm;
-            staticAlarmRanges = defaultAlarm.getStaticAlarmRanges();
-            minViolations = defaultAlarm.getMinViolations();
-            autoAck = defaultAlarm.isAutoAck();
-            latching = defaultAlarm.isLatching();
-        }
-
-        // Set MonitoringResult
-        pv.setMonitoringResult(null); // The default is DISABLED, but set it to null, so that below code is more
-                                      // readable
-        if (staticAlarmRanges != null) {
-            checkStaticAlarmRanges(pv, intCalValue, staticAlarmRanges);
-        }
-
-        // Notify when severity changes
-        if (alarmReporter != null) {
-            alarmReporter.reportNumericParameterEvent(pv, alarmType, minViolations);
-        }
-        if (alarmServer != null) {
-            alarmServer.update(pv, minViolations, autoAck, latching);
+            performAlarmCheckingNumeric(processingCtx, calarm, pv);
         }
     }
 
-    private void performAlarmCheckingFloat(ProcessingContext processingCtx,
-            FloatParameterType fpt, ParameterValue pv) {
-        double doubleCalValue = 0;
-        if (pv.getEngValue().getType() == Type.FLOAT) {
-            doubleCalValue = pv.getEngValue().getFloatValue();
-        } else if (pv.getEngValue().getType() == Type.DOUBLE) {
-            doubleCalValue = pv.getEngValue().getDoubleValue();
-        } else {
-            throw new IllegalStateException("Unexpected float value");
-        }
-
-        // Determine applicable AlarmType based on context
-        boolean mon = false;
-        AlarmType alarmType = null;
-        AlarmRanges staticAlarmRanges = null;
-
-        int minViolations = 1;
-        boolean autoAck = false;
-        boolean latching = false;
-        if (fpt.getContextAlarmList() != null) {
-            for (NumericContextAlarm nca : fpt.getContextAlarmList()) {
-                MatchCriteriaEvaluator evaluator = pdata.getEvaluator(nca.getContextMatch());
-                if (evaluator.evaluate(processingCtx) == MatchResult.OK) {
-                    mon = true;
-                    alarmType = nca;
-                    staticAlarmRanges = nca.getStaticAlarmRanges();
-                    minViolations = nca.getMinViolations();
-                    autoAck = nca.isAutoAck();
-                    latching = nca.isLatching();
-                    break;
-                }
+    /**
+     * Returns the compiled alarm of the parameter, compiling it again if the parameter type has changed since the last
+     * call (e.g. because the alarms have been overridden)
+     */
+    private CompiledParameterAlarm getCompiledAlarm(Parameter p, ParameterType ptype) {
+        CompiledParameterAlarm calarm = compiledAlarms.get(p);
+        if (calarm == null || calarm.ptype != ptype) {
+            calarm = CompiledParameterAlarm.compile(ptype, pdata);
+            if (calarm != null) {
+                compiledAlarms.put(p, calarm);
+            } else {
+                compiledAlarms.remove(p);
             }
         }
+        return calarm;
+    }
 
-        NumericAlarm defaultAlarm = fpt.getDefaultAlarm();
-        if (!mon && defaultAlarm != null) {
-            alarmType = defaultAlarm;
-            staticAlarmRanges = defaultAlarm.getStaticAlarmRanges();
-            minViolations = defaultAlarm.getMinViolations();
-            autoAck = defaultAlarm.isAutoAck();
-            latching = defaultAlarm.isLatching();
+    private void performAlarmCheckingNumeric(ProcessingContext processingCtx, CompiledParameterAlarm calarm,
+            ParameterValue pv) {
+        Value v = pv.getEngValue();
+        double calValue;
+        switch (v.getType()) {
+        case FLOAT:
+            calValue = v.getFloatValue();
+            break;
+        case DOUBLE:
+            calValue = v.getDoubleValue();
+            break;
+        case SINT32:
+            calValue = v.getSint32Value();
+            break;
+        case UINT32:
+            calValue = 0xFFFFFFFFL & v.getUint32Value();
+            break;
+        case SINT64:
+            calValue = v.getSint64Value();
+            break;
+        case UINT64:
+            calValue = v.getUint64Value();
+            break;
+        default:
+            throw new IllegalStateException("Unexpected numeric value " + v.getType());
+        }
+
+        // Determine applicable alarm based on context
+        Alarm alarm = calarm.getApplicableAlarm(processingCtx);
+        if (alarm == null) {
+            alarm = CompiledParameterAlarm.NO_ALARM;
         }
 
         // Set MonitoringResult
         pv.setMonitoringResult(null); // The default is DISABLED, but set it to null, so that below code is more
                                       // readable
-        if (staticAlarmRanges != null) {
-            checkStaticAlarmRanges(pv, doubleCalValue, staticAlarmRanges);
+        if (alarm instanceof NumericRangesAlarm nra && nra.hasRanges) {
+            nra.check(pv, calValue);
         }
 
         // Notify when severity changes
         if (alarmReporter != null) {
-            alarmReporter.reportNumericParameterEvent(pv, alarmType, minViolations);
+            alarmReporter.reportNumericParameterEvent(pv, alarm.alarmType, alarm.minViolations);
         }
         if (alarmServer != null) {
-            alarmServer.update(pv, minViolations, autoAck, latching);
-        }
-    }
-
-    private void checkRange(ParameterValue pv, MonitoringResult mr, DoubleRange fr, double v) {
-        int x = fr.inRange(v);
-        if (x < 0) {
-            pv.setMonitoringResult(mr);
-            pv.setRangeCondition(RangeCondition.LOW);
-        } else if (x > 0) {
-            pv.setMonitoringResult(mr);
-            pv.setRangeCondition(RangeCondition.HIGH);
-        }
-    }
-
-    /**
-     * Verify limits, giving priority to highest severity
-     */
-    private void checkStaticAlarmRanges(ParameterValue pv, double doubleCalValue, AlarmRanges staticAlarmRanges) {
-        pv.setMonitoringResult(null);
-        DoubleRange watchRange = staticAlarmRanges.getWatchRange();
-        DoubleRange warningRange = staticAlarmRanges.getWarningRange();
-        DoubleRange distressRange = staticAlarmRanges.getDistressRange();
-        DoubleRange criticalRange = staticAlarmRanges.getCriticalRange();
-        DoubleRange severeRange = staticAlarmRanges.getSevereRange();
-        if (severeRange != null) {
-            checkRange(pv, MonitoringResult.SEVERE, severeRange, doubleCalValue);
+            alarmServer.update(pv, alarm.minViolations, alarm.autoAck, alarm.latching);
         }
-        if (pv.getMonitoringResult() == null && criticalRange != null) {
-            checkRange(pv, MonitoringResult.CRITICAL, criticalRange, doubleCalValue);
-        }
-        if (pv.getMonitoringResult() == null && distressRange != null) {
-            checkRange(pv, MonitoringResult.DISTRESS, distressRange, doubleCalValue);
-        }
-        if (pv.getMonitoringResult() == null && warningRange != null) {
-            checkRange(pv, MonitoringResult.WARNING, warningRange, doubleCalValue);
-        }
-        if (pv.getMonitoringResult() == null && watchRange != null) {
-            checkRange(pv, MonitoringResult.WATCH, watchRange, doubleCalValue);
-        }
-
-        if (pv.getMonitoringResult() == null) {
-            pv.setMonitoringResult(MonitoringResult.IN_LIMITS);
-        }
-
-        pv.setWatchRange(watchRange);
-        pv.setWarningRange(warningRange);
-        pv.setDistressRange(distressRange);
-        pv.setCriticalRange(criticalRange);
-        pv.setSevereRange(severeRange);
     }
 
-    private void performAlarmCheckingEnumerated(ProcessingContext processingCtx,
-            EnumeratedParameterType ept, ParameterValue pv) {
+    private void performAlarmCheckingEnumerated(ProcessingContext processingCtx, CompiledParameterAlarm calarm,
+            ParameterValue pv) {
         pv.setMonitoringResult(null); // Default is DISABLED, but that doesn't seem fit when we are checking
         String s = pv.getEngValue().getStringValue();
 
-        EnumerationAlarm alarm = ept.getDefaultAlarm();
-        int minViolations = (alarm == null) ? 1 : alarm.getMinViolations();
-        if (ept.getContextAlarmList() != null) {
-            for (EnumerationContextAlarm nca : ept.getContextAlarmList()) {
-                MatchCriteriaEvaluator evaluator = pdata.getEvaluator(nca.getContextMatch());
-                if (evaluator.evaluate(processingCtx) == MatchResult.OK) {
-                    alarm = nca;
-                    minViolations = nca.getMinViolations();
-                    break;
-                }
-            }
-        }
+        Alarm alarm = calarm.getApplicableAlarm(processingCtx);
+        int minViolations = 1;
         boolean autoAck = false;
         boolean latching = false;
 
-        if (alarm != null) {
-            AlarmLevels level = alarm.getDefaultAlarmLevel();
-            for (EnumerationAlarmItem eai : alarm.getAlarmList()) {
-                if (eai.getEnumerationLabel().equals(s)) {
-                    level = eai.getAlarmLevel();
-                }
+        if (alarm instanceof EnumerationLevelsAlarm ela) {
+            MonitoringResult mr = ela.getMonitoringResult(s);
+            if (mr != null) {
+                pv.setMonitoringResult(mr);
             }
-
-            switch (level) {
-            case NORMAL:
-                pv.setMonitoringResult(MonitoringResult.IN_LIMITS);
-                break;
-            case WATCH:
-                pv.setMonitoringResult(MonitoringResult.WATCH);
-                break;
-            case WARNING:
-                pv.setMonitoringResult(MonitoringResult.WARNING);
-                break;
-            case DISTRESS:
-                pv.setMonitoringResult(MonitoringResult.DISTRESS);
-                break;
-            case CRITICAL:
-                pv.setMonitoringResult(MonitoringResult.CRITICAL);
-                break;
-            case SEVERE:
-                pv.setMonitoringResult(MonitoringResult.SEVERE);
-                break;
-            }
-
+            minViolations = ela.minViolations;
             if (alarmReporter != null) {
-                alarmReporter.reportEnumeratedParameterEvent(pv, alarm, minViolations);
+                alarmReporter.reportEnumeratedParameterEvent(pv, ela.alarmType, minViolations);
             }
-            autoAck = alarm.isAutoAck();
-            latching = alarm.isLatching();
+            autoAck = ela.autoAck;
+            latching = ela.latching;
         }
 
         if (alarmServer != null) {
@@ -78,7 +78,7 @@ public class XtceLoader implements SpaceSystemLoader {
 
     public XtceLoader(YConfiguration config) {
         if (config.containsKey("file")) {
-            String fn = (String) config.get("file");
+            String fn = config.getString("file");
             this.xtceFileNames = Arrays.asList(fn);
         } else if (config.containsKey("fileset")) {
             xtceFileNames = new ArrayList<>();
@@ -1,7 +1,7 @@
 package org.yamcs.parameter;
 
 import java.util.ArrayList;
-import java.util.BitSet;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
@@ -9,6 +9,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 
@@ -23,6 +24,15 @@ import org.yamcs.xtce.Parameter;
 /**
  * This is another implementation of the parameter cache using arrays to store primitive values (instead of storing
  * {@link Value}).
+ * <p>
+ * The values are stored in tables, one table for each group of parameters delivered together. Each table grows until
+ * it covers the configured duration or reaches the configured maximum number of entries. If a memory budget is
+ * configured, the tables do not grow anymore once the size of all the columns reaches the budget; the oldest entries
+ * are overwritten instead.
+ * <p>
+ * When the budget is exhausted, the tables whose newest entry is older than the configured duration (e.g. the
+ * parameters of a packet not received anymore) are removed and their memory is returned to the budget, such that the
+ * tables still receiving values can grow.
  */
 public class ArrayParameterCache implements ParameterCache {
     SimpleParameterIdMap pidMap = new SimpleParameterIdMap();
@@ -31,10 +41,15 @@ public class ArrayParameterCache implements ParameterCache {
     ConcurrentHashMap<SortedIntArray, ParameterValueTable> tables = new ConcurrentHashMap<>();
     final ConcurrentHashMap<Parameter, Boolean> parametersToCache;
     final ParameterCacheConfig cacheConfig;
+    final MemoryBudget memoryBudget;
+    // the expired tables are looked up at most once per this interval (in generation time)
+    static final long RELEASE_CHECK_INTERVAL = 1000;
+    private volatile long nextReleaseCheck = Long.MIN_VALUE;
 
     ArrayParameterCache(String instance, ParameterCacheConfig cacheConfig) {
         log = new Log(this.getClass(), instance);
         this.cacheConfig = cacheConfig;
+        this.memoryBudget = new MemoryBudget(cacheConfig.maxMemory);
         parametersToCache = cacheConfig.cacheAll ? null : new ConcurrentHashMap<>();
     }
 
@@ -66,20 +81,49 @@ public class ArrayParameterCache implements ParameterCache {
                 maxTimestamp = t;
             }
         }
+        if (!m.isEmpty() && memoryBudget.exhausted && maxTimestamp >= nextReleaseCheck) {
+            nextReleaseCheck = maxTimestamp + RELEASE_CHECK_INTERVAL;
+            releaseExpiredTables(maxTimestamp);
+        }
     }
 
     private void addToCache(long t, SortedParameterList pvList) {
         SortedIntArray sia = pvList.getParameterIdArray();
-        ParameterValueTable table = tables.get(sia);
-        if (table == null) {
-            table = new ParameterValueTable(sia, cacheConfig.maxDuration, cacheConfig.maxNumEntries);
-            ParameterValueTable table1 = tables.putIfAbsent(sia, table);
-            if (table1 != null) {
-                table = table1;
+        while (true) {
+            ParameterValueTable table = tables.get(sia);
+            if (table == null) {
+                table = new ParameterValueTable(sia, cacheConfig.maxDuration, cacheConfig.maxNumEntries,
+                        memoryBudget);
+                ParameterValueTable table1 = tables.putIfAbsent(sia, table);
+                if (table1 != null) {
+                    table = table1;
+                }
+            }
+            if (table.add(t, pvList.getParameterValueList())) {
+                return;
             }
+            // the table has been closed in the meantime
+            tables.remove(sia, table);
         }
+    }
 
-        table.add(t, pvList.getParameterValueList());
+    /**
+     * Removes the tables whose newest entry is older than the cache duration and returns their memory to the budget
+     */
+    private void releaseExpiredTables(long now) {
+        memoryBudget.exhausted = false;
+        int count = 0;
+        for (var it = tables.values().iterator(); it.hasNext();) {
+            ParameterValueTable table = it.next();
+            if (table.isExpired(now)) {
+                it.remove();
+                table.close();
+                count++;
+            }
+        }
+        if (count > 0) {
+            log.debug("Removed {} expired tables, memory usage: {} bytes", count, memoryBudget.getUsed());
+        }
     }
 
     @Override
@@ -94,6 +138,9 @@ public class ArrayParameterCache implements ParameterCache {
             }
 
             ParameterValueTable table = tables.get(sia);
+            if (table == null) { // removed in the meantime
+                continue;
+            }
             long t = table.getLastTime();
             if (t < tmax) {
                 continue;
@@ -133,6 +180,9 @@ public class ArrayParameterCache implements ParameterCache {
                 continue;
             }
             ParameterValueTable table = tables.get(sai);
+            if (table == null) { // removed in the meantime
+                continue;
+            }
             List<ParameterId> sublist = new ArrayList<>();
             sublist.add(p);
             for (int j = i + 1; j < pidlist.size(); j++) {
@@ -376,6 +426,72 @@ public class ArrayParameterCache implements ParameterCache {
         }
     }
 
+    /**
+     * Keeps track of the memory allocated for the table columns and for the objects (strings, binaries, aggregates,
+     * arrays, enumerated values and statuses) they reference.
+     */
+    static class MemoryBudget {
+        final long maxMemory;
+        final AtomicLong used = new AtomicLong();
+        // set when an allocation did not fit into the budget
+        volatile boolean exhausted;
+
+        MemoryBudget(long maxMemory) {
+            this.maxMemory = maxMemory;
+        }
+
+        /**
+         * Allocates the memory regardless of the budget; used for the initial allocation of a table and for the
+         * objects stored in the tables.
+         */
+        void allocate(long bytes) {
+            used.addAndGet(bytes);
+        }
+
+        /**
+         * Returns the memory to the budget.
+         */
+        void release(long bytes) {
+            used.addAndGet(-bytes);
+        }
+
+        /**
+         * Allocates the memory if it fits into the budget.
+         * 
+         * @return true if the memory has been allocated
+         */
+        boolean tryAllocate(long bytes) {
+            return tryAllocate(bytes, 0);
+        }
+
+        /**
+         * Allocates the memory if it fits into the budget together with the expected memory which will be allocated
+         * later.
+         * 
+         * @return true if the memory has been allocated
+         */
+        boolean tryAllocate(long bytes, long expected) {
+            if (maxMemory <= 0) {
+                used.addAndGet(bytes);
+                return true;
+            }
+            while (true) {
+                long u = used.get();
+                if (u + bytes + expected > maxMemory) {
+                    exhausted = true;
+                    return false;
+                }
+                if (used.compareAndSet(u, u + bytes)) {
+                    return true;
+                }
+            }
+        }
+
+        long getUsed() {
+            return used.get();
+        }
+    }
+
     static class SortedParameterList {
         final SimpleParameterIdMap parameterIdMap;
         final SortedIntArray parameterIdArray = new SortedIntArray();
@@ -429,6 +545,12 @@ public class ArrayParameterCache implements ParameterCache {
     static class ParameterValueTable {
         static final int MAX_NUM_ENTRIES = 1024;
         static final int INITIAL_CAPACITY = 16;
+        // estimated sizes (in bytes) used for the memory budget
+        static final int OBJECT_SIZE = 16;
+        static final int ARRAY_SIZE = 16;
+        // String object + byte array header; the characters are counted as one byte each
+        static final int STRING_SIZE = 40;
+        static final int STATUS_SIZE = 64;
         long[] generationTimeColumn;
         final Object[] rawValueColumns;
         final Object[] engValueColumns;
@@ -441,10 +563,18 @@ public class ArrayParameterCache implements ParameterCache {
         int maxNumEntries = MAX_NUM_ENTRIES;
         final SortedIntArray pids;
         long coverageStart = TimeEncoding.INVALID_INSTANT;
+        final MemoryBudget memoryBudget;
+        // size in bytes of one row of the table
+        int rowSize;
+        // bytes allocated from the memory budget, returned when the table is closed
+        long allocated;
+        // the part of the allocated bytes used by the objects referenced from the columns
+        long objectBytes;
+        boolean closed;
 
         ReadWriteLock lock = new ReentrantReadWriteLock();
 
-        ParameterValueTable(SortedIntArray pids, long timeToCache, int maxNumEntries) {
+        ParameterValueTable(SortedIntArray pids, long timeToCache, int maxNumEntries, MemoryBudget memoryBudget) {
             this.numParams = pids.size();
             this.pids = pids;
             this.rawValueColumns = new Object[numParams];
@@ -453,28 +583,45 @@ public class ArrayParameterCache implements ParameterCache {
             this.acquisitionTimeColumns = new long[numParams][];
             this.timeToCache = timeToCache;
             this.maxNumEntries = maxNumEntries;
+            this.memoryBudget = memoryBudget;
         }
 
         private void init(List<ParameterValue> sortedPvList) {
             this.generationTimeColumn = new long[INITIAL_CAPACITY];
+            // generation time
+            rowSize = 8;
             for (int i = 0; i < sortedPvList.size(); i++) {
                 ParameterValue pv = sortedPvList.get(i);
                 Value v = pv.getEngValue();
                 if (v != null) {
                     engValueColumns[i] = getNewColumn(v.getType());
+                    rowSize += getElementSize(v.getType());
                 }
                 Value rawV = pv.getRawValue();
                 if (rawV != null) {
                     rawValueColumns[i] = getNewColumn(rawV.getType());
+                    rowSize += getElementSize(rawV.getType());
                 }
                 statusColumns[i] = new ParameterStatus[INITIAL_CAPACITY];
                 acquisitionTimeColumns[i] = new long[INITIAL_CAPACITY];
+                // status reference + acquisition time
+                rowSize += 4 + 8;
             }
+            allocated = (long) INITIAL_CAPACITY * rowSize;
+            memoryBudget.allocate(allocated);
         }
 
-        public void add(long t, List<ParameterValue> sortedPvList) {
+        /**
+         * Adds a row to the table.
+         * 
+         * @return false if the table has been closed, in which case the row is not added
+         */
+        public boolean add(long t, List<ParameterValue> sortedPvList) {
             lock.writeLock().lock();
             try {
+                if (closed) {
+                    return false;
+                }
                 if (numParams != sortedPvList.size()) {
                     throw new IllegalArgumentException("Invalid number of parameters, expected " + sortedPvList.size());
                 }
@@ -485,7 +632,7 @@ public class ArrayParameterCache implements ParameterCache {
                     long t0 = generationTimeColumn[_head];
                     if (t < t0) {
                         // parameter older than the last one in the table -> ignore
-                        return;
+                        return true;
                     }
                     boolean doubled = false;
                     if (t - t0 < timeToCache) {
@@ -502,6 +649,38 @@ public class ArrayParameterCache implements ParameterCache {
                     storeParameter(i, _head, sortedPvList.get(i));
                 }
                 head = (_head + 1) & (generationTimeColumn.length - 1);
+                return true;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        /**
+         * Returns true if the newest entry of the table is older than the cache duration
+         */
+        boolean isExpired(long now) {
+            lock.readLock().lock();
+            try {
+                if (generationTimeColumn == null) {
+                    return false;
+                }
+                int row = (head - 1) & (generationTimeColumn.length - 1);
+                return now - generationTimeColumn[row] > timeToCache;
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        /**
+         * Returns the memory of the table to the budget. The table does not accept new values afterwards but can still
+         * be read by the retrievals in progress.
+         */
+        void close() {
+            lock.writeLock().lock();
+            try {
+                closed = true;
+                memoryBudget.release(allocated);
+                allocated = 0;
             } finally {
                 lock.writeLock().unlock();
             }
@@ -673,7 +852,7 @@ public class ArrayParameterCache implements ParameterCache {
         private Value getValue(Object o, Type type, int idx) {
             switch (type) {
             case BOOLEAN:
-                return ValueUtility.getBooleanValue(((BitSet) o).get(idx));
+                return ValueUtility.getBooleanValue(((boolean[]) o)[idx]);
             case DOUBLE:
                 return ValueUtility.getDoubleValue(((double[]) o)[idx]);
             case FLOAT:
@@ -712,32 +891,34 @@ public class ArrayParameterCache implements ParameterCache {
         }
 
         private void storeParameter(int col, int row, ParameterValue pv) {
+            // the previous row in the circular buffer; it is empty (null) only for the very first row
+            int prevRow = (row - 1) & (generationTimeColumn.length - 1);
             Value v = pv.getEngValue();
             if (v != null) {
-                storeValue(engValueColumns[col], row, v);
+                storeValue(engValueColumns[col], row, prevRow, v);
             }
 
             v = pv.getRawValue();
             if (v != null) {
-                storeValue(rawValueColumns[col], row, v);
+                storeValue(rawValueColumns[col], row, prevRow, v);
             }
             ParameterStatus status = pv.getStatus();
 
-            if (row > 0) { // avoid filling up memory with identical ParameterStatus
-                ParameterStatus prevStatus = (ParameterStatus) ((Object[]) statusColumns[col])[row - 1];
-                if (prevStatus.equals(status)) {
-                    status = prevStatus;
-                }
+            // avoid filling up memory with identical ParameterStatus
+            Object[] statusColumn = (Object[]) statusColumns[col];
+            ParameterStatus prevStatus = (ParameterStatus) statusColumn[prevRow];
+            if (prevStatus != null && prevStatus.equals(status)) {
+                status = prevStatus;
             }
-            ((Object[]) statusColumns[col])[row] = status;
+            storeObject(statusColumn, row, prevRow, status);
             acquisitionTimeColumns[col][row] = pv.getAcquisitionTime();
         }
 
-        private void storeValue(Object o, int pos, Value v) {
+        private void storeValue(Object o, int pos, int prevPos, Value v) {
             Type type = v.getType();
 
             switch (type) {
-            case BOOLEAN -> ((BitSet) o).set(pos, v.getBooleanValue());
+            case BOOLEAN -> ((boolean[]) o)[pos] = v.getBooleanValue();
             case DOUBLE -> ((double[]) o)[pos] = v.getDoubleValue();
             case FLOAT -> ((float[]) o)[pos] = v.getFloatValue();
             case SINT32 -> ((int[]) o)[pos] = v.getSint32Value();
@@ -748,37 +929,56 @@ public class ArrayParameterCache implements ParameterCache {
             case STRING -> {
                 Object[] objArray = (Object[]) o;
                 String stringValue = v.getStringValue();
-                if (pos > 0 && stringValue.equals(objArray[pos - 1])) {
-                    objArray[pos] = objArray[pos - 1];
-                } else {
-                    objArray[pos] = stringValue;
-                }
+                storeObject(objArray, pos, prevPos,
+                        stringValue.equals(objArray[prevPos]) ? objArray[prevPos] : stringValue);
             }
             case BINARY -> {
                 Object[] objArray = (Object[]) o;
                 byte[] binaryValue = v.getBinaryValue();
-                if (pos > 0 && binaryValue.equals(objArray[pos - 1])) {
-                    objArray[pos] = objArray[pos - 1];
+                if (objArray[prevPos] instanceof byte[] prev && Arrays.equals(binaryValue, prev)) {
+                    storeObject(objArray, pos, prevPos, prev);
                 } else {
-                    objArray[pos] = binaryValue;
+                    storeObject(objArray, pos, prevPos, binaryValue);
                 }
             }
             case AGGREGATE, ARRAY, ENUMERATED -> {
                 Object[] objArray = (Object[]) o;
-                if (pos > 0 && v.equals(objArray[pos - 1])) {
-                    objArray[pos] = objArray[pos - 1];
-                } else {
-                    objArray[pos] = v;
-                }
+                storeObject(objArray, pos, prevPos, v.equals(objArray[prevPos]) ? objArray[prevPos] : v);
             }
             default -> throw new IllegalStateException("Unknown type " + type);
             }
         }
 
+        /**
+         * Stores the object in the column and updates the memory budget.
+         * <p>
+         * Consecutive rows with equal values reference the same object, so an object is counted when it is stored in
+         * a row which does not follow a row referencing it, and released when the last row referencing it is
+         * overwritten.
+         */
+        private void storeObject(Object[] column, int pos, int prevPos, Object o) {
+            Object old = column[pos];
+            long delta = 0;
+            if (old != null && column[(pos + 1) & (column.length - 1)] != old) {
+                delta -= getObjectSize(old);
+            }
+            if (o != column[prevPos]) {
+                delta += getObjectSize(o);
+            }
+            column[pos] = o;
+            if (delta > 0) {
+                memoryBudget.allocate(delta);
+            } else if (delta < 0) {
+                memoryBudget.release(-delta);
+            }
+            allocated += delta;
+            objectBytes += delta;
+        }
+
         private Object getNewColumn(Type type) {
             switch (type) {
             case BOOLEAN:
-                return new BitSet(INITIAL_CAPACITY);
+                return new boolean[INITIAL_CAPACITY];
             case DOUBLE:
                 return new double[INITIAL_CAPACITY];
             case FLOAT:
@@ -801,11 +1001,80 @@ public class ArrayParameterCache implements ParameterCache {
             }
         }
 
+        /**
+         * size in bytes of one element of a column storing values of the given type; for the columns storing objects,
+         * only the reference is counted, the objects are counted when stored (see {@link #getObjectSize(Object)})
+         */
+        static int getElementSize(Type type) {
+            return switch (type) {
+            case BOOLEAN -> 1;
+            case FLOAT, SINT32, UINT32 -> 4;
+            case DOUBLE, SINT64, UINT64, TIMESTAMP -> 8;
+            case STRING, BINARY, AGGREGATE, ARRAY, ENUMERATED -> 4;
+            default -> throw new IllegalStateException("Unknown type " + type);
+            };
+        }
+
+        /**
+         * Estimated size in bytes of an object referenced from a column. The {@link ParameterStatus#NOMINAL} status is
+         * shared by all the parameter values and is not counted.
+         */
+        static long getObjectSize(Object o) {
+            if (o instanceof String s) {
+                return STRING_SIZE + s.length();
+            } else if (o instanceof byte[] b) {
+                return ARRAY_SIZE + b.length;
+            } else if (o instanceof Value v) {
+                return getValueSize(v);
+            } else if (o instanceof ParameterStatus) {
+                return o == ParameterStatus.NOMINAL ? 0 : STATUS_SIZE;
+            } else {
+                return 0;
+            }
+        }
+
+        static long getValueSize(Value v) {
+            switch (v.getType()) {
+            case STRING:
+                return OBJECT_SIZE + STRING_SIZE + v.getStringValue().length();
+            case BINARY:
+                return OBJECT_SIZE + ARRAY_SIZE + v.getBinaryValue().length;
+            case ENUMERATED:
+                return OBJECT_SIZE + 8 + STRING_SIZE + v.getStringValue().length();
+            case AGGREGATE: {
+                AggregateValue av = (AggregateValue) v;
+                long size = OBJECT_SIZE + ARRAY_SIZE;
+                for (int i = 0; i < av.numMembers(); i++) {
+                    Value mv = av.getMemberValue(i);
+                    size += 4 + (mv == null ? 0 : getValueSize(mv));
+                }
+                return size;
+            }
+            case ARRAY: {
+                ArrayValue arv = (ArrayValue) v;
+                long size = OBJECT_SIZE + 2 * ARRAY_SIZE;
+                for (int i = 0; i < arv.flatLength(); i++) {
+                    Value ev = arv.getElementValue(i);
+                    size += 4 + (ev == null ? 0 : getValueSize(ev));
+                }
+                return size;
+            }
+            default:
+                // object header + primitive value
+                return OBJECT_SIZE + 8;
+            }
+        }
+
         private boolean doubleCapacity() {
             int capacity = generationTimeColumn.length;
             if (capacity >= maxNumEntries) {
                 return false;
             }
+            // the new rows are expected to reference objects of the same size as the existing rows
+            if (!memoryBudget.tryAllocate((long) capacity * rowSize, objectBytes)) {
+                return false;
+            }
+            allocated += (long) capacity * rowSize;
 
             int newCapacity = 2 * capacity;
 
@@ -868,8 +1137,12 @@ public class ArrayParameterCache implements ParameterCache {
                 System.arraycopy(o1, head, o2, 0, o1.length - head);
                 System.arraycopy(o1, 0, o2, o1.length - head, head);
                 return o2;
-            } else if (o instanceof BitSet) {
-                return o;
+            } else if (o instanceof boolean[]) {
+                boolean[] o1 = (boolean[]) o;
+                boolean[] o2 = new boolean[newCapacity];
+                System.arraycopy(o1, head, o2, 0, o1.length - head);
+                System.arraycopy(o1, 0, o2, o1.length - head, head);
+                return o2;
             } else {
                 throw new IllegalArgumentException("Cannot double objects of type " + o.getClass());
             }
@@ -878,7 +1151,19 @@ public class ArrayParameterCache implements ParameterCache {
 
     @Override
     public void clear() {
-        tables.clear();
+        for (var it = tables.values().iterator(); it.hasNext();) {
+            ParameterValueTable table = it.next();
+            it.remove();
+            table.close();
+        }
+    }
+
+    /**
+     * 
+     * @return the estimated number of bytes used by the cached values
+     */
+    public long getMemoryUsage() {
+        return memoryBudget.getUsed();
     }
 
     @Override
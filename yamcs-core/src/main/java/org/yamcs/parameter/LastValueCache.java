@@ -1,12 +1,12 @@
 package org.yamcs.parameter;
 
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
-import java.util.concurrent.locks.ReadWriteLock;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 import org.yamcs.xtce.DataSource;
 import org.yamcs.xtce.Parameter;
@@ -16,15 +16,18 @@ import org.yamcs.xtce.Parameter;
  * <p>
  * Can also stored a number of n values for certain parameters (required by algorithms and match criteria)
  * <p>
- * it uses a readwrite lock to synchronize access from multiple threads.
+ * The cache is accessed concurrently by the processor TM thread (writing) and by the algorithms, the subscribers and
+ * the API (reading). To avoid contention, the readers do not use locks: the values are stored in a
+ * {@link ConcurrentHashMap} and the updates are performed with compare-and-set operations. For the parameters with
+ * buffering enabled, the map contains a {@link ParamBuffer} ring which is updated in place by the writer and read
+ * without locking.
  *
  */
 public class LastValueCache {
-    HashMap<Parameter, ParameterValue> constants = new HashMap<>();
-    HashMap<Parameter, ParameterValue> params = new HashMap<>();
-    HashMap<Parameter, ParamBuffer> bufferedParams = new HashMap<>();
+    final Map<Parameter, ParameterValue> constants = new HashMap<>();
 
-    ReadWriteLock lock = new ReentrantReadWriteLock();
+    // parameter -> ParameterValue or ParamBuffer (if buffering is enabled)
+    final ConcurrentHashMap<Parameter, Object> values = new ConcurrentHashMap<>();
 
     public LastValueCache() {
     }
@@ -43,18 +46,7 @@ public class LastValueCache {
         if (param.getDataSource() == DataSource.CONSTANT) {
             return constants.get(param);
         }
-
-        lock.readLock().lock();
-        try {
-            ParamBuffer pb = bufferedParams.get(param);
-            if (pb != null) {
-                return pb.end();
-            } else {
-                return params.get(param);
-            }
-        } finally {
-            lock.readLock().unlock();
-        }
+        return latest(values.get(param));
     }
 
     /**
@@ -82,24 +74,20 @@ public class LastValueCache {
             }
         }
 
-        lock.readLock().lock();
-        try {
-            if (n == 0) {
-                return getValue(param);
-            }
+        Object o = values.get(param);
+        if (n == 0) {
+            return latest(o);
+        }
 
-            ParamBuffer pb = bufferedParams.get(param);
-            if (pb == null) {
-                throw new IllegalStateException("Buffering not enabled for " + param.getQualifiedName());
-            }
-            if (pb.capacity() < -n + 1) {
-                throw new IllegalStateException("Buffering enabled for " + param.getQualifiedName()
-                        + " but it's capacity " + pb.capacity() + " is smaller than " + (n + 1));
-            }
-            return pb.nthFromEnd(n);
-        } finally {
-            lock.readLock().unlock();
+        if (!(o instanceof ParamBuffer)) {
+            throw new IllegalStateException("Buffering not enabled for " + param.getQualifiedName());
+        }
+        ParamBuffer pb = (ParamBuffer) o;
+        if (pb.capacity() < -n + 1) {
+            throw new IllegalStateException("Buffering enabled for " + param.getQualifiedName()
+                    + " but it's capacity " + pb.capacity() + " is smaller than " + (n + 1));
         }
+        return pb.nthFromEnd(n);
     }
 
     /**
@@ -117,28 +105,32 @@ public class LastValueCache {
         if (param.getDataSource() == DataSource.CONSTANT) {
             throw new IllegalArgumentException("Cannot enable buffering for constant parameters");
         }
-        lock.writeLock().lock();
-        try {
-
-            ParamBuffer pb = bufferedParams.get(param);
-            if (pb == null) {
-                pb = new ParamBuffer(capacity);
-                ParameterValue pv = params.remove(param);
-                if (pv != null) {
-                    pb.add(pv);
+        while (true) {
+            Object o = values.get(param);
+            ParamBuffer pb;
+            if (o == null) {
+                if (values.putIfAbsent(param, new ParamBuffer(capacity)) == null) {
+                    return;
                 }
-                bufferedParams.put(param, pb);
-            } else {
+            } else if (o instanceof ParamBuffer) {
+                pb = (ParamBuffer) o;
                 if (capacity <= pb.capacity()) {
                     return;
-                } else {
-                    ParamBuffer pb1 = new ParamBuffer(pb, capacity);
-
-                    bufferedParams.put(param, pb1);
+                }
+                // the lock prevents the writers from adding to the old buffer while it is copied
+                synchronized (pb) {
+                    if (!pb.replaced && values.replace(param, o, new ParamBuffer(pb, capacity))) {
+                        pb.replaced = true;
+                        return;
+                    }
+                }
+            } else {
+                pb = new ParamBuffer(capacity);
+                pb.add((ParameterValue) o);
+                if (values.replace(param, o, pb)) {
+                    return;
                 }
             }
-        } finally {
-            lock.writeLock().unlock();
         }
     }
 
@@ -149,24 +141,27 @@ public class LastValueCache {
      * @param pv
      */
     public void add(ParameterValue pv) {
-        lock.writeLock().lock();
-        try {
-            doAdd(pv);
-        } finally {
-            lock.writeLock().unlock();
-        }
-    }
-
-    private void doAdd(ParameterValue pv) {
         Parameter param = pv.getParameter();
         if (param.getDataSource() == DataSource.CONSTANT) {
             throw new IllegalArgumentException("Cannot add constants (they can only be added in the constructor)");
         }
-        ParamBuffer pb = bufferedParams.get(param);
-        if (pb == null) {
-            params.put(param, pv);
-        } else {
-            pb.add(pv);
+        while (true) {
+            Object o = values.get(param);
+            if (o == null) {
+                if (values.putIfAbsent(param, pv) == null) {
+                    return;
+                }
+            } else if (o instanceof ParamBuffer) {
+                ParamBuffer pb = (ParamBuffer) o;
+                synchronized (pb) {
+                    if (!pb.replaced) {
+                        pb.add(pv);
+                        return;
+                    }
+                }
+            } else if (values.replace(param, o, pv)) {
+                return;
+            }
         }
     }
 
@@ -176,21 +171,11 @@ public class LastValueCache {
      * @param newValues
      */
     public void addAll(Collection<ParameterValue> newValues) {
-        lock.writeLock().lock();
-        try {
-            newValues.forEach(pv -> doAdd(pv));
-        } finally {
-            lock.writeLock().unlock();
-        }
+        newValues.forEach(pv -> add(pv));
     }
 
     public int size() {
-        lock.readLock().lock();
-        try {
-            return constants.size() + params.size() + bufferedParams.size();
-        } finally {
-            lock.readLock().unlock();
-        }
+        return constants.size() + values.size();
     }
 
     /**
@@ -199,12 +184,13 @@ public class LastValueCache {
      * @return
      */
     public Collection<ParameterValue> getValues() {
-        lock.readLock().lock();
-        try {
-            return params.values();
-        } finally {
-            lock.readLock().unlock();
+        List<ParameterValue> pvList = new ArrayList<>(values.size());
+        for (Object o : values.values()) {
+            if (o instanceof ParameterValue) {
+                pvList.add((ParameterValue) o);
+            }
         }
+        return pvList;
     }
 
     /**
@@ -214,47 +200,63 @@ public class LastValueCache {
      */
     public List<ParameterValue> getValuesToBePersisted() {
         List<ParameterValue> pvList = new ArrayList<>();
-        lock.readLock().lock();
-        try {
-            for (var entry : bufferedParams.entrySet()) {
-                if (entry.getKey().isPersistent()) {
-                    var pv = entry.getValue().end();
-                    if (pv != null) {
-                        pvList.add(pv);
-                    }
-                }
-            }
-            for (var entry : params.entrySet()) {
-                if (entry.getKey().isPersistent()) {
-                    pvList.add(entry.getValue());
+        for (var entry : values.entrySet()) {
+            if (entry.getKey().isPersistent()) {
+                var pv = latest(entry.getValue());
+                if (pv != null) {
+                    pvList.add(pv);
                 }
             }
-        } finally {
-            lock.readLock().unlock();
         }
         return pvList;
     }
 
-    // fixed size circular buffer
+    private static ParameterValue latest(Object o) {
+        if (o instanceof ParamBuffer) {
+            return ((ParamBuffer) o).end();
+        } else {
+            return (ParameterValue) o;
+        }
+    }
+
+    /**
+     * fixed size circular buffer
+     * <p>
+     * The values are added under the buffer lock, one slot at a time, and the number of added values is published in
+     * a volatile counter. The readers do not lock: they read the slot computed from the counter and check afterwards
+     * that the slot has not been overwritten in the meantime, retrying otherwise. The array has one more slot than the
+     * capacity such that the oldest value can be read while the newest one is being added.
+     */
     static class ParamBuffer {
-        final ParameterValue[] data;
-        int end = -1;
+        final AtomicReferenceArray<ParameterValue> data;
+        final int capacity;
+        // total number of values added; the newest one is at the position (count-1) % data.length()
+        volatile long count = 0;
+        // set (under the lock) when the buffer is replaced in the cache by a larger one
+        boolean replaced = false;
 
         ParamBuffer(int capacity) {
-            this.data = new ParameterValue[capacity];
+            this.capacity = capacity;
+            this.data = new AtomicReferenceArray<>(capacity + 1);
         }
 
+        /**
+         * copy the pb1 into a new buffer with a possibly larger capacity
+         */
         ParamBuffer(ParamBuffer pb1, int capacity) {
-            this.data = Arrays.copyOf(pb1.data, capacity);
-            this.end = pb1.end;
+            this(capacity);
+            int n = (int) Math.min(pb1.count, pb1.capacity);
+            for (int i = n - 1; i >= 0; i--) {
+                add(pb1.nthFromEnd(i));
+            }
         }
 
         public int capacity() {
-            return data.length;
+            return capacity;
         }
 
         public ParameterValue end() {
-            return end == -1 ? null : data[end];
+            return nthFromEnd(0);
         }
 
         /**
@@ -265,39 +267,47 @@ public class LastValueCache {
             if (n < 0) {
                 throw new IllegalArgumentException("n has to be positive");
             }
-
-            int k = end - n;
-            if (k < 0) {
-                k += data.length;
+            if (n >= capacity) {
+                return null;
+            }
+            int length = data.length();
+            while (true) {
+                long c = count;
+                long k = c - 1 - n;
+                if (k < 0) {
+                    return null;
+                }
+                ParameterValue pv = data.get((int) (k % length));
+                // the slot k is overwritten when adding the value number k + length
+                if (count <= k + length - 1) {
+                    return pv;
+                }
             }
-            return data[k];
         }
 
+        /**
+         * Adds a value to the buffer; has to be called with the buffer lock held once the buffer is published.
+         */
         public void add(ParameterValue pv) {
-            end = incr(end);
-            data[end] = pv;
-        }
-
-        private int incr(int k) {
-            int k1 = k + 1;
-            return k1 < data.length ? k1 : k1 - data.length;
+            long c = count;
+            data.set((int) (c % data.length()), pv);
+            count = c + 1;
         }
 
         public boolean isEmpty() {
-            return end == -1;
+            return count == 0;
         }
 
         @Override
         public String toString() {
-
-            if (end == -1) {
+            int n = (int) Math.min(count, capacity);
+            if (n == 0) {
                 return "[]";
             }
             StringBuilder sb = new StringBuilder();
             sb.append("[");
-            int k = end;
-            while (true) {
-                ParameterValue pv = data[k];
+            for (int i = n - 1; i >= 0; i--) {
+                ParameterValue pv = nthFromEnd(i);
                 if (pv == null) {
                     sb.append("null");
                 } else {
@@ -308,12 +318,11 @@ public class LastValueCache {
                             .append(pv.getEngValue())
                             .append(")");
                 }
-                k = incr(k);
-                if (k == end) {
-                    break;
+                if (i > 0) {
+                    sb.append(", ");
                 }
-
             }
+            sb.append("]");
             return sb.toString();
         }
     }
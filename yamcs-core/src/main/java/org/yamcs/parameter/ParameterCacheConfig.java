@@ -4,32 +4,46 @@ import org.yamcs.YConfiguration;
 import org.yamcs.logging.Log;
 
 public class ParameterCacheConfig {
+    // used as maximum number of entries if only a memory budget is configured
+    static final int UNLIMITED_NUM_ENTRIES = 1 << 30;
+
     final boolean cacheAll;
     //maximum duration of the cache
     final long maxDuration;
     final int maxNumEntries;
-    
+    // maximum memory in bytes used by the cache; 0 means no limit
+    final long maxMemory;
+
     public ParameterCacheConfig(boolean enabled, boolean cacheAll, long duration, int maxNumEntries) {
+        this(enabled, cacheAll, duration, maxNumEntries, 0);
+    }
+
+    public ParameterCacheConfig(boolean enabled, boolean cacheAll, long duration, int maxNumEntries,
+            long maxMemory) {
         this.cacheAll = cacheAll;
         this.maxDuration = duration;
         this.maxNumEntries = maxNumEntries;
+        this.maxMemory = maxMemory;
     }
-    
+
     public ParameterCacheConfig() {
         this.cacheAll = false;
         this.maxDuration = 0;
         this.maxNumEntries = 0;
+        this.maxMemory = 0;
     }
 
     public ParameterCacheConfig(YConfiguration cacheConfig, Log log) {
         cacheAll = cacheConfig.getBoolean("cacheAll", true);
         maxDuration = 1000L * cacheConfig.getInt("duration", 600);
-        maxNumEntries = cacheConfig.getInt("maxNumEntries", 4096);
+        maxMemory = 1024L * 1024L * cacheConfig.getInt("maxMemoryMB", 0);
+        // with a memory budget, the number of entries is by default only limited by the budget
+        maxNumEntries = cacheConfig.getInt("maxNumEntries", maxMemory > 0 ? UNLIMITED_NUM_ENTRIES : 4096);
     }
 
     @Override
     public String toString() {
         return "ParameterCacheConfig [cacheAll=" + cacheAll + ", maxDuration=" + maxDuration
-                + ", maxNumEntries=" + maxNumEntries + "]";
+                + ", maxNumEntries=" + maxNumEntries + ", maxMemory=" + maxMemory + "]";
     }
 }
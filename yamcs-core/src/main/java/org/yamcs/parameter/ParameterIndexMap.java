@@ -0,0 +1,165 @@
+package org.yamcs.parameter;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+import org.yamcs.xtce.Parameter;
+
+/**
+ * Map from parameters to values, stored in an array indexed by {@link Parameter#getIndex()}.
+ * <p>
+ * It is used on the processing path to look up the data associated to each delivered parameter without hashing. The
+ * indices are allocated by the MDB so the array grows to the number of parameters of the MDB at most.
+ * <p>
+ * The parameters without an index (not part of the MDB) or whose index is already taken by another parameter object
+ * (e.g. from a different MDB) are stored in a hash map.
+ * <p>
+ * The lookups are lock free; the modifications are synchronized.
+ */
+public class ParameterIndexMap<T> {
+    static final int INITIAL_CAPACITY = 64;
+
+    private volatile AtomicReferenceArray<Entry<T>> entries = new AtomicReferenceArray<>(INITIAL_CAPACITY);
+    private final Map<Parameter, T> others = new ConcurrentHashMap<>();
+
+    // indices of the used entries, for iterating; only accessed while holding the lock
+    private int[] used = new int[INITIAL_CAPACITY];
+    private int numUsed;
+
+    /**
+     *
+     * @return the value associated to the parameter or null if there is no such value
+     */
+    public T get(Parameter p) {
+        int idx = p.getIndex();
+        AtomicReferenceArray<Entry<T>> a = entries;
+        if (idx > 0 && idx < a.length()) {
+            Entry<T> e = a.get(idx);
+            if (e != null && e.param == p) {
+                return e.value;
+            }
+        }
+        return others.isEmpty() ? null : others.get(p);
+    }
+
+    public boolean containsKey(Parameter p) {
+        return get(p) != null;
+    }
+
+    /**
+     * If there is no value associated to the parameter, computes one with the mapping function and stores it.
+     *
+     * @return the existing or the newly computed value
+     */
+    public T computeIfAbsent(Parameter p, Function<Parameter, T> mappingFunction) {
+        T v = get(p);
+        if (v != null) {
+            return v;
+        }
+        synchronized (this) {
+            v = get(p);
+            if (v == null) {
+                v = mappingFunction.apply(p);
+                put(p, v);
+            }
+            return v;
+        }
+    }
+
+    /**
+     * Associates the value to the parameter, replacing the existing value if any
+     */
+    public synchronized void put(Parameter p, T value) {
+        int idx = p.getIndex();
+        if (idx <= 0 || others.containsKey(p)) {
+            others.put(p, value);
+            return;
+        }
+        AtomicReferenceArray<Entry<T>> a = entries;
+        if (idx >= a.length()) {
+            int newCapacity = Math.max(2 * a.length(), idx + 1);
+            AtomicReferenceArray<Entry<T>> a1 = new AtomicReferenceArray<>(newCapacity);
+            for (int i = 0; i < a.length(); i++) {
+                a1.lazySet(i, a.get(i));
+            }
+            a1.set(idx, new Entry<>(p, value));
+            entries = a1;
+            addUsed(idx);
+            return;
+        }
+        Entry<T> e = a.get(idx);
+        if (e == null) {
+            a.set(idx, new Entry<>(p, value));
+            addUsed(idx);
+        } else if (e.param == p) {
+            a.set(idx, new Entry<>(p, value));
+        } else {
+            others.put(p, value);
+        }
+    }
+
+    /**
+     * Removes the value associated to the parameter
+     *
+     * @return the removed value or null if there was no value associated to the parameter
+     */
+    public synchronized T remove(Parameter p) {
+        int idx = p.getIndex();
+        AtomicReferenceArray<Entry<T>> a = entries;
+        if (idx > 0 && idx < a.length()) {
+            Entry<T> e = a.get(idx);
+            if (e != null && e.param == p) {
+                a.set(idx, null);
+                removeUsed(idx);
+                return e.value;
+            }
+        }
+        return others.remove(p);
+    }
+
+    private void removeUsed(int idx) {
+        for (int i = 0; i < numUsed; i++) {
+            if (used[i] == idx) {
+                used[i] = used[--numUsed];
+                return;
+            }
+        }
+    }
+
+    private void addUsed(int idx) {
+        if (numUsed == used.length) {
+            used = Arrays.copyOf(used, 2 * numUsed);
+        }
+        used[numUsed++] = idx;
+    }
+
+    /**
+     * Calls the action for each parameter and associated value
+     */
+    public synchronized void forEach(BiConsumer<Parameter, T> action) {
+        AtomicReferenceArray<Entry<T>> a = entries;
+        for (int i = 0; i < numUsed; i++) {
+            Entry<T> e = a.get(used[i]);
+            action.accept(e.param, e.value);
+        }
+        others.forEach(action);
+    }
+
+    public synchronized int size() {
+        return numUsed + others.size();
+    }
+
+    static class Entry<T> {
+        final Parameter param;
+        final T value;
+
+        Entry(Parameter param, T value) {
+            this.param = param;
+            this.value = value;
+        }
+    }
+}
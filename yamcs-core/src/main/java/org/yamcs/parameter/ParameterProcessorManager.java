@@ -7,7 +7,6 @@ import java.util.HashMap;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
 
 import org.yamcs.ConfigurationException;
 import org.yamcs.InvalidIdentification;
@@ -46,7 +45,7 @@ public class ParameterProcessorManager extends AbstractService implements Parame
     ParameterProcessor[] parameterProcessors = new ParameterProcessor[10];
 
     // Maps the parameters to the request(subscription id) in which they have been asked
-    private ConcurrentHashMap<Parameter, BitSet> param2SubscriptionMap = new ConcurrentHashMap<>();
+    private final ParameterIndexMap<BitSet> param2SubscriptionMap = new ParameterIndexMap<>();
 
     // contains subscribe all
     private BitSet subscribeAll = new BitSet();
@@ -172,7 +171,7 @@ public class ParameterProcessorManager extends AbstractService implements Parame
     }
 
     public void unsubscribe(int subscriptionId) {
-        param2SubscriptionMap.values().forEach(bitset -> bitset.clear(subscriptionId));
+        param2SubscriptionMap.forEach((p, bitset) -> bitset.clear(subscriptionId));
         removeSubscriptionId(subscriptionId);
     }
 
@@ -28,7 +28,7 @@ public class ParameterRequestManager {
     Log log;
 
     // Maps the parameters to the request(subscription id) in which they have been asked
-    private ConcurrentHashMap<Parameter, SubscriptionArray> param2RequestMap = new ConcurrentHashMap<>();
+    private final ParameterIndexMap<SubscriptionArray> param2RequestMap = new ParameterIndexMap<>();
 
     // Maps the request (subscription id) to the consumer
     private Map<Integer, ParameterConsumer> request2ParameterConsumerMap = new ConcurrentHashMap<>();
@@ -204,8 +204,8 @@ public class ParameterRequestManager {
     }
 
     private void removeItemFromRequest(int subscriptionId, Parameter para) {
-        if (param2RequestMap.containsKey(para)) { // is there really any request associated to this parameter?
-            SubscriptionArray al_req = param2RequestMap.get(para);
+        SubscriptionArray al_req = param2RequestMap.get(para);
+        if (al_req != null) { // is there really any request associated to this parameter?
             // remove the subscription from the list of this parameter
             if (al_req.remove(subscriptionId)) {
                 /*
@@ -237,11 +237,7 @@ public class ParameterRequestManager {
         // loop through all the parameter definitions
         // find all the subscriptions with the requested subscriptionId and add their corresponding
         // itemId to the list.
-        Iterator<Map.Entry<Parameter, SubscriptionArray>> it = param2RequestMap.entrySet().iterator();
-        while (it.hasNext()) {
-            Map.Entry<Parameter, SubscriptionArray> m = it.next();
-            Parameter param = m.getKey();
-            SubscriptionArray al_req = m.getValue();
+        param2RequestMap.forEach((param, al_req) -> {
             if (al_req.remove(subscriptionId)) {
                 result.add(param);
             }
@@ -252,7 +248,7 @@ public class ParameterRequestManager {
                  * }
                  */
             }
-        }
+        });
         request2ParameterConsumerMap.remove(subscriptionId);
         return result;
     }
@@ -369,15 +365,14 @@ public class ParameterRequestManager {
     public String toString() {
         StringBuilder sb = new StringBuilder();
         sb.append("Current Subscription list:\n");
-        for (Parameter param : param2RequestMap.keySet()) {
+        param2RequestMap.forEach((param, al_req) -> {
             sb.append(param);
             sb.append("requested by [");
-            SubscriptionArray al_req = param2RequestMap.get(param);
             for (int id : al_req.getArray()) {
                 sb.append(id);
             }
             sb.append("]\n");
-        }
+        });
         return sb.toString();
     }
 
@@ -28,7 +28,12 @@ public record ParameterRetrievalOptions(
         /**
          * If not null and a replay is performed, this can be used to limit the packets that go in replay
          */
-        PacketReplayRequest packetReplayRequest) {
+        PacketReplayRequest packetReplayRequest,
+        /**
+         * Maximum number of threads used to retrieve the data from the Parameter Archive; 1 means sequential
+         * retrieval and 0 means the retrievalParallelism configured in the Parameter Archive
+         */
+        int parallelism) {
 
     public static class Builder {
         // invalid start and/or stop means open ended interval
@@ -42,6 +47,7 @@ public record ParameterRetrievalOptions(
         private boolean noparchive = false;
         private boolean noreplay = false;
         private PacketReplayRequest packetReplayRequest = null;
+        private int parallelism = 0;
 
         public Builder withStartStop(long start, long stop) {
             this.start = start;
@@ -99,12 +105,16 @@ public record ParameterRetrievalOptions(
             return this;
         }
 
+        public Builder withParallelism(int parallelism) {
+            this.parallelism = parallelism;
+            return this;
+        }
 
         public ParameterRetrievalOptions build() {
             return new ParameterRetrievalOptions(
                     start, stop, ascending,
                     retrieveEngineeringValues, retrieveRawValues, retrieveParameterStatus,
-                    norealtime, noparchive, noreplay, packetReplayRequest);
+                    norealtime, noparchive, noreplay, packetReplayRequest, parallelism);
         }
 
     }
@@ -115,7 +125,8 @@ public record ParameterRetrievalOptions(
                 .withAscending(this.ascending)
                 .withRetrieveEngineeringValues(this.retrieveEngValues)
                 .withRetrieveRawValues(this.retrieveRawValues)
-                .withRetrieveParameterStatus(this.retrieveParameterStatus);
+                .withRetrieveParameterStatus(this.retrieveParameterStatus)
+                .withParallelism(this.parallelism);
     }
 
     public ParameterRetrievalOptions withUpdatedStart(long newStart) {
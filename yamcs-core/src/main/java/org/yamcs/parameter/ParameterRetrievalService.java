@@ -13,6 +13,7 @@ import java.util.concurrent.Executors;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Consumer;
+import java.util.function.Predicate;
 
 import org.rocksdb.RocksDBException;
 import org.yamcs.AbstractYamcsService;
@@ -28,13 +29,16 @@ import org.yamcs.parameterarchive.MultipleParameterRequest;
 import org.yamcs.parameterarchive.ParameterArchive;
 import org.yamcs.parameterarchive.ParameterId;
 import org.yamcs.parameterarchive.ParameterIdDb;
+import org.yamcs.parameterarchive.ParameterRollup.Bucket;
 import org.yamcs.parameterarchive.ParameterValueArray;
+import org.yamcs.parameterarchive.RollupRetrieval;
 import org.yamcs.parameterarchive.SingleParameterRetrieval;
 import org.yamcs.protobuf.Yamcs.ParameterReplayRequest;
 import org.yamcs.time.Instant;
 import org.yamcs.utils.AggregateUtil;
 import org.yamcs.utils.IntArray;
 import org.yamcs.utils.TimeEncoding;
+import org.yamcs.utils.TimeInterval;
 import org.yamcs.xtce.Parameter;
 import org.yamcs.xtce.PathElement;
 
@@ -125,44 +129,73 @@ public class ParameterRetrievalService extends AbstractYamcsService {
         var cf = new CompletableFuture<Void>();
         executor.submit(() -> {
             try {
-                if (parchive == null || opts.noparchive()) {
-                    retrieveScalarReplayOrCache(pid, opts, consumer);
-                } else if (parchive.getRealtimeFiller() != null) {
-                    retrieveScalarParameterArchive(pid, opts, consumer);
-                } else {
-                    long coverageEnd = parchive.coverageEnd();
+                doRetrieveScalar(pid, opts, consumer);
+                cf.complete(null);
+            } catch (Exception e) {
+                log.error("Error during retrieval", e);
+                cf.completeExceptionally(e);
+            }
+        });
+        return cf;
+    }
 
-                    if (opts.ascending()) {
-                        // ascending case -> retrieve max possible from the parameter archive
-                        var tc = retrieveScalarParameterArchive(pid, opts, consumer);
-                        // then from cache or via replay
-                        if (tc.isValid()) {
-                            if (opts.stop() > tc.time && opts.stop() > coverageEnd) {
-                                var opts1 = opts.withUpdatedStart(tc.time + 1);
-                                retrieveScalarReplayOrCache(pid, opts1, consumer);
-                            }
-                        } else {// no data retrieved from the parameter archive
-                            retrieveScalarReplayOrCache(pid, opts, consumer);
-                        }
-                    } else {
-                        // descending case
-                        // if the request is beyond parameter archive coverage, retrieve first by cache or replay
-                        if (opts.stop() > coverageEnd) {
-                            if (opts.start() >= coverageEnd) {
-                                // request does not overlap at all with the parameter archive coverage
-                                retrieveScalarReplayOrCache(pid, opts, consumer);
-                            } else {
-                                // request overlaps with the parameter archive coverage
-                                var req1 = opts.withUpdatedStart(coverageEnd);
-                                retrieveScalarReplayOrCache(pid, req1, consumer);
-                                var req2 = opts.withUpdatedStop(coverageEnd);
-                                retrieveScalarParameterArchive(pid, req2, consumer);
+    /**
+     * Returns the duration in seconds of the parameter archive rollup tier that
+     * {@link #retrieveSamples(ParameterWithId, ParameterRetrievalOptions, long, Predicate, Consumer)} will attempt to
+     * use for the given request, or -1 if the rollups cannot be used.
+     */
+    public int getRollupTier(ParameterWithId pid, ParameterRetrievalOptions opts, long resolution) {
+        if (parchive != null && !opts.noparchive() && opts.ascending() && pid.getPath() == null
+                && !opts.retrieveRawValues()) {
+            return parchive.getRollupTier(resolution);
+        }
+        return -1;
+    }
 
-                            }
-                        } else {
-                            // request can be satisfied only by parameter archive
-                            retrieveScalarParameterArchive(pid, opts, consumer);
-                        }
+    /**
+     * Retrieves values of a single scalar parameter in order to downsample them to the given resolution.
+     * <p>
+     * If the parameter archive maintains rollups of a tier not larger than the resolution, and they cover the
+     * parameter archive data in the requested range, the pre-aggregated buckets are sent to the bucketConsumer. The
+     * values of the buckets refused by the bucketConsumer (e.g. crossing the start or the stop of the range) and the
+     * values newer than the last bucket (e.g. not yet in the parameter archive) are sent to the consumer as for
+     * {@link #retrieveScalar(ParameterWithId, ParameterRetrievalOptions, Consumer)}.
+     * <p>
+     * Otherwise all the values are sent to the consumer.
+     *
+     * @param resolution
+     *            - the duration in milliseconds of the intervals the values are downsampled to
+     * @param bucketConsumer
+     *            - returns false if the bucket cannot be used; the decision has to depend only on the start of the
+     *            bucket
+     */
+    public CompletableFuture<Void> retrieveSamples(ParameterWithId pid, ParameterRetrievalOptions opts,
+            long resolution, Predicate<Bucket> bucketConsumer, Consumer<ParameterValueArray> consumer) {
+        log.debug("retrieveSamples pid: {}, opts: {}, resolution: {} ", pid, opts, resolution);
+        var cf = new CompletableFuture<Void>();
+        executor.submit(() -> {
+            try {
+                int tier = getRollupTier(pid, opts, resolution);
+                RollupRetrieval rr = null;
+                if (tier > 0) {
+                    rr = new RollupRetrieval(parchive, pid.getQualifiedName(), opts.start(), opts.stop(), tier);
+                    if (!rr.isComplete()) {
+                        rr = null;
+                    }
+                }
+                if (rr == null) {
+                    doRetrieveScalar(pid, opts, consumer);
+                } else {
+                    long lastTime = rr.retrieve(bucketConsumer);
+                    log.debug("Retrieved rollups with tier {}s up to {}", tier, TimeEncoding.toString(lastTime));
+                    for (TimeInterval ti : rr.getRejectedIntervals()) {
+                        doRetrieveScalar(pid, opts.withUpdatedStart(ti.getStart()).withUpdatedStop(ti.getEnd()),
+                                consumer);
+                    }
+                    if (lastTime == TimeEncoding.INVALID_INSTANT) {
+                        doRetrieveScalar(pid, opts, consumer);
+                    } else if (lastTime < opts.stop()) {
+                        doRetrieveScalar(pid, opts.withUpdatedStart(lastTime + 1), consumer);
                     }
                 }
                 cf.complete(null);
@@ -174,6 +207,50 @@ public class ParameterRetrievalService extends AbstractYamcsService {
         return cf;
     }
 
+    private void doRetrieveScalar(ParameterWithId pid, ParameterRetrievalOptions opts,
+            Consumer<ParameterValueArray> consumer) throws Exception {
+        if (parchive == null || opts.noparchive()) {
+            retrieveScalarReplayOrCache(pid, opts, consumer);
+        } else if (parchive.getRealtimeFiller() != null) {
+            retrieveScalarParameterArchive(pid, opts, consumer);
+        } else {
+            long coverageEnd = parchive.coverageEnd();
+
+            if (opts.ascending()) {
+                // ascending case -> retrieve max possible from the parameter archive
+                var tc = retrieveScalarParameterArchive(pid, opts, consumer);
+                // then from cache or via replay
+                if (tc.isValid()) {
+                    if (opts.stop() > tc.time && opts.stop() > coverageEnd) {
+                        var opts1 = opts.withUpdatedStart(tc.time + 1);
+                        retrieveScalarReplayOrCache(pid, opts1, consumer);
+                    }
+                } else {// no data retrieved from the parameter archive
+                    retrieveScalarReplayOrCache(pid, opts, consumer);
+                }
+            } else {
+                // descending case
+                // if the request is beyond parameter archive coverage, retrieve first by cache or replay
+                if (opts.stop() > coverageEnd) {
+                    if (opts.start() >= coverageEnd) {
+                        // request does not overlap at all with the parameter archive coverage
+                        retrieveScalarReplayOrCache(pid, opts, consumer);
+                    } else {
+                        // request overlaps with the parameter archive coverage
+                        var req1 = opts.withUpdatedStart(coverageEnd);
+                        retrieveScalarReplayOrCache(pid, req1, consumer);
+                        var req2 = opts.withUpdatedStop(coverageEnd);
+                        retrieveScalarParameterArchive(pid, req2, consumer);
+
+                    }
+                } else {
+                    // request can be satisfied only by parameter archive
+                    retrieveScalarParameterArchive(pid, opts, consumer);
+                }
+            }
+        }
+    }
+
     public CompletableFuture<Void> retrieveSingle(ParameterWithId pid, ParameterRetrievalOptions opts,
             Consumer<ParameterValueWithId> consumer) {
         log.debug("retrieveSingle requestedParamWithId: {}, opts: {}", pid, opts);
@@ -355,6 +432,10 @@ public class ParameterRetrievalService extends AbstractYamcsService {
         }
     }
 
+    private int getParallelism(ParameterRetrievalOptions opts) {
+        return opts.parallelism() > 0 ? opts.parallelism() : parchive.getRetrievalParallelism();
+    }
+
     private TimeAndCount retrieveSingleParameterArchive(ParameterWithId pid, ParameterRetrievalOptions opts,
             Consumer<ParameterValueWithId> consumer) throws RocksDBException, IOException {
 
@@ -367,6 +448,7 @@ public class ParameterRetrievalService extends AbstractYamcsService {
         if (pids != null) {
             TimeAndCount tc = new TimeAndCount(TimeEncoding.INVALID_INSTANT, 0);
             mpvr = new MultipleParameterRequest(opts.start(), opts.stop(), pids, opts.ascending());
+            mpvr.setParallelism(getParallelism(opts));
             MultiParameterRetrieval mpdr = new MultiParameterRetrieval(parchive, mpvr);
             mpdr.retrieve(pvList -> {
                 tc.count += pvList.size();
@@ -458,6 +540,7 @@ public class ParameterRetrievalService extends AbstractYamcsService {
             TimeAndCount tc = new TimeAndCount(TimeEncoding.INVALID_INSTANT, 0);
             mpvr = new MultipleParameterRequest(opts.start(), opts.stop(),
                     parameterIds.toArray(new ParameterId[0]), opts.ascending());
+            mpvr.setParallelism(getParallelism(opts));
             MultiParameterRetrieval mpdr = new MultiParameterRetrieval(parchive, mpvr);
 
             mpdr.retrieve(pvList -> {
@@ -40,6 +40,7 @@ import org.yamcs.xtce.SystemParameter;
 import org.yamcs.xtce.UnitType;
 import org.yamcs.yarch.DataType;
 import org.yamcs.yarch.Stream;
+import org.yamcs.yarch.StreamSysParamProducer;
 import org.yamcs.yarch.Tuple;
 import org.yamcs.yarch.TupleDefinition;
 import org.yamcs.yarch.YarchDatabase;
@@ -88,7 +89,7 @@ public class SystemParametersService extends AbstractYamcsService implements Run
         spec.addOption("producers", OptionType.LIST)
                 .withRequired(false)
                 .withElementType(OptionType.STRING)
-                .withChoices("diskstats", "fs", "jvm", "loadavg", "rocksdb");
+                .withChoices("diskstats", "fs", "jvm", "loadavg", "rocksdb", "streams");
         return spec;
     }
 
@@ -143,6 +144,10 @@ public class SystemParametersService extends AbstractYamcsService implements Run
             providers.add(new SysVarProducer(new LoadavgParameterProducer(this)));
         }
 
+        if (producers.contains("streams")) {
+            providers.add(new SysVarProducer(new StreamSysParamProducer(ydb, this)));
+        }
+
         synchronized (instances) {
             instances.put(yamcsInstance, this);
         }
@@ -224,7 +224,33 @@ public class ValueArray {
     public int size() {
         return size;
     }
-    
+
+    /**
+     * returns a new array containing the elements from the position from (inclusive) to the position to (exclusive)
+     *
+     * @param from
+     * @param to
+     * @return
+     */
+    public ValueArray subArray(int from, int to) {
+        if (from < 0 || to > size || from > to) {
+            throw new IndexOutOfBoundsException("Invalid range [" + from + ", " + to + ") for size " + size);
+        }
+        if (obj instanceof int[]) {
+            return new ValueArray(type, Arrays.copyOfRange((int[]) obj, from, to));
+        } else if (obj instanceof long[]) {
+            return new ValueArray(type, Arrays.copyOfRange((long[]) obj, from, to));
+        } else if (obj instanceof double[]) {
+            return new ValueArray(Arrays.copyOfRange((double[]) obj, from, to));
+        } else if (obj instanceof float[]) {
+            return new ValueArray(Arrays.copyOfRange((float[]) obj, from, to));
+        } else if (obj instanceof Object[]) {
+            return new ValueArray(type, Arrays.copyOfRange((Object[]) obj, from, to));
+        } else {
+            return new ValueArray(((BitSet) obj).get(from, to), to - from);
+        }
+    }
+
     /**
      * merges the value arrays srcValueArray into a new array based on idx.
      * 
@@ -239,102 +265,118 @@ public class ValueArray {
      * @return a new array representing the merge of the input arrays
      */
     static public ValueArray merge(int[] src, ValueArray...srcValueArray) {
-        
+        return merge(src, src.length, new int[srcValueArray.length], srcValueArray);
+    }
+
+    /**
+     * Same as {@link #merge(int[], ValueArray...)} but only the first length elements of src are used and the elements
+     * of srcValueArray[k] are taken starting from the position start[k].
+     * <p>
+     * This allows reusing the src buffer and merging the remainder of an array without copying it first.
+     * 
+     * @param src
+     *            - an array indicating which from the srcValueArray is the source of the data for each index
+     * @param length
+     *            - the number of elements of src used, which is also the size of the returned array
+     * @param start
+     *            - the position of the first element used from each of the srcValueArray
+     * @param srcValueArray
+     *            the source elements
+     * @return a new array representing the merge of the input arrays
+     */
+    static public ValueArray merge(int[] src, int length, int[] start, ValueArray... srcValueArray) {
         ValueArray va0 = srcValueArray[0];
         Type type = va0.getType();
-        int length = va0.size();
-        for(int i=1; i<srcValueArray.length; i++) {
-            if(srcValueArray[i].getType()!=type) {
+        int n = 0;
+        for (int i = 0; i < srcValueArray.length; i++) {
+            if (srcValueArray[i].getType() != type) {
                 throw new IllegalArgumentException("The input arrays have to be all of the same type");
             }
-            length+=srcValueArray[i].size();
+            n += srcValueArray[i].size() - start[i];
         }
-        if(length!=src.length) {
-            throw new IllegalArgumentException("The length of n has to be the sum of the sizes of the input arrays");
+        if (length != n || length > src.length) {
+            throw new IllegalArgumentException(
+                    "The length has to be the sum of the sizes of the input arrays minus the start positions");
         }
 
-        
-        if(va0.obj instanceof int[]) {
-            return new ValueArray(type, mergeIntArrays(src, srcValueArray));
-        } else if(va0.obj instanceof long[]) {
-            return new ValueArray(type, mergeLongArrays(src, srcValueArray));
-        } else if(va0.obj instanceof double[]) {
-            return new ValueArray(mergeDoubleArrays(src, srcValueArray));
-        } else if(va0.obj instanceof float[]) {
-            return new ValueArray(mergeFloatArrays(src, srcValueArray));
-        } else if(va0.obj instanceof Object[]) {
-            return new ValueArray(type, mergeObjectArrays(src, srcValueArray));
-        } else if(va0.obj instanceof BitSet) {
-            return new ValueArray(mergeBitsets(src, srcValueArray), length);
+        if (va0.obj instanceof int[]) {
+            return new ValueArray(type, mergeIntArrays(src, length, start, srcValueArray));
+        } else if (va0.obj instanceof long[]) {
+            return new ValueArray(type, mergeLongArrays(src, length, start, srcValueArray));
+        } else if (va0.obj instanceof double[]) {
+            return new ValueArray(mergeDoubleArrays(src, length, start, srcValueArray));
+        } else if (va0.obj instanceof float[]) {
+            return new ValueArray(mergeFloatArrays(src, length, start, srcValueArray));
+        } else if (va0.obj instanceof Object[]) {
+            return new ValueArray(type, mergeObjectArrays(src, length, start, srcValueArray));
+        } else if (va0.obj instanceof BitSet) {
+            return new ValueArray(mergeBitsets(src, length, start, srcValueArray), length);
         }
-        
+
         return null;
     }
-    
- 
 
-    static private int[] mergeIntArrays(int[] n, ValueArray...inputValueArray) {
-        int[] idx = new int[inputValueArray.length];
-        int [] r = new int[n.length];
-        for(int i= 0; i<n.length; i++) {
+    static private int[] mergeIntArrays(int[] n, int length, int[] start, ValueArray... inputValueArray) {
+        int[] idx = start.clone();
+        int[] r = new int[length];
+        for (int i = 0; i < length; i++) {
             int src = n[i];
-            r[i] = ((int[])inputValueArray[src].obj)[idx[src]];
+            r[i] = ((int[]) inputValueArray[src].obj)[idx[src]];
             idx[src]++;
         }
         return r;
     }
-    
-    static private long[] mergeLongArrays(int[] n, ValueArray...inputValueArray) {
-        int[] idx = new int[inputValueArray.length];
-        long [] r = new long[n.length];
-        for(int i= 0; i<n.length; i++) {
+
+    static private long[] mergeLongArrays(int[] n, int length, int[] start, ValueArray... inputValueArray) {
+        int[] idx = start.clone();
+        long[] r = new long[length];
+        for (int i = 0; i < length; i++) {
             int src = n[i];
-            r[i] = ((long[])inputValueArray[src].obj)[idx[src]];
+            r[i] = ((long[]) inputValueArray[src].obj)[idx[src]];
             idx[src]++;
         }
         return r;
     }
-    
-    static private double[] mergeDoubleArrays(int[] n, ValueArray...inputValueArray) {
-        int[] idx = new int[inputValueArray.length];
-        double [] r = new double[n.length];
-        for(int i= 0; i<n.length; i++) {
+
+    static private double[] mergeDoubleArrays(int[] n, int length, int[] start, ValueArray... inputValueArray) {
+        int[] idx = start.clone();
+        double[] r = new double[length];
+        for (int i = 0; i < length; i++) {
             int src = n[i];
-            r[i] = ((double[])inputValueArray[src].obj)[idx[src]];
+            r[i] = ((double[]) inputValueArray[src].obj)[idx[src]];
             idx[src]++;
         }
         return r;
     }
-    
-    
-    static private float[] mergeFloatArrays(int[] n, ValueArray...inputValueArray) {
-        int[] idx = new int[inputValueArray.length];
-        float [] r = new float[n.length];
-        for(int i= 0; i<n.length; i++) {
+
+    static private float[] mergeFloatArrays(int[] n, int length, int[] start, ValueArray... inputValueArray) {
+        int[] idx = start.clone();
+        float[] r = new float[length];
+        for (int i = 0; i < length; i++) {
             int src = n[i];
-            r[i] = ((float[])inputValueArray[src].obj)[idx[src]];
+            r[i] = ((float[]) inputValueArray[src].obj)[idx[src]];
             idx[src]++;
         }
         return r;
     }
-    
-    static private Object[] mergeObjectArrays(int[] n, ValueArray...inputValueArray) {
-        int[] idx = new int[inputValueArray.length];
-        Object [] r = new Object[n.length];
-        for(int i= 0; i<n.length; i++) {
+
+    static private Object[] mergeObjectArrays(int[] n, int length, int[] start, ValueArray... inputValueArray) {
+        int[] idx = start.clone();
+        Object[] r = new Object[length];
+        for (int i = 0; i < length; i++) {
             int src = n[i];
-            r[i] = ((Object[])inputValueArray[src].obj)[idx[src]];
+            r[i] = ((Object[]) inputValueArray[src].obj)[idx[src]];
             idx[src]++;
         }
         return r;
     }
-    
-    static private BitSet mergeBitsets(int[] n, ValueArray...inputValueArray) {
-        int[] idx = new int[inputValueArray.length];
-        BitSet r = new BitSet(n.length);
-        for(int i= 0; i<n.length; i++) {
+
+    static private BitSet mergeBitsets(int[] n, int length, int[] start, ValueArray... inputValueArray) {
+        int[] idx = start.clone();
+        BitSet r = new BitSet(length);
+        for (int i = 0; i < length; i++) {
             int src = n[i];
-            boolean b =((BitSet)inputValueArray[src].obj).get(idx[src]); 
+            boolean b = ((BitSet) inputValueArray[src].obj).get(idx[src]);
             r.set(i, b);
             idx[src]++;
         }
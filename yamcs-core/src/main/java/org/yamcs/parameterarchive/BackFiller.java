@@ -5,8 +5,13 @@ import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -37,7 +42,10 @@ import com.google.common.util.concurrent.ThreadFactoryBuilder;
 /**
  * Back-fills the parameter archive by triggering replays: - either regularly scheduled replays - or monitor data
  * streams (tm, param) and keep track of which segments have to be rebuild
- * 
+ * <p>
+ * The scheduling (including the manual requests) is done on a single thread such that two backfilling jobs never
+ * overlap. If {@code numThreads} is greater than 1, a job covering multiple intervals is split into up to
+ * {@code numThreads} tasks of contiguous intervals and the tasks are run in parallel on a separate pool of threads.
  */
 public class BackFiller implements StreamSubscriber {
     List<Schedule> schedules;
@@ -51,6 +59,12 @@ public class BackFiller implements StreamSubscriber {
     static AtomicInteger count = new AtomicInteger();
     private final Log log;
     final ScheduledThreadPoolExecutor executor;
+    // runs the filling tasks if numThreads > 1
+    final ExecutorService fillExecutor;
+    final int numThreads;
+    // the filling tasks of the job in progress, cancelled when shutting down
+    private final List<Future<?>> fillFutures = new CopyOnWriteArrayList<>();
+    private volatile boolean stopping = false;
 
     // set of segments that have to be rebuilt following monitoring of streams
     private Map<Long, StreamUpdate> streamUpdates;
@@ -60,7 +74,7 @@ public class BackFiller implements StreamSubscriber {
     // after how many backfilling tasks to trigger a parchive.compact()
     int compactFrequency = -1;
 
-    int compactCount = 0;
+    final AtomicInteger compactCount = new AtomicInteger();
     long quietPeriodThreshold;
 
     private List<BackFillerListener> listeners = new CopyOnWriteArrayList<>();
@@ -82,10 +96,19 @@ public class BackFiller implements StreamSubscriber {
         this.parchive = parchive;
         this.log = new Log(BackFiller.class, parchive.getYamcsInstance());
         parseConfig(config, defaultAutomaticBackfilling);
+        this.numThreads = config.getInt("numThreads", 1);
         timeService = YamcsServer.getTimeService(parchive.getYamcsInstance());
         executor = new ScheduledThreadPoolExecutor(1,
                 new ThreadFactoryBuilder().setNameFormat("ParameterArchive-BackFiller-" + parchive.getYamcsInstance())
                         .build());
+        // the filling tasks scheduled but not yet started are dropped when shutting down
+        executor.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+        if (numThreads > 1) {
+            fillExecutor = Executors.newFixedThreadPool(numThreads, new ThreadFactoryBuilder()
+                    .setNameFormat("ParameterArchive-BackFiller-" + parchive.getYamcsInstance() + "-%d").build());
+        } else {
+            fillExecutor = null;
+        }
     }
 
     public static Spec getSpec() {
@@ -109,6 +132,7 @@ public class BackFiller implements StreamSubscriber {
 
         spec.addOption("schedule", OptionType.MAP).withSpec(schedSpec);
         spec.addOption("compactFrequency", OptionType.INTEGER).withDefault(-1);
+        spec.addOption("numThreads", OptionType.INTEGER).withDefault(1);
 
         return spec;
     }
@@ -234,7 +258,98 @@ public class BackFiller implements StreamSubscriber {
     }
 
     public Future<?> scheduleFillingTask(long start, long stop) {
-        return executor.schedule(() -> runTask(start, stop), 0, TimeUnit.SECONDS);
+        return executor.schedule(() -> runTasks(start, stop), 0, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Fills the archive between start and stop and waits for the filling to finish.
+     * <p>
+     * If multiple threads are configured and the start and stop are finite, the filling is split into multiple tasks
+     * run in parallel.
+     */
+    private void runTasks(long start, long stop) {
+        if (fillExecutor == null || start < TimeEncoding.MIN_INSTANT || stop > TimeEncoding.MAX_INSTANT) {
+            runTask(start, stop);
+            return;
+        }
+        LongArray intervals = new LongArray();
+        long interval = ParameterArchive.getIntervalStart(start);
+        while (true) {
+            intervals.add(interval);
+            long intervalEnd = ParameterArchive.getIntervalEnd(interval);
+            if (intervalEnd >= stop) {
+                break;
+            }
+            interval = intervalEnd + 1;
+        }
+        runTasks(intervals);
+    }
+
+    /**
+     * Fills the intervals from the sorted list and waits for the filling to finish.
+     * <p>
+     * The contiguous intervals are filled by one replay, such that the warmup is done only once for all of them. If
+     * multiple threads are configured, the ranges are split further to have one task per thread and the tasks are run
+     * in parallel.
+     */
+    private void runTasks(LongArray intervals) {
+        List<long[]> ranges = getFillRanges(intervals, fillExecutor == null ? 1 : numThreads);
+        if (fillExecutor == null || ranges.size() == 1) {
+            for (long[] r : ranges) {
+                if (stopping) {
+                    return;
+                }
+                runTask(r[0], r[1]);
+            }
+            return;
+        }
+        try {
+            for (long[] r : ranges) {
+                fillFutures.add(fillExecutor.submit(() -> runTask(r[0], r[1])));
+            }
+        } catch (RejectedExecutionException e) {
+            // shutting down, the tasks already submitted are cancelled
+        }
+        log.debug("Running {} filling tasks on {} threads", fillFutures.size(), numThreads);
+        try {
+            for (Future<?> f : fillFutures) {
+                try {
+                    f.get();
+                } catch (CancellationException e) {
+                    // shutting down
+                } catch (ExecutionException e) {
+                    log.error("Error when running the archive filler task", e.getCause());
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            fillFutures.clear();
+        }
+    }
+
+    /**
+     * Groups the sorted interval starts into ranges of contiguous intervals.
+     * <p>
+     * The ranges are limited to {@code ceil(intervals.size() / numTasks)} intervals each, such that there are at least
+     * numTasks ranges if there are enough intervals.
+     *
+     * @return a list of [start, stop] pairs, the stop being the end of the last interval of the range
+     */
+    static List<long[]> getFillRanges(LongArray intervals, int numTasks) {
+        List<long[]> ranges = new ArrayList<>();
+        int maxIntervals = (intervals.size() + numTasks - 1) / numTasks;
+        int i = 0;
+        while (i < intervals.size()) {
+            int j = i;
+            while (j < intervals.size() - 1 && j - i + 1 < maxIntervals
+                    && ParameterArchive.getIntervalEnd(intervals.get(j)) + 1 == intervals.get(j + 1)) {
+                j++;
+            }
+            ranges.add(new long[] { intervals.get(i), ParameterArchive.getIntervalEnd(intervals.get(j)) });
+            i = j + 1;
+        }
+        return ranges;
     }
 
     private void runTask(long start, long stop) {
@@ -274,9 +389,11 @@ public class BackFiller implements StreamSubscriber {
                     listener.onBackfillFinished(start, stop, bft.getNumProcessedParameters());
                 }
             }
-            if (compactFrequency != -1 && ++compactCount >= compactFrequency) {
-                compactCount = 0;
-                parchive.compact();
+            if (compactFrequency != -1) {
+                int c = compactCount.incrementAndGet();
+                if (c >= compactFrequency && compactCount.compareAndSet(c, 0)) {
+                    parchive.compact();
+                }
             }
         } catch (Exception e) {
             log.error("Error when running the archive filler task", e);
@@ -302,7 +419,7 @@ public class BackFiller implements StreamSubscriber {
             start = now - s.intervalStart * intervalDuration;
             stop = start + s.numIntervals * intervalDuration - 1;
         }
-        runTask(start, stop);
+        runTasks(start, stop);
     }
 
     private void checkStreamUpdates() {
@@ -350,17 +467,7 @@ public class BackFiller implements StreamSubscriber {
             }
         }
         rebuildIntervals.sort();
-
-        for (int i = 0; i < rebuildIntervals.size(); i++) {
-            int j;
-            for (j = i; j < rebuildIntervals.size() - 1; j++) {
-                if (ParameterArchive.getIntervalEnd(rebuildIntervals.get(j)) != rebuildIntervals.get(j + 1)) {
-                    break;
-                }
-            }
-            runTask(rebuildIntervals.get(i), ParameterArchive.getIntervalEnd(rebuildIntervals.get(j)));
-            i = j;
-        }
+        runTasks(rebuildIntervals);
     }
 
     // runs all schedules with interval -1
@@ -394,7 +501,16 @@ public class BackFiller implements StreamSubscriber {
                 s.removeSubscriber(this);
             }
         }
+        stopping = true;
         executor.shutdown();
+        if (fillExecutor != null) {
+            fillExecutor.shutdown();
+            // the tasks already running are let to finish
+            for (Future<?> f : fillFutures) {
+                f.cancel(false);
+            }
+            fillExecutor.awaitTermination(10, TimeUnit.SECONDS);
+        }
         executor.awaitTermination(10, TimeUnit.SECONDS);
     }
 
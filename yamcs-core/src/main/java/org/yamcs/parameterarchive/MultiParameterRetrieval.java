@@ -1,10 +1,20 @@
 package org.yamcs.parameterarchive;
 
 import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Comparator;
+import java.util.Deque;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.PriorityQueue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
 
 import org.rocksdb.RocksDBException;
@@ -26,9 +36,19 @@ import org.yamcs.yarch.protobuf.Db.ParameterStatus;
  * If we imagine the parameter values as a matrix where one line corresponds to all parameters timestamped at one
  * specific time, the purpose of this class is to transform from columns (Parameter Archive representation) to rows
  * (user requested representation)
+ * <p>
+ * If the request specifies a parallelism greater than 1, the time range is split into chunks aligned with the
+ * partitions and segment intervals. The chunks are retrieved in parallel on the {@link ParameterArchive} retrieval pool
+ * and passed to the consumer in time order, such that the output is the same as for the sequential retrieval. At most
+ * <code>parallelism</code> chunks are retrieved at any given time; each of them buffers at most
+ * {@link #CHUNK_QUEUE_SIZE} lists and waits when the buffer is full until the consumer reaches its chunk.
  *
  */
 public class MultiParameterRetrieval {
+    static final int CHUNK_QUEUE_SIZE = 1024;
+    static final long POLL_INTERVAL_MILLIS = 100;
+    // marks the end of the values of a chunk in the queue
+    static final ParameterIdValueList END_OF_CHUNK = new ParameterIdValueList(TimeEncoding.INVALID_INSTANT);
     final ParameterArchive parchive;
     final MultipleParameterRequest mpvr;
     final AggrrayBuilder[] aggarrayBuilders;
@@ -45,30 +65,48 @@ public class MultiParameterRetrieval {
 
     public void retrieve(Consumer<ParameterIdValueList> consumer) throws RocksDBException, IOException {
         log.trace("Starting a parameter retrieval: {}", mpvr);
+        int parallelism = Math.min(mpvr.parallelism, parchive.getMaxRetrievalThreads());
+        if (parallelism > 1) {
+            List<long[]> chunks = splitIntoChunks(parallelism);
+            if (chunks.size() > 1) {
+                retrieveParallel(chunks, parallelism, consumer);
+                return;
+            }
+        }
+
+        try {
+            retrieve(mpvr, consumer);
+        } catch (ConsumerAbortException e) {
+            log.debug("Stopped early due to receiving ConsumerAbortException");
+        }
+        log.trace("Retrieval finished");
+    }
 
+    private void retrieve(MultipleParameterRequest req, Consumer<ParameterIdValueList> consumer)
+            throws RocksDBException, IOException {
         ParameterGroupIdDb pgDb = parchive.getParameterGroupIdDb();
-        PriorityQueue<ParameterIterator> queue = new PriorityQueue<>(new IteratorComparator(mpvr.ascending));
-        int[] parameterGroupIds = mpvr.parameterGroupIds;
+        PriorityQueue<ParameterIterator> queue = new PriorityQueue<>(new IteratorComparator(req.ascending));
+        int[] parameterGroupIds = req.parameterGroupIds;
 
-        for (int i = 0; i < mpvr.parameterIds.length; i++) {
-            ParameterId paraId = mpvr.parameterIds[i];
-            ParameterRetrievalOptions req = ParameterRetrievalOptions.newBuilder().withStartStop(mpvr.start, mpvr.stop)
-                    .withAscending(mpvr.ascending).withRetrieveEngineeringValues(mpvr.retrieveEngValues)
-                    .withRetrieveRawValues(mpvr.retrieveRawValues && paraId.hasRawValue())
-                    .withRetrieveParameterStatus(mpvr.retrieveParamStatus).build();
+        for (int i = 0; i < req.parameterIds.length; i++) {
+            ParameterId paraId = req.parameterIds[i];
+            ParameterRetrievalOptions opts = ParameterRetrievalOptions.newBuilder().withStartStop(req.start, req.stop)
+                    .withAscending(req.ascending).withRetrieveEngineeringValues(req.retrieveEngValues)
+                    .withRetrieveRawValues(req.retrieveRawValues && paraId.hasRawValue())
+                    .withRetrieveParameterStatus(req.retrieveParamStatus).build();
 
             if (parameterGroupIds != null) {
-                queueIterator(queue, paraId, parameterGroupIds[i], req);
+                queueIterator(queue, paraId, parameterGroupIds[i], opts);
             } else {
                 int pid0 = paraId.isSimple() ? paraId.getPid() : paraId.getComponents().get(0);
                 for (int pgid : pgDb.getAllGroups(pid0)) {
-                    queueIterator(queue, paraId, pgid, req);
+                    queueIterator(queue, paraId, pgid, opts);
                 }
             }
         }
         log.trace("Got {} parallel iterators", queue.size());
 
-        Merger merger = new Merger(mpvr, consumer);
+        Merger merger = new Merger(req, consumer);
 
         ParameterIterator it = null;
         try {
@@ -85,17 +123,115 @@ public class MultiParameterRetrieval {
                 }
             }
             merger.flush();
-        } catch (ConsumerAbortException e) {
-            log.debug("Stopped early due to receiving ConsumerAbortException");
         } finally {
             if (it != null) {
                 it.close();
             }
             queue.forEach(it1 -> it1.close());
         }
+    }
+
+    /**
+     * Retrieves the chunks in parallel, keeping at most <code>parallelism</code> chunks in progress. The chunks are
+     * sent to the consumer in the order they appear in the list.
+     */
+    private void retrieveParallel(List<long[]> chunks, int parallelism, Consumer<ParameterIdValueList> consumer)
+            throws RocksDBException, IOException {
+        log.trace("Retrieving {} chunks with parallelism {}", chunks.size(), parallelism);
+        ForkJoinPool pool = parchive.getRetrievalPool();
+        Deque<ChunkRetrieval> pending = new ArrayDeque<>();
+        int next = 0;
+        int count = 0;
+        try {
+            while (next < chunks.size() && pending.size() < parallelism) {
+                pending.add(submitChunk(pool, chunks.get(next++)));
+            }
+            while (!pending.isEmpty()) {
+                ChunkRetrieval cr = pending.peek();
+                ParameterIdValueList pvlist;
+                while ((pvlist = cr.next()) != null) {
+                    consumer.accept(pvlist);
+                    count++;
+                    if (mpvr.limit > 0 && count >= mpvr.limit) {
+                        return;
+                    }
+                }
+                pending.poll();
+                if (next < chunks.size()) {
+                    pending.add(submitChunk(pool, chunks.get(next++)));
+                }
+            }
+        } catch (ConsumerAbortException e) {
+            log.debug("Stopped early due to receiving ConsumerAbortException");
+        } finally {
+            pending.forEach(ChunkRetrieval::abort);
+        }
         log.trace("Retrieval finished");
     }
 
+    private ChunkRetrieval submitChunk(ForkJoinPool pool, long[] chunk) {
+        MultipleParameterRequest req = new MultipleParameterRequest(chunk[0], chunk[1], mpvr.parameterIds,
+                mpvr.parameterGroupIds, mpvr.ascending, mpvr.retrieveEngValues, mpvr.retrieveRawValues,
+                mpvr.retrieveParamStatus);
+        req.setLimit(mpvr.limit);
+        ChunkRetrieval cr = new ChunkRetrieval(req);
+        pool.execute(cr);
+        return cr;
+    }
+
+    /**
+     * Splits the requested time range into chunks, sorted in the order of the retrieval.
+     * <p>
+     * The chunks are obtained by first splitting at the partition boundaries and then splitting each partition range
+     * into at most parallelism pieces aligned with the segment intervals.
+     * <p>
+     * The chunks are [start, stop) for ascending and (start, stop] for descending retrievals, same as the original
+     * request.
+     */
+    List<long[]> splitIntoChunks(int parallelism) {
+        List<long[]> chunks = new ArrayList<>();
+        if (mpvr.start >= mpvr.stop) {
+            return chunks;
+        }
+        // the partitions are sorted ascending, the chunks are reversed at the end if necessary
+        for (var p : parchive.getPartitions(mpvr.start, mpvr.stop, true)) {
+            long start = Math.max(mpvr.start, p.getStart());
+            long stop = Math.min(mpvr.stop, p.getEnd());
+            if (start >= stop) {
+                continue;
+            }
+            long firstInterval = ParameterArchive.getInterval(start);
+            long lastInterval = ParameterArchive.getInterval(stop);
+            // number of intervals in the chunk; computed on the shifted values to avoid overflows
+            long numIntervals = (lastInterval >> ParameterArchive.NUMBITS_MASK)
+                    - (firstInterval >> ParameterArchive.NUMBITS_MASK) + 1;
+            long intervalsPerChunk = Math.max(1, (numIntervals + parallelism - 1) / parallelism);
+
+            long chunkStart = start;
+            long nextIntervalIdx = (firstInterval >> ParameterArchive.NUMBITS_MASK) + intervalsPerChunk;
+            while (true) {
+                long chunkStop;
+                if (nextIntervalIdx > (lastInterval >> ParameterArchive.NUMBITS_MASK)) {
+                    chunkStop = stop;
+                } else {
+                    chunkStop = Math.min(stop, nextIntervalIdx << ParameterArchive.NUMBITS_MASK);
+                }
+                if (chunkStart < chunkStop) {
+                    chunks.add(new long[] { chunkStart, chunkStop });
+                }
+                if (chunkStop >= stop) {
+                    break;
+                }
+                chunkStart = chunkStop;
+                nextIntervalIdx += intervalsPerChunk;
+            }
+        }
+        if (!mpvr.ascending) {
+            Collections.reverse(chunks);
+        }
+        return chunks;
+    }
+
     private void queueIterator(PriorityQueue<ParameterIterator> queue,
             ParameterId paraId, int pgid, ParameterRetrievalOptions req) {
         ParameterIterator it;
@@ -111,6 +247,114 @@ public class MultiParameterRetrieval {
         }
     }
 
+    /**
+     * Retrieves one chunk of the request in the retrieval pool, passing the result through a bounded queue.
+     * <p>
+     * The task blocks (letting the pool compensate with another thread) while the queue is full.
+     */
+    class ChunkRetrieval extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        final MultipleParameterRequest req;
+        final BlockingQueue<ParameterIdValueList> queue = new ArrayBlockingQueue<>(CHUNK_QUEUE_SIZE);
+        volatile boolean aborted = false;
+        // exception encountered during the retrieval, rethrown to the consumer at the end of the chunk
+        volatile Exception error;
+
+        ChunkRetrieval(MultipleParameterRequest req) {
+            this.req = req;
+        }
+
+        @Override
+        protected void compute() {
+            try {
+                retrieve(req, this::put);
+            } catch (ConsumerAbortException e) {
+                // the retrieval has been stopped, the result is not used
+                return;
+            } catch (RocksDBException | IOException | RuntimeException e) {
+                error = e;
+            }
+            put(END_OF_CHUNK);
+        }
+
+        private void put(ParameterIdValueList pvlist) {
+            QueuePut qp = new QueuePut(pvlist);
+            try {
+                ForkJoinPool.managedBlock(qp);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new ConsumerAbortException();
+            }
+            if (!qp.done) {
+                throw new ConsumerAbortException();
+            }
+        }
+
+        void abort() {
+            aborted = true;
+            cancel(false);
+        }
+
+        /**
+         * Waits for the next list of the chunk and returns it or returns null if the chunk has been fully retrieved.
+         * <p>
+         * The exceptions encountered during the retrieval are rethrown at the end of the chunk.
+         */
+        ParameterIdValueList next() throws RocksDBException, IOException {
+            while (true) {
+                ParameterIdValueList pvlist;
+                try {
+                    pvlist = queue.poll(POLL_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new ConsumerAbortException();
+                }
+                if (pvlist == END_OF_CHUNK) {
+                    rethrowError();
+                    return null;
+                } else if (pvlist != null) {
+                    return pvlist;
+                } else if (isCancelled()) { // e.g. the pool has been shut down
+                    throw new ConsumerAbortException();
+                }
+            }
+        }
+
+        private void rethrowError() throws RocksDBException, IOException {
+            Exception e = error;
+            if (e instanceof RocksDBException) {
+                throw (RocksDBException) e;
+            } else if (e instanceof IOException) {
+                throw (IOException) e;
+            } else if (e != null) {
+                throw (RuntimeException) e;
+            }
+        }
+
+        class QueuePut implements ForkJoinPool.ManagedBlocker {
+            final ParameterIdValueList pvlist;
+            boolean done;
+
+            QueuePut(ParameterIdValueList pvlist) {
+                this.pvlist = pvlist;
+            }
+
+            @Override
+            public boolean block() throws InterruptedException {
+                done = queue.offer(pvlist, POLL_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+                return isReleasable();
+            }
+
+            @Override
+            public boolean isReleasable() {
+                if (!done) {
+                    done = queue.offer(pvlist);
+                }
+                return done || aborted;
+            }
+        }
+    }
+
     /**
      * Merge values from the parallel iterators taking care that parameters from the same group end up in the same list
      *
@@ -17,6 +17,7 @@ public class MultipleParameterRequest {
     final int[] parameterGroupIds;
 
     int limit = -1;
+    int parallelism = 1;
 
     public MultipleParameterRequest(long start, long stop, ParameterId[] parameterIds, boolean ascending) {
         this(start, stop, parameterIds, null, ascending, true, true, true);
@@ -76,12 +77,31 @@ public class MultipleParameterRequest {
         this.limit = limit;
     }
 
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    /**
+     * retrieve the data using up to this number of threads; the time range is split into chunks aligned with the
+     * partitions and segment intervals and the chunks are decoded in parallel.
+     * <p>
+     * 1 (the default) means that the retrieval is performed sequentially on the calling thread.
+     * 
+     * @param parallelism
+     */
+    public void setParallelism(int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("parallelism has to be at least 1");
+        }
+        this.parallelism = parallelism;
+    }
+
     @Override
     public String toString() {
         return "MultipleParameterRequest [parameterIds=" + Arrays.toString(parameterIds)
                 + ", start=" + TimeEncoding.toString(start) + ", stop=" + TimeEncoding.toString(stop) + ", ascending="
                 + ascending + ", retrieveRawValues=" + retrieveRawValues + ", retrieveEngValues=" + retrieveEngValues
-                + ", retrieveParamStatus=" + retrieveParamStatus + ", limit=" + limit + "]";
+                + ", retrieveParamStatus=" + retrieveParamStatus + ", limit=" + limit + ", parallelism=" + parallelism + "]";
     }
 
 }
@@ -6,6 +6,7 @@ import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -61,6 +62,11 @@ public abstract class ObjectSegment<E> extends BaseSegment {
     IntArray rleValues;
     IntArray enumValues;
     List<HashableByteArray> unique;
+    // the object corresponding to each element of the unique list
+    List<E> uniqueObjects;
+    // maps the objects from the uniqueObjects list to their id. It allows to add again the same instance without
+    // serializing it (the most common case, since the callers reuse the instances whenever possible)
+    Map<E, Integer> identityMap;
 
     int rawSize;
     int enumRawSize;
@@ -84,6 +90,8 @@ public abstract class ObjectSegment<E> extends BaseSegment {
             writable = true;
             objectList = new ArrayList<E>();
             unique = new ArrayList<HashableByteArray>();
+            uniqueObjects = new ArrayList<E>();
+            identityMap = new IdentityHashMap<>();
             valuemap = new HashMap<>();
             enumValues = new IntArray();
         } // else in the parseFrom will construct the necessary fields
@@ -98,20 +106,9 @@ public abstract class ObjectSegment<E> extends BaseSegment {
         if (!writable) {
             throw new UnsupportedOperationException("Segment is not writable");
         }
-        byte[] b = objSerializer.serialize(e);
-        HashableByteArray se = new HashableByteArray(b);
-        int valueId;
-        if (valuemap.containsKey(se)) {
-            valueId = valuemap.get(se);
-            se = unique.get(valueId); // release the old se object to garbage
-            e = objectList.get(enumValues.indexOf(valueId));// release the old e object to garbage
-        } else {
-            valueId = unique.size();
-            valuemap.put(se, valueId);
-            unique.add(se);
-        }
+        int valueId = getValueId(e);
         enumValues.add(valueId);
-        objectList.add(e);
+        objectList.add(uniqueObjects.get(valueId));// release the e object to garbage if it is not unique
         size++;
     }
 
@@ -123,21 +120,38 @@ public abstract class ObjectSegment<E> extends BaseSegment {
             add(e);
             return;
         }
+        int valueId = getValueId(e);
+        enumValues.add(pos, valueId);
+        objectList.add(pos, uniqueObjects.get(valueId));
+        size++;
+    }
+
+    /**
+     * returns the id of the element in the unique list, adding it to the list if it is not already there.
+     * <p>
+     * The element is serialized only if the same instance has not been seen before.
+     */
+    private int getValueId(E e) {
+        Integer id = identityMap.get(e);
+        if (id != null) {
+            return id;
+        }
         byte[] b = objSerializer.serialize(e);
         HashableByteArray se = new HashableByteArray(b);
-        int valueId;
-        if (valuemap.containsKey(se)) {
-            valueId = valuemap.get(se);
-            se = unique.get(valueId); // release the old se object to garbage
-            e = objectList.get(enumValues.indexOf(valueId));// release the old e object to garbage
-        } else {
-            valueId = unique.size();
-            valuemap.put(se, valueId);
-            unique.add(se);
+        id = valuemap.get(se);
+        if (id == null) {
+            id = addUnique(se, e);
         }
-        enumValues.add(pos, valueId);
-        objectList.add(pos, e);
-        size++;
+        return id;
+    }
+
+    private int addUnique(HashableByteArray se, E e) {
+        int valueId = unique.size();
+        valuemap.put(se, valueId);
+        unique.add(se);
+        uniqueObjects.add(e);
+        identityMap.put(e, valueId);
+        return valueId;
     }
 
     @Override
@@ -503,6 +517,8 @@ public abstract class ObjectSegment<E> extends BaseSegment {
             return;
         }
         unique = new ArrayList<HashableByteArray>();
+        uniqueObjects = new ArrayList<E>();
+        identityMap = new IdentityHashMap<>();
         valuemap = new HashMap<>();
         enumValues = new IntArray();
 
@@ -511,13 +527,7 @@ public abstract class ObjectSegment<E> extends BaseSegment {
 
             for (int i = 0; i < rleObjectList.size(); i++) {
                 var o = rleObjectList.get(i);
-                byte[] b = objSerializer.serialize(o);
-                HashableByteArray se = new HashableByteArray(b);
-                int idx = valuemap.computeIfAbsent(se, k -> {
-                    int newIdx = unique.size();
-                    unique.add(k);
-                    return newIdx;
-                });
+                int idx = getValueId(o);
 
                 for (int k = 0; k < rleCounts.get(i); k++) {
                     objectList.add(o);
@@ -527,15 +537,7 @@ public abstract class ObjectSegment<E> extends BaseSegment {
             runLengthEncoded = false;
         } else {
             for (var o : objectList) {
-                byte[] b = objSerializer.serialize(o);
-                HashableByteArray se = new HashableByteArray(b);
-                int idx = valuemap.computeIfAbsent(se, k -> {
-                    int newIdx = unique.size();
-                    unique.add(k);
-                    return newIdx;
-                });
-
-                enumValues.add(idx);
+                enumValues.add(getValueId(o));
             }
         }
         writable = true;
@@ -7,8 +7,10 @@ import java.io.IOException;
 import java.io.PrintStream;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.Future;
 import java.util.concurrent.atomic.AtomicLong;
 
@@ -115,6 +117,11 @@ public class ParameterArchive extends AbstractYamcsService {
     int maxSegmentSize;
     boolean sparseGroups;
     double minimumGroupOverlap;
+    int maxRetrievalThreads;
+    int retrievalParallelism;
+    private ForkJoinPool retrievalPool;
+    // durations in seconds of the rollup buckets, sorted in ascending order
+    int[] rollupTiers;
 
     AtomicLong coverageEnd = new AtomicLong(TimeEncoding.NEGATIVE_INFINITY);
 
@@ -133,6 +140,19 @@ public class ParameterArchive extends AbstractYamcsService {
         spec.addOption("coverageEndDelta", OptionType.INTEGER).withDefault(60)
                 .withDescription("how long in the future in seconds (compared to mission time) "
                         + "to allow data part of the coverage)");
+        spec.addOption("maxRetrievalThreads", OptionType.INTEGER)
+                .withDefault(Runtime.getRuntime().availableProcessors())
+                .withDescription("maximum number of threads used for parallel multi-parameter retrievals. "
+                        + "The threads are shared by all the requests; each request can ask for a certain "
+                        + "degree of parallelism limited by this value.");
+        spec.addOption("retrievalParallelism", OptionType.INTEGER).withDefault(1)
+                .withDescription("degree of parallelism of the multi-parameter retrievals which do not specify one, "
+                        + "such as the ones made through the HTTP API. 1 means sequential retrieval.");
+        spec.addOption("rollupTiers", OptionType.LIST).withElementType(OptionType.INTEGER)
+                .withDefault(Collections.emptyList())
+                .withDescription("durations in seconds of the buckets of the pre-aggregated (min/max/avg/count) "
+                        + "values maintained for the numeric parameters. They are used to speed up the "
+                        + "retrieval of downsampled values over long time ranges.");
 
         return spec;
     }
@@ -160,6 +180,19 @@ public class ParameterArchive extends AbstractYamcsService {
         sparseGroups = config.getBoolean("sparseGroups");
         minimumGroupOverlap = config.getDouble("minimumGroupOverlap");
         coverageEndDelta = config.getLong("coverageEndDelta") * 1000;
+        maxRetrievalThreads = config.getInt("maxRetrievalThreads", Runtime.getRuntime().availableProcessors());
+        retrievalParallelism = config.getInt("retrievalParallelism", 1);
+        if (retrievalParallelism < 1) {
+            throw new ConfigurationException(config,
+                    "Invalid retrievalParallelism " + retrievalParallelism + "; it should be at least 1");
+        }
+        List<Integer> tiers = config.getList("rollupTiers");
+        rollupTiers = tiers.stream().mapToInt(Integer::intValue).sorted().distinct().toArray();
+        for (int tier : rollupTiers) {
+            if (tier <= 0) {
+                throw new ConfigurationException(config, "Invalid rollup tier " + tier + "; it should be positive");
+            }
+        }
 
         try {
             TablespaceRecord.Type trType = TablespaceRecord.Type.PARCHIVE_PINFO;
@@ -271,6 +304,7 @@ public class ParameterArchive extends AbstractYamcsService {
                 writeToBatchVersion0(cfh, writeBatch, pgs);
             } else {
                 writeToBatch(rdb, cfh, writeBatch, pgs);
+                writeRollupsToBatch(rdb, p, cfh, writeBatch, pgs);
             }
             rdb.write(wo, writeBatch);
         }
@@ -291,6 +325,7 @@ public class ParameterArchive extends AbstractYamcsService {
                     writeToBatchVersion0(cfh, writeBatch, pgs);
                 } else {
                     writeToBatch(rdb, cfh, writeBatch, pgs);
+                    writeRollupsToBatch(rdb, p, cfh, writeBatch, pgs);
                 }
                 maxTime = Math.max(maxTime, pgs.getSegmentEnd());
             }
@@ -430,6 +465,54 @@ public class ParameterArchive extends AbstractYamcsService {
         }
     }
 
+    // write the rollups of the numeric parameters for each configured tier.
+    // If the interval is rewritten (e.g. by the back filler), the rollups of the previous filling are removed.
+    private void writeRollupsToBatch(YRDB rdb, Partition p, ColumnFamilyHandle cfh, WriteBatch writeBatch,
+            PGSegment pgs) throws RocksDBException {
+        ColumnFamilyHandle rollupCfh = rollupCfh(rdb, p, true);
+        if (rollupCfh == null) {
+            return;
+        }
+        int pgid = pgs.getParameterGroupId();
+        long interval = pgs.getInterval();
+        int timePid = parameterIdDb.timeParameterId;
+
+        if (pgs.isFirstInInterval()) {
+            byte[] timeKey = new SegmentKey(timePid, pgid, interval, SegmentKey.TYPE_ENG_VALUE).encode();
+            if (rdb.get(cfh, timeKey) != null) {
+                var pgParams = getParameterGroupIdDb().getParameterGroup(pgid);
+                for (int tier : rollupTiers) {
+                    for (int i = 0; i < pgParams.size(); i++) {
+                        int pid = pgParams.get(i);
+                        if (ParameterRollup.isNumeric(parameterIdDb.getParameterId(pid).getEngType())) {
+                            writeBatch.deleteRange(rollupCfh,
+                                    ParameterRollup.encodeKey(pid, tier, pgid, interval),
+                                    ParameterRollup.encodeKey(pid, tier, pgid, getIntervalEnd(interval) + 1));
+                        }
+                    }
+                }
+            }
+        }
+
+        for (var pvs : pgs.pvSegments) {
+            if (!ParameterRollup.isNumeric(parameterIdDb.getParameterId(pvs.pid).getEngType())) {
+                continue;
+            }
+            var pva = pvs.getRange(0, pvs.timeSegment.size(), true, false);
+            for (int tier : rollupTiers) {
+                var rollup = ParameterRollup.compute(1000L * tier, pva);
+                if (rollup != null) {
+                    byte[] key = ParameterRollup.encodeKey(pvs.pid, tier, pgid, pgs.getSegmentStart());
+                    writeBatch.put(rollupCfh, key, rollup.encode());
+                }
+            }
+        }
+        for (int tier : rollupTiers) {
+            writeBatch.put(rollupCfh, ParameterRollup.encodeKey(timePid, tier, pgid, interval),
+                    ParameterRollup.MARKER_VALUE);
+        }
+    }
+
     // writes to the archive without using the rocksdb merge operator (which merges segments together into intervals).
     // The segment start (instead of the interval start) is part of the key which means that we need to remove old
     // data as it may have a different segment start resulting into a different key.
@@ -620,6 +703,12 @@ public class ParameterArchive extends AbstractYamcsService {
             if (realtimeFiller != null) {
                 realtimeFiller.shutDown();
             }
+            synchronized (this) {
+                if (retrievalPool != null) {
+                    retrievalPool.shutdownNow();
+                    retrievalPool = null;
+                }
+            }
         } catch (Exception e) {
             log.error("Error stopping realtime filler", e);
             notifyFailed(e);
@@ -703,6 +792,7 @@ public class ParameterArchive extends AbstractYamcsService {
                 }
             } else {
                 rdb.dropColumnFamily(p.cfName);
+                rdb.dropColumnFamily(ParameterRollup.CF_NAME);
             }
         }
         partitions = new PartitionedTimeInterval<>();
@@ -893,6 +983,33 @@ public class ParameterArchive extends AbstractYamcsService {
         return TIMESTAMP_MASK + 1l;
     }
 
+    /**
+     * Returns the pool used to decode in parallel the chunks of a {@link MultiParameterRetrieval}.
+     * <p>
+     * The pool is created at the first call.
+     */
+    synchronized ForkJoinPool getRetrievalPool() {
+        if (retrievalPool == null) {
+            retrievalPool = new ForkJoinPool(Math.max(1, maxRetrievalThreads), pool -> {
+                var t = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+                t.setName("ParameterArchive-retrieval-" + yamcsInstance + "-" + t.getPoolIndex());
+                return t;
+            }, null, false);
+        }
+        return retrievalPool;
+    }
+
+    int getMaxRetrievalThreads() {
+        return maxRetrievalThreads;
+    }
+
+    /**
+     * Returns the degree of parallelism used for the multi-parameter retrievals which do not specify one
+     */
+    public int getRetrievalParallelism() {
+        return retrievalParallelism;
+    }
+
     public Tablespace getTablespace() {
         return tablespace;
     }
@@ -974,6 +1091,40 @@ public class ParameterArchive extends AbstractYamcsService {
         }
     }
 
+    /**
+     * Returns the ColumnFamilyHandle storing the rollups for the partition or null if the rollups are not enabled or
+     * the partition is stored in the default column family (databases created before 5.9.0).
+     * <p>
+     * If create is false and the column family does not exist, null is returned.
+     */
+    ColumnFamilyHandle rollupCfh(YRDB rdb, Partition p, boolean create) throws RocksDBException {
+        if (rollupTiers.length == 0 || p.cfName == null || p.version == 0) {
+            return null;
+        }
+        if (create) {
+            return rdb.createAndGetColumnFamilyHandle(ParameterRollup.CF_NAME);
+        } else {
+            return rdb.getColumnFamilyHandle(ParameterRollup.CF_NAME);
+        }
+    }
+
+    /**
+     * Returns the duration in seconds of the coarsest rollup tier whose buckets are not larger than the given
+     * resolution or -1 if there is no such tier.
+     *
+     * @param resolution
+     *            - duration in milliseconds
+     */
+    public int getRollupTier(long resolution) {
+        int r = -1;
+        for (int tier : rollupTiers) {
+            if (1000L * tier <= resolution) {
+                r = tier;
+            }
+        }
+        return r;
+    }
+
     public long maxCoverageEnd() {
         return timeService.getMissionTime() + coverageEndDelta;
     }
@@ -0,0 +1,263 @@
+package org.yamcs.parameterarchive;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.yamcs.parameter.ValueArray;
+import org.yamcs.protobuf.Yamcs.Value.Type;
+import org.yamcs.utils.DecodingException;
+import org.yamcs.utils.UnsignedLong;
+
+/**
+ * Pre-aggregated values of one numeric parameter from one segment, grouped into buckets of fixed duration (the rollup
+ * tier).
+ * <p>
+ * The rollups are stored in their own column family with the key (parameterId, tier, parameterGroupId,
+ * segmentStart). Each segment written to the archive produces one rollup record for each configured tier; the buckets
+ * at the border between two segments appear in both records.
+ * <p>
+ * For each tier and group, a record with the time parameter id and the interval start is written as a marker that
+ * the interval has been rolled up. This allows finding the intervals written before the rollups have been enabled.
+ */
+public class ParameterRollup {
+    public static final String CF_NAME = ParameterArchive.CF_NAME + "_rollup";
+
+    static final int KEY_SIZE = 20;
+    static final byte[] MARKER_VALUE = new byte[0];
+
+    static final int FORMAT_VERSION = 0;
+    static final int BUCKET_SIZE = 8 + 4 + 3 * 8 + 4 * 8;
+
+    final List<Bucket> buckets;
+
+    ParameterRollup(List<Bucket> buckets) {
+        this.buckets = buckets;
+    }
+
+    public List<Bucket> getBuckets() {
+        return buckets;
+    }
+
+    /**
+     * Returns true if the rollups can be computed for values of the given type
+     */
+    public static boolean isNumeric(Type type) {
+        if (type == null) {
+            return false;
+        }
+        switch (type) {
+        case FLOAT:
+        case DOUBLE:
+        case SINT32:
+        case UINT32:
+        case SINT64:
+        case UINT64:
+            return true;
+        default:
+            return false;
+        }
+    }
+
+    /**
+     * Aggregates the engineering values of the array into buckets of the given duration.
+     *
+     * @return the rollup or null if the array is null or does not contain numeric engineering values.
+     */
+    static ParameterRollup compute(long tier, ParameterValueArray pva) {
+        if (pva == null || !isNumeric(pva.getEngType())) {
+            return null;
+        }
+        long[] timestamps = pva.getTimestamps();
+        ValueArray va = pva.getEngValues();
+        List<Bucket> buckets = new ArrayList<>();
+        Bucket b = null;
+        for (int i = 0; i < timestamps.length; i++) {
+            long t = timestamps[i];
+            double v = getDouble(va, i);
+            long bucketStart = Math.floorDiv(t, tier) * tier;
+            if (b == null || b.start != bucketStart) {
+                b = new Bucket(bucketStart, t, v);
+                buckets.add(b);
+            } else {
+                b.add(t, v);
+            }
+        }
+        return new ParameterRollup(buckets);
+    }
+
+    private static double getDouble(ValueArray va, int idx) {
+        switch (va.getType()) {
+        case FLOAT:
+            return va.getFloatArray()[idx];
+        case DOUBLE:
+            return va.getDoubleArray()[idx];
+        case SINT32:
+            return va.getIntArray()[idx];
+        case UINT32:
+            return va.getIntArray()[idx] & 0xFFFFFFFFL;
+        case SINT64:
+            return va.getLongArray()[idx];
+        case UINT64:
+            return UnsignedLong.toDouble(va.getLongArray()[idx]);
+        default:
+            throw new IllegalStateException("Unexpected type " + va.getType());
+        }
+    }
+
+    public byte[] encode() {
+        ByteBuffer bb = ByteBuffer.allocate(1 + 4 + buckets.size() * BUCKET_SIZE);
+        bb.put((byte) FORMAT_VERSION);
+        bb.putInt(buckets.size());
+        for (Bucket b : buckets) {
+            bb.putLong(b.start);
+            bb.putInt(b.count);
+            bb.putDouble(b.min);
+            bb.putDouble(b.max);
+            bb.putDouble(b.sum);
+            bb.putLong(b.minTime);
+            bb.putLong(b.maxTime);
+            bb.putLong(b.firstTime);
+            bb.putLong(b.lastTime);
+        }
+        return bb.array();
+    }
+
+    public static ParameterRollup decode(byte[] value) throws DecodingException {
+        ByteBuffer bb = ByteBuffer.wrap(value);
+        int version = bb.get();
+        if (version != FORMAT_VERSION) {
+            throw new DecodingException("Unknown rollup format version " + version);
+        }
+        int n = bb.getInt();
+        if (bb.remaining() != n * BUCKET_SIZE) {
+            throw new DecodingException("Invalid rollup record size " + value.length + " for " + n + " buckets");
+        }
+        List<Bucket> buckets = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            Bucket b = new Bucket(bb.getLong());
+            b.count = bb.getInt();
+            b.min = bb.getDouble();
+            b.max = bb.getDouble();
+            b.sum = bb.getDouble();
+            b.minTime = bb.getLong();
+            b.maxTime = bb.getLong();
+            b.firstTime = bb.getLong();
+            b.lastTime = bb.getLong();
+            buckets.add(b);
+        }
+        return new ParameterRollup(buckets);
+    }
+
+    /**
+     * The keys sort by parameter, tier, group and then time; the sign of the time is inverted as in
+     * {@link SegmentKey#encode()} such that negative times sort before positive ones.
+     */
+    static byte[] encodeKey(int parameterId, int tierSec, int parameterGroupId, long segmentStart) {
+        ByteBuffer bb = ByteBuffer.allocate(KEY_SIZE);
+        bb.putInt(parameterId);
+        bb.putInt(tierSec);
+        bb.putInt(parameterGroupId);
+        bb.putLong(SegmentKey.invertSign(segmentStart));
+        return bb.array();
+    }
+
+    static long decodeKeyTime(byte[] key) {
+        return SegmentKey.invertSign(ByteBuffer.wrap(key).getLong(12));
+    }
+
+    /**
+     * Aggregated values in one bucket
+     */
+    public static class Bucket {
+        final long start;
+        int count;
+        double min;
+        double max;
+        double sum;
+        long minTime;
+        long maxTime;
+        long firstTime;
+        long lastTime;
+
+        Bucket(long start) {
+            this.start = start;
+        }
+
+        /**
+         * Creates a bucket containing one value
+         */
+        public Bucket(long start, long t, double v) {
+            this.start = start;
+            count = 1;
+            min = max = sum = v;
+            minTime = maxTime = firstTime = lastTime = t;
+        }
+
+        /**
+         * Adds a value; the values have to be added in chronological order
+         */
+        public void add(long t, double v) {
+            count++;
+            sum += v;
+            if (v < min) {
+                min = v;
+                minTime = t;
+            }
+            if (v > max) {
+                max = v;
+                maxTime = t;
+            }
+            lastTime = t;
+        }
+
+        /**
+         * start of the bucket; the bucket covers [start, start + tier)
+         */
+        public long getStart() {
+            return start;
+        }
+
+        public int getCount() {
+            return count;
+        }
+
+        public double getMin() {
+            return min;
+        }
+
+        public double getMax() {
+            return max;
+        }
+
+        public double getSum() {
+            return sum;
+        }
+
+        public double getAvg() {
+            return sum / count;
+        }
+
+        public long getMinTime() {
+            return minTime;
+        }
+
+        public long getMaxTime() {
+            return maxTime;
+        }
+
+        public long getFirstTime() {
+            return firstTime;
+        }
+
+        public long getLastTime() {
+            return lastTime;
+        }
+
+        @Override
+        public String toString() {
+            return "Bucket [start=" + start + ", count=" + count + ", min=" + min + ", max=" + max + ", sum=" + sum
+                    + "]";
+        }
+    }
+}
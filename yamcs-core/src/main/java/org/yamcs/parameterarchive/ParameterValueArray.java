@@ -1,5 +1,7 @@
 package org.yamcs.parameterarchive;
 
+import java.util.Arrays;
+
 import org.yamcs.parameter.Value;
 import org.yamcs.parameter.ValueArray;
 import org.yamcs.protobuf.Yamcs.Value.Type;
@@ -68,4 +70,19 @@ public class ParameterValueArray {
     public int size() {
         return timestamps.length;
     }
+
+    /**
+     * returns a new array containing the values from the position from (inclusive) to the position to (exclusive)
+     */
+    ParameterValueArray subArray(int from, int to) {
+        ValueArray eng = engValues == null ? null : engValues.subArray(from, to);
+        ValueArray raw;
+        if (rawValues == engValues) {
+            raw = eng;
+        } else {
+            raw = rawValues == null ? null : rawValues.subArray(from, to);
+        }
+        return new ParameterValueArray(Arrays.copyOfRange(timestamps, from, to), eng, raw,
+                paramStatus == null ? null : Arrays.copyOfRange(paramStatus, from, to));
+    }
 }
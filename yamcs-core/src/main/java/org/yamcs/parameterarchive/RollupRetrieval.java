@@ -0,0 +1,202 @@
+package org.yamcs.parameterarchive;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.function.Predicate;
+
+import org.rocksdb.RocksDBException;
+import org.rocksdb.RocksIterator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.yamcs.parameterarchive.ParameterArchive.Partition;
+import org.yamcs.parameterarchive.ParameterRollup.Bucket;
+import org.yamcs.utils.DecodingException;
+import org.yamcs.utils.TimeEncoding;
+import org.yamcs.utils.TimeInterval;
+import org.yamcs.yarch.rocksdb.YRDB;
+
+/**
+ * Retrieves the pre-aggregated values of a numeric parameter for one rollup tier.
+ * <p>
+ * The rollups can only be used if all the intervals of the parameter archive overlapping with the requested range
+ * have been rolled up with the given tier; this has to be verified with {@link #isComplete()} before calling
+ * {@link #retrieve(Predicate)}.
+ * <p>
+ * The buckets are sent in ascending order for each parameter group but they are not merged across groups; the
+ * buckets partially overlapping with the requested range are included.
+ * <p>
+ * The consumer may refuse a bucket (for example because it covers values outside of the requested range or from two
+ * different downsampling intervals); the time slots of the refused buckets are returned by
+ * {@link #getRejectedIntervals()} such that the values can be retrieved individually. The decision should depend only
+ * on the start of the bucket such that the buckets of all the groups of the same time slot are treated alike.
+ */
+public class RollupRetrieval {
+    private final Logger log = LoggerFactory.getLogger(RollupRetrieval.class);
+
+    final ParameterArchive parchive;
+    final long start;
+    final long stop;
+    final int tier;
+    final ParameterId[] pids;
+    // start of the time slots whose buckets have been refused by the consumer
+    final TreeSet<Long> rejected = new TreeSet<>();
+    long lastTime = TimeEncoding.INVALID_INSTANT;
+
+    /**
+     *
+     * @param tier
+     *            - the duration in seconds of the rollup buckets as returned by
+     *            {@link ParameterArchive#getRollupTier(long)}
+     */
+    public RollupRetrieval(ParameterArchive parchive, String parameterFqn, long start, long stop, int tier) {
+        this.parchive = parchive;
+        this.start = start;
+        this.stop = stop;
+        this.tier = tier;
+        this.pids = parchive.getParameterIdDb().get(parameterFqn);
+    }
+
+    /**
+     * Returns true if the parameter is numeric and the rollups of the tier cover all the data of the parameter archive
+     * in the requested range.
+     */
+    public boolean isComplete() throws RocksDBException, IOException {
+        if (pids == null) {
+            return false;
+        }
+        for (ParameterId pid : pids) {
+            if (!pid.isSimple() || !ParameterRollup.isNumeric(pid.getEngType())) {
+                return false;
+            }
+        }
+        int[] pgids = getGroups();
+        int timePid = parchive.getParameterIdDb().getTimeParameterId();
+
+        for (Partition p : parchive.getPartitions(ParameterArchive.getIntervalStart(start), stop, true)) {
+            if (p.version == 0) {
+                return false;
+            }
+            YRDB rdb = parchive.getTablespace().getRdb(p.partitionDir, false);
+            var rollupCfh = parchive.rollupCfh(rdb, p, false);
+
+            try (RocksIterator it = rdb.newIterator(parchive.cfh(rdb, p))) {
+                for (int pgid : pgids) {
+                    it.seek(SegmentKey.encode(timePid, pgid, ParameterArchive.getIntervalStart(start),
+                            SegmentKey.TYPE_ENG_VALUE));
+                    while (it.isValid()) {
+                        SegmentKey sk = SegmentKey.decode(it.key());
+                        if (sk.parameterId != timePid || sk.parameterGroupId != pgid || sk.segmentStart > stop) {
+                            break;
+                        }
+                        if (rollupCfh == null || rdb.get(rollupCfh,
+                                ParameterRollup.encodeKey(timePid, tier, pgid, sk.segmentStart)) == null) {
+                            log.debug("No rollup with tier {}s for interval {} of group {}", tier,
+                                    TimeEncoding.toString(sk.segmentStart), pgid);
+                            return false;
+                        }
+                        it.next();
+                    }
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Sends to the consumer all the buckets overlapping with the requested range.
+     *
+     * @param consumer
+     *            - returns false if the bucket has not been used
+     * @return the time of the last value included in the buckets (used or not) or
+     *         {@link TimeEncoding#INVALID_INSTANT} if no bucket has been found.
+     */
+    public long retrieve(Predicate<Bucket> consumer) throws RocksDBException, IOException {
+        if (pids == null) {
+            return lastTime;
+        }
+        for (Partition p : parchive.getPartitions(ParameterArchive.getIntervalStart(start), stop, true)) {
+            YRDB rdb = parchive.getTablespace().getRdb(p.partitionDir, false);
+            var rollupCfh = parchive.rollupCfh(rdb, p, false);
+            if (rollupCfh == null) {
+                continue;
+            }
+            try (RocksIterator it = rdb.newIterator(rollupCfh)) {
+                for (ParameterId pid : pids) {
+                    for (int pgid : parchive.getParameterGroupIdDb().getAllGroups(pid.getPid())) {
+                        byte[] startKey = ParameterRollup.encodeKey(pid.getPid(), tier, pgid,
+                                ParameterArchive.getIntervalStart(start));
+                        it.seek(startKey);
+                        while (it.isValid()) {
+                            byte[] key = it.key();
+                            // the first 12 bytes are the parameter id, tier and group id
+                            if (!Arrays.equals(key, 0, 12, startKey, 0, 12)
+                                    || ParameterRollup.decodeKeyTime(key) > stop) {
+                                break;
+                            }
+                            sendBuckets(it.value(), consumer);
+                            it.next();
+                        }
+                    }
+                }
+            }
+        }
+        return lastTime;
+    }
+
+    private void sendBuckets(byte[] value, Predicate<Bucket> consumer) throws IOException {
+        ParameterRollup rollup;
+        try {
+            rollup = ParameterRollup.decode(value);
+        } catch (DecodingException e) {
+            throw new IOException(e);
+        }
+        for (Bucket b : rollup.getBuckets()) {
+            if (b.lastTime < start) {
+                continue;
+            }
+            if (b.firstTime > stop) {
+                break;
+            }
+            if (!consumer.test(b)) {
+                rejected.add(b.getStart());
+            }
+            lastTime = Math.max(lastTime, b.lastTime);
+        }
+    }
+
+    /**
+     * Returns the time intervals [start, end) of the buckets refused by the consumer, merged when contiguous and
+     * limited to the requested range and to the last time returned by {@link #retrieve(Predicate)}.
+     * <p>
+     * Should be called after {@link #retrieve(Predicate)}.
+     */
+    public List<TimeInterval> getRejectedIntervals() {
+        long width = 1000L * tier;
+        long end = Math.min(stop, lastTime + 1);
+        List<TimeInterval> r = new ArrayList<>();
+        TimeInterval prev = null;
+        for (long t : rejected) {
+            long s = Math.max(t, start);
+            long e = Math.min(t + width, end);
+            if (s >= e) {
+                continue;
+            }
+            if (prev != null && prev.getEnd() >= s) {
+                prev.setEnd(e);
+            } else {
+                prev = new TimeInterval(s, e);
+                r.add(prev);
+            }
+        }
+        return r;
+    }
+
+    private int[] getGroups() {
+        return Arrays.stream(pids)
+                .flatMapToInt(pid -> Arrays.stream(parchive.getParameterGroupIdDb().getAllGroups(pid.getPid())))
+                .distinct().toArray();
+    }
+}
@@ -19,9 +19,17 @@ import org.yamcs.yarch.protobuf.Db.ParameterStatus;
  * <p>
  * Because all values are of the same type, the memory consumed by those arrays is much smaller than what is provided by
  * an equivalent single parameter retrieval using {@link MultiParameterRetrieval}
- * 
+ * <p>
+ * The segments are read in chunks of at most {@link #MAX_ARRAY_SIZE} values and when merging the values from multiple
+ * parameter groups, the merged values are sent to the consumer as soon as no other value can precede them. This way the
+ * memory required for a retrieval does not depend on the length of the requested time range.
  */
 public class SingleParameterRetrieval {
+    /**
+     * maximum number of values read at once from a segment
+     */
+    static final int MAX_ARRAY_SIZE = 5000;
+
     final private ParameterRetrievalOptions opts;
     final private ParameterArchive parchive;
     private final Logger log = LoggerFactory.getLogger(SingleParameterRetrieval.class);
@@ -82,10 +90,9 @@ public class SingleParameterRetrieval {
     private void retrieveValueSingleGroup(ParameterId pid, int parameterGroupId,
             Consumer<ParameterValueArray> consumer) throws RocksDBException, IOException {
 
-        try (SegmentIterator it = new SegmentIterator(parchive, pid, parameterGroupId, opts)) {
+        try (ChunkIterator it = new ChunkIterator(new SegmentIterator(parchive, pid, parameterGroupId, opts), opts)) {
             while (it.isValid()) {
-                ParameterValueSegment pvs = it.value();
-                sendValuesFromSegment(pid, pvs, opts, consumer);
+                consumer.accept(it.value());
                 it.next();
             }
         }
@@ -96,10 +103,10 @@ public class SingleParameterRetrieval {
             Consumer<ParameterValueArray> consumer)
             throws RocksDBException, IOException {
 
-        PriorityQueue<SegmentIterator> queue = new PriorityQueue<>(new SegmentIteratorComparator(opts.ascending()));
+        PriorityQueue<ChunkIterator> queue = new PriorityQueue<>(new ChunkIteratorComparator(opts.ascending()));
         try {
             for (int pgid : parameterGroupIds) {
-                SegmentIterator it = new SegmentIterator(parchive, pid, pgid, opts);
+                ChunkIterator it = new ChunkIterator(new SegmentIterator(parchive, pid, pgid, opts), opts);
                 if (it.isValid()) {
                     queue.add(it);
                 } else { // not really necessary
@@ -109,12 +116,20 @@ public class SingleParameterRetrieval {
             SegmentMerger merger = new SegmentMerger(pid, opts, consumer);
 
             while (!queue.isEmpty()) {
-                SegmentIterator it = queue.poll();
-                sendValuesFromSegment(pid, it.value(), opts, merger);
+                ChunkIterator it = queue.poll();
+                ParameterValueArray pva = it.value();
                 it.next();
                 if (it.isValid()) {
                     queue.add(it);
                 }
+                // the values retrieved from now on cannot precede (or follow if descending) the first value of the
+                // first chunk in the queue
+                if (queue.isEmpty()) {
+                    merger.setLimit(opts.ascending() ? Long.MAX_VALUE : Long.MIN_VALUE);
+                } else {
+                    merger.setLimit(queue.peek().value().timestamps[0]);
+                }
+                merger.accept(pva);
             }
             merger.flush();
         } finally {
@@ -123,50 +138,108 @@ public class SingleParameterRetrieval {
 
     }
 
-    private void sendValuesFromSegment(ParameterId pid, ParameterValueSegment pvs, ParameterRetrievalOptions pvr,
-            Consumer<ParameterValueArray> consumer) {
-        SortedTimeSegment timeSegment = pvs.timeSegment;
+    /**
+     * Iterates over the values of one parameter group from the segments provided by a {@link SegmentIterator}.
+     * <p>
+     * The values are returned in arrays of at most {@link SingleParameterRetrieval#MAX_ARRAY_SIZE} elements.
+     */
+    static class ChunkIterator implements AutoCloseable {
+        final SegmentIterator it;
+        final ParameterRetrievalOptions opts;
+        // the positions in the current segment which have not yet been returned
         int posStart, posStop;
-        if (pvr.ascending()) {
-            posStart = timeSegment.search(pvr.start());
-            if (posStart < 0) {
-                posStart = -posStart - 1;
-            }
+        ParameterValueArray chunk;
 
-            posStop = timeSegment.search(pvr.stop());
-            if (posStop < 0) {
-                posStop = -posStop - 1;
-            }
-        } else {
-            posStop = timeSegment.search(pvr.stop());
-            if (posStop < 0) {
-                posStop = -posStop - 2;
+        ChunkIterator(SegmentIterator it, ParameterRetrievalOptions opts) {
+            this.it = it;
+            this.opts = opts;
+            if (it.isValid()) {
+                setPositions(it.value());
             }
+            next();
+        }
+
+        boolean isValid() {
+            return chunk != null;
+        }
 
-            posStart = timeSegment.search(pvr.start());
-            if (posStart < 0) {
-                posStart = -posStart - 2;
+        ParameterValueArray value() {
+            return chunk;
+        }
+
+        void next() {
+            chunk = null;
+            while (chunk == null && it.isValid()) {
+                if (posStart >= posStop) {
+                    it.next();
+                    if (it.isValid()) {
+                        setPositions(it.value());
+                    }
+                    continue;
+                }
+                ParameterValueSegment pvs = it.value();
+                if (opts.ascending()) {
+                    int pos = Math.min(posStart + MAX_ARRAY_SIZE, posStop);
+                    chunk = pvs.getRange(posStart, pos, true, opts.retrieveParameterStatus());
+                    posStart = pos;
+                } else {
+                    int pos = Math.max(posStop - MAX_ARRAY_SIZE, posStart);
+                    chunk = pvs.getRange(pos, posStop, false, opts.retrieveParameterStatus());
+                    posStop = pos;
+                }
+                if (chunk != null && chunk.size() == 0) {
+                    chunk = null;
+                }
             }
         }
 
-        if (posStart >= posStop) {
-            return;
+        private void setPositions(ParameterValueSegment pvs) {
+            SortedTimeSegment timeSegment = pvs.timeSegment;
+            if (opts.ascending()) {
+                posStart = timeSegment.search(opts.start());
+                if (posStart < 0) {
+                    posStart = -posStart - 1;
+                }
+
+                posStop = timeSegment.search(opts.stop());
+                if (posStop < 0) {
+                    posStop = -posStop - 1;
+                }
+            } else {
+                posStop = timeSegment.search(opts.stop());
+                if (posStop < 0) {
+                    posStop = -posStop - 2;
+                }
+
+                posStart = timeSegment.search(opts.start());
+                if (posStart < 0) {
+                    posStart = -posStart - 2;
+                }
+            }
         }
 
-        ParameterValueArray pva = pvs.getRange(posStart, posStop, pvr.ascending(), pvr.retrieveParameterStatus());
-        if (pva != null) {
-            consumer.accept(pva);
+        @Override
+        public void close() {
+            it.close();
         }
     }
 
     /**
-     * Merges ParameterValueArray for same parameter and sends the result to the final consumer
+     * Merges ParameterValueArray for same parameter and sends the result to the final consumer.
+     * <p>
+     * The merged values preceding (or following if descending) the limit set with {@link #setLimit(long)} are sent as
+     * soon as there are at least {@link SingleParameterRetrieval#MAX_ARRAY_SIZE} of them.
      */
     static class SegmentMerger implements Consumer<ParameterValueArray> {
         final Consumer<ParameterValueArray> finalConsumer;
         final ParameterRetrievalOptions opts;
         ParameterValueArray mergedPva;
+        // the position in mergedPva of the first value not yet sent
+        int mergedStart;
+        // indicates for each merged value from which array it comes; reused between the merges
+        int[] src = new int[0];
         ParameterId pid;
+        long limit;
 
         public SegmentMerger(ParameterId pid, ParameterRetrievalOptions opts, Consumer<ParameterValueArray> finalConsumer) {
             this.finalConsumer = finalConsumer;
@@ -178,26 +251,58 @@ public class SingleParameterRetrieval {
         public void accept(ParameterValueArray pva) {
             if (mergedPva == null) {
                 mergedPva = pva;
+                mergedStart = 0;
             } else {
-                if (ParameterArchive.getIntervalStart(mergedPva.timestamps[0]) != ParameterArchive
+                if (ParameterArchive.getIntervalStart(mergedPva.timestamps[mergedStart]) != ParameterArchive
                         .getIntervalStart(pva.timestamps[0])) {
-                    finalConsumer.accept(mergedPva);
+                    flush();
                     mergedPva = pva;
+                    mergedStart = 0;
                 } else {
                     merge(pva);
                 }
             }
+            flushUpToLimit();
+        }
+
+        /**
+         * Sets the time before which (after which if the retrieval is descending) all the values have been received.
+         */
+        public void setLimit(long limit) {
+            this.limit = limit;
         }
 
-        // merge the pva with the mergedPva into a new pva
+        // sends the values up to the limit if there are at least MAX_ARRAY_SIZE of them
+        private void flushUpToLimit() {
+            long[] timestamps = mergedPva.timestamps;
+            if (timestamps.length - mergedStart < MAX_ARRAY_SIZE) {
+                return;
+            }
+            int k = mergedStart;
+            while (k < timestamps.length && (opts.ascending() ? timestamps[k] < limit : timestamps[k] > limit)) {
+                k++;
+            }
+            if (k == timestamps.length) {
+                flush();
+            } else if (k - mergedStart >= MAX_ARRAY_SIZE) {
+                // the remaining values are kept in place and merged from mergedStart
+                finalConsumer.accept(mergedPva.subArray(mergedStart, k));
+                mergedStart = k;
+            }
+        }
+
+        // merge the pva with the values of mergedPva not yet sent into a new pva
         private void merge(ParameterValueArray pva) {
             long[] timestamps0 = mergedPva.timestamps;
             long[] timestamps1 = pva.timestamps;
+            int length = timestamps0.length - mergedStart + timestamps1.length;
 
-            long[] mergedTimestamps = new long[timestamps0.length + timestamps1.length];
-            int[] src = new int[mergedTimestamps.length];
+            long[] mergedTimestamps = new long[length];
+            if (src.length < length) {
+                src = new int[length];
+            }
 
-            int i0 = 0;
+            int i0 = mergedStart;
             int i1 = 0;
             int k = 0;
 
@@ -233,26 +338,28 @@ public class SingleParameterRetrieval {
                 }
             }
 
+            int[] start = new int[] { mergedStart, 0 };
             ValueArray engValues = null;
             if (opts.retrieveEngValues() && mergedPva.engValues != null) {
-                engValues = ValueArray.merge(src, mergedPva.engValues, pva.engValues);
+                engValues = ValueArray.merge(src, length, start, mergedPva.engValues, pva.engValues);
             }
             ValueArray rawValues = null;
             if (opts.retrieveRawValues() && mergedPva.rawValues != null) {
-                rawValues = ValueArray.merge(src, mergedPva.rawValues, pva.rawValues);
+                rawValues = ValueArray.merge(src, length, start, mergedPva.rawValues, pva.rawValues);
             }
             ParameterStatus[] paramStatus = null;
-            if (opts.retrieveParameterStatus() && opts.retrieveParameterStatus()) {
-                paramStatus = (ParameterStatus[]) merge(src, mergedPva.paramStatus, pva.paramStatus);
+            if (opts.retrieveParameterStatus() && mergedPva.paramStatus != null) {
+                paramStatus = merge(src, length, start, mergedPva.paramStatus, pva.paramStatus);
             }
 
             mergedPva = new ParameterValueArray(mergedTimestamps, engValues, rawValues, paramStatus);
+            mergedStart = 0;
         }
 
-        private ParameterStatus[] merge(int[] src, ParameterStatus[]... inputValueArray) {
-            int[] idx = new int[inputValueArray.length];
-            ParameterStatus[] r = new ParameterStatus[src.length];
-            for (int i = 0; i < src.length; i++) {
+        private ParameterStatus[] merge(int[] src, int length, int[] start, ParameterStatus[]... inputValueArray) {
+            int[] idx = start.clone();
+            ParameterStatus[] r = new ParameterStatus[length];
+            for (int i = 0; i < length; i++) {
                 int n = src[i];
                 r[i] = inputValueArray[n][idx[n]];
                 idx[n]++;
@@ -261,13 +368,18 @@ public class SingleParameterRetrieval {
         }
 
         /**
-         * sends the last segment
+         * sends the values not yet sent
          */
         public void flush() {
             if (mergedPva != null) {
-                finalConsumer.accept(mergedPva);
+                if (mergedStart == 0) {
+                    finalConsumer.accept(mergedPva);
+                } else if (mergedStart < mergedPva.size()) {
+                    finalConsumer.accept(mergedPva.subArray(mergedStart, mergedPva.size()));
+                }
             }
             mergedPva = null;
+            mergedStart = 0;
         }
     }
 
@@ -291,28 +403,30 @@ public class SingleParameterRetrieval {
         }
     }
 
-    static class SegmentIteratorComparator implements Comparator<SegmentIterator> {
+    static class ChunkIteratorComparator implements Comparator<ChunkIterator> {
         final boolean ascending;
 
-        public SegmentIteratorComparator(boolean ascending) {
+        public ChunkIteratorComparator(boolean ascending) {
             this.ascending = ascending;
         }
 
         @Override
-        public int compare(SegmentIterator it1, SegmentIterator it2) {
-            ParameterValueSegment pvs1 = it1.value();
-            ParameterValueSegment pvs2 = it2.value();
-
-            int c = ascending ? Long.compare(pvs1.getSegmentStart(), pvs2.getSegmentStart())
-                    : Long.compare(pvs2.getSegmentEnd(), pvs1.getSegmentEnd());
+        public int compare(ChunkIterator it1, ChunkIterator it2) {
+            long t1 = it1.value().timestamps[0];
+            long t2 = it2.value().timestamps[0];
 
+            int c = ascending ? Long.compare(t1, t2) : Long.compare(t2, t1);
             if (c != 0) {
                 return c;
             }
             //
             // make sure the parameters are extracted in the order of their id
             // (rather than some random order from PriorityQueue)
-            return Integer.compare(it1.getParameterId().getPid(), it2.getParameterId().getPid());
+            c = Integer.compare(it1.it.getParameterId().getPid(), it2.it.getParameterId().getPid());
+            if (c != 0) {
+                return c;
+            }
+            return Integer.compare(it1.it.getParameterGroupId(), it2.it.getParameterGroupId());
         }
     }
 
@@ -0,0 +1,102 @@
+package org.yamcs.replication;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+import org.yamcs.utils.DecodingException;
+
+/**
+ * Helper methods for the blocks of compressed DATA transactions.
+ * <p>
+ * A block is stored in the replication file and sent over the network like any other transaction:
+ *
+ * <pre>
+ * 1 byte type = {@link Message#COMPRESSED}
+ * 3 bytes size of the block including the type and size but excluding the CRC
+ * 4 bytes instance_id
+ * 8 bytes transaction_id of the first transaction in the block
+ * 4 bytes count - number of transactions in the block
+ * 4 bytes uncompressed length
+ * n bytes the compressed concatenation of the count DATA records, each with its own header and CRC
+ * 4 bytes CRC32 calculated over the block including the type and length
+ * </pre>
+ * <p>
+ * If the compressed block would not be smaller than the records it contains, the records are written uncompressed
+ * instead of the block.
+ */
+class CompressedBlock {
+    static final int COUNT_OFFSET = 16;
+    static final int UNCOMPRESSED_LENGTH_OFFSET = 20;
+    static final int HDR_SIZE = 24;
+
+    /**
+     * Inflates the block and returns the contained records.
+     * <p>
+     * The buffer is positioned at the beginning of the block; the limit has to be at the end of the block (after the
+     * CRC). The buffer position is not changed and the CRC is not verified.
+     */
+    static List<ByteBuffer> inflateBlock(ByteBuffer block) throws DecodingException {
+        int pos = block.position();
+        ByteBuffer data = block.duplicate();
+        data.position(pos + HDR_SIZE);
+        data.limit(block.limit() - 4);
+        return inflate(data, block.getInt(pos + COUNT_OFFSET), block.getInt(pos + UNCOMPRESSED_LENGTH_OFFSET));
+    }
+
+    /**
+     * Inflates the compressed data between the position and the limit of the buffer and splits it into records.
+     * <p>
+     * Each returned buffer contains exactly one record including its CRC; the CRCs of the records are not verified.
+     */
+    static List<ByteBuffer> inflate(ByteBuffer in, int count, int uncompressedLength) throws DecodingException {
+        // one extra byte to detect the data being longer than announced
+        ByteBuffer out = ByteBuffer.allocate(uncompressedLength + 1);
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(in);
+            while (!inflater.finished()) {
+                if (inflater.inflate(out) == 0
+                        && (inflater.needsInput() || inflater.needsDictionary() || !out.hasRemaining())) {
+                    break;
+                }
+            }
+            if (!inflater.finished() || out.position() != uncompressedLength) {
+                throw new DecodingException("Compressed block does not match the uncompressed length "
+                        + uncompressedLength);
+            }
+        } catch (DataFormatException e) {
+            throw new DecodingException(e);
+        } finally {
+            inflater.end();
+        }
+        out.flip();
+        return split(out, count);
+    }
+
+    static List<ByteBuffer> split(ByteBuffer records, int count) throws DecodingException {
+        List<ByteBuffer> result = new ArrayList<>(count);
+        int pos = records.position();
+        while (pos < records.limit()) {
+            if (records.limit() - pos < ReplicationFile.MIN_RECORD_SIZE) {
+                throw new DecodingException("Truncated record in compressed block");
+            }
+            int end = pos + (records.getInt(pos) & 0xFFFFFF) + 4;
+            if (end > records.limit()) {
+                throw new DecodingException("Truncated record in compressed block");
+            }
+            ByteBuffer r = records.duplicate();
+            r.position(pos);
+            r.limit(end);
+            result.add(r.slice());
+            pos = end;
+        }
+        if (result.size() != count) {
+            throw new DecodingException(
+                    "Compressed block contains " + result.size() + " records, expected " + count);
+        }
+        return result;
+    }
+}
@@ -16,6 +16,7 @@ import org.yamcs.time.TimeService;
 import org.yamcs.utils.DecodingException;
 
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.CompositeByteBuf;
 import io.netty.buffer.Unpooled;
 import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelHandlerContext;
@@ -187,7 +188,19 @@ public class MasterChannelHandler extends ChannelInboundHandlerAdapter {
                 workerGroup.schedule(() -> sendMoreData(), 200, TimeUnit.MILLISECONDS);
             }
         } else {// got some data, send it and check back for more once the data has been sent
-            ByteBuf buf = Unpooled.wrappedBuffer(fileTail.buf);
+            ByteBuf buf;
+            if (currentFile.getCompression() == ReplicationCompression.NONE) {
+                buf = Unpooled.wrappedBuffer(fileTail.buf);
+            } else {
+                try {
+                    buf = getCompressedData(fileTail.buf);
+                } catch (DecodingException e) {
+                    log.error("Failed to inflate compressed block from {}, closing the connection",
+                            currentFile.path, e);
+                    channelHandlerContext.close();
+                    return;
+                }
+            }
             dataHandlingFuture = channelHandlerContext.writeAndFlush(buf).addListener(a -> {
                 fileTail.buf.position(fileTail.buf.limit());
                 nextTxToSend = fileTail.nextTxId;
@@ -196,6 +209,38 @@ public class MasterChannelHandler extends ChannelInboundHandlerAdapter {
         }
     }
 
+    /**
+     * Returns the data between the position and the limit of the buffer.
+     * <p>
+     * The compressed blocks are sent as they are stored in the file if the slave is able to decode them and they do not
+     * contain transactions before nextTxToSend (this can only happen for the first block, the file tail starting at the
+     * beginning of the block containing nextTxToSend). Otherwise the blocks are inflated and only the required
+     * transactions are sent.
+     */
+    private ByteBuf getCompressedData(ByteBuffer tailBuf) throws DecodingException {
+        boolean inflate = !req.getCompressionList().contains(currentFile.getCompression().name());
+        CompositeByteBuf cbuf = Unpooled.compositeBuffer(Integer.MAX_VALUE);
+        int pos = tailBuf.position();
+        while (pos < tailBuf.limit()) {
+            int typeSize = tailBuf.getInt(pos);
+            int end = pos + (typeSize & 0xFFFFFF) + 4;
+            ByteBuffer record = tailBuf.duplicate();
+            record.position(pos);
+            record.limit(end);
+            if ((typeSize >>> 24) == Message.COMPRESSED && (inflate || tailBuf.getLong(pos + 8) < nextTxToSend)) {
+                for (ByteBuffer r : CompressedBlock.inflateBlock(record)) {
+                    if (r.getLong(8) >= nextTxToSend) {
+                        cbuf.addComponent(true, Unpooled.wrappedBuffer(r));
+                    }
+                }
+            } else {
+                cbuf.addComponent(true, Unpooled.wrappedBuffer(record));
+            }
+            pos = end;
+        }
+        return cbuf;
+    }
+
     public long getNextTxId() {
         return nextTxToSend;
     }
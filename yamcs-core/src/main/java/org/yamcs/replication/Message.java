@@ -29,7 +29,8 @@ import com.google.protobuf.MessageLite;
  * <p>
  * This is the same structure used in the replication file to be able to play it directly over the network.
  * <p>
- * The replication file contains only STREAM_INFO and DATA messages (and we call them transactions)
+ * The replication file contains only STREAM_INFO, DATA and COMPRESSED messages (and we call them transactions). A
+ * COMPRESSED message is a block of DATA transactions, see {@link CompressedBlock}.
  */
 public class Message {
     public final static byte WAKEUP = 1;
@@ -38,6 +39,7 @@ public class Message {
     public final static byte STREAM_INFO = 4;
     public final static byte DATA = 5;
     public final static byte TIME = 6;
+    public final static byte COMPRESSED = 7;
 
     final byte type;
     MessageLite protoMsg;
@@ -61,6 +63,7 @@ public class Message {
 
         switch (type) {
         case DATA:
+        case COMPRESSED:
             msg = new TransactionMessage(type, buf.getInt(), buf.getLong());
             ((TransactionMessage) msg).buf = buf;
             break;
@@ -0,0 +1,25 @@
+package org.yamcs.replication;
+
+/**
+ * Compression applied to the blocks of DATA transactions in the replication files and over the network.
+ * <p>
+ * The id is stored in the header of the replication file.
+ */
+public enum ReplicationCompression {
+    NONE(0), DEFLATE(1);
+
+    final int id;
+
+    ReplicationCompression(int id) {
+        this.id = id;
+    }
+
+    static ReplicationCompression fromId(int id) {
+        for (ReplicationCompression c : values()) {
+            if (c.id == id) {
+                return c;
+            }
+        }
+        throw new IllegalArgumentException("Unknown compression id " + id);
+    }
+}
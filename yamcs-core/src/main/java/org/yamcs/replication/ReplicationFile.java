@@ -18,6 +18,7 @@ import java.util.NoSuchElementException;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.zip.CRC32;
+import java.util.zip.Deflater;
 
 import org.yamcs.logging.Log;
 import org.yamcs.utils.StringConverter;
@@ -37,8 +38,9 @@ import io.netty.util.internal.PlatformDependent;
  * 
  * <pre>
  * 12 bytes magic "YAMCS_STREAM"
- *  1 byte version
- *  3 bytes spare
+ *  1 byte version - 0 for files without compression, 1 for files with compression
+ *  1 byte compression - the {@link ReplicationCompression} id (only for version 1)
+ *  2 bytes spare
  *  8 bytes first_id =  first transaction in the file = file_id - used for consistency check(if someone renames the file)
  *  4 bytes page_size - number of transactions per page
  *  4 bytes max_pages - max number of pages (and the size of the index)
@@ -57,7 +59,7 @@ import io.netty.util.internal.PlatformDependent;
  * 
  * <pre>
  * 
- * 1 byte type - the type can be DATA or STREAM_INFO with the constants defined in {@link Message}
+ * 1 byte type - the type can be DATA, STREAM_INFO or COMPRESSED with the constants defined in {@link Message}
  * 3 bytes - size of the data that follows including the CRC (or alternatively including the first 4 bytes type+size but excluding the crc)
  * 4 bytes instance_id
  * 8 bytes transaction_id
@@ -69,6 +71,13 @@ import io.netty.util.internal.PlatformDependent;
  * </pre>
  * 
  * <p>
+ * If the file is created with compression, consecutive DATA transactions are accumulated in memory and written as one
+ * {@link CompressedBlock} counting for all the transactions it contains. The block is written when it is full, when a
+ * metadata transaction follows, at the end of a page (blocks never span two pages), or when {@link #flush()} is called.
+ * The transactions of a pending block are assigned their ids but are not visible to the readers before the block is
+ * written.
+ * 
+ * <p>
  * The methods of this class throw {@link UncheckedIOException} instead of {@link IOException}. When working with memory
  * mapped files in java, an IO error will cause an unspecified unchecked exception or even crash of Java (because file
  * data is accessed using memory reads/writes). Therefore we prefer not to give a false sense of security by throwing
@@ -104,20 +113,34 @@ public class ReplicationFile implements Closeable {
     CRC32 crc32 = new CRC32();
     private boolean syncRequired;
 
+    // DATA transactions waiting to be compressed together
+    private ByteBuffer pendingBuf;
+    private int pendingCount;
+    private int pendingInstanceId;
+    private Deflater deflater;
+
     class Header1 { // this is the first part - fixed - of the header
 
         final static byte VERSION = 0;
+        final static byte VERSION_COMPRESSED = 1;
         final static int LENGTH = 32;
         final long firstId; // first transaction id
         final int pageSize, maxPages;
+        ReplicationCompression compression = ReplicationCompression.NONE;
 
         // new file
-        Header1(long firstId, int pageSize, int maxPages) {
+        Header1(long firstId, int pageSize, int maxPages, ReplicationCompression compression) {
             this.firstId = firstId;
             this.pageSize = pageSize;
             this.maxPages = maxPages;
+            this.compression = compression;
             buf.put(MAGIC);
-            buf.putInt(VERSION << 24);
+            if (compression == ReplicationCompression.NONE) {
+                // keep the files without compression readable by the previous versions
+                buf.putInt(VERSION << 24);
+            } else {
+                buf.putInt((VERSION_COMPRESSED << 24) | (compression.id << 16));
+            }
             buf.putLong(firstId);
             buf.putInt(pageSize);
             buf.putInt(maxPages);
@@ -139,9 +162,17 @@ public class ReplicationFile implements Closeable {
                         "bad file, magic entry does not match: " + StringConverter.arrayToHexString(magic)
                                 + ". Expected " + StringConverter.arrayToHexString(MAGIC));
             }
-            int version = buf.getInt() >> 24;
-            if (version != VERSION) {
-                throw new CorruptedFileException(path, "bad version: " + version + ". Expected " + VERSION);
+            int x = buf.getInt();
+            int version = x >> 24;
+            if (version == VERSION_COMPRESSED) {
+                try {
+                    compression = ReplicationCompression.fromId((x >> 16) & 0xFF);
+                } catch (IllegalArgumentException e) {
+                    throw new CorruptedFileException(path, e.getMessage());
+                }
+            } else if (version != VERSION) {
+                throw new CorruptedFileException(path,
+                        "bad version: " + version + ". Expected " + VERSION + " or " + VERSION_COMPRESSED);
             }
             long id = buf.getLong();
             if (id != firstTxId) {
@@ -151,7 +182,8 @@ public class ReplicationFile implements Closeable {
 
         @Override
         public String toString() {
-            return "Header1 [firstId=" + firstId + ", pageSize=" + pageSize + ", maxPages=" + maxPages + "]";
+            return "Header1 [firstId=" + firstId + ", pageSize=" + pageSize + ", maxPages=" + maxPages
+                    + ", compression=" + compression + "]";
         }
     }
 
@@ -245,7 +277,8 @@ public class ReplicationFile implements Closeable {
      * @param maxPages
      * @param maxFileSize
      */
-    private ReplicationFile(String yamcsInstance, Path path, long id, int pageSize, int maxPages, int maxFileSize) {
+    private ReplicationFile(String yamcsInstance, Path path, long id, int pageSize, int maxPages, int maxFileSize,
+            ReplicationCompression compression, int compressionBlockSize) {
         log = new Log(this.getClass(), yamcsInstance);
         this.path = path;
         if (Files.exists(path)) {
@@ -255,13 +288,14 @@ public class ReplicationFile implements Closeable {
             fc = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
                     StandardOpenOption.READ);
             buf = fc.map(MapMode.READ_WRITE, 0, maxFileSize);
-            hdr1 = new Header1(id, pageSize, maxPages);
+            hdr1 = new Header1(id, pageSize, maxPages, compression);
             hdr2 = new Header2(true);
             this.readOnly = false;
             this.lastMetadataTxStart = Header2.HDR_IDX_OFFSET - METADATA_POS_OFFSET - 4;
             buf.position(hdr2.endOffset());
-            log.info("Created new replication file {} pageSize: {}, maxPages:{}, maxFileSize: {}", path, hdr1.pageSize,
-                    hdr1.maxPages, maxFileSize);
+            initCompression(compressionBlockSize);
+            log.info("Created new replication file {} pageSize: {}, maxPages:{}, maxFileSize: {}, compression: {}",
+                    path, hdr1.pageSize, hdr1.maxPages, maxFileSize, compression);
         } catch (IOException e) {
             throw new UncheckedIOException(e);
         }
@@ -270,7 +304,8 @@ public class ReplicationFile implements Closeable {
     /**
      * Open an existing file for append
      */
-    private ReplicationFile(String yamcsInstance, Path path, long firstTxId, int maxFileSize) {
+    private ReplicationFile(String yamcsInstance, Path path, long firstTxId, int maxFileSize,
+            int compressionBlockSize) {
         log = new Log(this.getClass(), yamcsInstance);
         this.path = path;
         this.readOnly = false;
@@ -302,6 +337,7 @@ public class ReplicationFile implements Closeable {
             }
             lastMetadataTxStart = nextMetadataTxStart;
         }
+        initCompression(compressionBlockSize);
         log.info("Opened for append {} pageSize: {}, maxPages:{}, num_tx: {}", path, hdr1.pageSize, hdr1.maxPages,
                 hdr2.numTx());
     }
@@ -336,8 +372,19 @@ public class ReplicationFile implements Closeable {
 
     public static ReplicationFile newFile(String yamcsInstance, Path path, long firstTxId, int pageSize, int maxPages,
             int maxFileSize) {
+        return newFile(yamcsInstance, path, firstTxId, pageSize, maxPages, maxFileSize, ReplicationCompression.NONE,
+                0);
+    }
+
+    /**
+     * Creates a new file where the DATA transactions are compressed in blocks of (uncompressed) size up to
+     * compressionBlockSize.
+     */
+    public static ReplicationFile newFile(String yamcsInstance, Path path, long firstTxId, int pageSize, int maxPages,
+            int maxFileSize, ReplicationCompression compression, int compressionBlockSize) {
         checkSize(pageSize, maxPages, maxFileSize);
-        return new ReplicationFile(yamcsInstance, path, firstTxId, pageSize, maxPages, maxFileSize);
+        return new ReplicationFile(yamcsInstance, path, firstTxId, pageSize, maxPages, maxFileSize, compression,
+                compressionBlockSize);
     }
 
     private static void checkSize(int pageSize, int maxPages, int maxFileSize) {
@@ -355,7 +402,29 @@ public class ReplicationFile implements Closeable {
     }
 
     public static ReplicationFile openReadWrite(String yamcsInstance, Path path, long firstTxId, int maxFileSize) {
-        return new ReplicationFile(yamcsInstance, path, firstTxId, maxFileSize);
+        return openReadWrite(yamcsInstance, path, firstTxId, maxFileSize, 0);
+    }
+
+    /**
+     * Opens an existing file for append.
+     * <p>
+     * The compression is the one the file has been created with; the compressionBlockSize is only used if the file is
+     * compressed.
+     */
+    public static ReplicationFile openReadWrite(String yamcsInstance, Path path, long firstTxId, int maxFileSize,
+            int compressionBlockSize) {
+        return new ReplicationFile(yamcsInstance, path, firstTxId, maxFileSize, compressionBlockSize);
+    }
+
+    private void initCompression(int compressionBlockSize) {
+        if (hdr1.compression == ReplicationCompression.NONE) {
+            return;
+        }
+        if (compressionBlockSize < MIN_RECORD_SIZE) {
+            throw new IllegalArgumentException("compressionBlockSize=" + compressionBlockSize + " too small");
+        }
+        pendingBuf = ByteBuffer.allocate(compressionBlockSize);
+        deflater = new Deflater();
     }
 
     /**
@@ -376,6 +445,21 @@ public class ReplicationFile implements Closeable {
         }
 
         rwlock.writeLock().lock();
+        try {
+            if (fileFull) {
+                return -1;
+            }
+            if (pendingBuf != null && tx.getType() == Message.DATA) {
+                return addToBlock(tx);
+            }
+            flushBlock();
+            return writeRecord(tx);
+        } finally {
+            rwlock.writeLock().unlock();
+        }
+    }
+
+    private long writeRecord(Transaction tx) {
         final int txStartPos = buf.position();
 
         try {
@@ -417,7 +501,6 @@ public class ReplicationFile implements Closeable {
 
             if (Transaction.isMetadata(type)) {
                 buf.putInt(lastMetadataTxStart + METADATA_POS_OFFSET, txStartPos);
-
                 // update crc of the modified metadata record
                 if (lastMetadataTxStart >= hdr2.endOffset()) {
                     updateCrc(lastMetadataTxStart);
@@ -439,11 +522,142 @@ public class ReplicationFile implements Closeable {
             buf.position(txStartPos);
             log.error("Caught exception when writing the replication file ", e);
             throw e;
+        }
+    }
+
+    /**
+     * Adds the DATA transaction to the pending block.
+     * <p>
+     * The transaction is accepted only if the block is guaranteed to fit into the file. This is the case if there is
+     * space for the uncompressed records because the block is written compressed only if it is smaller.
+     */
+    private long addToBlock(Transaction tx) {
+        if (pendingCount > 0 && tx.getInstanceId() != pendingInstanceId) {
+            flushBlock();
+        }
+        if (hdr2.numFullPages == hdr1.maxPages) {
+            return abortWriteFileFull(buf.position());
+        }
+        final int txStartPos = pendingBuf.position();
+        long txid = hdr1.firstId + hdr2.numTx() + pendingCount;
+
+        boolean fits;
+        try {
+            pendingBuf.putInt(0);
+            pendingBuf.putInt(tx.getInstanceId());
+            pendingBuf.putLong(txid);
+            tx.marshall(pendingBuf);
+            fits = pendingBuf.remaining() >= 4;
+        } catch (BufferOverflowException | IndexOutOfBoundsException e) {
+            fits = false;
+        }
+
+        if (!fits) {
+            pendingBuf.position(txStartPos);
+            flushBlock();
+            if (txStartPos == 0) {
+                // larger than a block, write it uncompressed
+                return writeRecord(tx);
+            } else {
+                return addToBlock(tx);
+            }
+        }
+
+        int size = pendingBuf.position() - txStartPos;
+        pendingBuf.putInt(txStartPos, (Message.DATA << 24) | size);
+        pendingBuf.putInt(compute_crc(pendingBuf, txStartPos));
+
+        if (pendingBuf.position() > buf.remaining()) {
+            pendingBuf.position(txStartPos);
+            flushBlock();
+            return abortWriteFileFull(buf.position());
+        }
+        pendingInstanceId = tx.getInstanceId();
+        pendingCount++;
+        log.trace("Added transaction {} to the pending block, total size: {}", txid, pendingBuf.position());
+
+        if (hdr2.lastPageNumTx + pendingCount == hdr1.pageSize || pendingBuf.remaining() < MIN_RECORD_SIZE) {
+            flushBlock();
+        }
+        return txid;
+    }
+
+    /**
+     * Writes the pending block (if any) into the file. It has to be called with the write lock held.
+     */
+    private void flushBlock() {
+        if (pendingCount == 0) {
+            return;
+        }
+        final int blockStartPos = buf.position();
+        int length = pendingBuf.position();
+        long firstTxId = hdr1.firstId + hdr2.numTx();
+
+        buf.putInt(0);
+        buf.putInt(pendingInstanceId);
+        buf.putLong(firstTxId);
+        buf.putInt(pendingCount);
+        buf.putInt(length);
+
+        // the compressed block has to be smaller than the raw records, otherwise they are written as they are
+        int maxCompressedLength = length - CompressedBlock.HDR_SIZE - 4 - 1;
+        boolean compressed = false;
+        if (maxCompressedLength > 0) {
+            ByteBuffer out = buf.duplicate();
+            out.limit(buf.position() + maxCompressedLength);
+            deflater.setInput(pendingBuf.array(), 0, length);
+            deflater.finish();
+            while (!deflater.finished() && out.hasRemaining()) {
+                deflater.deflate(out);
+            }
+            compressed = deflater.finished();
+            deflater.reset();
+            if (compressed) {
+                buf.position(out.position());
+            }
+        }
+
+        if (compressed) {
+            int size = buf.position() - blockStartPos;
+            buf.putInt(blockStartPos, (Message.COMPRESSED << 24) | size);
+            buf.putInt(compute_crc(buf, blockStartPos));
+            log.trace("Wrote compressed block of {} transactions starting with {} at position {}, {} -> {} bytes",
+                    pendingCount, firstTxId, blockStartPos, length, size + 4);
+        } else {
+            buf.position(blockStartPos);
+            buf.put(pendingBuf.array(), 0, length);
+            log.trace("Wrote uncompressed block of {} transactions starting with {} at position {}", pendingCount,
+                    firstTxId, blockStartPos);
+        }
+        hdr2.lastMod = System.currentTimeMillis();
+        for (int i = 0; i < pendingCount; i++) {
+            hdr2.incrNumTx();
+        }
+        pendingBuf.clear();
+        pendingCount = 0;
+    }
+
+    /**
+     * Writes the pending compressed block (if any) into the file, making its transactions visible to the readers.
+     */
+    public void flush() {
+        if (pendingBuf == null || readOnly) {
+            return;
+        }
+        rwlock.writeLock().lock();
+        try {
+            if (fc.isOpen()) {
+                flushBlock();
+            }
         } finally {
             rwlock.writeLock().unlock();
         }
     }
 
+    public ReplicationCompression getCompression() {
+        return hdr1.compression;
+    }
+
     // starts from latest known transaction (according to the header) and checks for new ones
     private void recover() {
         int n = hdr2.numTx();
@@ -461,11 +675,16 @@ public class ReplicationFile implements Closeable {
                 break;
             }
 
+            byte type = buf.get(startTxPos);
             buf.getInt();// serverId
             long txId = buf.getLong();
             if (txId != hdr1.firstId + n) {
                 break;
             }
+            int count = type == Message.COMPRESSED ? buf.getInt() : 1;
+            if (count < 1 || count > hdr1.pageSize - hdr2.lastPageNumTx) {
+                break;
+            }
             buf.position(startTxPos + size);
             int crc = compute_crc(buf, startTxPos);
             if (crc != buf.getInt()) {
@@ -473,8 +692,10 @@ public class ReplicationFile implements Closeable {
                 break;
             }
             log.debug("Recovered TX{}", txId);
-            hdr2.incrNumTx();
-            k++;
+            for (int i = 0; i < count; i++) {
+                hdr2.incrNumTx();
+            }
+            k += count;
         }
         log.debug("Found {} transactions more than indicated in the header", k);
         buf.position(startTxPos);
@@ -598,21 +819,29 @@ public class ReplicationFile implements Closeable {
         int pos = hdr2.getIndex(nfp);
 
         long expectedTxId = hdr1.firstId + hdr1.pageSize * nfp;
-        // then skip m1 transactions
-        for (int i = 0; i < m1; i++) {
-            pos = skipTransaction(pos, expectedTxId++);
+        // then skip m1 transactions; if the transaction is part of a compressed block, the block position is returned
+        int i = 0;
+        while (i < m1) {
+            int count = numTxInRecord(pos, expectedTxId);
+            if (i + count > m1) {
+                break;
+            }
+            pos += 4 + (buf.getInt(pos) & 0xFFFFFF);
+            i += count;
+            expectedTxId += count;
         }
         return pos;
     }
 
-    private int skipTransaction(int pos, long expectedTxId) {
+    // returns the number of transactions stored in the record at position pos
+    private int numTxInRecord(int pos, long expectedTxId) {
         int typeSize = buf.getInt(pos);
         long txId = buf.getLong(pos + 8);
         if (txId != expectedTxId) {// consistency check
             throw new CorruptedFileException(path, "at offset " + pos + " expected txId " + expectedTxId
                     + " but found " + txId + " instead");
         }
-        return pos + 4 + (typeSize & 0xFFFFFF);
+        return (typeSize >>> 24) == Message.COMPRESSED ? buf.getInt(pos + CompressedBlock.COUNT_OFFSET) : 1;
     }
 
     public boolean isFull() {
@@ -637,6 +866,7 @@ public class ReplicationFile implements Closeable {
     public void close() {
         try {
             if (!readOnly) {
+                flush();
                 hdr2.write();
 
                 // Required to unmap on Windows, else truncate fails
@@ -648,6 +878,9 @@ public class ReplicationFile implements Closeable {
                 PlatformDependent.freeDirectBuffer(buf);
             }
             fc.close();
+            if (deflater != null) {
+                deflater.end();
+            }
         } catch (IOException e) {
             throw new UncheckedIOException(e);
         }
@@ -660,9 +893,12 @@ public class ReplicationFile implements Closeable {
      * then call again {@link FileChannel#force(boolean)} to force also the header on the disk.
      * <p>
      * This way should guarantee that the transaction data is written on the disk before the header
+     * <p>
+     * The pending compressed block is written to the file before the synchronization.
      */
     public void sync() throws IOException {
         if (!readOnly) {
+            flush();
             rwlock.readLock().lock();
             try {
                 fc.force(true);
@@ -87,10 +87,13 @@ public class ReplicationMaster extends AbstractYamcsService {
     Pattern filePattern;
     int maxTupleSize;
     long timeMsgFreqMillis;
+    ReplicationCompression compression;
+    int compressionBlockSize;
 
     ScheduledFuture<?> closeUnusedFilesSchedule;
     ScheduledFuture<?> deleteExpiredFilesSchedule;
     ScheduledFuture<?> syncCurrentFileSchedule;
+    ScheduledFuture<?> flushCurrentFileSchedule;
 
     @Override
     public void init(String yamcsInstance, String serviceName, YConfiguration config) throws InitException {
@@ -105,6 +108,12 @@ public class ReplicationMaster extends AbstractYamcsService {
         maxFileSize = 1024 * config.getInt("maxFileSizeKB", 100 * 1024);
         this.maxTupleSize = config.getInt("maxTupleSize");
         this.timeMsgFreqMillis = config.getLong("timeMsgFreqSec") * 1000;
+        this.compression = config.getEnum("compression", ReplicationCompression.class);
+        this.compressionBlockSize = config.getInt("compressionBlockSize");
+        if (compression != ReplicationCompression.NONE && compressionBlockSize >= maxTupleSize) {
+            throw new InitException("compressionBlockSize (" + compressionBlockSize
+                    + ") has to be smaller than maxTupleSize (" + maxTupleSize + ")");
+        }
 
         int hdrSize = ReplicationFile.headerSize(pageSize, maxPages);
         if (maxFileSize < hdrSize) {
@@ -126,6 +135,12 @@ public class ReplicationMaster extends AbstractYamcsService {
         syncCurrentFileSchedule = exec.scheduleAtFixedRate(() -> syncCurrentFile(), fileSyncTime,
                 fileSyncTime, TimeUnit.MILLISECONDS);
 
+        if (compression != ReplicationCompression.NONE) {
+            long flushTime = config.getLong("compressionFlushMillis");
+            flushCurrentFileSchedule = exec.scheduleAtFixedRate(() -> flushCurrentFile(), flushTime,
+                    flushTime, TimeUnit.MILLISECONDS);
+        }
+
         if (tcpRole == TcpRole.SERVER) {
             List<ReplicationServer> servers = YamcsServer.getServer().getGlobalServices(ReplicationServer.class);
             if (servers.isEmpty()) {
@@ -198,6 +213,16 @@ public class ReplicationMaster extends AbstractYamcsService {
                 .withDescription("Maximum size of the serialized tuple");
         spec.addOption("timeMsgFreqSec", OptionType.INTEGER).withDefault(10)
                 .withDescription("How often (in seconds) to send the time message to the slaves");
+        spec.addOption("compression", OptionType.STRING).withChoices(ReplicationCompression.class)
+                .withDefault("NONE")
+                .withDescription("Compression of the data transactions in the new replication files. "
+                        + "The compressed blocks are sent as they are to the slaves supporting it");
+        spec.addOption("compressionBlockSize", OptionType.INTEGER).withDefault(32768)
+                .withDescription("Maximum uncompressed size of a block of compressed transactions. "
+                        + "Has to be smaller than the maxTupleSize of the slaves");
+        spec.addOption("compressionFlushMillis", OptionType.INTEGER).withDefault(200)
+                .withDescription("Maximum time a transaction is kept in an incomplete compressed block "
+                        + "before being written to the replication file");
 
         return spec;
     }
@@ -222,7 +247,7 @@ public class ReplicationMaster extends AbstractYamcsService {
                 openNewFile(currentFile);
             } else {
                 rfa.rf = currentFile = ReplicationFile.openReadWrite(yamcsInstance, path,
-                        firstTxId, maxFileSize);
+                        firstTxId, maxFileSize, compressionBlockSize);
                 if (currentFile.isFull()) {
                     openNewFile(currentFile);
                 }
@@ -261,6 +286,9 @@ public class ReplicationMaster extends AbstractYamcsService {
         closeUnusedFilesSchedule.cancel(false);
         deleteExpiredFilesSchedule.cancel(false);
         syncCurrentFileSchedule.cancel(false);
+        if (flushCurrentFileSchedule != null) {
+            flushCurrentFileSchedule.cancel(false);
+        }
 
         for (StreamToFile stf : translators) {
             stf.quit();
@@ -299,8 +327,7 @@ public class ReplicationMaster extends AbstractYamcsService {
 
         try {
             currentFile = ReplicationFile.newFile(yamcsInstance, getPath(firstTxId), firstTxId, pageSize,
-                    maxPages,
-                    maxFileSize);
+                    maxPages, maxFileSize, compression, compressionBlockSize);
             replFiles.put(firstTxId, new ReplFileAccess(currentFile));
             // send a StreamInfo for all streams
             for (StreamToFile stf : translators) {
@@ -634,6 +661,17 @@ public class ReplicationMaster extends AbstractYamcsService {
         }
     }
 
+    private void flushCurrentFile() {
+        try {
+            ReplicationFile cf = currentFile;
+            if (cf != null) {
+                cf.flush();
+            }
+        } catch (Exception e) {
+            log.error("Error flushing current replication file", e);
+        }
+    }
+
     void checkForRemoval(Path file, long firstTxId) throws IOException {
         long t = System.currentTimeMillis() - expiration;
         BasicFileAttributes bfa = Files.readAttributes(file, BasicFileAttributes.class);
@@ -9,7 +9,13 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.stream.Collectors;
 
 import javax.net.ssl.SSLException;
@@ -42,11 +48,13 @@ import org.yamcs.yarch.TupleDefinition;
 import org.yamcs.yarch.YarchDatabase;
 import org.yamcs.yarch.YarchDatabaseInstance;
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.google.protobuf.TextFormat;
 
 import io.netty.buffer.ByteBuf;
 import io.netty.buffer.ByteBufUtil;
 import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
 import io.netty.channel.ChannelHandler;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelInboundHandlerAdapter;
@@ -55,17 +63,23 @@ import io.netty.handler.ssl.SslContextBuilder;
 import io.netty.util.concurrent.ScheduledFuture;
 
 public class ReplicationSlave extends AbstractYamcsService {
+    static final long PERSIST_INTERVAL_MILLIS = 1000;
     private TcpRole tcpRole;
     int port;
     String host;
     ReplicationClient tcpClient;
     long reconnectionInterval;
     String masterInstance;
-    long lastTxId;
+    // last transaction received from the master
+    volatile long lastTxId;
     SlaveChannelHandler slaveChannelHandler;
     // remote (master) stream name -> local stream name
     Map<String, String> streamNames = new HashMap<>();
     RandomAccessFile lastTxFile;
+    // the transaction id written in the last tx file
+    long persistedTxId;
+    // writes periodically the last tx file when the data is applied in separate threads
+    java.util.concurrent.ScheduledFuture<?> persistFuture;
 
     Path txtfilePath;
     int localInstanceId;
@@ -74,6 +88,15 @@ public class ReplicationSlave extends AbstractYamcsService {
     long timeoutMillis;
     SimulationTimeService simTimeService = null;
 
+    // if greater than 0, the tuples are applied to each stream in a separate thread
+    int applyQueueSize;
+    // local stream name -> applier
+    Map<String, StreamApplier> appliers = new ConcurrentHashMap<>();
+    // the transactions dispatched to the appliers and not yet applied; also used to synchronize the access to lastTxId
+    final TreeSet<Long> pendingTxIds = new TreeSet<>();
+    // the channel on which the reading has been paused because the queue of an applier is full
+    final AtomicReference<Channel> pausedChannel = new AtomicReference<>();
+
     @Override
     public void init(String yamcsInstance, String serviceName, YConfiguration config) throws InitException {
         super.init(yamcsInstance, serviceName, config);
@@ -127,6 +150,7 @@ public class ReplicationSlave extends AbstractYamcsService {
         String lastTxFilename = config.getString("lastTxFile", serviceName + "-lastid.txt");
         this.maxTupleSize = config.getInt("maxTupleSize");
         this.timeoutMillis = (long) (config.getDouble("timeoutSec") * 1000);
+        this.applyQueueSize = config.getInt("applyQueueSize");
 
         txtfilePath = replicationDir.resolve(lastTxFilename);
         try {
@@ -137,6 +161,7 @@ public class ReplicationSlave extends AbstractYamcsService {
             } else {
                 lastTxId = -1;
             }
+            persistedTxId = lastTxId;
         } catch (IOException e) {
             throw new InitException(e);
         } catch (NumberFormatException e) {
@@ -165,11 +190,19 @@ public class ReplicationSlave extends AbstractYamcsService {
 
         spec.addOption("updateSimTime", OptionType.BOOLEAN).withDefault(false)
                 .withDescription("If true, update the simulation time with the time received from the master");
+        spec.addOption("applyQueueSize", OptionType.INTEGER).withDefault(0)
+                .withDescription("If greater than 0, the data is applied to each stream in a separate thread. "
+                        + "The reading from the master is paused when the queue of one stream reaches this size. "
+                        + "If 0, the data is applied to all streams in the thread receiving it from the master");
         return spec;
     }
 
     @Override
     protected void doStart() {
+        if (applyQueueSize > 0) {
+            persistFuture = YamcsServer.getServer().getThreadPoolExecutor().scheduleAtFixedRate(
+                    this::updateLastTxFile, PERSIST_INTERVAL_MILLIS, PERSIST_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+        }
         if (tcpRole == TcpRole.CLIENT) {
             tcpClient = new ReplicationClient(yamcsInstance, host, port, sslCtx, reconnectionInterval, maxTupleSize,
                     () -> new SlaveChannelHandler(this));
@@ -208,6 +241,15 @@ public class ReplicationSlave extends AbstractYamcsService {
             slaveChannelHandler.shutdown();
             slaveChannelHandler = null;
         }
+        if (persistFuture != null) {
+            persistFuture.cancel(false);
+        }
+        // let the appliers finish the queued data before closing the last tx file
+        for (StreamApplier applier : appliers.values()) {
+            applier.shutdown();
+        }
+        appliers.clear();
+        updateLastTxFile();
 
         try {
             lastTxFile.close();
@@ -217,15 +259,61 @@ public class ReplicationSlave extends AbstractYamcsService {
         }
     }
 
-    private void updateLastTxFile() {
+    /**
+     * Writes the id of the last applied transaction to the last tx file if it has changed since the previous write.
+     * <p>
+     * Called after each block of data received from the master, periodically for the data applied in the stream
+     * threads after the last block has been received and when the service stops.
+     */
+    synchronized void updateLastTxFile() {
+        long txId = getAppliedTxId();
+        if (txId == persistedTxId) {
+            return;
+        }
         try {
             lastTxFile.seek(0);
-            lastTxFile.writeBytes(Long.toString(lastTxId) + "\n");
+            lastTxFile.writeBytes(Long.toString(txId) + "\n");
+            persistedTxId = txId;
         } catch (IOException e) {
             log.warn("Failed to update the last tx file " + txtfilePath, e);
         }
     }
 
+    /**
+     * Returns the id of the last transaction such that all the transactions up to it have been applied.
+     * <p>
+     * This is the transaction stored in the last tx file, when restarting, the slave will request the data starting
+     * with the next one.
+     */
+    long getAppliedTxId() {
+        synchronized (pendingTxIds) {
+            return pendingTxIds.isEmpty() ? lastTxId : Math.min(lastTxId, pendingTxIds.first() - 1);
+        }
+    }
+
+    private void txApplied(long txId) {
+        synchronized (pendingTxIds) {
+            pendingTxIds.remove(txId);
+        }
+    }
+
+    // called from an applier thread after a tuple has been applied
+    private void checkResume() {
+        Channel ch = pausedChannel.get();
+        if (ch == null) {
+            return;
+        }
+        for (StreamApplier applier : appliers.values()) {
+            if (applier.queued.get() > applyQueueSize / 2) {
+                return;
+            }
+        }
+        if (pausedChannel.compareAndSet(ch, null)) {
+            log.debug("Resuming reading from the master");
+            ch.config().setAutoRead(true);
+        }
+    }
+
     private ReplicationServer getReplicationServer() throws InitException {
         List<ReplicationServer> servers = YamcsServer.getServer().getGlobalServices(ReplicationServer.class);
         if (servers.isEmpty()) {
@@ -287,6 +375,58 @@ public class ReplicationSlave extends AbstractYamcsService {
         return slaveChannelHandler;
     }
 
+    StreamApplier getApplier(Stream stream) {
+        return appliers.computeIfAbsent(stream.getName(), k -> new StreamApplier(stream));
+    }
+
+    /**
+     * Applies the tuples to one local stream in a dedicated thread, in the order they have been received.
+     */
+    class StreamApplier {
+        final Stream stream;
+        final ExecutorService executor;
+        final AtomicInteger queued = new AtomicInteger();
+
+        StreamApplier(Stream stream) {
+            this.stream = stream;
+            this.executor = Executors.newSingleThreadExecutor(new ThreadFactoryBuilder()
+                    .setNameFormat("ReplicationSlave-" + yamcsInstance + "-" + stream.getName()).build());
+        }
+
+        /**
+         * Queues the tuple to be applied and returns the number of tuples in the queue.
+         */
+        int apply(long txId, Tuple tuple) {
+            synchronized (pendingTxIds) {
+                pendingTxIds.add(txId);
+            }
+            int n = queued.incrementAndGet();
+            executor.execute(() -> {
+                try {
+                    stream.emitTuple(tuple);
+                } catch (Exception e) {
+                    log.warn("TX{}: failed to apply the data to stream {}", txId, stream.getName(), e);
+                } finally {
+                    queued.decrementAndGet();
+                    txApplied(txId);
+                    checkResume();
+                }
+            });
+            return n;
+        }
+
+        void shutdown() {
+            executor.shutdown();
+            try {
+                if (!executor.awaitTermination(10, TimeUnit.SECONDS)) {
+                    log.warn("The data queued for stream {} could not be applied in 10 seconds", stream.getName());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
     private void processTimeMessage(TimeMessage timeMsg) {
         if (simTimeService != null) {
             simTimeService.setSimElapsedTime(timeMsg.getLocalTime(), timeMsg.getMissionTime());
@@ -313,6 +453,7 @@ public class ReplicationSlave extends AbstractYamcsService {
             ByteBuf nettybuf = (ByteBuf) o;
             try {
                 doChannelRead(ctx, nettybuf);
+                updateLastTxFile();
             } finally {
                 nettybuf.release();
             }
@@ -335,32 +476,73 @@ public class ReplicationSlave extends AbstractYamcsService {
                 return;
             }
             lastMsgReceivedTime = System.currentTimeMillis();
+            if (msg.type == Message.COMPRESSED) {
+                TransactionMessage tmsg = (TransactionMessage) msg;
+                try {
+                    int count = tmsg.buf.getInt();
+                    int uncompressedLength = tmsg.buf.getInt();
+                    for (ByteBuffer record : CompressedBlock.inflate(tmsg.buf, count, uncompressedLength)) {
+                        processMessage(Message.decode(record));
+                    }
+                } catch (DecodingException e) {
+                    log.warn("TX{} Failed to decode compressed block; closing connection", tmsg.txId, e);
+                    ctx.close();
+                }
+            } else {
+                processMessage(msg);
+            }
+        }
+
+        private void processMessage(Message msg) {
             if (msg.type == Message.DATA) {
                 TransactionMessage tmsg = (TransactionMessage) msg;
 
                 if (tmsg.txId <= lastTxId) {
                     log.warn("Received data from the past txId={}, lastTxId={}", tmsg.txId, lastTxId);
-                } else {
-                    checkMissing(tmsg);
                 }
 
                 int streamId = tmsg.buf.getInt();
 
+                ByteBufToStream bbs = null;
                 if (tmsg.instanceId == localInstanceId) {
                     log.trace("Skipping data originating from myself (serverId: {})", tmsg.instanceId);
-                    return;
-                }
-                ByteBufToStream bbs = streamWriters.get(streamId);
-                if (bbs == null) {
-                    log.trace("Skipping data for unknown stream {}", streamId);
-                    return;
+                } else {
+                    bbs = streamWriters.get(streamId);
+                    if (bbs == null) {
+                        log.trace("Skipping data for unknown stream {}", streamId);
+                    }
                 }
-                if (log.isTraceEnabled()) {
-                    log.trace("TX{} received data for stream {}, length {}", tmsg.txId, bbs.stream.getName(),
-                            tmsg.buf.remaining());
+                Tuple tuple = null;
+                if (bbs != null) {
+                    if (log.isTraceEnabled()) {
+                        log.trace("TX{} received data for stream {}, length {}", tmsg.txId, bbs.stream.getName(),
+                                tmsg.buf.remaining());
+                    }
+                    tuple = bbs.decode(tmsg.txId, tmsg.buf);
                 }
 
-                bbs.processData(tmsg.txId, tmsg.buf);
+                if (applyQueueSize > 0) {
+                    // the transaction is added to the pending ones before updating the lastTxId
+                    // such that the applied transaction id does not get ahead of it
+                    synchronized (pendingTxIds) {
+                        if (tuple != null) {
+                            int n = getApplier(bbs.stream).apply(tmsg.txId, tuple);
+                            if (n >= applyQueueSize) {
+                                pauseReading(bbs.stream);
+                            }
+                        }
+                        if (tmsg.txId > lastTxId) {
+                            checkMissing(tmsg);
+                        }
+                    }
+                } else {
+                    if (tmsg.txId > lastTxId) {
+                        checkMissing(tmsg);
+                    }
+                    if (tuple != null) {
+                        bbs.stream.emitTuple(tuple);
+                    }
+                }
             } else if (msg.type == Message.STREAM_INFO) {
                 TransactionMessage tmsg = (TransactionMessage) msg;
                 if (tmsg.txId > lastTxId) { // we expect to receive previous stream info transactions
@@ -405,6 +587,14 @@ public class ReplicationSlave extends AbstractYamcsService {
         }
 
 
+        private void pauseReading(Stream stream) {
+            Channel ch = channelHandlerContext.channel();
+            if (pausedChannel.compareAndSet(null, ch)) {
+                log.debug("Queue for stream {} is full, pausing reading from the master", stream.getName());
+                ch.config().setAutoRead(false);
+            }
+        }
+
         private void checkMissing(TransactionMessage tmsg) {
             if (tmsg.txId != lastTxId + 1) {
                 log.warn("Transactions {} to {} are missing", lastTxId + 1, tmsg.txId - 1);
@@ -431,7 +621,10 @@ public class ReplicationSlave extends AbstractYamcsService {
         }
 
         private void sendRequest() {
-            Request.Builder reqb = Request.newBuilder().setRequestSeq(1).setYamcsInstance(masterInstance);
+            // a channel paused before the reconnection is closed; the new one is paused again if the queues are full
+            pausedChannel.set(null);
+            Request.Builder reqb = Request.newBuilder().setRequestSeq(1).setYamcsInstance(masterInstance)
+                    .addCompression(ReplicationCompression.DEFLATE.name());
             if (lastTxId >= 0) {
                 reqb.setStartTxId(lastTxId + 1);
             }
@@ -447,6 +640,11 @@ public class ReplicationSlave extends AbstractYamcsService {
 
         void checkTimeout() {
             long now = System.currentTimeMillis();
+            if (pausedChannel.get() == channelHandlerContext.channel()) {
+                // we do not read anything from the master until the data is applied
+                lastMsgReceivedTime = now;
+                return;
+            }
             if (now - lastMsgReceivedTime > timeoutMillis) {
                 log.warn("No message received in the last {} seconds. Closing the connection",
                         (now - lastMsgReceivedTime) / 1000);
@@ -509,8 +707,11 @@ public class ReplicationSlave extends AbstractYamcsService {
                 }
             }
 
+            /**
+             * Deserializes the tuple; returns null if the data cannot be deserialized.
+             */
             @SuppressWarnings("rawtypes")
-            public void processData(long txId, ByteBuffer niobuf) {
+            public Tuple decode(long txId, ByteBuffer niobuf) {
                 TupleDefinition tdef = new TupleDefinition();
                 ArrayList<Object> cols = new ArrayList<>();
                 // deserialize the value
@@ -525,7 +726,7 @@ public class ReplicationSlave extends AbstractYamcsService {
                             log.warn(
                                     "TX{}: when deserializing data for stream {}: reference to unknown column index {}",
                                     txId, stream.getName(), cidx);
-                            return;
+                            return null;
                         }
                         int typeId = id >>> 24;
                         ColumnDefinition cd = completeTuple.getColumn(cidx);
@@ -534,18 +735,16 @@ public class ReplicationSlave extends AbstractYamcsService {
                             log.warn(
                                     "TX{}: when deserializing data for stream {}: type id for index {} (column {}) is {}; expected {}",
                                     txId, stream.getName(), cidx, cd.getName(), typeId, cd.getType().getTypeId());
-                            return;
+                            return null;
                         }
                         Object o = cs.deserialize(niobuf, cd);
                         tdef.addColumn(cd);
                         cols.add(o);
                     }
-                    Tuple t = new Tuple(tdef, cols);
-                    stream.emitTuple(t);
-                    updateLastTxFile();
-
+                    return new Tuple(tdef, cols);
                 } catch (Exception e) {
                     log.warn("Cannot deserialize data for stream {}", stream.getName(), e);
+                    return null;
                 }
             }
         }
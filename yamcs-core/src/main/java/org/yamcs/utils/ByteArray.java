@@ -244,6 +244,34 @@ public class ByteArray {
         position += bp.length;
     }
 
+    /**
+     * Sets the position from where the next get operation will read
+     */
+    public void position(int position) {
+        rangeCheck(position);
+        this.position = position;
+    }
+
+    /**
+     * Advances the position after the next null byte
+     */
+    public void skipNullTerminated() {
+        int i = position;
+        while (i < length && a[i] != 0) {
+            i++;
+        }
+        rangeCheck(i + 1);
+        position = i + 1;
+    }
+
+    /**
+     * Advances the position by n bytes without reading them
+     */
+    public void skip(int n) {
+        rangeCheck(position + n);
+        position += n;
+    }
+
     public <T extends MessageLite.Builder> void getSizePrefixedProto(T builder) {
         int size = getInt();
         try {
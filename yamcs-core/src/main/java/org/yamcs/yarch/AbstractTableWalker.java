@@ -32,6 +32,7 @@ public abstract class AbstractTableWalker implements TableWalker {
     
     final protected boolean ascending;
     final protected boolean follow;
+    protected boolean prefetch = false;
    
     protected long numRecordsRead = 0;
   
@@ -61,15 +62,26 @@ public abstract class AbstractTableWalker implements TableWalker {
         running = true;
         Iterator<PartitionManager.Interval> partitionIterator = getIntervalIterator();
         try {
-            while (isRunning() && partitionIterator.hasNext()) {
-                PartitionManager.Interval interval = partitionIterator.next();
+            PartitionManager.Interval next = partitionIterator.hasNext() ? partitionIterator.next() : null;
+            while (isRunning() && next != null) {
+                PartitionManager.Interval interval = next;
+                next = null;
+                if (prefetch && partitionIterator.hasNext()) {
+                    // the time partitions do not overlap so the next one can be read while walking the current one
+                    next = partitionIterator.next();
+                    prefetchInterval(next, range);
+                }
                 boolean endReached = walkInterval(interval, range, visitor);
                 if (endReached) {
                     break;
                 }
+                if (next == null && partitionIterator.hasNext()) {
+                    next = partitionIterator.next();
+                }
             }
         } finally {
             close();
+            walkFinished();
         }
     }
 
@@ -153,6 +165,24 @@ public abstract class AbstractTableWalker implements TableWalker {
     protected abstract boolean walkInterval(PartitionManager.Interval interval, DbRange range, TableVisitor visitor)
             throws YarchException, StreamSqlException;
 
+    /**
+     * Called when prefetching is enabled with the interval following the one being walked, before walking the current
+     * one. The implementations can start reading the data of the interval in the background.
+     */
+    protected void prefetchInterval(PartitionManager.Interval interval, DbRange range) {
+    }
+
+    /**
+     * Called at the end of the walk, in the thread that walked the table, to release the resources
+     */
+    protected void walkFinished() {
+    }
+
+    @Override
+    public void setPrefetch(boolean prefetch) {
+        this.prefetch = prefetch && !follow;
+    }
+
     protected boolean isRunning() {
         return running;
     }
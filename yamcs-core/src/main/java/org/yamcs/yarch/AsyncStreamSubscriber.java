@@ -0,0 +1,303 @@
+package org.yamcs.yarch;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.yamcs.logging.Log;
+
+/**
+ * Delivers the tuples of a stream to one subscriber from a dedicated thread.
+ * <p>
+ * The tuples emitted on the stream are put in a bounded queue and the subscriber is called from the consumer thread
+ * with batches of tuples (see {@link StreamSubscriber#onTuples(Stream, List)}). When the queue is full, depending on
+ * the {@link OverflowPolicy}, the producer is either blocked until there is space in the queue or the tuple is dropped.
+ * <p>
+ * This is used for the streams configured with asynchronous delivery, such that a slow subscriber does not stall the
+ * thread emitting the tuples (and the other subscribers).
+ */
+public class AsyncStreamSubscriber {
+    public enum OverflowPolicy {
+        /**
+         * block the producer until there is space in the queue
+         */
+        BLOCK,
+        /**
+         * drop the new tuple
+         */
+        DROP
+    }
+
+    /**
+     * Configuration of the asynchronous delivery
+     *
+     * @param queueSize
+     *            the maximum number of tuples kept in the queue of each subscriber
+     * @param maxBatchSize
+     *            the maximum number of tuples delivered to the subscriber in one call
+     * @param overflowPolicy
+     *            what to do when the queue is full
+     */
+    public record Config(int queueSize, int maxBatchSize, OverflowPolicy overflowPolicy) {
+        public static final int DEFAULT_QUEUE_SIZE = 1024;
+        public static final int DEFAULT_MAX_BATCH_SIZE = 64;
+
+        public Config {
+            if (queueSize < 1) {
+                throw new IllegalArgumentException("queueSize has to be at least 1");
+            }
+            if (maxBatchSize < 1) {
+                throw new IllegalArgumentException("maxBatchSize has to be at least 1");
+            }
+        }
+    }
+
+    // marks the end of the stream
+    static final Tuple END_MARK = new Tuple(new TupleDefinition(), new Object[0]);
+
+    final Stream stream;
+    final StreamSubscriber subscriber;
+    final Config config;
+    final BlockingQueue<Tuple> queue;
+    final Thread thread;
+    final Log log;
+
+    private volatile boolean stopped = false;
+    // set when the stream is closed from the delivery thread (i.e. by the subscriber itself)
+    private volatile boolean closedFromSubscriber = false;
+
+    final AtomicLong deliveredCount = new AtomicLong();
+    final AtomicLong droppedCount = new AtomicLong();
+    final AtomicLong blockedCount = new AtomicLong();
+    final AtomicLong batchCount = new AtomicLong();
+
+    AsyncStreamSubscriber(Stream stream, StreamSubscriber subscriber, Config config) {
+        this.stream = stream;
+        this.subscriber = subscriber;
+        this.config = config;
+        this.queue = new ArrayBlockingQueue<>(config.queueSize());
+        this.log = new Log(getClass(), stream.ydb.getName());
+        log.setContext(stream.getName());
+        thread = new Thread(this::run,
+                "stream-" + stream.getName() + "-" + subscriber.getClass().getSimpleName());
+        thread.setDaemon(true);
+    }
+
+    void start() {
+        thread.start();
+    }
+
+    /**
+     * Called from the producer thread to queue the tuple for delivery
+     */
+    void offer(Tuple tuple) {
+        if (queue.offer(tuple)) {
+            return;
+        }
+        if (config.overflowPolicy() == OverflowPolicy.DROP) {
+            long n = droppedCount.incrementAndGet();
+            if (n == 1 || n % 1000 == 0) {
+                log.warn("Queue full for subscriber {}, {} tuples dropped so far", subscriber, n);
+            }
+        } else {
+            blockedCount.incrementAndGet();
+            try {
+                while (!stopped && !queue.offer(tuple, 100, TimeUnit.MILLISECONDS)) {
+                    // try again until the subscriber is stopped
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Called when the stream is closed; the subscriber will receive the streamClosed signal after all the tuples in
+     * the queue have been delivered.
+     * <p>
+     * If the stream is closed by the subscriber while processing a batch, the end mark is not put in the queue
+     * because the queue may be full and nobody else would empty it.
+     */
+    void close() {
+        if (Thread.currentThread() == thread) {
+            closedFromSubscriber = true;
+            return;
+        }
+        try {
+            queue.put(END_MARK);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Called when the subscriber is removed from the stream; the tuples still in the queue are discarded.
+     * <p>
+     * The delivery thread is not interrupted (it may be inside the subscriber code); the batch being delivered is
+     * finished and then the thread exits. Use {@link #awaitStop(long, TimeUnit)} to wait for that.
+     */
+    void stop() {
+        stopped = true;
+        queue.clear();
+    }
+
+    /**
+     * Waits for the delivery thread to finish after {@link #stop()} has been called.
+     * <p>
+     * Returns immediately if called from the delivery thread itself.
+     *
+     * @return true if the delivery thread has finished, false if the timeout has elapsed before
+     */
+    boolean awaitStop(long timeout, TimeUnit unit) throws InterruptedException {
+        if (Thread.currentThread() == thread || !thread.isAlive()) {
+            return true;
+        }
+        thread.join(unit.toMillis(timeout));
+        return !thread.isAlive();
+    }
+
+    private void run() {
+        List<Tuple> batch = new ArrayList<>(config.maxBatchSize());
+        try {
+            while (!stopped) {
+                Tuple t;
+                if (closedFromSubscriber) {
+                    t = queue.poll();
+                    if (t == null) {
+                        subscriber.streamClosed(stream);
+                        break;
+                    }
+                } else {
+                    // poll with timeout such that the stopped flag is checked regularly
+                    t = queue.poll(100, TimeUnit.MILLISECONDS);
+                    if (t == null) {
+                        continue;
+                    }
+                }
+                batch.add(t);
+                queue.drainTo(batch, config.maxBatchSize() - 1);
+
+                boolean end = false;
+                int n = batch.size();
+                if (batch.get(n - 1) == END_MARK) {
+                    // the END_MARK is always the last tuple put in the queue
+                    batch.remove(n - 1);
+                    end = true;
+                }
+                if (!batch.isEmpty() && !stopped) {
+                    deliver(batch);
+                }
+                batch.clear();
+                if (end) {
+                    subscriber.streamClosed(stream);
+                    break;
+                }
+            }
+        } catch (InterruptedException e) {
+            if (!stopped) {
+                log.warn("Interrupted while waiting for tuples");
+            }
+        }
+    }
+
+    /**
+     * Delivers the batch to the subscriber.
+     * <p>
+     * If one tuple fails (signaled by a {@link TupleBatchException}), the exception is reported for that tuple and the
+     * delivery continues with the remaining tuples of the batch, like in the synchronous mode.
+     * <p>
+     * If the subscriber throws another exception, it is reported for the first tuple of the call and the remaining
+     * tuples are delivered one by one.
+     * <p>
+     * Only the tuples processed without exception are counted as delivered.
+     */
+    private void deliver(List<Tuple> batch) {
+        int n = batch.size();
+        int from = 0;
+        int failed = 0;
+        while (from < n) {
+            List<Tuple> tuples = from == 0 ? batch : batch.subList(from, n);
+            try {
+                subscriber.onTuples(stream, tuples);
+                break;
+            } catch (TupleBatchException e) {
+                int idx = from + e.getIndex();
+                handleException(batch.get(idx), e.getCause());
+                failed++;
+                from = idx + 1;
+            } catch (Exception e) {
+                // the subscriber did not tell which tuple has caused the exception
+                handleException(batch.get(from), e);
+                failed++;
+                for (int i = from + 1; i < n && !stopped; i++) {
+                    Tuple t = batch.get(i);
+                    try {
+                        subscriber.onTuple(stream, t);
+                    } catch (Exception e1) {
+                        handleException(t, e1);
+                        failed++;
+                    }
+                }
+                break;
+            }
+        }
+        deliveredCount.addAndGet(n - failed);
+        batchCount.incrementAndGet();
+    }
+
+    private void handleException(Tuple tuple, Throwable e) {
+        var handler = stream.getExceptionHandler();
+        if (handler != null) {
+            handler.handle(tuple, subscriber, e);
+        } else {
+            log.warn("Exception received when delivering tuple to subscriber " + subscriber, e);
+        }
+    }
+
+    public StreamSubscriber getSubscriber() {
+        return subscriber;
+    }
+
+    /**
+     * @return the number of tuples currently waiting in the queue
+     */
+    public int getQueueDepth() {
+        return queue.size();
+    }
+
+    /**
+     * @return the number of tuples delivered to the subscriber
+     */
+    public long getDeliveredCount() {
+        return deliveredCount.get();
+    }
+
+    /**
+     * @return the number of tuples dropped because the queue was full
+     */
+    public long getDroppedCount() {
+        return droppedCount.get();
+    }
+
+    /**
+     * @return the number of times the producer has been blocked because the queue was full
+     */
+    public long getBlockedCount() {
+        return blockedCount.get();
+    }
+
+    /**
+     * @return the number of batches delivered to the subscriber
+     */
+    public long getBatchCount() {
+        return batchCount.get();
+    }
+
+    @Override
+    public String toString() {
+        return "AsyncStreamSubscriber[" + subscriber + "]";
+    }
+}
@@ -40,6 +40,45 @@ public interface ColumnSerializer<T> {
      */
     T deserialize(ByteBuffer byteBuf, ColumnDefinition cd);
 
+    /**
+     * Read one column value as a primitive long.
+     * <p>
+     * The default implementation deserializes the value and unboxes it; the serializers of the LONG and TIMESTAMP
+     * columns override it to avoid the boxing.
+     */
+    default long deserializeLong(ByteArray array, ColumnDefinition cd) {
+        return (Long) deserialize(array, cd);
+    }
+
+    /**
+     * Read one column value as a primitive int, see {@link #deserializeLong(ByteArray, ColumnDefinition)}
+     */
+    default int deserializeInt(ByteArray array, ColumnDefinition cd) {
+        return (Integer) deserialize(array, cd);
+    }
+
+    /**
+     * Read one column value as a primitive double, see {@link #deserializeLong(ByteArray, ColumnDefinition)}
+     */
+    default double deserializeDouble(ByteArray array, ColumnDefinition cd) {
+        return (Double) deserialize(array, cd);
+    }
+
+    /**
+     * Skip over one column value without deserializing it.
+     * <p>
+     * The default implementation deserializes the value and discards it; the serializers of the variable size values
+     * (strings, binary, protobuf, arrays) override it to just advance the position.
+     * 
+     * @param array
+     *            - array used for the input
+     * @param cd
+     *            the column definition for the involved column
+     */
+    default void skip(ByteArray array, ColumnDefinition cd) {
+        deserialize(array, cd);
+    }
+
     /**
      * @param array
      * @param v
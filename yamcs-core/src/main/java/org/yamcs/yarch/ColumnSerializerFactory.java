@@ -287,6 +287,11 @@ public class ColumnSerializerFactory {
             return decodeUTF(byteBuf, true);
         }
 
+        @Override
+        public void skip(ByteArray byteArray, ColumnDefinition cd) {
+            byteArray.skipNullTerminated();
+        }
+
         @Override
         public void serialize(ByteArray byteArray, String v) {
             byteArray.addNullTerminatedUTF(v);
@@ -310,6 +315,11 @@ public class ColumnSerializerFactory {
             }
         }
 
+        @Override
+        public void skip(ByteArray byteArray, ColumnDefinition cd) {
+            byteArray.skip(byteArray.getShort() & 0xFFFF);
+        }
+
         @Override
         public String deserialize(ByteBuffer byteBuf, ColumnDefinition cd) {
             int len = byteBuf.getShort();
@@ -408,6 +418,11 @@ public class ColumnSerializerFactory {
             return bp;
         }
 
+        @Override
+        public void skip(ByteArray byteArray, ColumnDefinition cd) {
+            byteArray.skip(byteArray.getInt());
+        }
+
         @Override
         public byte[] deserialize(ByteBuffer byteBuf, ColumnDefinition cd) {
             int length = byteBuf.getInt();
@@ -452,6 +467,11 @@ public class ColumnSerializerFactory {
             }
         }
 
+        @Override
+        public void skip(ByteArray byteArray, ColumnDefinition cd) {
+            byteArray.skip(byteArray.getInt());
+        }
+
         @Override
         public MessageLite deserialize(ByteBuffer byteBuf, ColumnDefinition cd) {
             int length = byteBuf.getInt();
@@ -35,6 +35,11 @@ public class ColumnSerializerV2 {
     }
 
     static class IntegerColumnSerializer implements ColumnSerializer<Integer> {
+        @Override
+        public int deserializeInt(ByteArray byteArray, ColumnDefinition cd) {
+            return byteArray.getInt();
+        }
+
         @Override
         public Integer deserialize(ByteArray byteArray, ColumnDefinition cd) {
             return byteArray.getInt();
@@ -57,6 +62,11 @@ public class ColumnSerializerV2 {
     }
 
     static class LongColumnSerializer implements ColumnSerializer<Long> {
+        @Override
+        public long deserializeLong(ByteArray byteArray, ColumnDefinition cd) {
+            return byteArray.getLong();
+        }
+
         @Override
         public Long deserialize(ByteArray byteArray, ColumnDefinition cd) {
             return byteArray.getLong();
@@ -139,6 +149,11 @@ public class ColumnSerializerV2 {
             return byteArray.getDouble();
         }
 
+        @Override
+        public double deserializeDouble(ByteArray byteArray, ColumnDefinition cd) {
+            return byteArray.getDouble();
+        }
+
         @Override
         public Double deserialize(ByteBuffer byteBuf, ColumnDefinition cd) {
             return byteBuf.getDouble();
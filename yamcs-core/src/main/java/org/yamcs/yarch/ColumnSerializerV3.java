@@ -57,6 +57,11 @@ public class ColumnSerializerV3 {
     }
 
     static class IntegerColumnSerializer implements ColumnSerializer<Integer> {
+        @Override
+        public int deserializeInt(ByteArray byteArray, ColumnDefinition cd) {
+            return invertSign(byteArray.getInt());
+        }
+
         @Override
         public Integer deserialize(ByteArray byteArray, ColumnDefinition cd) {
             return invertSign(byteArray.getInt());
@@ -80,6 +85,11 @@ public class ColumnSerializerV3 {
 
     
     static class LongColumnSerializer implements ColumnSerializer<Long> {
+        @Override
+        public long deserializeLong(ByteArray byteArray, ColumnDefinition cd) {
+            return invertSign(byteArray.getLong());
+        }
+
         @Override
         public Long deserialize(ByteArray byteArray, ColumnDefinition cd) {
             return invertSign(byteArray.getLong());
@@ -121,6 +131,11 @@ public class ColumnSerializerV3 {
             return longToDouble(byteArray.getLong());
         }
 
+        @Override
+        public double deserializeDouble(ByteArray byteArray, ColumnDefinition cd) {
+            return longToDouble(byteArray.getLong());
+        }
+
         @Override
         public Double deserialize(ByteBuffer byteBuf, ColumnDefinition cd) {
             return longToDouble(byteBuf.getLong());
@@ -238,6 +253,11 @@ public class ColumnSerializerV3 {
             return list;
         }
 
+        @Override
+        public void skip(ByteArray byteArray, ColumnDefinition cd) {
+            byteArray.skip(byteArray.getInt());
+        }
+
         @Override
         public List deserialize(ByteBuffer byteBuf, ColumnDefinition cd) {
             int length = byteBuf.getInt();
@@ -0,0 +1,183 @@
+package org.yamcs.yarch;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.yamcs.utils.ByteArray;
+import org.yamcs.utils.DatabaseCorruptionException;
+import org.yamcs.utils.StringConverter;
+
+/**
+ * Tuple backed by the serialized key and value of a table row.
+ * <p>
+ * The position of each column in the serialized data is found when the tuple is created but the columns are decoded
+ * only when they are accessed for the first time. The getters for the LONG, TIMESTAMP, INT and DOUBLE columns decode
+ * the value directly from the serialized data without boxing it.
+ * <p>
+ * Modifying the list of columns (adding or removing) decodes all the columns.
+ */
+public class LazyTuple extends Tuple {
+
+    LazyTuple(TupleDefinition definition, Columns columns) {
+        super(definition, columns);
+    }
+
+    @Override
+    public long getLongColumn(String colName) {
+        int i = getColumnIndex(colName);
+        if (i == -1 || !(columns instanceof Columns)) {
+            return super.getLongColumn(colName);
+        }
+        return ((Columns) columns).getLong(i);
+    }
+
+    @Override
+    public long getTimestampColumn(String colName) {
+        return getLongColumn(colName);
+    }
+
+    @Override
+    public int getIntColumn(String colName) {
+        int i = getColumnIndex(colName);
+        if (i == -1 || !(columns instanceof Columns)) {
+            return super.getIntColumn(colName);
+        }
+        return ((Columns) columns).getInt(i);
+    }
+
+    @Override
+    public double getDoubleColumn(String colName) {
+        int i = getColumnIndex(colName);
+        if (i == -1 || !(columns instanceof Columns)) {
+            return super.getDoubleColumn(colName);
+        }
+        return ((Columns) columns).getDouble(i);
+    }
+
+    /**
+     * The column values of a table row, decoded on demand.
+     * <p>
+     * The first numKeyColumns are read from the key, the others from the value.
+     */
+    static class Columns extends AbstractList<Object> {
+        final TableDefinition tableDefinition;
+        final TableColumnDefinition[] colDefs;
+        final int[] offsets;
+        final int numKeyColumns;
+        final ByteArray key;
+        final ByteArray value;
+
+        Object[] values;
+        boolean[] decoded;
+        // not null after a structural modification
+        List<Object> materialized;
+
+        Columns(TableDefinition tableDefinition, TableColumnDefinition[] colDefs, int[] offsets, int numKeyColumns,
+                byte[] key, byte[] value) {
+            this.tableDefinition = tableDefinition;
+            this.colDefs = colDefs;
+            this.offsets = offsets;
+            this.numKeyColumns = numKeyColumns;
+            this.key = ByteArray.wrap(key);
+            this.value = ByteArray.wrap(value);
+            this.values = new Object[colDefs.length];
+            this.decoded = new boolean[colDefs.length];
+        }
+
+        @Override
+        public synchronized Object get(int index) {
+            if (materialized != null) {
+                return materialized.get(index);
+            }
+            if (!decoded[index]) {
+                try {
+                    values[index] = colDefs[index].deserializeValue(position(index));
+                } catch (IOException e) {
+                    throw corruption(e);
+                }
+                decoded[index] = true;
+            }
+            return values[index];
+        }
+
+        @Override
+        public synchronized Object set(int index, Object element) {
+            if (materialized != null) {
+                return materialized.set(index, element);
+            }
+            Object old = get(index);
+            values[index] = element;
+            return old;
+        }
+
+        @Override
+        public synchronized void add(int index, Object element) {
+            materialize().add(index, element);
+            modCount++;
+        }
+
+        @Override
+        public synchronized Object remove(int index) {
+            modCount++;
+            return materialize().remove(index);
+        }
+
+        @Override
+        public synchronized int size() {
+            return materialized == null ? colDefs.length : materialized.size();
+        }
+
+        synchronized long getLong(int index) {
+            if (materialized == null && !decoded[index] && isLong(colDefs[index].getType())) {
+                return colDefs[index].deserializeLong(position(index));
+            }
+            return (Long) get(index);
+        }
+
+        synchronized int getInt(int index) {
+            if (materialized == null && !decoded[index] && colDefs[index].getType() == DataType.INT) {
+                return colDefs[index].deserializeInt(position(index));
+            }
+            return (Integer) get(index);
+        }
+
+        synchronized double getDouble(int index) {
+            if (materialized == null && !decoded[index] && colDefs[index].getType() == DataType.DOUBLE) {
+                return colDefs[index].deserializeDouble(position(index));
+            }
+            return (Double) get(index);
+        }
+
+        private static boolean isLong(DataType type) {
+            return type == DataType.LONG || type == DataType.TIMESTAMP;
+        }
+
+        private ByteArray position(int index) {
+            ByteArray ba = index < numKeyColumns ? key : value;
+            ba.position(offsets[index]);
+            return ba;
+        }
+
+        private List<Object> materialize() {
+            if (materialized == null) {
+                List<Object> l = new ArrayList<>(colDefs.length + 1);
+                for (int i = 0; i < colDefs.length; i++) {
+                    l.add(get(i));
+                }
+                materialized = l;
+                values = null;
+                decoded = null;
+            }
+            return materialized;
+        }
+
+        private DatabaseCorruptionException corruption(Exception e) {
+            return new DatabaseCorruptionException("Cannot deserialize row from " + tableDefinition.getName() + " "
+                    + "(key:" + StringConverter.byteBufferToHexString(ByteBuffer.wrap(key.array()))
+                    + ", value: " + StringConverter.byteBufferToHexString(ByteBuffer.wrap(value.array())) + ")", e);
+        }
+    }
+}
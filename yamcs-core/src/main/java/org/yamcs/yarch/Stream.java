@@ -2,7 +2,10 @@ package org.yamcs.yarch;
 
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 
@@ -32,6 +35,10 @@ public abstract class Stream {
     private volatile AtomicInteger subscriberCount = new AtomicInteger();
     private ExceptionHandler handler;
 
+    // if set, the tuples are delivered to the subscribers from their own thread
+    private volatile AsyncStreamSubscriber.Config asyncConfig;
+    private final Map<StreamSubscriber, AsyncStreamSubscriber> asyncSubscribers = new ConcurrentHashMap<>();
+
     protected Stream(YarchDatabaseInstance ydb, String name, TupleDefinition definition) {
         this.name = name;
         this.outputDefinition = definition;
@@ -52,6 +59,13 @@ public abstract class Stream {
     public void emitTuple(Tuple tuple) {
         dataCount.incrementAndGet();
         for (StreamSubscriber s : subscribers) {
+            if (asyncConfig != null) {
+                AsyncStreamSubscriber as = asyncSubscribers.get(s);
+                if (as != null) {
+                    as.offer(tuple);
+                    continue;
+                }
+            }
             try {
                 s.onTuple(this, tuple);
             } catch (Exception e) {
@@ -74,13 +88,92 @@ public abstract class Stream {
     }
 
     public void addSubscriber(StreamSubscriber s) {
-        subscribers.add(s);
+        // synchronized with enableAsyncDelivery such that the subscriber is switched to asynchronous delivery once
+        synchronized (this) {
+            if (asyncConfig != null) {
+                startAsync(s);
+            }
+            subscribers.add(s);
+        }
         subscriberCount.incrementAndGet();
     }
 
     public void removeSubscriber(StreamSubscriber s) {
+        AsyncStreamSubscriber as = doRemoveSubscriber(s);
+        if (as != null) {
+            as.stop();
+        }
+    }
+
+    /**
+     * Same as {@link #removeSubscriber(StreamSubscriber)} but if the stream delivers the tuples asynchronously, it
+     * also waits for the subscriber to finish processing the batch being delivered. After this method returns true,
+     * the subscriber will not be called anymore from this stream.
+     * <p>
+     * If called from the delivery thread of the subscriber itself, it does not wait.
+     *
+     * @return false if the timeout has elapsed before the delivery finished
+     */
+    public boolean removeSubscriberAndWait(StreamSubscriber s, long timeout, TimeUnit unit)
+            throws InterruptedException {
+        AsyncStreamSubscriber as = doRemoveSubscriber(s);
+        if (as != null) {
+            as.stop();
+            return as.awaitStop(timeout, unit);
+        }
+        return true;
+    }
+
+    private synchronized AsyncStreamSubscriber doRemoveSubscriber(StreamSubscriber s) {
         subscribers.remove(s);
         subscriberCount.decrementAndGet();
+        return asyncSubscribers.remove(s);
+    }
+
+    /**
+     * Enables the asynchronous delivery of tuples: each subscriber receives the tuples in batches from its own
+     * thread, via a bounded queue configured according to the passed config.
+     * <p>
+     * This should be called before the stream is started; the subscribers already registered are switched to
+     * asynchronous delivery as well.
+     */
+    public synchronized void enableAsyncDelivery(AsyncStreamSubscriber.Config config) {
+        if (asyncConfig != null) {
+            throw new IllegalStateException("Asynchronous delivery already enabled on stream " + name);
+        }
+        this.asyncConfig = config;
+        for (StreamSubscriber s : subscribers) {
+            startAsync(s);
+        }
+    }
+
+    private void startAsync(StreamSubscriber s) {
+        AsyncStreamSubscriber as = new AsyncStreamSubscriber(this, s, asyncConfig);
+        if (asyncSubscribers.putIfAbsent(s, as) == null) {
+            as.start();
+        }
+    }
+
+    /**
+     * @return true if the tuples are delivered asynchronously to the subscribers
+     */
+    public boolean isAsyncDelivery() {
+        return asyncConfig != null;
+    }
+
+    /**
+     * @return the asynchronous delivery config or null if the stream delivers synchronously
+     */
+    public AsyncStreamSubscriber.Config getAsyncDeliveryConfig() {
+        return asyncConfig;
+    }
+
+    /**
+     * @return the asynchronous delivery wrappers of the current subscribers (empty if the asynchronous delivery is
+     *         not enabled)
+     */
+    public Collection<AsyncStreamSubscriber> getAsyncSubscribers() {
+        return Collections.unmodifiableCollection(asyncSubscribers.values());
     }
 
     public ColumnDefinition getColumnDefinition(String colName) {
@@ -122,7 +215,12 @@ public abstract class Stream {
         log.debug("Closed stream {} num emitted tuples: {}", name, getDataCount());
         doClose();
         for (StreamSubscriber s : subscribers) {
-            s.streamClosed(this);
+            AsyncStreamSubscriber as = asyncSubscribers.get(s);
+            if (as != null) {
+                as.close();
+            } else {
+                s.streamClosed(this);
+            }
         }
     }
 
@@ -152,6 +250,10 @@ public abstract class Stream {
         this.handler = h;
     }
 
+    ExceptionHandler getExceptionHandler() {
+        return handler;
+    }
+
     @Override
     public String toString() {
         return name;
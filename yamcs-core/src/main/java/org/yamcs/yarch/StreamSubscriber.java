@@ -1,10 +1,34 @@
 package org.yamcs.yarch;
 
+import java.util.List;
+
 @FunctionalInterface
 public interface StreamSubscriber {
 
     void onTuple(Stream stream, Tuple tuple);
 
+    /**
+     * Called with a batch of tuples when the stream is configured for asynchronous delivery.
+     * <p>
+     * The default implementation calls {@link #onTuple(Stream, Tuple)} for each tuple; subscribers which can process
+     * more efficiently a number of tuples at once (e.g. writing them in one database transaction) may override it.
+     * <p>
+     * The list is reused after the call returns, the subscriber should not keep a reference to it.
+     * <p>
+     * If the processing of one tuple fails, the implementation should throw a {@link TupleBatchException} with the
+     * index of that tuple; the caller reports the exception and calls again this method with the tuples following
+     * it.
+     */
+    default void onTuples(Stream stream, List<Tuple> tuples) {
+        for (int i = 0; i < tuples.size(); i++) {
+            try {
+                onTuple(stream, tuples.get(i));
+            } catch (RuntimeException e) {
+                throw new TupleBatchException(i, e);
+            }
+        }
+    }
+
     default void streamClosed(Stream stream) {
     }
 
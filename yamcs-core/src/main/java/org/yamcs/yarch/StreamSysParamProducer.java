@@ -0,0 +1,101 @@
+package org.yamcs.yarch;
+
+import static org.yamcs.utils.ValueUtility.getUint32Value;
+import static org.yamcs.utils.ValueUtility.getUint64Value;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.yamcs.parameter.AggregateValue;
+import org.yamcs.parameter.ParameterValue;
+import org.yamcs.parameter.SystemParametersProducer;
+import org.yamcs.parameter.SystemParametersService;
+import org.yamcs.protobuf.Yamcs.Value.Type;
+import org.yamcs.xtce.AggregateParameterType;
+import org.yamcs.xtce.Member;
+import org.yamcs.xtce.Parameter;
+
+/**
+ * Makes system parameters under /yamcs/{instance-id}/streams/
+ * <p>
+ * One parameter for each stream configured with asynchronous delivery, containing statistics about the subscriber
+ * queues
+ */
+public class StreamSysParamProducer implements SystemParametersProducer {
+
+    private final YarchDatabaseInstance ydb;
+    private final SystemParametersService sysParamsService;
+    private final AggregateParameterType asyncDeliveryAggrType;
+    // stream name -> parameter
+    private final Map<String, Parameter> params = new HashMap<>();
+
+    public StreamSysParamProducer(YarchDatabaseInstance ydb, SystemParametersService sysParamsService) {
+        this.ydb = ydb;
+        this.sysParamsService = sysParamsService;
+
+        Member queueDepthMember = new Member("queueDepth", sysParamsService.getBasicType(Type.UINT32));
+        queueDepthMember.setShortDescription("The largest number of tuples waiting in the queue of a subscriber");
+
+        Member deliveredMember = new Member("delivered", sysParamsService.getBasicType(Type.UINT64));
+        deliveredMember.setShortDescription("The number of tuples delivered to the subscribers");
+
+        Member droppedMember = new Member("dropped", sysParamsService.getBasicType(Type.UINT64));
+        droppedMember.setShortDescription("The number of tuples dropped because the queue of a subscriber was full");
+
+        Member blockedMember = new Member("blocked", sysParamsService.getBasicType(Type.UINT64));
+        blockedMember.setShortDescription(
+                "The number of times the producer has been blocked because the queue of a subscriber was full");
+
+        asyncDeliveryAggrType = new AggregateParameterType.Builder().setName("AsyncDelivery")
+                .addMember(queueDepthMember)
+                .addMember(deliveredMember)
+                .addMember(droppedMember)
+                .addMember(blockedMember)
+                .build();
+    }
+
+    @Override
+    public Collection<ParameterValue> getSystemParameters(long gentime) {
+        List<ParameterValue> pvlist = new ArrayList<>();
+        // the streams are looked up each time because they can be created or switched to asynchronous delivery later
+        for (Stream s : ydb.getStreams()) {
+            if (!s.isAsyncDelivery()) {
+                continue;
+            }
+            Parameter param = params.computeIfAbsent(s.getName(),
+                    name -> sysParamsService.createSystemParameter("streams/" + name + "/asyncDelivery",
+                            asyncDeliveryAggrType, "Asynchronous delivery statistics for the stream " + name));
+            int queueDepth = 0;
+            long delivered = 0;
+            long dropped = 0;
+            long blocked = 0;
+            for (AsyncStreamSubscriber as : s.getAsyncSubscribers()) {
+                queueDepth = Math.max(queueDepth, as.getQueueDepth());
+                delivered += as.getDeliveredCount();
+                dropped += as.getDroppedCount();
+                blocked += as.getBlockedCount();
+            }
+            AggregateValue v = new AggregateValue(asyncDeliveryAggrType.getMemberNames());
+            v.setMemberValue("queueDepth", getUint32Value(queueDepth));
+            v.setMemberValue("delivered", getUint64Value(delivered));
+            v.setMemberValue("dropped", getUint64Value(dropped));
+            v.setMemberValue("blocked", getUint64Value(blocked));
+
+            ParameterValue pv = new ParameterValue(param);
+            pv.setGenerationTime(gentime);
+            pv.setAcquisitionTime(gentime);
+            pv.setEngValue(v);
+            pv.setExpireMillis((long) (1.9 * getFrequency() * 1000));
+            pvlist.add(pv);
+        }
+        return pvlist;
+    }
+
+    @Override
+    public int getFrequency() {
+        return 1;
+    }
+}
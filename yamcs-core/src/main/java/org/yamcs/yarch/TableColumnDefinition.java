@@ -65,6 +65,27 @@ public class TableColumnDefinition extends ColumnDefinition {
         return serializer.deserialize(byteArray, this);
     }
 
+    public void skipValue(ByteArray byteArray) throws IOException {
+        int size = DataType.getSerializedSize(type);
+        if (size > 0) {
+            byteArray.skip(size);
+        } else {
+            serializer.skip(byteArray, this);
+        }
+    }
+
+    public long deserializeLong(ByteArray byteArray) {
+        return serializer.deserializeLong(byteArray, this);
+    }
+
+    public int deserializeInt(ByteArray byteArray) {
+        return serializer.deserializeInt(byteArray, this);
+    }
+
+    public double deserializeDouble(ByteArray byteArray) {
+        return serializer.deserializeDouble(byteArray, this);
+    }
+
     public void setEnumValues(BiMap<String, Short> enumValues) {
         this.enumValues = enumValues;
     }
@@ -3,6 +3,7 @@ package org.yamcs.yarch;
 import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 import org.slf4j.Logger;
@@ -519,19 +520,29 @@ public class TableDefinition {
         }
     }
 
+    /**
+     * Deserializes a table row.
+     * <p>
+     * The returned tuple is a {@link LazyTuple}: the columns are only located here and are decoded when accessed.
+     */
     public Tuple deserialize(byte[] k, byte[] v) {
         TupleDefinition tdef = new TupleDefinition();
-        ArrayList<Object> cols = new ArrayList<>();
+        int maxCols = keyDef.size() + valueDef.size();
+        TableColumnDefinition[] colDefs = new TableColumnDefinition[maxCols];
+        int[] offsets = new int[maxCols];
+        int n = 0;
         ByteArray byteArray = ByteArray.wrap(k);
 
         try {
-            // deserialize the key
+            // locate the key columns
             for (TableColumnDefinition tcd : keyDef) {
                 tdef.addColumn(tcd);
-                cols.add(tcd.deserializeValue(byteArray));
+                colDefs[n] = tcd;
+                offsets[n++] = byteArray.position();
+                tcd.skipValue(byteArray);
             }
 
-            // deserialize the value
+            // locate the value columns
             byteArray = ByteArray.wrap(v);
             while (true) {
                 int cidx = byteArray.getInt(); // column index
@@ -551,10 +562,14 @@ public class TableDefinition {
                             "Data type for table %s, column %s (id: %d) does not match the data read: expected %d, read: %d",
                             name, tcd.getName(), cidx, tcd.getType().getTypeId(), dt));
                 }
-
-                Object o = tcd.deserializeValue(byteArray);
+                if (n == maxCols) {
+                    throw new DatabaseCorruptionException("Row from table " + name + " contains more than "
+                            + maxCols + " columns");
+                }
                 tdef.addColumn(tcd);
-                cols.add(o);
+                colDefs[n] = tcd;
+                offsets[n++] = byteArray.position();
+                tcd.skipValue(byteArray);
             }
         } catch (IOException e) {
             throw new DatabaseCorruptionException(
@@ -563,8 +578,11 @@ public class TableDefinition {
                             + ", value: " + StringConverter.byteBufferToHexString(ByteBuffer.wrap(v)) + ")",
                     e);
         }
-
-        return new Tuple(tdef, cols);
+        if (n < maxCols) {
+            colDefs = Arrays.copyOf(colDefs, n);
+            offsets = Arrays.copyOf(offsets, n);
+        }
+        return new LazyTuple(tdef, new LazyTuple.Columns(this, colDefs, offsets, keyDef.size(), k, v));
     }
 
     public boolean isCompressed() {
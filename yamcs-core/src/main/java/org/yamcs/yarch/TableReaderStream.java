@@ -13,6 +13,9 @@ public class TableReaderStream extends Stream implements Runnable, TableVisitor
     protected TableDefinition tableDefinition;;
     Thread thread;
 
+    // filter evaluated on the rows before emitting them
+    CompiledExpression filter;
+
     public TableReaderStream(YarchDatabaseInstance ydb, TableDefinition tblDef, TableWalker iterator) {
         super(ydb, tblDef.getName() + "_" + count.getAndIncrement(),
                 tblDef.getTupleDefinition());
@@ -38,12 +41,34 @@ public class TableReaderStream extends Stream implements Runnable, TableVisitor
         }
     }
 
+    /**
+     * Set a filter to be applied on the rows read from the table. Only the rows for which the filter evaluates to true
+     * are emitted.
+     * <p>
+     * The filter is evaluated on the tuples as they are deserialized from the table; being {@link LazyTuple}s, only
+     * the columns required by the filter are decoded for the rows which do not match.
+     * 
+     * @param filter
+     *            expression returning a Boolean
+     */
+    public void setFilter(CompiledExpression filter) {
+        this.filter = filter;
+    }
+
     @Override
     public Action visit(byte[] key, byte[] value) {
-        emitTuple(dataToTuple(key, value));
+        Tuple t = dataToTuple(key, value);
+        if (filter == null || matches(t)) {
+            emitTuple(t);
+        }
         return ACTION_CONTINUE;
     }
 
+    private boolean matches(Tuple t) {
+        Boolean v = (Boolean) filter.getValue(t);
+        return v != null && v;
+    }
+
     protected Tuple dataToTuple(byte[] k, byte[] v) {
         return tableDefinition.deserialize(k, v);
     }
@@ -23,6 +23,16 @@ public interface TableWalker {
         throw new UnsupportedOperationException();
     }
     
+    /**
+     * Allows the walker to read the data ahead of the visitor in background threads, reading multiple partitions in
+     * parallel.
+     * <p>
+     * Should only be enabled for read-only walks; the data read ahead does not reflect the changes made by the visitor.
+     * It is ignored if the walker follows the table.
+     */
+    default void setPrefetch(boolean prefetch) {
+    }
+
     void walk(TableVisitor visitor) throws YarchException, StreamSqlException;
 
     void close();
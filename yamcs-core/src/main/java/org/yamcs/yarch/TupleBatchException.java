@@ -0,0 +1,23 @@
+package org.yamcs.yarch;
+
+/**
+ * Thrown by {@link StreamSubscriber#onTuples(Stream, java.util.List)} to signal which tuple of the batch has failed.
+ * <p>
+ * The tuples before the index have been processed, the ones after have not.
+ */
+public class TupleBatchException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+    private final int index;
+
+    public TupleBatchException(int index, Throwable cause) {
+        super(cause);
+        this.index = index;
+    }
+
+    /**
+     * @return the index in the batch of the tuple which has failed
+     */
+    public int getIndex() {
+        return index;
+    }
+}
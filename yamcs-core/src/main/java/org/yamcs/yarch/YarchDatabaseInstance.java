@@ -6,6 +6,7 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -44,6 +45,7 @@ import org.yaml.snakeyaml.Yaml;
  */
 public class YarchDatabaseInstance {
     public static String PART_CONF_KEY = "dataPartitioningByTime";
+    public static final String TABLE_CONF_KEY = "tableConfig";
     private static final Logger log = LoggerFactory.getLogger(YarchDatabaseInstance.class.getName());
 
     Map<String, TableDefinition> tables = new HashMap<>();
@@ -52,6 +54,9 @@ public class YarchDatabaseInstance {
     // the tablespace where the data from this yarch instance is stored
     String tablespaceName;
 
+    // table name -> entry from the tableConfig instance option
+    Map<String, YConfiguration> tableConfigs = new HashMap<>();
+
     final ManagementService managementService;
     TimePartitionSchema timePartitioningSchema;
     // yamcs instance name
@@ -77,6 +82,11 @@ public class YarchDatabaseInstance {
                     timePartitioningSchema = TimePartitionSchema.getInstance(schema);
                 }
             }
+            if (yconf.containsKey(TABLE_CONF_KEY)) {
+                for (YConfiguration tableConfig : yconf.getConfigList(TABLE_CONF_KEY)) {
+                    tableConfigs.put(tableConfig.getString("name"), tableConfig);
+                }
+            }
         } else {
             yconf = YConfiguration.getConfiguration("yamcs");
             tablespaceName = instanceName;
@@ -98,6 +108,24 @@ public class YarchDatabaseInstance {
         return tablespaceName;
     }
 
+    /**
+     * Returns the configuration of the table as specified in the tableConfig instance option
+     * 
+     * @param tableName
+     * @return the table configuration or null if the table is not configured
+     */
+    public YConfiguration getTableConfig(String tableName) {
+        return tableConfigs.get(tableName);
+    }
+
+    /**
+     * 
+     * @return the names of the tables specified in the tableConfig instance option
+     */
+    public Collection<String> getConfiguredTableNames() {
+        return Collections.unmodifiableCollection(tableConfigs.keySet());
+    }
+
     /**
      * 
      * @return the instance name
@@ -476,6 +504,22 @@ public class YarchDatabaseInstance {
                                 + "This means storing the data corresponding to the time interval in a different RocksDB database");
 
         spec.addOption("tablespace", OptionType.STRING);
+
+        Spec groupCommitSpec = new Spec();
+        groupCommitSpec.addOption("maxBatchSize", OptionType.INTEGER).withDefault(1000)
+                .withDescription("Maximum number of records written together in one batch");
+        groupCommitSpec.addOption("maxDelay", OptionType.INTEGER).withDefault(100)
+                .withDescription("Maximum time in milliseconds that a record can wait before the batch is written");
+
+        Spec tableSpec = new Spec();
+        tableSpec.addOption("name", OptionType.STRING).withRequired(true)
+                .withDescription("The name of the table");
+        tableSpec.addOption("groupCommit", OptionType.MAP).withSpec(groupCommitSpec)
+                .withDescription("If specified, the records inserted in the table are collected into batches "
+                        + "written together to the database");
+
+        spec.addOption(TABLE_CONF_KEY, OptionType.LIST).withElementType(OptionType.MAP).withSpec(tableSpec)
+                .withDescription("Per table configuration");
     }
 
     /**
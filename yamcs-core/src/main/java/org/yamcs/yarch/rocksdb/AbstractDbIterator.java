@@ -1,12 +1,15 @@
 package org.yamcs.yarch.rocksdb;
 
+import org.rocksdb.AbstractNativeReference;
 import org.rocksdb.RocksIterator;
 import org.yamcs.logging.Log;
 
 public abstract class AbstractDbIterator implements DbIterator {
     protected boolean valid = false;
     protected final RocksIterator iterator;
-    
+    // closed together with the iterator
+    private AbstractNativeReference[] resources;
+
     final static Log log = new Log(AbstractDbIterator.class);
 
     public AbstractDbIterator(RocksIterator it) {
@@ -19,10 +22,26 @@ public abstract class AbstractDbIterator implements DbIterator {
         return valid;
     }
 
+    /**
+     * Registers objects (for example the ReadOptions used to create the RocksDB iterator) to be closed after the
+     * iterator is closed. The null references are ignored.
+     */
+    void closeAfter(AbstractNativeReference... resources) {
+        this.resources = resources;
+    }
+
     @Override
     public void close() {
         valid = false;
         iterator.close();
+        if (resources != null) {
+            for (AbstractNativeReference r : resources) {
+                if (r != null) {
+                    r.close();
+                }
+            }
+            resources = null;
+        }
     }
 
     @Override
@@ -25,6 +25,12 @@ public class DescendingPrefixIterator extends AbstractDbIterator {
         try {
             byte[] k = ByteArrayUtils.plusOne(prefix);
             iterator.seek(k);
+            if (iterator.isValid()) {
+                iterator.prev();
+            } else {
+                // no key after the prefix (or the iterator has an upper bound)
+                iterator.seekToLast();
+            }
         } catch (IllegalArgumentException e) {
             //special case the prefix is all 0xFF
             iterator.seekToLast();
@@ -32,13 +38,8 @@ public class DescendingPrefixIterator extends AbstractDbIterator {
         if(!iterator.isValid()) {
             valid = false;
         } else {
-            iterator.prev();
-            if(!iterator.isValid()) {
-                valid = false;
-            } else {
-                curKey = iterator.key();
-                valid = ByteArrayUtils.compare(prefix, curKey) == 0;
-            }
+            curKey = iterator.key();
+            valid = ByteArrayUtils.compare(prefix, curKey) == 0;
         }
     }
 
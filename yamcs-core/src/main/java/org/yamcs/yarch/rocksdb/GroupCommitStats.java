@@ -0,0 +1,52 @@
+package org.yamcs.yarch.rocksdb;
+
+/**
+ * Statistics about the batches written by the {@link RdbTableWriter}s of one table configured with group commit.
+ * <p>
+ * The maximum batch size and commit latency are reset each time they are read.
+ */
+public class GroupCommitStats {
+    private long commitCount;
+    private long recordCount;
+    private int maxBatchSize;
+    private long maxCommitLatencyNanos;
+
+    synchronized void addCommit(int batchSize, long latencyNanos) {
+        commitCount++;
+        recordCount += batchSize;
+        maxBatchSize = Math.max(maxBatchSize, batchSize);
+        maxCommitLatencyNanos = Math.max(maxCommitLatencyNanos, latencyNanos);
+    }
+
+    /**
+     * @return the number of batches written since the table has been loaded
+     */
+    public synchronized long getCommitCount() {
+        return commitCount;
+    }
+
+    /**
+     * @return the number of records written in batches since the table has been loaded
+     */
+    public synchronized long getRecordCount() {
+        return recordCount;
+    }
+
+    /**
+     * @return the largest number of records written in one batch since the last call of this method
+     */
+    public synchronized int getAndResetMaxBatchSize() {
+        int r = maxBatchSize;
+        maxBatchSize = 0;
+        return r;
+    }
+
+    /**
+     * @return the longest time in nanoseconds taken to write one batch since the last call of this method
+     */
+    public synchronized long getAndResetMaxCommitLatency() {
+        long r = maxCommitLatencyNanos;
+        maxCommitLatencyNanos = 0;
+        return r;
+    }
+}
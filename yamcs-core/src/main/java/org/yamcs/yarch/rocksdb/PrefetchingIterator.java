@@ -0,0 +1,201 @@
+package org.yamcs.yarch.rocksdb;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+
+import org.yamcs.yarch.YarchException;
+
+/**
+ * Iterator which reads the data of another iterator in batches, in a background thread, one batch ahead of the
+ * consumer.
+ * <p>
+ * It allows reading multiple partitions in parallel (each partition having its own prefetching iterator) and overlaps
+ * the reading of the data with its processing.
+ * <p>
+ * The underlying iterator is only accessed by one batch read at a time; the reads do not block the executor threads,
+ * so a bounded executor can be shared between any number of iterators.
+ * <p>
+ * Each batch read ahead takes a permit from a semaphore shared by all the iterators of the tablespace, which bounds the
+ * memory used by the batches in flight. If no permit is available, the next batch is read when needed in the consumer
+ * thread.
+ * <p>
+ * Both {@link #next()} and {@link #prev()} move to the next record in the direction given in the constructor.
+ */
+class PrefetchingIterator implements DbIterator {
+    static final int MAX_BATCH_SIZE = 1024;
+    static final int MAX_BATCH_BYTES = 1024 * 1024;
+
+    final DbIterator iterator;
+    final boolean ascending;
+    final Executor executor;
+    final Semaphore permits;
+
+    // the batch being read ahead; if null and the iterator is not exhausted, the next batch is read on demand
+    CompletableFuture<Batch> nextBatch;
+    boolean exhausted;
+    Batch batch;
+    int idx;
+
+    /**
+     * Starts reading the first batch of the iterator
+     *
+     * @param iterator
+     *            - the iterator to read from; it is closed when this iterator is closed
+     * @param ascending
+     *            - if true, the iterator is moved with next() otherwise with prev()
+     * @param executor
+     *            - used to read the batches
+     * @param permits
+     *            - one permit is taken for each batch read ahead and released when the batch is used
+     */
+    PrefetchingIterator(DbIterator iterator, boolean ascending, Executor executor, Semaphore permits) {
+        this.iterator = iterator;
+        this.ascending = ascending;
+        this.executor = executor;
+        this.permits = permits;
+        readAhead();
+    }
+
+    @Override
+    public boolean isValid() {
+        if (batch == null) {
+            nextBatch();
+        }
+        return idx < batch.size();
+    }
+
+    @Override
+    public void next() {
+        checkValid();
+        idx++;
+        if (idx == batch.size() && !exhausted) {
+            nextBatch();
+        }
+    }
+
+    @Override
+    public void prev() {
+        next();
+    }
+
+    @Override
+    public byte[] key() {
+        checkValid();
+        return batch.keys.get(idx);
+    }
+
+    @Override
+    public byte[] value() {
+        checkValid();
+        return batch.values.get(idx);
+    }
+
+    /**
+     * waits for the batch being read (if any) and closes the underlying iterator
+     */
+    @Override
+    public void close() {
+        if (nextBatch != null) {
+            try {
+                nextBatch.join();
+            } catch (CompletionException | CancellationException e) {
+                // ignore, we are closing anyway
+            }
+            nextBatch = null;
+            permits.release();
+        }
+        exhausted = true;
+        batch = Batch.EMPTY;
+        idx = 0;
+        iterator.close();
+    }
+
+    private void checkValid() {
+        if (!isValid()) {
+            throw new IllegalStateException("iterator is not valid");
+        }
+    }
+
+    private void nextBatch() {
+        while (true) {
+            Batch b;
+            if (nextBatch == null) {
+                b = readBatch();
+            } else {
+                try {
+                    b = nextBatch.get();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new YarchException("Interrupted while waiting for data", e);
+                } catch (ExecutionException e) {
+                    Throwable cause = e.getCause();
+                    if (cause instanceof RuntimeException) {
+                        throw (RuntimeException) cause;
+                    }
+                    throw new YarchException(cause);
+                } finally {
+                    nextBatch = null;
+                    permits.release();
+                }
+            }
+            batch = b;
+            idx = 0;
+            exhausted = b.last;
+            if (!exhausted) {
+                readAhead();
+            }
+            if (b.size() > 0 || exhausted) {
+                break;
+            }
+        }
+    }
+
+    private void readAhead() {
+        if (permits.tryAcquire()) {
+            try {
+                nextBatch = CompletableFuture.supplyAsync(this::readBatch, executor);
+            } catch (RejectedExecutionException e) {
+                // executor shut down (tablespace closing); the batch is read on demand in the consumer thread
+                permits.release();
+            }
+        }
+    }
+
+    // called in the executor thread or, if the batch has not been read ahead, in the consumer thread
+    private Batch readBatch() {
+        Batch b = new Batch();
+        int bytes = 0;
+        while (iterator.isValid() && b.size() < MAX_BATCH_SIZE && bytes < MAX_BATCH_BYTES) {
+            byte[] k = iterator.key();
+            byte[] v = iterator.value();
+            b.keys.add(k);
+            b.values.add(v);
+            bytes += k.length + v.length;
+            if (ascending) {
+                iterator.next();
+            } else {
+                iterator.prev();
+            }
+        }
+        b.last = !iterator.isValid();
+        return b;
+    }
+
+    static class Batch {
+        static final Batch EMPTY = new Batch();
+        final List<byte[]> keys = new ArrayList<>();
+        final List<byte[]> values = new ArrayList<>();
+        boolean last = true;
+
+        int size() {
+            return keys.size();
+        }
+    }
+}
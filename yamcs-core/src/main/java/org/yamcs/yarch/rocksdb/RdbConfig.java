@@ -16,6 +16,7 @@ import org.rocksdb.CompressionType;
 import org.rocksdb.DBOptions;
 import org.rocksdb.IndexType;
 import org.rocksdb.LRUCache;
+import org.rocksdb.WriteBufferManager;
 import org.rocksdb.YamcsParchiveMergeOperator;
 import org.yamcs.ConfigurationException;
 import org.yamcs.YConfiguration;
@@ -24,6 +25,12 @@ import org.yamcs.parameterarchive.ParameterArchive;
 
 /**
  * reads the rdbConfig from the yamcs.yaml and provides RocksDB Options when creating and opening databases
+ * <p>
+ * All the RocksDB databases of the server share one block cache. If a memtable budget is configured, they also share
+ * one write buffer manager; the memory used by the memtables is then charged to the block cache such that the
+ * capacity of the cache (the memory budget) limits the memory used by both, irrespective of the number of open
+ * databases. Without memtable budget, the memtables are limited only by the write buffer options of each column
+ * family.
  * 
  * singleton
  * 
@@ -38,8 +45,16 @@ public class RdbConfig {
     public static final String KEY_TABLESPACE_NAME_PATTERN = "tablespaceNamePattern";
     public static final String KEY_CF_PATTERN = "columnFamilyPattern";
     public static final String KEY_TF_CONFIG = "tableFormatConfig";
+    public static final String KEY_MEMORY_BUDGET = "memoryBudget";
+    public static final String KEY_MEMTABLE_BUDGET = "memtableBudget";
 
     public static final int DEFAULT_MAX_OPEN_FILES = 10000;
+    /**
+     * default capacity of the shared block cache
+     */
+    public static final long DEFAULT_MEMORY_BUDGET = 128L * 1024 * 1024;
+    public static final double DEFAULT_BLOOM_FILTER_BITS_PER_KEY = 10;
+    public static final double DEFAULT_MEMTABLE_PREFIX_BLOOM_SIZE_RATIO = 0.02;
 
     static final Map<String, CompressionType> COMP_TYPES = new HashMap<>();
     static {
@@ -58,6 +73,11 @@ public class RdbConfig {
     final TablespaceConfig defaultTblConfig;
     private List<TablespaceConfig> tblConfigList = new ArrayList<>();
 
+    final long memoryBudget;
+    final long memtableBudget;
+    final LRUCache blockCache;
+    final WriteBufferManager writeBufferManager;
+
     /**
      * 
      * @return the singleton instance
@@ -68,18 +88,37 @@ public class RdbConfig {
 
     private RdbConfig() {
         YConfiguration config = YConfiguration.getConfiguration("yamcs");
-        if (config.containsKey(KEY_RDB_CONFIG)) {
-            YConfiguration rdbOptions = config.getConfig(KEY_RDB_CONFIG);
-            if (rdbOptions.containsKey(KEY_TABLESPACE_CONFIG)) {
-                List<YConfiguration> tablespaceConfigs = rdbOptions.getConfigList(KEY_TABLESPACE_CONFIG);
-                for (YConfiguration tableConfig : tablespaceConfigs) {
-                    TablespaceConfig tblConf = new TablespaceConfig(tableConfig);
-                    tblConfigList.add(tblConf);
-                }
+        YConfiguration rdbOptions = config.containsKey(KEY_RDB_CONFIG) ? config.getConfig(KEY_RDB_CONFIG)
+                : YConfiguration.emptyConfig();
+
+        long memoryBudget = DEFAULT_MEMORY_BUDGET;
+        if (rdbOptions.containsKey(KEY_MEMORY_BUDGET)) {
+            memoryBudget = 1024 * rdbOptions.getLong(KEY_MEMORY_BUDGET);
+        }
+        // by default there is no global limit for the memtables
+        long memtableBudget = 0;
+        if (rdbOptions.containsKey(KEY_MEMTABLE_BUDGET)) {
+            memtableBudget = 1024 * rdbOptions.getLong(KEY_MEMTABLE_BUDGET);
+        }
+        if (memtableBudget < 0 || memtableBudget >= memoryBudget) {
+            throw new ConfigurationException(
+                    KEY_MEMTABLE_BUDGET + " (" + memtableBudget / 1024 + " KB) has to be smaller than "
+                            + KEY_MEMORY_BUDGET + " (" + memoryBudget / 1024 + " KB)");
+        }
+        this.memoryBudget = memoryBudget;
+        this.memtableBudget = memtableBudget;
+        blockCache = new LRUCache(memoryBudget);
+        writeBufferManager = memtableBudget > 0 ? new WriteBufferManager(memtableBudget, blockCache) : null;
+
+        if (rdbOptions.containsKey(KEY_TABLESPACE_CONFIG)) {
+            List<YConfiguration> tablespaceConfigs = rdbOptions.getConfigList(KEY_TABLESPACE_CONFIG);
+            for (YConfiguration tableConfig : tablespaceConfigs) {
+                TablespaceConfig tblConf = new TablespaceConfig(blockCache, writeBufferManager, tableConfig);
+                tblConfigList.add(tblConf);
             }
         }
 
-        defaultTblConfig = new TablespaceConfig();
+        defaultTblConfig = new TablespaceConfig(blockCache, writeBufferManager);
     }
 
     /**
@@ -97,6 +136,32 @@ public class RdbConfig {
         return defaultTblConfig;
     }
 
+    /**
+     * 
+     * @return the block cache shared by all the RocksDB databases
+     */
+    public Cache getBlockCache() {
+        return blockCache;
+    }
+
+    /**
+     * 
+     * @return the capacity of the shared block cache, that is the memory budget for the block cache and memtables of
+     *         all RocksDB databases
+     */
+    public long getMemoryBudget() {
+        return memoryBudget;
+    }
+
+    /**
+     * 
+     * @return the memory limit for the memtables of all RocksDB databases; when it is exceeded, the memtables are
+     *         flushed. 0 means that there is no global limit.
+     */
+    public long getMemtableBudget() {
+        return memtableBudget;
+    }
+
     public static class TablespaceConfig {
         Pattern tablespaceNamePattern;
         // these options are used for the default column family when the database is
@@ -117,9 +182,17 @@ public class RdbConfig {
 
         /**
          * default tablespace config containing default
+         * 
+         * @param writeBufferManager
+         *            the write buffer manager shared by all databases or null if the memtables are not limited
+         *            globally
          */
-        public TablespaceConfig() {
+        TablespaceConfig(LRUCache lruCache, WriteBufferManager writeBufferManager) {
+            this.lruCache = lruCache;
             dboptions = new DBOptions();
+            if (writeBufferManager != null) {
+                dboptions.setWriteBufferManager(writeBufferManager);
+            }
             dboptions.setCreateIfMissing(true);
             dboptions.setKeepLogFileNum(10);
             dboptions.setMaxOpenFiles(DEFAULT_MAX_OPEN_FILES);
@@ -131,10 +204,13 @@ public class RdbConfig {
             metadataDbCfOptions.optimizeForSmallDb();
             metadataDbCfOptions.setCompressionType(CompressionType.LZ4_COMPRESSION);
 
-            defaultCfOptions.useFixedLengthPrefixExtractor(4);
+            // all the Yarch keys (table partitions, histograms, secondary indices) start with the tbsIndex
+            defaultCfOptions.useFixedLengthPrefixExtractor(RdbStorageEngine.TBS_INDEX_SIZE);
+            defaultCfOptions.setMemtablePrefixBloomSizeRatio(DEFAULT_MEMTABLE_PREFIX_BLOOM_SIZE_RATIO);
             defaultCfOptions.setCompressionType(CompressionType.LZ4_COMPRESSION);
 
-            rtDataCfOptions.useFixedLengthPrefixExtractor(4);
+            rtDataCfOptions.useFixedLengthPrefixExtractor(RdbStorageEngine.TBS_INDEX_SIZE);
+            rtDataCfOptions.setMemtablePrefixBloomSizeRatio(DEFAULT_MEMTABLE_PREFIX_BLOOM_SIZE_RATIO);
             rtDataCfOptions.setCompressionType(CompressionType.LZ4_COMPRESSION);
             rtDataCfOptions.setBottommostCompressionType(CompressionType.ZSTD_COMPRESSION);
             rtDataCfOptions.setMaxWriteBufferNumber(4);
@@ -142,7 +218,7 @@ public class RdbConfig {
             rtDataCfOptions.setLevel0SlowdownWritesTrigger(50);
             rtDataCfOptions.setLevel0StopWritesTrigger(100);
 
-            parchiveCfOptions.useFixedLengthPrefixExtractor(4);
+            parchiveCfOptions.useFixedLengthPrefixExtractor(RdbStorageEngine.TBS_INDEX_SIZE);
             parchiveCfOptions.setCompressionType(CompressionType.LZ4_COMPRESSION);
             parchiveCfOptions.setTargetFileSizeMultiplier(2);
             parchiveCfOptions.setMaxWriteBufferNumber(4);
@@ -154,8 +230,8 @@ public class RdbConfig {
             tableFormatConfig = new BlockBasedTableConfig();
             tableFormatConfig.setBlockSize(256l * 1024);
             tableFormatConfig.setFormatVersion(5);
-            tableFormatConfig.setFilterPolicy(new BloomFilter());
-            lruCache = new LRUCache(64 * 1024 * 1024);
+            tableFormatConfig.setFilterPolicy(new BloomFilter(DEFAULT_BLOOM_FILTER_BITS_PER_KEY));
+            tableFormatConfig.setWholeKeyFiltering(true);
             tableFormatConfig.setBlockCache(lruCache);
 
             tableFormatConfig.setIndexType(IndexType.kTwoLevelIndexSearch);
@@ -172,8 +248,9 @@ public class RdbConfig {
 
         }
 
-        TablespaceConfig(YConfiguration tblspConfig) throws ConfigurationException {
-            this();
+        TablespaceConfig(LRUCache lruCache, WriteBufferManager writeBufferManager, YConfiguration tblspConfig)
+                throws ConfigurationException {
+            this(lruCache, writeBufferManager);
             String s = tblspConfig.getString(KEY_TABLESPACE_NAME_PATTERN);
             try {
                 tablespaceNamePattern = Pattern.compile(s);
@@ -242,7 +319,7 @@ public class RdbConfig {
                 throw new ConfigurationException("Cannot parse regexp " + e);
             }
             options = new ColumnFamilyOptions();
-            options.useFixedLengthPrefixExtractor(4);
+            options.useFixedLengthPrefixExtractor(RdbStorageEngine.TBS_INDEX_SIZE);
 
             if (cfConfig.containsKey("numLevels")) {
                 options.setNumLevels(cfConfig.getInt("numLevels"));
@@ -294,16 +371,32 @@ public class RdbConfig {
                         getCompressionType(cfConfig.getString("bottommostCompressionType")));
             }
 
+            if (cfConfig.containsKey("memtablePrefixBloomSizeRatio")) {
+                options.setMemtablePrefixBloomSizeRatio(cfConfig.getDouble("memtablePrefixBloomSizeRatio"));
+            }
+
+            // like the default table format config, a user supplied one uses the shared block cache (unless
+            // noBlockCache is set) and a bloom filter (unless bloomFilterBitsPerKey is set to 0)
             if (cfConfig.containsKey(KEY_TF_CONFIG)) {
                 YConfiguration tfc = cfConfig.getConfig(KEY_TF_CONFIG);
                 BlockBasedTableConfig tableFormatConfig = new BlockBasedTableConfig();
+                tableFormatConfig.setFormatVersion(5);
                 if (tfc.containsKey("blockSize")) {
                     tableFormatConfig.setBlockSize(1024L * tfc.getLong("blockSize"));
                 }
 
-                if (tfc.containsKey("noBlockCache")) {
-                    tableFormatConfig.setNoBlockCache(tfc.getBoolean("noBlockCache"));
+                if (tfc.getBoolean("noBlockCache", false)) {
+                    tableFormatConfig.setNoBlockCache(true);
+                } else {
+                    tableFormatConfig.setBlockCache(lruCache);
+                }
+
+                // the bloom filter contains the tbsIndex prefixes and, if wholeKeyFiltering is enabled, the full keys
+                double bitsPerKey = tfc.getDouble("bloomFilterBitsPerKey", DEFAULT_BLOOM_FILTER_BITS_PER_KEY);
+                if (bitsPerKey > 0) {
+                    tableFormatConfig.setFilterPolicy(new BloomFilter(bitsPerKey));
                 }
+                tableFormatConfig.setWholeKeyFiltering(tfc.getBoolean("wholeKeyFiltering", true));
 
                 boolean partitionedIndex = tfc.getBoolean("partitionedIndex", true);
                 tableFormatConfig
@@ -356,9 +356,10 @@ public class RdbStorageEngine implements StorageEngine {
      * the producer will provide statistics with the memory usage
      */
     public RocksdbSysParamProducer newRdbParameterProducer(String yamcsInstance, SystemParametersService sps) {
-        var tablespace = getTablespace(YarchDatabase.getInstance(yamcsInstance));
+        var ydb = YarchDatabase.getInstance(yamcsInstance);
+        var tablespace = getTablespace(ydb);
 
-        return new RocksdbSysParamProducer(tablespace, sps);
+        return new RocksdbSysParamProducer(ydb, tablespace, sps);
     }
 
 }
@@ -26,6 +26,7 @@ public class RdbTable extends Table {
     // column family name
     final String cfName;
     SecondaryIndexWriter indexWriter;
+    final GroupCommitStats groupCommitStats = new GroupCommitStats();
 
     public RdbTable(String yamcsInstance, Tablespace tablespace, TableDefinition tblDef, int tbsIndex, String cfName) {
         super(tblDef);
@@ -81,4 +82,11 @@ public class RdbTable extends Table {
         return cfName;
     }
 
+    /**
+     * @return the statistics of the batches written in the table if the group commit is enabled
+     */
+    public GroupCommitStats getGroupCommitStats() {
+        return groupCommitStats;
+    }
+
 }
@@ -31,8 +31,12 @@ public class RdbTableWalker extends AbstractTableWalker {
     private final RdbTable table;
     static AtomicInteger count = new AtomicInteger(0);
 
+    static final long PREFETCH_READAHEAD_SIZE = 2 * 1024 * 1024;
+
     boolean batchUpdates = false;
     protected TableVisitor visitor;
+    // the reader of the next interval when prefetching
+    private IntervalReader prefetched;
 
     protected RdbTableWalker(ExecutionContext ctx, TableDefinition tableDefinition,
             boolean ascending, boolean follow) {
@@ -74,77 +78,55 @@ public class RdbTableWalker extends AbstractTableWalker {
      */
     private boolean doWalkInterval(PartitionManager.Interval interval, DbRange tableRange)
             throws RocksDBException, StreamSqlException {
-        DbIterator iterator = null;
-
-        RdbPartition p1 = (RdbPartition) interval.iterator().next();
-        final YRDB rdb;
-        if (p1.dir != null) {
-            log.debug("opening database {}", p1.dir);
-            rdb = tablespace.getRdb(p1.dir, false);
+        IntervalReader reader;
+        if (prefetched != null && prefetched.interval == interval) {
+            reader = prefetched;
+            prefetched = null;
         } else {
-            rdb = tablespace.getRdb();
-        }
-        ReadOptions readOptions = new ReadOptions();
-
-        readOptions.setTailing(follow);
-        if (!follow) {
-            Snapshot snapshot = ctx.getSnapshot(rdb);
-            readOptions.setSnapshot(snapshot);
+            reader = new IntervalReader(interval, tableRange);
         }
         WriteBatch writeBatch = batchUpdates ? new WriteBatch() : null;
-        var cfh = rdb.getColumnFamilyHandle(table.cfName());
-
         try {
-            List<DbIterator> itList = new ArrayList<>(interval.size());
-            // create an iterator for each partitions
-            for (Partition p : interval) {
-                p1 = (RdbPartition) p;
-                if (!ascending) {
-                    readOptions.setTotalOrderSeek(true);
-                }
-                RocksIterator rocksIt = rdb.getDb().newIterator(cfh, readOptions);
-                DbIterator it = getPartitionIterator(rocksIt, p1.tbsIndex, ascending, tableRange);
-                if (it.isValid()) {
-                    itList.add(it);
-                } else {
-                    it.close();
-                }
-            }
-
-            if (itList.size() == 0) {
+            DbIterator iterator = reader.getIterator();
+            if (iterator == null) {
                 return false;
-            } else if (itList.size() == 1) {
-                iterator = itList.get(0);
-            } else {
-                iterator = new MergingIterator(itList,
-                        ascending ? new SuffixAscendingComparator(4) : new SuffixDescendingComparator(4));
             }
             boolean endReached;
             if (ascending) {
-                endReached = runAscending(rdb, cfh, iterator, writeBatch, tableRange.rangeEnd);
+                endReached = runAscending(reader.rdb, reader.cfh, iterator, writeBatch, tableRange.rangeEnd);
             } else {
-                endReached = runDescending(rdb, cfh, iterator, writeBatch, tableRange.rangeStart);
+                endReached = runDescending(reader.rdb, reader.cfh, iterator, writeBatch, tableRange.rangeStart);
             }
             if (writeBatch != null) {
                 WriteOptions wo = new WriteOptions();
-                rdb.getDb().write(wo, writeBatch);
+                reader.rdb.getDb().write(wo, writeBatch);
                 wo.close();
             }
             return endReached;
         } finally {
-            if (iterator != null) {
-                iterator.close();
-            }
-            readOptions.close();
-
-            tablespace.dispose(rdb);
-
+            reader.close();
             if (writeBatch != null) {
                 writeBatch.close();
             }
         }
     }
 
+    @Override
+    protected void prefetchInterval(PartitionManager.Interval interval, DbRange tableRange) {
+        if (prefetched != null) {
+            prefetched.close();
+        }
+        prefetched = new IntervalReader(interval, tableRange);
+    }
+
+    @Override
+    protected void walkFinished() {
+        if (prefetched != null) {
+            prefetched.close();
+            prefetched = null;
+        }
+    }
+
     // return true if the end condition has been reached
     boolean runAscending(YRDB rdb, ColumnFamilyHandle cfh, DbIterator iterator, WriteBatch writeBatch, byte[] rangeEnd)
             throws RocksDBException, StreamSqlException {
@@ -269,6 +251,92 @@ public class RdbTableWalker extends AbstractTableWalker {
         this.batchUpdates = batchUpdates;
     }
 
+    /**
+     * Holds the database, the read options and the iterators used to read the partitions of one interval.
+     * <p>
+     * If prefetching is enabled, the iterators of the partitions start reading the data as soon as the object is
+     * created.
+     */
+    class IntervalReader {
+        final PartitionManager.Interval interval;
+        final YRDB rdb;
+        final ColumnFamilyHandle cfh;
+        final ReadOptions readOptions;
+        final List<DbIterator> itList;
+        DbIterator iterator;
+
+        IntervalReader(PartitionManager.Interval interval, DbRange tableRange) {
+            this.interval = interval;
+            RdbPartition p1 = (RdbPartition) interval.iterator().next();
+            if (p1.dir != null) {
+                log.debug("opening database {}", p1.dir);
+                rdb = tablespace.getRdb(p1.dir, false);
+            } else {
+                rdb = tablespace.getRdb();
+            }
+            readOptions = new ReadOptions();
+            readOptions.setTailing(follow);
+            if (!follow) {
+                Snapshot snapshot = ctx.getSnapshot(rdb);
+                readOptions.setSnapshot(snapshot);
+            }
+            if (!ascending) {
+                readOptions.setTotalOrderSeek(true);
+            }
+            if (prefetch) {
+                readOptions.setReadaheadSize(PREFETCH_READAHEAD_SIZE);
+            }
+            cfh = rdb.getColumnFamilyHandle(table.cfName());
+
+            itList = new ArrayList<>(interval.size());
+            // create an iterator for each partitions
+            for (Partition p : interval) {
+                RocksIterator rocksIt = rdb.getDb().newIterator(cfh, readOptions);
+                DbIterator it = getPartitionIterator(rocksIt, ((RdbPartition) p).tbsIndex, ascending, tableRange);
+                if (prefetch) {
+                    it = new PrefetchingIterator(it, ascending, tablespace.getPrefetchExecutor(),
+                            tablespace.getPrefetchPermits());
+                }
+                itList.add(it);
+            }
+        }
+
+        /**
+         * returns the iterator merging the data of all partitions or null if there is no data in the interval
+         */
+        DbIterator getIterator() {
+            List<DbIterator> validList = new ArrayList<>(itList.size());
+            for (DbIterator it : itList) {
+                if (it.isValid()) {
+                    validList.add(it);
+                } else {
+                    it.close();
+                }
+            }
+            itList.clear();
+            if (validList.size() == 0) {
+                iterator = null;
+            } else if (validList.size() == 1) {
+                iterator = validList.get(0);
+            } else {
+                iterator = new MergingIterator(validList,
+                        ascending ? new SuffixAscendingComparator(4) : new SuffixDescendingComparator(4));
+            }
+            return iterator;
+        }
+
+        void close() {
+            for (DbIterator it : itList) {
+                it.close();
+            }
+            if (iterator != null) {
+                iterator.close();
+            }
+            readOptions.close();
+            tablespace.dispose(rdb);
+        }
+    }
+
     class RdbRawTuple extends RawTuple {
         RocksIterator iterator;
         byte[] partition;
@@ -3,8 +3,16 @@ package org.yamcs.yarch.rocksdb;
 import static org.yamcs.yarch.rocksdb.RdbStorageEngine.dbKey;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 
 import org.rocksdb.ColumnFamilyHandle;
 import org.rocksdb.RocksDBException;
@@ -12,6 +20,7 @@ import org.rocksdb.WriteBatch;
 import org.rocksdb.WriteOptions;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.yamcs.YConfiguration;
 import org.yamcs.YamcsServer;
 import org.yamcs.utils.TimeEncoding;
 import org.yamcs.yarch.ColumnDefinition;
@@ -39,6 +48,12 @@ import static org.yamcs.yarch.rocksdb.RdbStorageEngine.TBS_INDEX_SIZE;;
  * 
  * <p>
  * The histograms are written by the {@link HistogramWriter}.
+ * <p>
+ * If the group commit is enabled for the table in the tableConfig instance option, the records inserted with the
+ * INSERT, UPSERT or LOAD modes are collected into one {@link WriteBatch} per partition and written together when the
+ * maximum batch size is reached, when the maximum delay expires or at the end of each list of tuples received via
+ * {@link #onTuples(Stream, List)}. The histograms and the secondary index are updated together with the batch. The
+ * existing records are looked up with one multi get per partition when the batch is written.
  *
  * 
  * @author nm
@@ -59,6 +74,17 @@ public class RdbTableWriter extends TableWriter {
     final SecondaryIndexWriter secondaryIndexWriter;
     TableDefinition tableDefinition;
 
+    // group commit, disabled if maxBatchSize is 0
+    int maxBatchSize;
+    long maxBatchDelay;
+    final Map<RdbPartition, PartitionBatch> batches = new HashMap<>();
+    // used when the partitions are not stored in the main tablespace database
+    WriteBatch indexBatch;
+    // the rows which have to be added to the histograms after the batch is written
+    final List<Row> histoRows = new ArrayList<>();
+    int batchCount;
+    ScheduledFuture<?> commitFuture;
+
     public RdbTableWriter(YarchDatabaseInstance ydb, RdbTable table, InsertMode mode) {
         super(ydb, table, mode);
         this.tableDefinition = table.getDefinition();
@@ -74,6 +100,17 @@ public class RdbTableWriter extends TableWriter {
         }
         histoWriter = table.getHistogramWriter();
         secondaryIndexWriter = table.getSecondaryIndexWriter();
+
+        YConfiguration tableConfig = ydb.getTableConfig(table.getName());
+        if (tableConfig != null && tableConfig.containsKey("groupCommit")) {
+            if (mode == InsertMode.INSERT_APPEND || mode == InsertMode.UPSERT_APPEND) {
+                log.debug("Group commit not supported for {} in {} mode", table.getName(), mode);
+            } else {
+                YConfiguration gcConfig = tableConfig.getConfig("groupCommit");
+                maxBatchSize = gcConfig.getInt("maxBatchSize", 1000);
+                maxBatchDelay = gcConfig.getInt("maxDelay", 100);
+            }
+        }
     }
 
     @Override
@@ -92,6 +129,12 @@ public class RdbTableWriter extends TableWriter {
         if (closed) {
             return;
         }
+        if (maxBatchSize > 0) {
+            synchronized (this) {
+                addToBatch(t);
+            }
+            return;
+        }
         try {
             RdbPartition partition = getDbPartition(t);
             YRDB rdb = tablespace.getRdb(partition.dir, false);
@@ -122,6 +165,183 @@ public class RdbTableWriter extends TableWriter {
         }
     }
 
+    @Override
+    public void onTuples(Stream stream, List<Tuple> tuples) {
+        if (maxBatchSize == 0) {
+            super.onTuples(stream, tuples);
+            return;
+        }
+        if (closed) {
+            return;
+        }
+        // the tuples are received in a list when the stream delivers them asynchronously; there is no reason to wait
+        // for more after the end of the list
+        synchronized (this) {
+            for (Tuple t : tuples) {
+                addToBatch(t);
+            }
+            commit();
+        }
+    }
+
+    private void addToBatch(Tuple t) {
+        try {
+            RdbPartition partition = getDbPartition(t);
+            PartitionBatch pb = batches.get(partition);
+            if (pb == null) {
+                YRDB rdb = tablespace.getRdb(partition.dir, false);
+                // the rdb is released by the commit only if the batch has been added
+                boolean added = false;
+                try {
+                    pb = new PartitionBatch(rdb, rdb.createAndGetColumnFamilyHandle(table.cfName()));
+                    batches.put(partition, pb);
+                    added = true;
+                } finally {
+                    if (!added) {
+                        tablespace.dispose(rdb);
+                    }
+                }
+            }
+            Row row = tableDefinition.generateRow(t);
+            byte[] k = dbKey(partition.tbsIndex, row.getKey());
+            // the keys of the batch are not yet in the database, the others are checked by the commit
+            boolean first = pb.keys.add(ByteBuffer.wrap(k));
+            if (!first && mode == InsertMode.INSERT) {
+                return;
+            }
+            byte[] v = tableDefinition.serializeValue(t, row);
+            if (mode == InsertMode.LOAD) {
+                pb.writeBatch.put(pb.cfh, k, v);
+            } else {
+                pb.records.add(new BatchRecord(k, v, row, first));
+            }
+            batchCount++;
+            if (batchCount >= maxBatchSize) {
+                commit();
+            } else if (commitFuture == null) {
+                commitFuture = YamcsServer.getServer().getThreadPoolExecutor().schedule(this::timedCommit,
+                        maxBatchDelay, TimeUnit.MILLISECONDS);
+            }
+        } catch (IOException | RocksDBException | YarchException e) {
+            log.error("failed to insert a record: ", e);
+            YamcsServer.getServer().getCrashHandler(ydb.getYamcsInstance()).handleCrash("Archive",
+                    "failed to insert a record in " + table.getName() + ": " + e);
+        }
+    }
+
+    /**
+     * returns the future of the scheduled commit or null if no commit is scheduled
+     */
+    synchronized ScheduledFuture<?> getCommitFuture() {
+        return commitFuture;
+    }
+
+    // same as writeToDb but collecting into the batches
+    private void addToIndexBatch(PartitionBatch pb, RdbPartition partition, byte[] key, byte[] value, Row row)
+            throws RocksDBException {
+        if (pb.rdb == tablespace.getRdb()) {
+            secondaryIndexWriter.addTuple(pb.writeBatch, row, partition);
+        } else {
+            if (indexBatch == null) {
+                indexBatch = new WriteBatch();
+            }
+            var cfh = tablespace.getRdb().getColumnFamilyHandle(table.cfName());
+            indexBatch.put(cfh, key, value);
+            secondaryIndexWriter.addTuple(indexBatch, row, partition);
+        }
+    }
+
+    private synchronized void timedCommit() {
+        commitFuture = null;
+        commit();
+    }
+
+    /**
+     * writes the collected batches to the database and updates the histograms
+     */
+    private synchronized void commit() {
+        if (commitFuture != null) {
+            commitFuture.cancel(false);
+            commitFuture = null;
+        }
+        if (batches.isEmpty()) {
+            return;
+        }
+        try {
+            long t0 = System.nanoTime();
+            int written = batchCount;
+            for (Map.Entry<RdbPartition, PartitionBatch> me : batches.entrySet()) {
+                written -= addRecords(me.getKey(), me.getValue());
+            }
+            for (PartitionBatch pb : batches.values()) {
+                if (pb.writeBatch.count() > 0) {
+                    pb.rdb.write(wopt, pb.writeBatch);
+                }
+            }
+            if (indexBatch != null) {
+                tablespace.getRdb().write(wopt, indexBatch);
+            }
+            table.getGroupCommitStats().addCommit(written, System.nanoTime() - t0);
+
+            for (Row row : histoRows) {
+                histoWriter.addHistogram(row);
+            }
+        } catch (IOException | RocksDBException e) {
+            log.error("failed to write a batch of {} records: ", batchCount, e);
+            YamcsServer.getServer().getCrashHandler(ydb.getYamcsInstance()).handleCrash("Archive",
+                    "failed to write a batch of records in " + table.getName() + ": " + e);
+        } finally {
+            for (PartitionBatch pb : batches.values()) {
+                pb.writeBatch.close();
+                tablespace.dispose(pb.rdb);
+            }
+            batches.clear();
+            if (indexBatch != null) {
+                indexBatch.close();
+                indexBatch = null;
+            }
+            histoRows.clear();
+            batchCount = 0;
+        }
+    }
+
+    /**
+     * Checks with one read which of the records of the batch already exist in the database and adds them to the write
+     * batch, the secondary index batch and the histograms according to the insert mode.
+     * 
+     * @return the number of records skipped because they already exist
+     */
+    private int addRecords(RdbPartition partition, PartitionBatch pb) throws RocksDBException {
+        if (pb.records.isEmpty()) {
+            return 0;
+        }
+        List<byte[]> keys = new ArrayList<>();
+        for (BatchRecord r : pb.records) {
+            if (r.first) {
+                keys.add(r.key);
+            }
+        }
+        List<byte[]> existing = pb.rdb.multiGet(pb.cfh, keys);
+        int skipped = 0;
+        int i = 0;
+        for (BatchRecord r : pb.records) {
+            // the records with the same key as a previous one of the batch update it
+            boolean exists = !r.first || existing.get(i++) != null;
+            if (exists && mode == InsertMode.INSERT) {
+                skipped++;
+                continue;
+            }
+            pb.writeBatch.put(pb.cfh, r.key, r.value);
+            if (secondaryIndexWriter != null) {
+                addToIndexBatch(pb, partition, r.key, r.value, r.row);
+            }
+            if (histoWriter != null && !exists) {
+                histoRows.add(r.row);
+            }
+        }
+        return skipped;
+    }
+
     private boolean load(YRDB db, ColumnFamilyHandle cfh, RdbPartition partition, Tuple t)
             throws RocksDBException, YarchException {
         Row row = tableDefinition.generateRow(t);
@@ -323,6 +543,9 @@ public class RdbTableWriter extends TableWriter {
             return;
         }
         closed = true;
+        if (maxBatchSize > 0) {
+            commit();
+        }
     }
 
     @Override
@@ -330,4 +553,27 @@ public class RdbTableWriter extends TableWriter {
         log.debug("Stream {} closed", stream.getName());
         close();
     }
+
+    /**
+     * The records of one partition collected for the group commit
+     */
+    static class PartitionBatch {
+        final YRDB rdb;
+        final ColumnFamilyHandle cfh;
+        final WriteBatch writeBatch = new WriteBatch();
+        final Set<ByteBuffer> keys = new HashSet<>();
+        // the INSERT and UPSERT records, added to the writeBatch by the commit
+        final List<BatchRecord> records = new ArrayList<>();
+
+        PartitionBatch(YRDB rdb, ColumnFamilyHandle cfh) {
+            this.rdb = rdb;
+            this.cfh = cfh;
+        }
+    }
+
+    /**
+     * first is false if a previous record of the batch has the same key
+     */
+    record BatchRecord(byte[] key, byte[] value, Row row, boolean first) {
+    }
 }
@@ -1,10 +1,13 @@
 package org.yamcs.yarch.rocksdb;
 
+import static org.yamcs.utils.ValueUtility.getUint32Value;
 import static org.yamcs.utils.ValueUtility.getUint64Value;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import org.yamcs.parameter.AggregateValue;
 import org.yamcs.parameter.ParameterValue;
@@ -15,28 +18,50 @@ import org.yamcs.xtce.AggregateParameterType;
 import org.yamcs.xtce.Member;
 import org.yamcs.xtce.Parameter;
 import org.yamcs.xtce.UnitType;
+import org.yamcs.yarch.TableDefinition;
+import org.yamcs.yarch.YarchDatabaseInstance;
 
 /**
  * Makes system parameters under /yamcs/{instance-id}/rocksdb/
  * <p>
- * One parameter for each open RocksDB database, containing statistics about the database
- * 
+ * One parameter for the tablespace, containing the memory used by its open RocksDB databases and by the block cache
+ * shared between all the databases of the server
+ * <p>
+ * One parameter for each column family, containing the memory used by the column family in the open databases of the
+ * tablespace
+ * <p>
+ * One parameter for each table configured with group commit, containing statistics about the written batches
  */
 public class RocksdbSysParamProducer implements SystemParametersProducer {
 
     private AggregateParameterType rocksdbMemUsageAggrType;
     private Parameter rocksdbMemUsageParam;
 
+    private AggregateParameterType cfMemUsageAggrType;
+    private final Map<String, Parameter> cfMemUsageParams = new HashMap<>();
+
+    private AggregateParameterType groupCommitAggrType;
+    private final List<TableParam> groupCommitParams = new ArrayList<>();
+
     final Tablespace tablespace;
+    final YarchDatabaseInstance ydb;
+    final SystemParametersService sysParamsService;
 
-    public RocksdbSysParamProducer(Tablespace tablespace, SystemParametersService sysParamsService) {
+    public RocksdbSysParamProducer(YarchDatabaseInstance ydb, Tablespace tablespace,
+            SystemParametersService sysParamsService) {
         this.tablespace = tablespace;
+        this.ydb = ydb;
+        this.sysParamsService = sysParamsService;
 
         UnitType kbunit = new UnitType("KB");
 
         Member blockCacheMemoryUsageMember = new Member("blockCache",
                 sysParamsService.getBasicType(Type.UINT64, kbunit));
-        blockCacheMemoryUsageMember.setShortDescription("The amount of memory used by the block cache");
+        blockCacheMemoryUsageMember.setShortDescription("The amount of memory used by the block cache shared by all "
+                + "the RocksDB databases of the server, including the memory reserved for the memtables");
+
+        Member budgetMember = new Member("budget", sysParamsService.getBasicType(Type.UINT64, kbunit));
+        budgetMember.setShortDescription("The capacity of the shared block cache");
 
         Member indexMemoryUsageeMember = new Member("index",
                 sysParamsService.getBasicType(Type.UINT64, kbunit));
@@ -55,12 +80,52 @@ public class RocksdbSysParamProducer implements SystemParametersProducer {
                 .addMember(indexMemoryUsageeMember)
                 .addMember(memtableMemoryUsageMember)
                 .addMember(pinnedBlocksMemoryUsageMember)
+                .addMember(budgetMember)
                 .build();
 
         rocksdbMemUsageParam = sysParamsService.createSystemParameter("rocksdb/memoryUsage",
                 rocksdbMemUsageAggrType,
                 "Memory usage for RocksDB databases associated to tablespace " + tablespace.getName());
 
+        Member cfIndexMemoryUsageMember = new Member("index", sysParamsService.getBasicType(Type.UINT64, kbunit));
+        cfIndexMemoryUsageMember.setShortDescription("The amount of memory used by the indexes and bloom filters");
+        Member cfMemtableMemoryUsageMember = new Member("memtable",
+                sysParamsService.getBasicType(Type.UINT64, kbunit));
+        cfMemtableMemoryUsageMember.setShortDescription("The amount of memory used by the memtables");
+        cfMemUsageAggrType = new AggregateParameterType.Builder().setName("CfMemoryUsage")
+                .addMember(cfIndexMemoryUsageMember)
+                .addMember(cfMemtableMemoryUsageMember)
+                .build();
+
+        Member commitsMember = new Member("commits", sysParamsService.getBasicType(Type.UINT64));
+        commitsMember.setShortDescription("The number of batches written");
+
+        Member recordsMember = new Member("records", sysParamsService.getBasicType(Type.UINT64));
+        recordsMember.setShortDescription("The number of records written in batches");
+
+        Member maxBatchSizeMember = new Member("maxBatchSize", sysParamsService.getBasicType(Type.UINT32));
+        maxBatchSizeMember.setShortDescription("The largest number of records written in one batch since the last "
+                + "update of the parameter");
+
+        Member maxCommitLatencyMember = new Member("maxCommitLatency",
+                sysParamsService.getBasicType(Type.UINT64, new UnitType("us")));
+        maxCommitLatencyMember.setShortDescription("The longest time taken to write one batch since the last "
+                + "update of the parameter");
+
+        groupCommitAggrType = new AggregateParameterType.Builder().setName("GroupCommit")
+                .addMember(commitsMember)
+                .addMember(recordsMember)
+                .addMember(maxBatchSizeMember)
+                .addMember(maxCommitLatencyMember)
+                .build();
+
+        for (String tableName : ydb.getConfiguredTableNames()) {
+            if (ydb.getTableConfig(tableName).containsKey("groupCommit")) {
+                Parameter p = sysParamsService.createSystemParameter("rocksdb/groupCommit/" + tableName,
+                        groupCommitAggrType, "Group commit statistics for the table " + tableName);
+                groupCommitParams.add(new TableParam(tableName, p));
+            }
+        }
     }
 
     @Override
@@ -74,6 +139,7 @@ public class RocksdbSysParamProducer implements SystemParametersProducer {
         v.setMemberValue("index", getUint64Value(m.indexMemoryUsage / 1024));
         v.setMemberValue("memtable", getUint64Value(m.memtableMemoryUsage / 1024));
         v.setMemberValue("pinnedBlocks", getUint64Value(m.pinnedBlocksMemoryUsage / 1024));
+        v.setMemberValue("budget", getUint64Value(RdbConfig.getInstance().getMemoryBudget() / 1024));
 
         ParameterValue pv = new ParameterValue(rocksdbMemUsageParam);
         pv.setGenerationTime(gentime);
@@ -82,6 +148,45 @@ public class RocksdbSysParamProducer implements SystemParametersProducer {
 
         pv.setExpireMillis((long) (1.9 * getFrequency() * 1000));
         pvlist.add(pv);
+
+        for (var entry : m.cfMemoryUsage.entrySet()) {
+            // the column families are created together with the tables so the parameters are created on demand
+            Parameter p = cfMemUsageParams.computeIfAbsent(entry.getKey(),
+                    cfName -> sysParamsService.createSystemParameter("rocksdb/memoryUsage/" + cfName,
+                            cfMemUsageAggrType, "Memory usage for the column family " + cfName
+                                    + " in the RocksDB databases associated to tablespace " + tablespace.getName()));
+            AggregateValue cfv = new AggregateValue(cfMemUsageAggrType.getMemberNames());
+            cfv.setMemberValue("index", getUint64Value(entry.getValue().indexMemoryUsage / 1024));
+            cfv.setMemberValue("memtable", getUint64Value(entry.getValue().memtableMemoryUsage / 1024));
+
+            ParameterValue cfpv = new ParameterValue(p);
+            cfpv.setGenerationTime(gentime);
+            cfpv.setAcquisitionTime(gentime);
+            cfpv.setEngValue(cfv);
+            cfpv.setExpireMillis((long) (1.9 * getFrequency() * 1000));
+            pvlist.add(cfpv);
+        }
+
+        for (TableParam tp : groupCommitParams) {
+            TableDefinition tblDef = ydb.getTable(tp.tableName);
+            RdbTable table = tblDef == null ? null : tablespace.getTable(tblDef);
+            if (table == null) { // not yet created
+                continue;
+            }
+            GroupCommitStats stats = table.getGroupCommitStats();
+            AggregateValue gcv = new AggregateValue(groupCommitAggrType.getMemberNames());
+            gcv.setMemberValue("commits", getUint64Value(stats.getCommitCount()));
+            gcv.setMemberValue("records", getUint64Value(stats.getRecordCount()));
+            gcv.setMemberValue("maxBatchSize", getUint32Value(stats.getAndResetMaxBatchSize()));
+            gcv.setMemberValue("maxCommitLatency", getUint64Value(stats.getAndResetMaxCommitLatency() / 1000));
+
+            ParameterValue gcpv = new ParameterValue(tp.param);
+            gcpv.setGenerationTime(gentime);
+            gcpv.setAcquisitionTime(gentime);
+            gcpv.setEngValue(gcv);
+            gcpv.setExpireMillis((long) (1.9 * getFrequency() * 1000));
+            pvlist.add(gcpv);
+        }
         return pvlist;
     }
 
@@ -89,4 +194,7 @@ public class RocksdbSysParamProducer implements SystemParametersProducer {
     public int getFrequency() {
         return 5;
     }
+
+    record TableParam(String tableName, Parameter param) {
+    }
 }
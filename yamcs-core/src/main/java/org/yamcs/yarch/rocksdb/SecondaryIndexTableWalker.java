@@ -7,9 +7,11 @@ import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
 import java.util.List;
 
+import org.rocksdb.ColumnFamilyHandle;
 import org.rocksdb.ReadOptions;
 import org.rocksdb.RocksDBException;
 import org.rocksdb.RocksIterator;
+import org.rocksdb.Slice;
 import org.rocksdb.WriteBatch;
 import org.rocksdb.WriteOptions;
 import org.yamcs.utils.ByteArrayUtils;
@@ -116,8 +118,21 @@ public class SecondaryIndexTableWalker implements TableWalker {
         YRDB rdb = tablespace.getRdb();
         var cfh = rdb.getColumnFamilyHandle(table.cfName());
 
+        // the index range is within one tbsIndex so RocksDB can use the prefix bloom filters to skip the files not
+        // containing the index
         try (ReadOptions readOptions = new ReadOptions();
-                RocksIterator rocksIt = rdb.getDb().newIterator(cfh, readOptions);
+                Slice upperBound = YRDB.upperBound(dbRange.rangeEnd)) {
+            if (upperBound != null) {
+                readOptions.setIterateUpperBound(upperBound);
+                readOptions.setAutoPrefixMode(true);
+            }
+            walkIndex(rdb, cfh, readOptions, dbRange);
+        }
+    }
+
+    private void walkIndex(YRDB rdb, ColumnFamilyHandle cfh, ReadOptions readOptions, DbRange dbRange)
+            throws StreamSqlException {
+        try (RocksIterator rocksIt = rdb.getDb().newIterator(cfh, readOptions);
                 AscendingRangeIterator it = new AscendingRangeIterator(rocksIt, dbRange);
                 WriteBatch writeBatch = batchUpdates ? new WriteBatch() : null;) {
             while (isRunning() && it.isValid()) {
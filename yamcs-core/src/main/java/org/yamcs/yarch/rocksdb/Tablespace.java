@@ -13,7 +13,12 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.WeakHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
@@ -125,7 +130,14 @@ public class Tablespace {
     static final Object DUMMY = new Object();
 
     Map<TableWalker, Object> walkers = Collections.synchronizedMap(new WeakHashMap<TableWalker, Object>());
-    final ScheduledThreadPoolExecutor executor;
+    // shut down when the tablespace is closed and created again if the database is loaded again
+    ScheduledThreadPoolExecutor executor;
+    // used by the table walkers to read the partitions in parallel; recreated like the executor above
+    ThreadPoolExecutor prefetchExecutor;
+    // bounds the memory used by the batches read ahead by the table walkers (each batch is at most
+    // PrefetchingIterator.MAX_BATCH_BYTES)
+    static final int MAX_PREFETCH_BATCHES = 64;
+    final Semaphore prefetchPermits = new Semaphore(MAX_PREFETCH_BATCHES);
 
     Map<TableDefinition, List<RdbTableWriter>> tableWriters = new HashMap<>();
 
@@ -135,12 +147,32 @@ public class Tablespace {
         log = new Log(Tablespace.class);
         log.setContext(name);
         this.name = name;
-        this.executor = new ScheduledThreadPoolExecutor(1,
+        this.executor = newExecutor();
+        this.prefetchExecutor = newPrefetchExecutor();
+    }
+
+    private ScheduledThreadPoolExecutor newExecutor() {
+        return new ScheduledThreadPoolExecutor(1,
                 new ThreadFactoryBuilder().setNameFormat("Tablespace-" + name).build());
     }
 
+    private ThreadPoolExecutor newPrefetchExecutor() {
+        int n = Runtime.getRuntime().availableProcessors();
+        ThreadPoolExecutor e = new ThreadPoolExecutor(n, n, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+                new ThreadFactoryBuilder().setNameFormat("Tablespace-" + name + "-prefetch-%d").setDaemon(true)
+                        .build());
+        e.allowCoreThreadTimeOut(true);
+        return e;
+    }
+
     public void loadDb(boolean readonly) throws IOException {
         String dbDir = getDataDir();
+        if (executor.isShutdown()) {
+            executor = newExecutor();
+        }
+        if (prefetchExecutor.isShutdown()) {
+            prefetchExecutor = newPrefetchExecutor();
+        }
         rdbFactory = new RDBFactory(dbDir, executor);
         File f = new File(dbDir, "CURRENT");
         try {
@@ -724,6 +756,8 @@ public class Tablespace {
             sequences.clear();
         }
         rdbFactory.shutdown();
+        executor.shutdown();
+        prefetchExecutor.shutdown();
     }
 
     public Sequence getSequence(String name, boolean create) throws YarchException, RocksDBException {
@@ -772,6 +806,14 @@ public class Tablespace {
         return executor;
     }
 
+    ExecutorService getPrefetchExecutor() {
+        return prefetchExecutor;
+    }
+
+    Semaphore getPrefetchPermits() {
+        return prefetchPermits;
+    }
+
     public TableWalker newSecondaryIndexTableWalker(YarchDatabaseInstance ydb, TableDefinition tblDef,
             boolean ascending, boolean follow) {
 
@@ -814,16 +856,38 @@ public class Tablespace {
     }
 
     RocksdbMemoryUsage getApproximateMemoryUsage() {
-        var lruCache = RdbConfig.getInstance().getTablespaceConfig(name).getTableCache();
+        var blockCache = RdbConfig.getInstance().getBlockCache();
         List<YRDB> dbList = rdbFactory.getOpenDbs(false);
-        var mbt = MemoryUtil.getApproximateMemoryUsageByType(rdbFactory.getOpenRdbs(), null);
-        dbList.forEach(yrdb -> rdbFactory.dispose(yrdb));
         RocksdbMemoryUsage memUsage = new RocksdbMemoryUsage();
+        try {
+            var mbt = MemoryUtil.getApproximateMemoryUsageByType(
+                    dbList.stream().map(YRDB::getDb).collect(Collectors.toList()), null);
+            memUsage.indexMemoryUsage = mbt.get(MemoryUsageType.kTableReadersTotal);
+            memUsage.memtableMemoryUsage = mbt.get(MemoryUsageType.kMemTableTotal);
+
+            for (YRDB yrdb : dbList) {
+                for (String cfName : yrdb.getColumnFamiliesAsStrings()) {
+                    ColumnFamilyHandle cfh = yrdb.getColumnFamilyHandle(cfName);
+                    CfMemoryUsage cfUsage = memUsage.cfMemoryUsage.computeIfAbsent(cfName,
+                            k -> new CfMemoryUsage());
+                    try {
+                        cfUsage.memtableMemoryUsage += yrdb.getDb().getLongProperty(cfh,
+                                "rocksdb.cur-size-all-mem-tables");
+                        cfUsage.indexMemoryUsage += yrdb.getDb().getLongProperty(cfh,
+                                "rocksdb.estimate-table-readers-mem");
+                    } catch (RocksDBException e) {
+                        log.warn("Failed to get the memory usage of column family {} in {}", cfName,
+                                yrdb.getPath(), e);
+                    }
+                }
+            }
+        } finally {
+            dbList.forEach(yrdb -> rdbFactory.dispose(yrdb));
+        }
 
-        memUsage.blockCacheMemoryUsage = lruCache.getUsage();
-        memUsage.indexMemoryUsage = mbt.get(MemoryUsageType.kTableReadersTotal);
-        memUsage.memtableMemoryUsage = mbt.get(MemoryUsageType.kMemTableTotal);
-        memUsage.pinnedBlocksMemoryUsage = lruCache.getPinnedUsage();
+        // the block cache is shared by all the tablespaces
+        memUsage.blockCacheMemoryUsage = blockCache.getUsage();
+        memUsage.pinnedBlocksMemoryUsage = blockCache.getPinnedUsage();
 
         return memUsage;
     }
@@ -833,6 +897,7 @@ public class Tablespace {
         long indexMemoryUsage;
         long memtableMemoryUsage;
         long pinnedBlocksMemoryUsage;
+        final Map<String, CfMemoryUsage> cfMemoryUsage = new HashMap<>();
 
         @Override
         public String toString() {
@@ -842,4 +907,12 @@ public class Tablespace {
         }
     }
 
+    /**
+     * memory used by one column family summed over all the open databases of the tablespace
+     */
+    static class CfMemoryUsage {
+        long indexMemoryUsage;
+        long memtableMemoryUsage;
+    }
+
 }
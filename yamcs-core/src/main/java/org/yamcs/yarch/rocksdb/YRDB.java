@@ -6,6 +6,7 @@ import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -22,9 +23,11 @@ import org.rocksdb.ReadOptions;
 import org.rocksdb.RocksDB;
 import org.rocksdb.RocksDBException;
 import org.rocksdb.RocksIterator;
+import org.rocksdb.Slice;
 import org.rocksdb.Snapshot;
 import org.rocksdb.WriteBatch;
 import org.rocksdb.WriteOptions;
+import org.yamcs.utils.ByteArrayUtils;
 import org.yamcs.utils.StringConverter;
 import org.yamcs.yarch.rocksdb.RdbConfig.TablespaceConfig;
 
@@ -235,6 +238,19 @@ public class YRDB {
         }
     }
 
+    /**
+     * {@link RocksDB#multiGetAsList(List, List)} with all the keys in the same column family
+     */
+    public List<byte[]> multiGet(ColumnFamilyHandle cfh, List<byte[]> keys) throws RocksDBException {
+        if (closed) {
+            throw new IllegalStateException("Database is closed");
+        }
+        if (cfh == null) {
+            return db.multiGetAsList(keys);
+        }
+        return db.multiGetAsList(Collections.nCopies(keys.size(), cfh), keys);
+    }
+
     /**
      * {@link RocksDB#get}
      */
@@ -375,7 +391,16 @@ public class YRDB {
         if (closed) {
             throw new IllegalStateException("Database is closed");
         }
-        return new AscendingRangeIterator(db.newIterator(), prefix, prefix);
+        ReadOptions readOptions = new ReadOptions();
+        Slice upperBound = upperBound(prefix);
+        if (upperBound != null) {
+            // allows RocksDB to use the prefix bloom filters if the prefix is at least as long as the prefix extractor
+            readOptions.setIterateUpperBound(upperBound);
+            readOptions.setAutoPrefixMode(true);
+        }
+        AscendingRangeIterator it = new AscendingRangeIterator(db.newIterator(readOptions), prefix, prefix);
+        it.closeAfter(readOptions, upperBound);
+        return it;
     }
 
     /**
@@ -385,7 +410,29 @@ public class YRDB {
         if (closed) {
             throw new IllegalStateException("Database is closed");
         }
-        return new DescendingPrefixIterator(db.newIterator(), prefix);
+        ReadOptions readOptions = new ReadOptions();
+        readOptions.setTotalOrderSeek(true);
+        Slice lowerBound = new Slice(prefix);
+        readOptions.setIterateLowerBound(lowerBound);
+        Slice upperBound = upperBound(prefix);
+        if (upperBound != null) {
+            readOptions.setIterateUpperBound(upperBound);
+        }
+        DescendingPrefixIterator it = new DescendingPrefixIterator(db.newIterator(readOptions), prefix);
+        it.closeAfter(readOptions, lowerBound, upperBound);
+        return it;
+    }
+
+    /**
+     * returns the exclusive upper bound for iterating over the keys starting with the prefix or null if the prefix is
+     * all 0xFF
+     */
+    static Slice upperBound(byte[] prefix) {
+        try {
+            return new Slice(ByteArrayUtils.plusOne(prefix));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
     }
 
     /**
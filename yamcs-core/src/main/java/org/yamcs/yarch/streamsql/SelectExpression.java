@@ -234,8 +234,11 @@ public class SelectExpression implements StreamExpression {
             whereClause.addFilter(tupleSourceExpression);
         }
 
-        Stream stream = tupleSourceExpression.execute(c);
         CompiledExpression cWhereClause = (whereClause == null) ? null : whereClause.compile();
+        if (cWhereClause != null && tupleSourceExpression.pushDownFilter(cWhereClause)) {
+            cWhereClause = null;
+        }
+        Stream stream = tupleSourceExpression.execute(c);
 
         List<CompiledExpression> caggInputList = null;
         if (aggInputList != null) {
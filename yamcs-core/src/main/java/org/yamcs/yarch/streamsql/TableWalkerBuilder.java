@@ -5,6 +5,7 @@ import java.util.List;
 import java.util.Set;
 
 import org.yamcs.logging.Log;
+import org.yamcs.utils.ByteArrayUtils;
 import org.yamcs.utils.TimeInterval;
 import org.yamcs.yarch.ColumnDefinition;
 import org.yamcs.yarch.DataType;
@@ -38,6 +39,7 @@ public class TableWalkerBuilder implements FilterableTarget {
 
     private boolean ascending = true;
     private boolean follow = false;
+    private boolean prefetch = false;
 
     public TableWalkerBuilder(ExecutionContext ctx, TableDefinition tableDefinition) {
         this.ctx = ctx;
@@ -70,20 +72,10 @@ public class TableWalkerBuilder implements FilterableTarget {
         } else {
             List<String> sidx = tableDefinition.getSecondaryIndex();
             if (sidx != null && sidx.get(0).equals(columnName)) {
-                TableColumnDefinition tcd = tableDefinition.getColumnDefinition(columnName);
-                byte[] val = null;
-                try {
-                    Object columnValue = DataType.castAs(tcd.getType(), value);
-                    val = tcd.getSerializer().toByteArray(columnValue);
-                } catch (IllegalArgumentException e) {
-                    throw new StreamSqlException(ErrCode.ERROR, e.getMessage());
-                }
+                byte[] b = secondaryKey(columnName, value);
                 if (skRange == null) {
                     skRange = new DbRange();
                 }
-                byte[] b = new byte[val.length+1];
-                b[0] = (byte)(0x70|tcd.getType().getTypeId());
-                System.arraycopy(val, 0, b, 1, val.length);
                 addToRange(skRange, relOp, b);
             }
         }
@@ -103,6 +95,22 @@ public class TableWalkerBuilder implements FilterableTarget {
         }
     }
 
+    // encodes the value as the first column of the secondary index key, see SecondaryIndexWriter#addTuple
+    private byte[] secondaryKey(String columnName, Object value) throws StreamSqlException {
+        TableColumnDefinition tcd = tableDefinition.getColumnDefinition(columnName);
+        byte[] val = null;
+        try {
+            Object columnValue = DataType.castAs(tcd.getType(), value);
+            val = tcd.getSerializer().toByteArray(columnValue);
+        } catch (IllegalArgumentException e) {
+            throw new StreamSqlException(ErrCode.ERROR, e.getMessage());
+        }
+        byte[] b = new byte[val.length + 1];
+        b[0] = (byte) (0x70 | tcd.getType().getTypeId());
+        System.arraycopy(val, 0, b, 1, val.length);
+        return b;
+    }
+
     private void addPartitionTimeFilter(RelOp relOp, long time) {
         switch (relOp) {
         case GREATER:
@@ -150,10 +158,38 @@ public class TableWalkerBuilder implements FilterableTarget {
     }
 
     /**
-     * currently adds only filters on value based partitions
+     * adds filters on value based partitions and on the first column of the secondary index.
+     * <p>
+     * The secondary index range covers all the values in the set, restricted to the range of the other conditions on
+     * the column; the values in between which are not part of the set are eliminated by the where clause.
      */
     @Override
     public void addInFilter(ColumnExpression cexpr, boolean negation, Set<Object> values) throws StreamSqlException {
+        List<String> sidx = tableDefinition.getSecondaryIndex();
+        if (!negation && !values.isEmpty() && sidx != null && sidx.get(0).equals(cexpr.getName())) {
+            byte[] min = null;
+            byte[] max = null;
+            for (Object v : values) {
+                byte[] b = secondaryKey(cexpr.getName(), v);
+                if (min == null || ByteArrayUtils.compare(b, min) < 0) {
+                    min = b;
+                }
+                if (max == null || ByteArrayUtils.compare(b, max) > 0) {
+                    max = b;
+                }
+            }
+            if (skRange == null) {
+                skRange = new DbRange();
+            }
+            // intersect with the range set by the other conditions on the column
+            if (skRange.rangeStart == null || ByteArrayUtils.compare(min, skRange.rangeStart) > 0) {
+                skRange.rangeStart = min;
+            }
+            if (skRange.rangeEnd == null || ByteArrayUtils.compare(max, skRange.rangeEnd) < 0) {
+                skRange.rangeEnd = max;
+            }
+        }
+
         if (!tableDefinition.hasPartitioning()) {
             return;
         }
@@ -230,6 +266,7 @@ public class TableWalkerBuilder implements FilterableTarget {
         if (pkRange != null) {
             tw.setPrimaryIndexRange(pkRange);
         }
+        tw.setPrefetch(prefetch);
         return tw;
     }
 
@@ -241,6 +278,13 @@ public class TableWalkerBuilder implements FilterableTarget {
         this.follow = follow;
     }
 
+    /**
+     * Read the table partitions in parallel, ahead of the consumer. To be used only for read-only queries.
+     */
+    public void setPrefetch(boolean prefetch) {
+        this.prefetch = prefetch;
+    }
+
     public TableDefinition getTableDefinition() {
         return tableDefinition;
     }
@@ -4,6 +4,7 @@ import java.math.BigDecimal;
 import java.util.Set;
 
 import org.yamcs.logging.Log;
+import org.yamcs.yarch.CompiledExpression;
 import org.yamcs.yarch.ExecutionContext;
 import org.yamcs.yarch.FilterableTarget;
 import org.yamcs.yarch.HistogramReaderStream;
@@ -49,6 +50,7 @@ public class TupleSourceExpression implements FilterableTarget {
     TupleDefinition definition;
     TableWalkerBuilder tableWalkerBuilder;
     HistogramStreamBuilder histogramStreamBuilder;
+    CompiledExpression tableFilter;
 
     Type type;
 
@@ -79,6 +81,7 @@ public class TupleSourceExpression implements FilterableTarget {
                     tableWalkerBuilder = new TableWalkerBuilder(c, tableDefinition);
                     tableWalkerBuilder.setAscending(ascending);
                     tableWalkerBuilder.setFollow(follow);
+                    tableWalkerBuilder.setPrefetch(true);
                 } else {
                     if (!tableDefinition.hasHistogram()) {
                         throw new StreamSqlException(ErrCode.INVALID_HISTOGRAM_COLUMN,
@@ -143,6 +146,21 @@ public class TupleSourceExpression implements FilterableTarget {
         }
     }
 
+    /**
+     * Push the (compiled) where clause down to the table reader, such that the rows not matching it are discarded
+     * after having decoded only the columns required by the filter.
+     * 
+     * @return true if the filter will be applied by the source, false if the source is not a table and the filter has
+     *         to be applied by the caller
+     */
+    boolean pushDownFilter(CompiledExpression filter) {
+        if (type != Type.TABLE) {
+            return false;
+        }
+        this.tableFilter = filter;
+        return true;
+    }
+
     Stream execute(ExecutionContext c) throws StreamSqlException, YarchException {
         Stream stream;
         YarchDatabaseInstance ydb = c.getDb();
@@ -159,7 +177,11 @@ public class TupleSourceExpression implements FilterableTarget {
             break;
         case TABLE:
             TableWalker tblit = tableWalkerBuilder.build();
-            stream = new TableReaderStream(ydb, tableWalkerBuilder.getTableDefinition(), tblit);
+            TableReaderStream trs = new TableReaderStream(ydb, tableWalkerBuilder.getTableDefinition(), tblit);
+            if (tableFilter != null) {
+                trs.setFilter(tableFilter);
+            }
+            stream = trs;
             break;
         case TABLE_HISTOGRAM:
             HistogramReaderStream histoStream = histogramStreamBuilder.build();
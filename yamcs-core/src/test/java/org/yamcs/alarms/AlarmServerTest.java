@@ -10,6 +10,7 @@ import static org.junit.jupiter.api.Assertions.assertTrue;
 import java.util.LinkedList;
 import java.util.Queue;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
@@ -211,6 +212,85 @@ public class AlarmServerTest {
 
     }
 
+    @Test
+    public void testAsyncNotifications() {
+        procConfig.setAlarmAsyncNotifications(true);
+        alarmServer = new ParameterAlarmServer("toto", procConfig, timer);
+        MyListener l = new MyListener();
+        alarmServer.addAlarmListener(l);
+
+        ParameterValue pv1_0 = getParameterValue(p1, MonitoringResult.WARNING);
+        alarmServer.update(pv1_0, 1);
+        ActiveAlarm<ParameterValue> aa = alarmServer.getActiveAlarm(p1);
+        alarmServer.acknowledge(aa, "test1", 123L, null);
+        ParameterValue pv1_1 = getParameterValue(p1, MonitoringResult.IN_LIMITS);
+        alarmServer.update(pv1_1, 1);
+
+        // delivers the pending notifications
+        alarmServer.stopAsyncNotifications();
+
+        ActiveAlarm<ParameterValue> triggered = l.triggered.remove();
+        ActiveAlarm<ParameterValue> acknowledged = l.acknowledged.remove();
+        ActiveAlarm<ParameterValue> cleared = l.cleared.remove();
+
+        // the listeners receive the state of the alarm at the time of the notification
+        assertEquals(aa.getId(), triggered.getId());
+        assertFalse(triggered.isAcknowledged());
+        assertEquals(pv1_0, triggered.getCurrentValue());
+        assertTrue(acknowledged.isAcknowledged());
+        assertEquals(pv1_0, acknowledged.getCurrentValue());
+        assertEquals(pv1_1, cleared.getCurrentValue());
+        assertNull(alarmServer.getActiveAlarm(p1));
+    }
+
+    @Test
+    public void testAsyncNotificationsBounded() throws Exception {
+        procConfig.setAlarmAsyncNotifications(true);
+        procConfig.setAlarmAsyncNotificationQueueSize(1);
+        alarmServer = new ParameterAlarmServer("toto", procConfig, timer);
+
+        CountDownLatch inside = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        MyListener l1 = new MyListener() {
+            @Override
+            public void notifyUpdate(AlarmNotificationType notificationType, ActiveAlarm<ParameterValue> activeAlarm) {
+                inside.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                super.notifyUpdate(notificationType, activeAlarm);
+            }
+        };
+        alarmServer.addAlarmListener(l1);
+
+        alarmServer.update(getParameterValue(p1, MonitoringResult.WARNING), 1);
+        assertTrue(inside.await(10, TimeUnit.SECONDS));
+
+        // added after the trigger notification has been produced, it should not receive it
+        MyListener l2 = new MyListener();
+        alarmServer.addAlarmListener(l2);
+
+        // the first one is queued, the second one has to wait
+        alarmServer.update(getParameterValue(p1, MonitoringResult.WARNING), 1);
+        Thread t = new Thread(() -> alarmServer.update(getParameterValue(p1, MonitoringResult.WARNING), 1));
+        t.start();
+        while (alarmServer.getNotificationBlockedCount() == 0) {
+            Thread.sleep(10);
+        }
+        assertEquals(1, alarmServer.getNotificationQueueDepth());
+
+        release.countDown();
+        t.join(10000);
+        alarmServer.stopAsyncNotifications();
+
+        assertEquals(1, l1.triggered.size());
+        assertEquals(2, l1.valueUpdates.size());
+        assertTrue(l2.triggered.isEmpty());
+        assertEquals(2, l2.valueUpdates.size());
+    }
+
     @Test
     public void testMoreSevere() {
         assertTrue(AlarmServer.moreSevere(MonitoringResult.CRITICAL, MonitoringResult.WARNING));
@@ -0,0 +1,152 @@
+package org.yamcs.algorithms;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.yamcs.mdb.ProcessingContext;
+import org.yamcs.parameter.ParameterValue;
+import org.yamcs.parameter.RawEngValue;
+import org.yamcs.utils.ValueUtility;
+import org.yamcs.xtce.Algorithm;
+import org.yamcs.xtce.CustomAlgorithm;
+import org.yamcs.xtce.InputParameter;
+import org.yamcs.xtce.OutputParameter;
+import org.yamcs.xtce.Parameter;
+import org.yamcs.xtce.ParameterInstanceRef;
+
+public class AlgorithmExecutionContextTest {
+    Parameter[] p = new Parameter[5];
+    ActiveAlgorithm a, b, c, d;
+    AlgorithmExecutionContext ctx;
+    ForkJoinPool pool;
+
+    @BeforeEach
+    public void before() {
+        for (int i = 0; i < p.length; i++) {
+            p[i] = new Parameter("p" + i);
+        }
+        ctx = new AlgorithmExecutionContext("test", null, 10);
+        // p0 -> a -> p1, p0 -> b -> p2, p1 + p2 -> c -> p3, p3 -> d -> p4
+        // activated in an order not respecting the dependencies
+        d = activate("d", p[4], p[3]);
+        c = activate("c", p[3], p[1], p[2]);
+        a = activate("a", p[1], p[0]);
+        b = activate("b", p[2], p[0]);
+    }
+
+    @AfterEach
+    public void after() {
+        if (pool != null) {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void testLevels() {
+        List<List<ActiveAlgorithm>> levels = AlgorithmExecutionContext.computeLevels(ctx.getActiveAlgorithms());
+        assertEquals(List.of(List.of(a, b), List.of(c), List.of(d)), levels);
+    }
+
+    @Test
+    public void testPastInstanceIsNotDependency() {
+        // e uses the previous value of its own output and the previous value of p4
+        CustomAlgorithm alg = new CustomAlgorithm("e");
+        alg.addInput(new InputParameter(pastInstance(p[4]), "x0"));
+        Parameter out = new Parameter("p5");
+        alg.addInput(new InputParameter(pastInstance(out), "x1"));
+        alg.addOutput(new OutputParameter(out, "y"));
+        ActiveAlgorithm e = new ActiveAlgorithm(alg, ctx, new SumExecutor(alg, ctx));
+        ctx.addAlgorithm(e);
+
+        List<List<ActiveAlgorithm>> levels = AlgorithmExecutionContext.computeLevels(ctx.getActiveAlgorithms());
+        assertEquals(List.of(a, b, e), levels.get(0));
+    }
+
+    @Test
+    public void testParallel() {
+        pool = new ForkJoinPool(4);
+        ctx.setPool(pool);
+
+        ParameterValue pv = new ParameterValue(p[0]);
+        pv.setEngValue(ValueUtility.getDoubleValue(1));
+        ProcessingContext pctx = ProcessingContext.createForTestTm(pv);
+        ctx.process(0, pctx);
+
+        List<ParameterValue> result = new ArrayList<>();
+        pctx.getTmParams().forEach(result::add);
+        assertEquals(5, result.size());
+        for (int i = 0; i < 5; i++) {
+            assertEquals(p[i], result.get(i).getParameter());
+        }
+        assertEquals(2, result.get(1).getEngValue().getDoubleValue(), 1e-9);
+        assertEquals(2, result.get(2).getEngValue().getDoubleValue(), 1e-9);
+        assertEquals(5, result.get(3).getEngValue().getDoubleValue(), 1e-9);
+        assertEquals(6, result.get(4).getEngValue().getDoubleValue(), 1e-9);
+
+        for (ActiveAlgorithm aa : List.of(a, b, c, d)) {
+            assertEquals(1, aa.getStatus().getRunCount());
+            assertEquals(0, aa.getErrorCount());
+            assertTrue(aa.getStatus().getCpuTimeNs() >= 0);
+        }
+    }
+
+    @Test
+    public void testSequential() {
+        ParameterValue pv = new ParameterValue(p[0]);
+        pv.setEngValue(ValueUtility.getDoubleValue(1));
+        ProcessingContext pctx = ProcessingContext.createForTestTm(pv);
+        ctx.process(0, pctx);
+
+        // d and c run in the activation order, before their inputs are available
+        assertEquals(1, d.getErrorCount());
+        assertEquals(1, c.getErrorCount());
+        assertEquals(3, pctx.getTmParams().getSize());
+    }
+
+    private ActiveAlgorithm activate(String name, Parameter out, Parameter... in) {
+        CustomAlgorithm alg = new CustomAlgorithm(name);
+        for (int i = 0; i < in.length; i++) {
+            alg.addInput(new InputParameter(new ParameterInstanceRef(in[i]), "x" + i));
+        }
+        alg.addOutput(new OutputParameter(out, "y"));
+        ActiveAlgorithm activeAlgo = new ActiveAlgorithm(alg, ctx, new SumExecutor(alg, ctx));
+        ctx.addAlgorithm(activeAlgo);
+        return activeAlgo;
+    }
+
+    private static ParameterInstanceRef pastInstance(Parameter param) {
+        ParameterInstanceRef pref = new ParameterInstanceRef(param);
+        pref.setInstance(-1);
+        return pref;
+    }
+
+    /**
+     * Outputs 1 + the sum of the inputs
+     */
+    static class SumExecutor extends AbstractAlgorithmExecutor {
+        SumExecutor(Algorithm algorithmDef, AlgorithmExecutionContext execCtx) {
+            super(algorithmDef, execCtx);
+        }
+
+        @Override
+        public AlgorithmExecutionResult execute(long acqTime, long genTime, ProcessingContext processingContext) {
+            double sum = 1;
+            for (RawEngValue rev : inputValues) {
+                if (rev == null) {
+                    throw new AlgorithmException("missing input");
+                }
+                sum += rev.getEngValue().getDoubleValue();
+            }
+            ParameterValue pv = new ParameterValue(algorithmDef.getOutputList().get(0).getParameter());
+            pv.setEngValue(ValueUtility.getDoubleValue(sum));
+            return new AlgorithmExecutionResult(inputValues, null, List.of(pv));
+        }
+    }
+}
@@ -0,0 +1,202 @@
+package org.yamcs.algorithms;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.yamcs.Processor;
+import org.yamcs.ProcessorFactory;
+import org.yamcs.ProcessorServiceWithConfig;
+import org.yamcs.YConfiguration;
+import org.yamcs.algorithms.JavaScriptTranslator.UnsupportedScriptException;
+import org.yamcs.events.EventProducerFactory;
+import org.yamcs.mdb.Mdb;
+import org.yamcs.mdb.MdbFactory;
+import org.yamcs.mdb.ProcessingContext;
+import org.yamcs.parameter.ParameterConsumer;
+import org.yamcs.parameter.ParameterProcessorManager;
+import org.yamcs.parameter.ParameterValue;
+import org.yamcs.utils.ValueUtility;
+import org.yamcs.xtce.CustomAlgorithm;
+import org.yamcs.xtce.InputParameter;
+import org.yamcs.xtce.OnPeriodicRateTrigger;
+import org.yamcs.xtce.Parameter;
+import org.yamcs.xtce.TriggerSetType;
+
+public class CompiledScriptAlgorithmTest {
+    static String instance = "BogusSAT";
+    static final String ALGO_NAME = "/BogusSAT/SC001/BusElectronics/ComputeBatterySOC_Custom";
+
+    static Mdb mdb;
+    static Processor proc;
+    static ParameterProcessorManager ppm;
+    static AlgorithmManager am;
+    static Parameter bv;
+    static CustomAlgorithm algo;
+    static List<ParameterValue> params = new ArrayList<>();
+
+    @BeforeAll
+    public static void setUpBeforeClass() throws Exception {
+        YConfiguration.setupTest(instance);
+        EventProducerFactory.setMockup(false);
+        MdbFactory.reset();
+        am = new AlgorithmManager();
+        MyParaProvider provider = new MyParaProvider();
+        proc = ProcessorFactory.create(instance, "CompiledScriptAlgorithmTest",
+                new ProcessorServiceWithConfig(provider, MyParaProvider.class.getName(), "provider",
+                        YConfiguration.emptyConfig()),
+                new ProcessorServiceWithConfig(am, AlgorithmManager.class.getName(), "algorithms",
+                        YConfiguration.wrap(Map.of(AlgorithmManager.KEY_COMPILE_SCRIPTS, true))));
+        ppm = proc.getParameterProcessorManager();
+        mdb = proc.getMdb();
+        XtceAlgorithmTest.mdb = mdb;
+
+        bv = mdb.getParameter("/BogusSAT/SC001/BusElectronics/Battery_Voltage");
+        Parameter bscc = mdb.getParameter("/BogusSAT/SC001/BusElectronics/Battery_State_Of_Charge_Custom");
+        algo = (CustomAlgorithm) mdb.getAlgorithm(ALGO_NAME);
+        ppm.getParameterRequestManager().addRequest(bscc,
+                (ParameterConsumer) (subscriptionId, items) -> params.addAll(items));
+    }
+
+    @BeforeEach
+    public void before() {
+        am.clearAlgorithmOverride(algo);
+        params.clear();
+    }
+
+    @Test
+    public void testCompiled() {
+        assertTrue(getExecutor() instanceof CompiledScriptAlgorithmExecutor);
+        process(12.6f);
+        assertEquals(1, params.size());
+        assertEquals(0.6d, params.get(0).getEngValue().getFloatValue(), 1e-5);
+    }
+
+    @Test
+    public void testStatements() {
+        am.overrideAlgorithm(algo, "var x = bv.value * 2;\n"
+                + "if (x > 25 && !(x > 100)) {\n"
+                + "  bscc.value = Math.round(x) + (x % 2 == 0 ? 1 : 0);\n"
+                + "} else {\n"
+                + "  bscc.value = -1;\n"
+                + "}");
+        assertTrue(getExecutor() instanceof CompiledScriptAlgorithmExecutor);
+
+        process(12.6f);
+        assertEquals(25d, params.get(0).getEngValue().getFloatValue(), 1e-5);
+        process(10f);
+        assertEquals(-1d, params.get(1).getEngValue().getFloatValue(), 1e-5);
+    }
+
+    @Test
+    public void testBitwise() {
+        am.overrideAlgorithm(algo, "bscc.value = ((bv.value | 0) << 4) >>> 2 ^ 1;");
+        assertTrue(getExecutor() instanceof CompiledScriptAlgorithmExecutor);
+
+        process(12.6f);
+        assertEquals(49d, params.get(0).getEngValue().getFloatValue(), 1e-5);
+    }
+
+    @Test
+    public void testNotUpdated() {
+        am.overrideAlgorithm(algo, "if (bv.value < 12) {\n"
+                + "  bscc.updated = false;\n"
+                + "  return;\n"
+                + "}\n"
+                + "bscc.value = 1;");
+        assertTrue(getExecutor() instanceof CompiledScriptAlgorithmExecutor);
+
+        process(11f);
+        assertEquals(0, params.size());
+        process(13f);
+        assertEquals(1, params.size());
+    }
+
+    @Test
+    public void testFallback() {
+        am.overrideAlgorithm(algo, "bscc.value = [bv.value, 1].length;");
+        AlgorithmExecutor executor = getExecutor();
+        assertTrue(executor instanceof ScriptAlgorithmExecutor);
+
+        process(12.6f);
+        assertEquals(2d, params.get(0).getEngValue().getFloatValue(), 1e-5);
+    }
+
+    @Test
+    public void testUnsupported() {
+        assertUnsupported("while (true) {}");
+        assertUnsupported("bscc.value = 'abc';");
+        assertUnsupported("bscc.value = bv.value + true;");
+        assertUnsupported("bscc.value = bv.rawValue;");
+        assertUnsupported("bscc.value = unknown.value;");
+        assertUnsupported("var bv = 3;");
+        assertUnsupported("bscc.value = Math.random();");
+    }
+
+    @Test
+    public void testRedeclaredVariable() {
+        // the redeclaration is not translated, the algorithm is run by the script engine
+        am.overrideAlgorithm(algo, "var x = 1;\n"
+                + "if (bv.value > 0) {\n"
+                + "  var x = 2;\n"
+                + "}\n"
+                + "bscc.value = x;");
+        assertTrue(getExecutor() instanceof ScriptAlgorithmExecutor);
+
+        process(12.6f);
+        assertEquals(2d, params.get(0).getEngValue().getFloatValue(), 1e-5);
+    }
+
+    @Test
+    public void testVariableDeclarations() {
+        // with block scoping the inner x would be a different variable
+        assertUnsupported("let x = 1; if (bv.value > 0) { let x = 2; } bscc.value = x;");
+        assertUnsupported("var x = 1; var x = 2; bscc.value = x;");
+        assertUnsupported("const x = 1; x = 2; bscc.value = x;");
+        assertUnsupported("const x = 1; x += 2; bscc.value = x;");
+        // the let is not visible outside of its block
+        assertUnsupported("if (bv.value > 0) { let x = 2; } bscc.value = x;");
+    }
+
+    @Test
+    public void testInputWithoutValue() throws Exception {
+        // with a periodic trigger the algorithm may run before bv has a value
+        CustomAlgorithm calg = algo.copy();
+        TriggerSetType triggerSet = new TriggerSetType();
+        triggerSet.addOnPeriodicRateTrigger(new OnPeriodicRateTrigger(1000));
+        calg.setTriggerSet(triggerSet);
+        assertThrows(UnsupportedScriptException.class, () -> new JavaScriptTranslator(calg).translate("Test"));
+
+        // unless the input is mandatory
+        InputParameter ip = new InputParameter(algo.getInputList().get(0).getParameterInstance(), "bv");
+        ip.setMandatory(true);
+        calg.setInputList(List.of(ip));
+        new JavaScriptTranslator(calg).translate("Test");
+    }
+
+    private void assertUnsupported(String text) {
+        CustomAlgorithm calg = algo.copy();
+        calg.setAlgorithmText(text);
+        assertThrows(UnsupportedScriptException.class, () -> new JavaScriptTranslator(calg).translate("Test"));
+    }
+
+    private AlgorithmExecutor getExecutor() {
+        ActiveAlgorithm activeAlgo = am.globalCtx.getAlgorithm(ALGO_NAME);
+        assertFalse(activeAlgo == null);
+        return activeAlgo.executor;
+    }
+
+    private void process(float v) {
+        ParameterValue pv = new ParameterValue(bv);
+        pv.setEngValue(ValueUtility.getFloatValue(v));
+        ppm.process(ProcessingContext.createForTestTm(pv));
+    }
+}
@@ -0,0 +1,113 @@
+package org.yamcs.archive;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.yamcs.YConfiguration;
+import org.yamcs.protobuf.Yamcs.EndAction;
+import org.yamcs.protobuf.Yamcs.PacketReplayRequest;
+import org.yamcs.protobuf.Yamcs.ReplayStatus;
+import org.yamcs.utils.TimeEncoding;
+import org.yamcs.yarch.Stream;
+import org.yamcs.yarch.Tuple;
+import org.yamcs.yarch.YarchTestCase;
+import org.yamcs.yarch.protobuf.Db.ProtoDataType;
+
+/**
+ * Replays at the original speed some packets recorded one second apart and seeks in the replay
+ */
+public class YarchReplayTest extends YarchTestCase {
+    static final int N = 100;
+    long t0;
+    YarchReplay replay;
+    BlockingQueue<Long> received = new LinkedBlockingQueue<>();
+
+    @BeforeEach
+    public void createEvents() throws Exception {
+        TimeEncoding.setUp();
+        t0 = TimeEncoding.parse("2024-01-01T00:00:00");
+        ydb.execute("create table " + XtceTmRecorder.TABLE_NAME
+                + "(gentime timestamp, seqNum int, rectime timestamp, packet binary, pname enum, "
+                + "primary key(gentime, seqNum))");
+        ydb.execute("create stream tm_in(gentime timestamp, seqNum int, rectime timestamp, packet binary, "
+                + "pname enum)");
+        ydb.execute("insert into " + XtceTmRecorder.TABLE_NAME + " select * from tm_in");
+        Stream s = ydb.getStream("tm_in");
+        for (int i = 0; i < N; i++) {
+            long t = t0 + i * 1000L;
+            s.emitTuple(new Tuple(s.getDefinition(), new Object[] { t, i, t, new byte[10], "/test/packet" }));
+        }
+
+        ReplayServer replayServer = new ReplayServer();
+        replayServer.init(instance, "replay", YConfiguration.emptyConfig());
+
+        ReplayOptions options = new ReplayOptions(t0, t0 + N * 1000L, false);
+        options.setSpeed(new SpeedSpec(SpeedSpec.Type.ORIGINAL, "gentime", 1));
+        options.setEndAction(EndAction.STOP);
+        options.setPacketRequest(PacketReplayRequest.getDefaultInstance());
+        replay = new YarchReplay(replayServer, options, new ReplayListener() {
+            @Override
+            public void newData(ProtoDataType type, Object data) {
+                received.add(((XtceTmReplayHandler.ReplayPacket) data).getGenerationTime());
+            }
+
+            @Override
+            public void stateChanged(ReplayStatus rs) {
+            }
+        }, null);
+    }
+
+    @AfterEach
+    public void quitReplay() {
+        replay.quit();
+    }
+
+    @Test
+    public void testSeekForward() throws Exception {
+        replay.start();
+        assertEquals(t0, next());
+        String streamName = replay.streamName;
+
+        replay.seek(t0 + 30_000, true);
+        // without skipping, the next packet would only come after 29 seconds
+        assertEquals(t0 + 30_000, next());
+        // the data has been skipped in the stream already open
+        assertEquals(streamName, replay.streamName);
+        assertEquals(t0 + 31_000, next());
+    }
+
+    @Test
+    public void testSeekFarForward() throws Exception {
+        replay.start();
+        assertEquals(t0, next());
+        String streamName = replay.streamName;
+
+        replay.seek(t0 + YarchReplay.MAX_FORWARD_SKIP + 10_000, true);
+        assertEquals(t0 + YarchReplay.MAX_FORWARD_SKIP + 10_000, next());
+        assertNotEquals(streamName, replay.streamName);
+    }
+
+    @Test
+    public void testSeekBackward() throws Exception {
+        replay.start();
+        assertEquals(t0, next());
+        assertEquals(t0 + 1000, next());
+
+        replay.seek(t0, true);
+        assertEquals(t0, next());
+    }
+
+    private long next() throws InterruptedException {
+        Long t = received.poll(5, TimeUnit.SECONDS);
+        assertNotNull(t);
+        return t;
+    }
+}
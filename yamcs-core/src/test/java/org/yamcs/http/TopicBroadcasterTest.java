@@ -0,0 +1,203 @@
+package org.yamcs.http;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.yamcs.api.Observer;
+import org.yamcs.protobuf.ServerMessage;
+
+import com.google.protobuf.Any;
+import com.google.protobuf.StringValue;
+
+import io.netty.buffer.ByteBufUtil;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.websocketx.BinaryWebSocketFrame;
+
+public class TopicBroadcasterTest {
+
+    @Test
+    public void testStartStop() {
+        AtomicInteger started = new AtomicInteger();
+        AtomicInteger stopped = new AtomicInteger();
+        TopicBroadcasters<String, StringValue, StringValue> broadcasters = new TopicBroadcasters<>((key, b) -> {
+            started.incrementAndGet();
+            return () -> stopped.incrementAndGet();
+        });
+
+        Runnable unsubscribe1 = broadcasters.subscribe("a", new CollectingObserver(), null);
+        Runnable unsubscribe2 = broadcasters.subscribe("a", new CollectingObserver(), null);
+        assertEquals(1, started.get());
+        assertEquals(2, broadcasters.get("a").getSubscriberCount());
+
+        unsubscribe1.run();
+        unsubscribe1.run();
+        assertEquals(0, stopped.get());
+        assertNotNull(broadcasters.get("a"));
+
+        unsubscribe2.run();
+        assertEquals(1, stopped.get());
+        assertNull(broadcasters.get("a"));
+
+        broadcasters.subscribe("a", new CollectingObserver(), null);
+        assertEquals(2, started.get());
+    }
+
+    @Test
+    public void testConvertOnce() {
+        TopicBroadcasters<String, String, StringValue> broadcasters = new TopicBroadcasters<>((key, b) -> () -> {
+        });
+        CollectingObserver o1 = new CollectingObserver();
+        CollectingObserver o2 = new CollectingObserver();
+        CollectingObserver o3 = new CollectingObserver();
+        broadcasters.subscribe("a", o1, null);
+        broadcasters.subscribe("a", o2, null);
+        broadcasters.subscribe("a", o3, s -> s.startsWith("x"));
+
+        AtomicInteger conversions = new AtomicInteger();
+        TopicBroadcaster<String, StringValue> broadcaster = broadcasters.get("a");
+        broadcaster.publish("hello", s -> {
+            conversions.incrementAndGet();
+            return StringValue.of(s);
+        });
+
+        assertEquals(1, conversions.get());
+        assertEquals(1, o1.messages.size());
+        assertSame(o1.messages.get(0), o2.messages.get(0));
+        assertEquals(0, o3.messages.size());
+    }
+
+    @Test
+    public void testSourceNotStarted() {
+        AtomicInteger started = new AtomicInteger();
+        TopicBroadcasters<String, StringValue, StringValue> broadcasters = new TopicBroadcasters<>((key, b) -> {
+            return started.incrementAndGet() == 1 ? null : () -> {
+            };
+        });
+
+        broadcasters.subscribe("a", new CollectingObserver(), null).run();
+        assertNull(broadcasters.get("a"));
+
+        broadcasters.subscribe("a", new CollectingObserver(), null);
+        assertEquals(2, started.get());
+        assertEquals(1, broadcasters.get("a").getSubscriberCount());
+    }
+
+    @Test
+    public void testRemove() {
+        AtomicInteger stopped = new AtomicInteger();
+        TopicBroadcasters<String, StringValue, StringValue> broadcasters = new TopicBroadcasters<>(
+                (key, b) -> () -> stopped.incrementAndGet());
+        Runnable unsubscribe = broadcasters.subscribe("a", new CollectingObserver(), null);
+        TopicBroadcaster<StringValue, StringValue> b1 = broadcasters.get("a");
+
+        broadcasters.remove("a");
+        assertEquals(1, stopped.get());
+        assertNull(broadcasters.get("a"));
+
+        // a new subscriber gets a new broadcaster, which is not stopped by the old subscriber leaving
+        broadcasters.subscribe("a", new CollectingObserver(), null);
+        assertNotSame(b1, broadcasters.get("a"));
+        unsubscribe.run();
+        assertEquals(1, stopped.get());
+        assertNotNull(broadcasters.get("a"));
+    }
+
+    @Test
+    public void testFailingObserver() {
+        TopicBroadcasters<String, String, StringValue> broadcasters = new TopicBroadcasters<>((key, b) -> () -> {
+        });
+        CollectingObserver o1 = new CollectingObserver() {
+            @Override
+            public void next(StringValue message) {
+                throw new IllegalStateException("closed");
+            }
+        };
+        CollectingObserver o2 = new CollectingObserver();
+        broadcasters.subscribe("a", o1, null);
+        broadcasters.subscribe("a", o2, null);
+
+        TopicBroadcaster<String, StringValue> broadcaster = broadcasters.get("a");
+        broadcaster.publish("m1", StringValue::of);
+        broadcaster.publish("m2", StringValue::of);
+
+        assertEquals(2, o2.messages.size());
+        assertEquals(1, broadcaster.getSubscriberCount());
+        assertNotNull(o1.error);
+    }
+
+    @Test
+    public void testLastObserverFails() {
+        AtomicInteger stopped = new AtomicInteger();
+        TopicBroadcasters<String, String, StringValue> broadcasters = new TopicBroadcasters<>(
+                (key, b) -> () -> stopped.incrementAndGet());
+        CollectingObserver o = new CollectingObserver() {
+            @Override
+            public void next(StringValue message) {
+                throw new IllegalStateException("closed");
+            }
+        };
+        broadcasters.subscribe("a", o, null);
+        broadcasters.get("a").publish("m1", StringValue::of);
+
+        assertEquals(1, stopped.get());
+        assertNull(broadcasters.get("a"));
+        assertNotNull(o.error);
+    }
+
+    @Test
+    public void testSharedPayloadEncoding() throws Exception {
+        EmbeddedChannel channel = new EmbeddedChannel(new WebSocketServerMessageHandler(null, true));
+        StringValue data = StringValue.of("some data");
+        SharedPayload payload = new SharedPayload(data);
+
+        channel.writeOutbound(new SharedServerMessage("events", 3, 1, payload));
+        channel.writeOutbound(new SharedServerMessage("events", 5, 300, payload));
+        payload.release();
+
+        checkFrame(channel.readOutbound(), "events", 3, 1, data);
+        checkFrame(channel.readOutbound(), "events", 5, 300, data);
+        assertEquals(0, payload.refCnt());
+    }
+
+    private void checkFrame(BinaryWebSocketFrame frame, String type, int call, int seq, StringValue data) {
+        try {
+            ServerMessage expected = ServerMessage.newBuilder()
+                    .setType(type)
+                    .setCall(call)
+                    .setSeq(seq)
+                    .setData(Any.pack(data, HttpServer.TYPE_URL_PREFIX))
+                    .build();
+            assertArrayEquals(expected.toByteArray(), ByteBufUtil.getBytes(frame.content()));
+        } finally {
+            frame.release();
+        }
+    }
+
+    static class CollectingObserver implements Observer<StringValue> {
+        List<StringValue> messages = new ArrayList<>();
+        Throwable error;
+
+        @Override
+        public void next(StringValue message) {
+            messages.add(message);
+        }
+
+        @Override
+        public void completeExceptionally(Throwable t) {
+            error = t;
+        }
+
+        @Override
+        public void complete() {
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package org.yamcs.http;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+import com.codahale.metrics.MetricRegistry;
+
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.websocketx.TextWebSocketFrame;
+
+public class WebSocketMetricsHandlerTest {
+
+    @Test
+    public void testMeters() {
+        MetricRegistry registry = new MetricRegistry();
+        EmbeddedChannel channel = new EmbeddedChannel(new WebSocketMetricsHandler(registry));
+        String prefix = WebSocketMetricsHandler.PREFIX + channel.id().asShortText() + ".";
+
+        for (int i = 0; i < 3; i++) {
+            channel.write(new TextWebSocketFrame("abcd"));
+        }
+        channel.flush();
+        assertEquals(3, registry.meter(prefix + "frames").getCount());
+        assertEquals(12, registry.meter(prefix + "bytes").getCount());
+        assertEquals(1, registry.meter(prefix + "flushes").getCount());
+
+        // the meters are removed when the channel is closed
+        channel.finishAndReleaseAll();
+        assertTrue(registry.getMeters((name, m) -> name.startsWith(prefix)).isEmpty());
+    }
+}
@@ -1,12 +1,15 @@
 package org.yamcs.http.api;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.util.List;
 
 import org.junit.jupiter.api.Test;
 import org.yamcs.http.api.Downsampler.Sample;
+import org.yamcs.parameterarchive.ParameterRollup.Bucket;
 
 public class DownsamplerTest {
 
@@ -53,6 +56,65 @@ public class DownsamplerTest {
         assertEquals(2, sample1.max, 1e-10);
     }
 
+    @Test
+    public void testSamplingRollupBuckets() {
+        Downsampler sampler = new Downsampler(0, 100, 2);
+        sampler.alignIntervals(10);
+
+        Bucket b1 = new Bucket(10, 10, 5);
+        b1.add(15, 1);
+        Bucket b2 = new Bucket(0, 5, 3);
+        assertTrue(sampler.process(b1));
+        assertTrue(sampler.process(b2));
+        sampler.process(70, 8, -1);
+        // extends beyond the stop
+        assertFalse(sampler.process(new Bucket(100, 100, 4)));
+
+        List<Sample> samples = sampler.collect();
+        assertEquals(2, samples.size());
+
+        Sample sample0 = samples.get(0);
+        assertEquals(3, sample0.n);
+        assertEquals(3, sample0.avg, 1e-10);
+        assertEquals(1, sample0.min, 1e-10);
+        assertEquals(15, sample0.minTime);
+        assertEquals(5, sample0.max, 1e-10);
+        assertEquals(5, sample0.firstTime);
+        assertEquals(15, sample0.lastTime);
+
+        Sample sample1 = samples.get(1);
+        assertEquals(1, sample1.n);
+        assertEquals(8, sample1.avg, 1e-10);
+    }
+
+    @Test
+    public void testAlignIntervals() {
+        Downsampler sampler = new Downsampler(5, 100, 3);
+        // the step of 31 is rounded up to 40, the first interval is clipped at the start
+        sampler.alignIntervals(10);
+
+        // starts before the range
+        assertFalse(sampler.process(new Bucket(0, 5, 1)));
+        assertTrue(sampler.process(new Bucket(10, 10, 2)));
+        assertTrue(sampler.process(new Bucket(40, 45, 3)));
+        assertTrue(sampler.process(new Bucket(80, 85, 4)));
+        sampler.process(5, 1, -1);
+        // the value refused in a bucket and processed afterwards does not move back the last sample time
+        assertEquals(80, sampler.lastSampleTime());
+
+        List<Sample> samples = sampler.collect();
+        assertEquals(3, samples.size());
+        assertEquals(5, samples.get(0).t);
+        assertEquals(2, samples.get(0).n);
+        assertEquals(5, samples.get(0).firstTime);
+        assertEquals(10, samples.get(0).lastTime);
+        assertEquals(40, samples.get(1).t);
+        assertEquals(80, samples.get(2).t);
+
+        // not aligned, the buckets cannot be used
+        assertFalse(new Downsampler(0, 100, 3).process(new Bucket(10, 10, 2)));
+    }
+
     @Test
     public void testSamplingTooMany() {
         Downsampler sampler = new Downsampler(1, 2, 3);
@@ -0,0 +1,151 @@
+package org.yamcs.mdb;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.yamcs.mdb.CompiledParameterAlarm.EnumerationLevelsAlarm;
+import org.yamcs.mdb.CompiledParameterAlarm.NumericRangesAlarm;
+import org.yamcs.parameter.ParameterValue;
+import org.yamcs.protobuf.Pvalue.MonitoringResult;
+import org.yamcs.protobuf.Pvalue.RangeCondition;
+import org.yamcs.xtce.AlarmLevels;
+import org.yamcs.xtce.AlarmRanges;
+import org.yamcs.xtce.EnumerationAlarm;
+import org.yamcs.xtce.NumericAlarm;
+import org.yamcs.xtce.Parameter;
+import org.yamcs.xtce.util.DoubleRange;
+
+public class CompiledParameterAlarmTest {
+    Parameter p = new Parameter("p");
+
+    @Test
+    public void testNumeric() {
+        AlarmRanges ranges = new AlarmRanges();
+        ranges.addWatchRange(new DoubleRange(-10, 10));
+        ranges.addWarningRange(new DoubleRange(-20, 20, false, false));
+        ranges.addCriticalRange(new DoubleRange(Double.NaN, 30, true, true));
+        NumericRangesAlarm alarm = new NumericRangesAlarm(numericAlarm(ranges));
+
+        check(alarm, 0, MonitoringResult.IN_LIMITS, null);
+        check(alarm, 10, MonitoringResult.IN_LIMITS, null);
+        check(alarm, 10.5, MonitoringResult.WATCH, RangeCondition.HIGH);
+        check(alarm, -10.5, MonitoringResult.WATCH, RangeCondition.LOW);
+        check(alarm, 20, MonitoringResult.WARNING, RangeCondition.HIGH);
+        check(alarm, -20, MonitoringResult.WARNING, RangeCondition.LOW);
+        check(alarm, -1e9, MonitoringResult.WARNING, RangeCondition.LOW);
+        check(alarm, 30, MonitoringResult.WARNING, RangeCondition.HIGH);
+        check(alarm, Math.nextUp(30), MonitoringResult.CRITICAL, RangeCondition.HIGH);
+        check(alarm, Double.NaN, MonitoringResult.IN_LIMITS, null);
+    }
+
+    @Test
+    public void testNumericNoRanges() {
+        NumericRangesAlarm alarm = new NumericRangesAlarm(numericAlarm(null));
+        assertFalse(alarm.hasRanges);
+        check(alarm, 1e100, MonitoringResult.IN_LIMITS, null);
+    }
+
+    @Test
+    public void testNumericEquivalence() {
+        Random r = new Random(1);
+        double[] bounds = { Double.NaN, -5, -2, -1, 0, 1, 2, 5, Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY };
+        for (int i = 0; i < 2000; i++) {
+            AlarmRanges ranges = new AlarmRanges();
+            DoubleRange[] dr = new DoubleRange[5];
+            for (int k = 0; k < 5; k++) {
+                if (r.nextInt(3) == 0) {
+                    continue;
+                }
+                double min = bounds[r.nextInt(bounds.length - 1)];
+                double max = bounds[r.nextInt(bounds.length)];
+                if (max == Double.NEGATIVE_INFINITY) {
+                    max = Double.NaN;
+                }
+                dr[k] = new DoubleRange(min, max, r.nextBoolean(), r.nextBoolean());
+            }
+            if (dr[0] != null) {
+                ranges.addWatchRange(dr[0]);
+            }
+            if (dr[1] != null) {
+                ranges.addWarningRange(dr[1]);
+            }
+            if (dr[2] != null) {
+                ranges.addDistressRange(dr[2]);
+            }
+            if (dr[3] != null) {
+                ranges.addCriticalRange(dr[3]);
+            }
+            if (dr[4] != null) {
+                ranges.addSevereRange(dr[4]);
+            }
+            NumericRangesAlarm alarm = new NumericRangesAlarm(numericAlarm(ranges));
+            for (int j = 0; j < 50; j++) {
+                double v = j < 10 ? bounds[j] : (r.nextDouble() - 0.5) * 12;
+                ParameterValue pv = new ParameterValue(p);
+                alarm.check(pv, v);
+                ParameterValue expected = new ParameterValue(p);
+                referenceCheck(ranges, expected, v);
+                assertEquals(expected.getMonitoringResult(), pv.getMonitoringResult(), "value " + v);
+                assertEquals(expected.getRangeCondition(), pv.getRangeCondition(), "value " + v);
+            }
+        }
+    }
+
+    @Test
+    public void testEnumeration() {
+        EnumerationAlarm ea = new EnumerationAlarm();
+        ea.addAlarm("ERROR", AlarmLevels.CRITICAL);
+        ea.addAlarm("DEGRADED", AlarmLevels.WATCH);
+        ea.addAlarm("DEGRADED", AlarmLevels.WARNING);
+        EnumerationLevelsAlarm alarm = new EnumerationLevelsAlarm(ea);
+
+        assertSame(MonitoringResult.IN_LIMITS, alarm.getMonitoringResult("OK"));
+        assertSame(MonitoringResult.CRITICAL, alarm.getMonitoringResult("ERROR"));
+        assertSame(MonitoringResult.WARNING, alarm.getMonitoringResult("DEGRADED"));
+
+        ea.setDefaultAlarmLevel(AlarmLevels.DISTRESS);
+        alarm = new EnumerationLevelsAlarm(ea);
+        assertSame(MonitoringResult.DISTRESS, alarm.getMonitoringResult("OK"));
+        assertNull(EnumerationLevelsAlarm.toMonitoringResult(null));
+    }
+
+    private void check(NumericRangesAlarm alarm, double v, MonitoringResult mr, RangeCondition rc) {
+        ParameterValue pv = new ParameterValue(p);
+        alarm.check(pv, v);
+        assertEquals(mr, pv.getMonitoringResult());
+        assertEquals(rc, pv.getRangeCondition());
+    }
+
+    private static NumericAlarm numericAlarm(AlarmRanges ranges) {
+        NumericAlarm alarm = new NumericAlarm();
+        alarm.setStaticAlarmRanges(ranges);
+        return alarm;
+    }
+
+    /**
+     * The range check as done before the ranges were compiled: the most severe range violated gives the result
+     */
+    private static void referenceCheck(AlarmRanges ranges, ParameterValue pv, double v) {
+        DoubleRange[] ordered = { ranges.getSevereRange(), ranges.getCriticalRange(), ranges.getDistressRange(),
+                ranges.getWarningRange(), ranges.getWatchRange() };
+        MonitoringResult[] results = { MonitoringResult.SEVERE, MonitoringResult.CRITICAL,
+                MonitoringResult.DISTRESS, MonitoringResult.WARNING, MonitoringResult.WATCH };
+        pv.setMonitoringResult(MonitoringResult.IN_LIMITS);
+        for (int k = 0; k < ordered.length; k++) {
+            if (ordered[k] == null) {
+                continue;
+            }
+            int x = ordered[k].inRange(v);
+            if (x != 0) {
+                pv.setMonitoringResult(results[k]);
+                pv.setRangeCondition(x < 0 ? RangeCondition.LOW : RangeCondition.HIGH);
+                return;
+            }
+        }
+    }
+}
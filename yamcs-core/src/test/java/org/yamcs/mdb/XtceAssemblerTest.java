@@ -10,6 +10,7 @@ import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
 import java.nio.ByteOrder;
 import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
@@ -183,6 +184,10 @@ public class XtceAssemblerTest {
             assertEquals(c1, c2);
             Field[] fa = c1.getDeclaredFields();
             for (Field f : fa) {
+                // static and transient fields are not part of the MDB definition
+                if (Modifier.isStatic(f.getModifiers()) || Modifier.isTransient(f.getModifiers())) {
+                    continue;
+                }
                 field = f;
                 f.setAccessible(true);
                 Object o1c = f.get(o1);
@@ -198,6 +198,129 @@ public class ArrayParameterCacheTest {
 
     }
 
+    @Test
+    public void testMemoryBudget() {
+        // one row of a table with one uint64 parameter: generation time + value + status + acquisition time = 28
+        // bytes; the initial 16 rows take 448 bytes so the budget allows one doubling to 32 rows
+        ParameterCacheConfig pcc = new ParameterCacheConfig(true, true, 1000_000, 4096, 1000);
+        ArrayParameterCache pcache = new ArrayParameterCache("test", pcc);
+        List<ParameterValue> expectedPVlist = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            ParameterValue pv = getUint64ParameterValue(p1, i * 10L);
+            expectedPVlist.add(pv);
+            pcache.update(Arrays.asList(pv));
+        }
+        assertEquals(32 * 28, pcache.getMemoryUsage());
+
+        List<ParameterValue> pvlist = pcache.getAllValues(p1);
+        assertEquals(32, pvlist.size());
+        for (int i = 0; i < 32; i++) {
+            TestUtils.checkEquals(expectedPVlist.get(99 - i), pvlist.get(i));
+        }
+
+        pcache.clear();
+        assertEquals(0, pcache.getMemoryUsage());
+    }
+
+    @Test
+    public void testMemoryBudgetReleaseExpired() {
+        // same sizes as above, with a cache duration of 1 second
+        ParameterCacheConfig pcc = new ParameterCacheConfig(true, true, 1000, 4096, 1000);
+        ArrayParameterCache pcache = new ArrayParameterCache("test", pcc);
+        for (int i = 0; i < 32; i++) {
+            pcache.update(Arrays.asList(getUint64ParameterValue(p1, i * 10L)));
+        }
+        assertEquals(32 * 28, pcache.getMemoryUsage());
+
+        // p1 is not received anymore; once the budget is exhausted, its table is removed so the table of p2 can grow
+        List<ParameterValue> expectedPVlist = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            ParameterValue pv = getUint64ParameterValue(p2, 5000 + i * 10L);
+            expectedPVlist.add(pv);
+            pcache.update(Arrays.asList(pv));
+        }
+        assertNull(pcache.getLastValue(p1));
+        assertEquals(32 * 28, pcache.getMemoryUsage());
+
+        List<ParameterValue> pvlist = pcache.getAllValues(p2);
+        assertEquals(32, pvlist.size());
+        TestUtils.checkEquals(expectedPVlist.get(39), pvlist.get(0));
+    }
+
+    @Test
+    public void testMemoryBudgetStrings() {
+        // one row: generation time + value reference + status reference + acquisition time = 24 bytes, plus 1040
+        // bytes for each string of 1000 characters
+        int rowSize = 24 + ArrayParameterCache.ParameterValueTable.STRING_SIZE + 1000;
+        ParameterCacheConfig pcc = new ParameterCacheConfig(true, true, 1000_000, 4096, 50_000);
+        ArrayParameterCache pcache = new ArrayParameterCache("test", pcc);
+        for (int i = 0; i < 100; i++) {
+            ParameterValue pv = new ParameterValue(p1);
+            pv.setGenerationTime(i * 10L);
+            pv.setEngineeringValue(ValueUtility.getStringValue(String.format("%01000d", i)));
+            pcache.update(Arrays.asList(pv));
+        }
+        // growing to 64 rows would exceed the budget
+        assertEquals(32, pcache.getAllValues(p1).size());
+        assertEquals(32 * rowSize, pcache.getMemoryUsage());
+
+        pcache.clear();
+        assertEquals(0, pcache.getMemoryUsage());
+    }
+
+    @Test
+    public void testMemoryBudgetSharedValues() {
+        // the identical consecutive strings and statuses are counted once
+        ParameterCacheConfig pcc = new ParameterCacheConfig(true, true, 1000_000, 4096, 1000_000);
+        ArrayParameterCache pcache = new ArrayParameterCache("test", pcc);
+        for (int i = 0; i < 40; i++) {
+            ParameterValue pv = new ParameterValue(p1);
+            pv.setGenerationTime(i * 10L);
+            pv.setEngineeringValue(ValueUtility.getStringValue(i < 20 ? "a" : "bb"));
+            pv.setExpireMillis(1000);
+            pcache.update(Arrays.asList(pv));
+        }
+        long expected = 64 * 24 + 2 * ArrayParameterCache.ParameterValueTable.STRING_SIZE + 3
+                + ArrayParameterCache.ParameterValueTable.STATUS_SIZE;
+        assertEquals(expected, pcache.getMemoryUsage());
+    }
+
+    @Test
+    public void testBooleanGrowAfterWrap() {
+        ParameterCacheConfig pcc = new ParameterCacheConfig(true, true, 1000, 4096);
+        ArrayParameterCache pcache = new ArrayParameterCache("test", pcc);
+        List<ParameterValue> expectedPVlist = new ArrayList<>();
+        // the first 20 values span more than the cache duration, the table wraps around without growing
+        long t = 0;
+        for (int i = 0; i < 20; i++) {
+            t += 100;
+            ParameterValue pv = getBooleanParameterValue(p1, t, i % 3 == 0);
+            expectedPVlist.add(pv);
+            pcache.update(Arrays.asList(pv));
+        }
+        // then the values come closer and the table grows while the head is in the middle of the columns
+        for (int i = 20; i < 41; i++) {
+            t += 1;
+            ParameterValue pv = getBooleanParameterValue(p1, t, i % 3 == 0);
+            expectedPVlist.add(pv);
+            pcache.update(Arrays.asList(pv));
+        }
+
+        // the table has grown from 16 to 32 entries when adding the 7th close value
+        List<ParameterValue> pvlist = pcache.getAllValues(p1);
+        assertEquals(31, pvlist.size());
+        for (int i = 0; i < 31; i++) {
+            TestUtils.checkEquals(expectedPVlist.get(40 - i), pvlist.get(i));
+        }
+    }
+
+    ParameterValue getBooleanParameterValue(Parameter p, long t, boolean b) {
+        ParameterValue pv = new ParameterValue(p);
+        pv.setGenerationTime(t);
+        pv.setEngineeringValue(ValueUtility.getBooleanValue(b));
+        return pv;
+    }
+
     ParameterValue getUint64ParameterValue(Parameter p, long t) {
         ParameterValue pv = new ParameterValue(p);
         pv.setGenerationTime(t);
@@ -3,6 +3,7 @@ package org.yamcs.parameter;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.util.Arrays;
 
@@ -112,4 +113,61 @@ public class LastValueCacheTest {
         assertEquals(p1v1, lvc.getValueFromEnd(p1, 2));
         assertEquals(p1v0, lvc.getValueFromEnd(p1, 3));
     }
+
+    @Test
+    public void testEnlargeAfterWrap() {
+        LastValueCache lvc = new LastValueCache();
+        lvc.enableBuffering(p1, 2);
+        lvc.add(p1v0);
+        lvc.add(p1v1);
+        lvc.add(p1v2);
+        lvc.enableBuffering(p1, 3);
+        assertEquals(p1v2, lvc.getValueFromEnd(p1, 0));
+        assertEquals(p1v1, lvc.getValueFromEnd(p1, 1));
+        assertNull(lvc.getValueFromEnd(p1, 2));
+
+        lvc.add(p1v3);
+        assertEquals(p1v3, lvc.getValueFromEnd(p1, 0));
+        assertEquals(p1v2, lvc.getValueFromEnd(p1, 1));
+        assertEquals(p1v1, lvc.getValueFromEnd(p1, 2));
+    }
+
+    @Test
+    public void testConcurrentAccess() throws Exception {
+        LastValueCache lvc = new LastValueCache();
+        lvc.enableBuffering(p1, 4);
+        int n = 10000;
+        ParameterValue[] pvs = new ParameterValue[n];
+        for (int i = 0; i < n; i++) {
+            pvs[i] = new ParameterValue(p1);
+            pvs[i].setGenerationTime(i);
+        }
+        Thread writer = new Thread(() -> {
+            for (int i = 0; i < n; i++) {
+                lvc.add(pvs[i]);
+            }
+        });
+        writer.start();
+        long last = -1;
+        while (writer.isAlive()) {
+            ParameterValue pv0 = lvc.getValueFromEnd(p1, 0);
+            ParameterValue pv1 = lvc.getValueFromEnd(p1, 1);
+            if (pv0 != null) {
+                // values are seen in order
+                assertTrue(pv0.getGenerationTime() >= last);
+                last = pv0.getGenerationTime();
+            }
+            if (pv1 != null) {
+                assertTrue(pv1.getGenerationTime() < lvc.getValue(p1).getGenerationTime());
+            }
+            // the oldest value is not overwritten while being read
+            ParameterValue pv3 = lvc.getValueFromEnd(p1, 3);
+            if (pv3 != null) {
+                assertTrue(pv3.getGenerationTime() <= lvc.getValue(p1).getGenerationTime() - 3);
+            }
+        }
+        writer.join();
+        assertEquals(pvs[n - 1], lvc.getValue(p1));
+        assertEquals(pvs[n - 4], lvc.getValueFromEnd(p1, 3));
+    }
 }
@@ -0,0 +1,139 @@
+package org.yamcs.parameter;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.yamcs.ConfigurationException;
+import org.yamcs.YConfiguration;
+import org.yamcs.mdb.Mdb;
+import org.yamcs.mdb.MdbFactory;
+import org.yamcs.xtce.Parameter;
+import org.yamcs.xtce.ParameterType;
+
+public class ParameterIndexMapTest {
+
+    @BeforeAll
+    public static void beforeClass() throws ConfigurationException {
+        YConfiguration.setupTest(null);
+    }
+
+    @Test
+    public void testMdbIndex() {
+        Mdb mdb = MdbFactory.createInstanceByConfig("refmdb");
+        int n = mdb.getParameters().size();
+        BitSet indices = new BitSet();
+        for (Parameter p : mdb.getParameters()) {
+            indices.set(p.getIndex());
+        }
+        // the indices are dense and unique within the MDB
+        assertEquals(n, indices.cardinality());
+        assertEquals(1, indices.nextSetBit(0));
+        assertEquals(n + 1, indices.length());
+
+        // a newly created parameter gets the next index
+        ParameterType ptype = mdb.getParameter("/REFMDB/SUBSYS1/IntegerPara1_1_6").getParameterType();
+        Parameter p = mdb.createSystemParameter(Mdb.YAMCS_SPACESYSTEM_NAME + "/test/index", ptype, "");
+        assertEquals(n + 1, p.getIndex());
+    }
+
+    @Test
+    public void testGrow() {
+        ParameterIndexMap<String> m = new ParameterIndexMap<>();
+        Map<Parameter, String> expected = new HashMap<>();
+        for (int i = 0; i < 3 * ParameterIndexMap.INITIAL_CAPACITY; i++) {
+            Parameter p = new Parameter("p" + i);
+            p.setIndex(i + 1);
+            String v = m.computeIfAbsent(p, k -> k.getName());
+            assertEquals("p" + i, v);
+            expected.put(p, v);
+        }
+        assertEquals(expected.size(), m.size());
+        for (var e : expected.entrySet()) {
+            assertSame(e.getValue(), m.get(e.getKey()));
+        }
+
+        Map<Parameter, String> actual = new HashMap<>();
+        m.forEach(actual::put);
+        assertEquals(expected, actual);
+
+        Parameter p = new Parameter("not-added");
+        p.setIndex(3 * ParameterIndexMap.INITIAL_CAPACITY + 1);
+        assertNull(m.get(p));
+    }
+
+    @Test
+    public void testPutReplace() {
+        ParameterIndexMap<String> m = new ParameterIndexMap<>();
+        Parameter p = new Parameter("p");
+        p.setIndex(1);
+        m.put(p, "a");
+        m.put(p, "b");
+        assertEquals("b", m.get(p));
+        assertEquals("b", m.computeIfAbsent(p, k -> "c"));
+        assertEquals(1, m.size());
+    }
+
+    @Test
+    public void testRemove() {
+        ParameterIndexMap<String> m = new ParameterIndexMap<>();
+        Parameter p1 = new Parameter("p1");
+        p1.setIndex(1);
+        Parameter p2 = new Parameter("p2");
+        p2.setIndex(2);
+        // same index as p1
+        Parameter p3 = new Parameter("p3");
+        p3.setIndex(1);
+        m.put(p1, "a");
+        m.put(p2, "b");
+        m.put(p3, "c");
+
+        assertNull(m.remove(new Parameter("p4")));
+        assertEquals("a", m.remove(p1));
+        assertNull(m.get(p1));
+        assertEquals("c", m.get(p3));
+        assertEquals(2, m.size());
+
+        Map<Parameter, String> actual = new HashMap<>();
+        m.forEach(actual::put);
+        assertEquals(Map.of(p2, "b", p3, "c"), actual);
+
+        assertEquals("c", m.remove(p3));
+        m.put(p1, "d");
+        assertEquals("d", m.get(p1));
+        assertEquals(2, m.size());
+    }
+
+    @Test
+    public void testNoIndexAndCollision() {
+        ParameterIndexMap<String> m = new ParameterIndexMap<>();
+        Parameter p1 = new Parameter("p1");
+        p1.setIndex(5);
+        // same index as p1, e.g. from another MDB
+        Parameter p2 = new Parameter("p2");
+        p2.setIndex(5);
+        // not part of an MDB
+        Parameter p3 = new Parameter("p3");
+
+        m.put(p1, "a");
+        assertNull(m.get(p2));
+        assertNull(m.get(p3));
+        m.put(p2, "b");
+        m.put(p3, "c");
+
+        assertEquals("a", m.get(p1));
+        assertEquals("b", m.get(p2));
+        assertEquals("c", m.get(p3));
+        assertEquals(3, m.size());
+
+        Map<Parameter, String> actual = new HashMap<>();
+        m.forEach(actual::put);
+        assertEquals(Map.of(p1, "a", p2, "b", p3, "c"), actual);
+    }
+}
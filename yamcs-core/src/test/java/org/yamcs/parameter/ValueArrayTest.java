@@ -15,4 +15,15 @@ public class ValueArrayTest {
         ValueArray merged = ValueArray.merge(new int[] { 0, 1, 0 }, va0, va1);
         assertArrayEquals(new int[] { 1, 2, 3 }, merged.getIntArray());
     }
+
+    @Test
+    public void testMergeWithStart() {
+        ValueArray va0 = new ValueArray(new double[] { 0, 1, 3 });
+        ValueArray va1 = new ValueArray(new double[] { 2, 4 });
+
+        // the src buffer is larger than needed and the first element of va0 is skipped
+        int[] src = new int[] { 0, 1, 0, 1, 1, 1 };
+        ValueArray merged = ValueArray.merge(src, 4, new int[] { 1, 0 }, va0, va1);
+        assertArrayEquals(new double[] { 1, 2, 3, 4 }, merged.getDoubleArray());
+    }
 }
@@ -0,0 +1,56 @@
+package org.yamcs.parameterarchive;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.yamcs.utils.LongArray;
+
+public class BackFillerTest {
+    static final long D = ParameterArchive.getIntervalDuration();
+
+    @Test
+    public void testFillRangesContiguous() {
+        LongArray intervals = LongArray.wrap(0, D, 2 * D, 3 * D, 4 * D);
+
+        List<long[]> ranges = BackFiller.getFillRanges(intervals, 1);
+        assertEquals(1, ranges.size());
+        assertRange(0, 4, ranges.get(0));
+
+        ranges = BackFiller.getFillRanges(intervals, 2);
+        assertEquals(2, ranges.size());
+        assertRange(0, 2, ranges.get(0));
+        assertRange(3, 4, ranges.get(1));
+
+        ranges = BackFiller.getFillRanges(intervals, 10);
+        assertEquals(5, ranges.size());
+        for (int i = 0; i < 5; i++) {
+            assertRange(i, i, ranges.get(i));
+        }
+    }
+
+    @Test
+    public void testFillRangesGaps() {
+        LongArray intervals = LongArray.wrap(0, D, 3 * D, 4 * D, 5 * D, 7 * D);
+
+        List<long[]> ranges = BackFiller.getFillRanges(intervals, 1);
+        assertEquals(3, ranges.size());
+        assertRange(0, 1, ranges.get(0));
+        assertRange(3, 5, ranges.get(1));
+        assertRange(7, 7, ranges.get(2));
+
+        ranges = BackFiller.getFillRanges(intervals, 3);
+        assertEquals(4, ranges.size());
+        assertRange(0, 1, ranges.get(0));
+        assertRange(3, 4, ranges.get(1));
+        assertRange(5, 5, ranges.get(2));
+        assertRange(7, 7, ranges.get(3));
+    }
+
+    // checks that the range covers the intervals k1 to k2
+    static void assertRange(int k1, int k2, long[] range) {
+        assertArrayEquals(new long[] { k1 * D, ParameterArchive.getIntervalEnd(k2 * D) }, range);
+    }
+}
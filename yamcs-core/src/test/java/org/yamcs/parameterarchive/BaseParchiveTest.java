@@ -163,11 +163,17 @@ public abstract class BaseParchiveTest {
 
     List<ParameterIdValueList> retrieveMultipleParameters(long start, long stop, int[] parameterIds,
             int[] parameterGroupIds, boolean ascending, int limit) throws Exception {
+        return retrieveMultipleParameters(start, stop, parameterIds, parameterGroupIds, ascending, limit, 1);
+    }
+
+    List<ParameterIdValueList> retrieveMultipleParameters(long start, long stop, int[] parameterIds,
+            int[] parameterGroupIds, boolean ascending, int limit, int parallelism) throws Exception {
         ParameterId[] pids = Arrays.stream(parameterIds).mapToObj(pid -> pidMap.getParameterId(pid))
                 .toArray(ParameterId[]::new);
         MultipleParameterRequest mpvr = new MultipleParameterRequest(start, stop,
                 pids, parameterGroupIds, ascending, true, true, true);
         mpvr.setLimit(limit);
+        mpvr.setParallelism(parallelism);
 
         MultiParameterRetrieval mpdr = new MultiParameterRetrieval(parchive, mpvr);
         MultiValueConsumer c = new MultiValueConsumer();
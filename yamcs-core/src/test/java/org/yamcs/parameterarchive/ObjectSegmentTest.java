@@ -391,4 +391,40 @@ public class ObjectSegmentTest {
             assertEquals(expected[i], actual[i]);
         }
     }
+
+    @Test
+    public void testDeduplication() throws DecodingException {
+        ParameterStatusSegment pss = new ParameterStatusSegment(true);
+        ParameterStatus s0 = ParameterStatus.newBuilder().setMonitoringResult(MonitoringResult.WARNING).build();
+        ParameterStatus s1 = ParameterStatus.newBuilder().setMonitoringResult(MonitoringResult.WARNING).build();
+        ParameterStatus s2 = ParameterStatus.newBuilder().setMonitoringResult(MonitoringResult.CRITICAL).build();
+
+        pss.add(s0);
+        pss.add(s1);
+        pss.add(s0);
+        pss.add(1, s2);
+        assertEquals(4, pss.size());
+        assertEquals(2, pss.unique.size());
+
+        // equal elements are replaced by the first instance added
+        assertTrue(s0 == pss.get(0));
+        assertTrue(s2 == pss.get(1));
+        assertTrue(s0 == pss.get(2));
+        assertTrue(s0 == pss.get(3));
+
+        pss.consolidate();
+        ByteBuffer bb = ByteBuffer.allocate(pss.getMaxSerializedSize());
+        pss.writeTo(bb);
+        bb.rewind();
+        ParameterStatusSegment pss1 = ParameterStatusSegment.parseFrom(bb);
+        assertEquals(4, pss1.size());
+        assertEquals(s0, pss1.get(0));
+        assertEquals(s2, pss1.get(1));
+        assertEquals(s1, pss1.get(3));
+
+        pss1.makeWritable();
+        pss1.add(s1);
+        assertEquals(5, pss1.size());
+        assertEquals(2, pss1.unique.size());
+    }
 }
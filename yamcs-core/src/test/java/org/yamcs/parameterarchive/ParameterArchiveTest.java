@@ -10,6 +10,7 @@ import static org.yamcs.parameter.ParameterStatus.isNominal;
 import static org.yamcs.parameter.ParameterStatus.isInvalid;
 import static org.yamcs.parameterarchive.TestUtils.checkEquals;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
@@ -18,6 +19,7 @@ import java.util.Map;
 
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.ValueSource;
 import org.yamcs.YConfiguration;
@@ -493,6 +495,92 @@ public class ParameterArchiveTest extends BaseParchiveTest {
         checkEquals(l7a.get(1), t2, pv1_3, pv2_1);
     }
 
+    @ParameterizedTest
+    @ValueSource(strings = { "none", "YYYY", "YYYY/MM" })
+    public void testMultipleParametersParallel(String partitioningSchema) throws Exception {
+        openDb(partitioningSchema);
+        int p1id = parchive.getParameterIdDb().createAndGet(p1.getQualifiedName(), Type.STRING);
+        int p2id = parchive.getParameterIdDb().createAndGet(p2.getQualifiedName(), Type.STRING);
+        var pg1 = parchive.getParameterGroupIdDb().getGroup(IntArray.wrap(p1id, p2id));
+        var pg2 = parchive.getParameterGroupIdDb().getGroup(IntArray.wrap(p1id));
+
+        // 30 intervals spread over two months, such that they cover multiple partitions
+        long t0 = TimeEncoding.parse("2017-12-20T00:00:00");
+        long tstep = 2 * ParameterArchive.getIntervalDuration() + 1234;
+        for (int i = 0; i < 30; i++) {
+            long t = t0 + i * tstep;
+            PGSegment pgs1 = new PGSegment(pg1.id, ParameterArchive.getIntervalStart(t));
+            PGSegment pgs2 = new PGSegment(pg2.id, ParameterArchive.getIntervalStart(t));
+            for (int j = 0; j < 5; j++) {
+                pgs1.addRecord(t + j * 10, IntArray.wrap(p1id, p2id), Arrays.asList(
+                        getParameterValue(p1, t + j * 10, "pv1_" + i + "_" + j),
+                        getParameterValue(p2, t + j * 10, "pv2_" + i + "_" + j)));
+                pgs2.addRecord(t + j * 10 + 5, IntArray.wrap(p1id),
+                        Arrays.asList(getParameterValue(p1, t + j * 10 + 5, "pv1b_" + i + "_" + j)));
+            }
+            parchive.writeToArchive(ParameterArchive.getIntervalStart(t), Arrays.asList(pgs1, pgs2));
+        }
+        int[] pids = new int[] { p1id, p2id, p1id };
+        int[] pgids = new int[] { pg1.id, pg1.id, pg2.id };
+
+        long[][] ranges = { { 0, TimeEncoding.MAX_INSTANT }, { t0 + 5, t0 + 10 * tstep + 20 },
+                { t0 + 3 * tstep, t0 + 3 * tstep + 40 } };
+        for (long[] range : ranges) {
+            for (boolean ascending : new boolean[] { true, false }) {
+                for (int limit : new int[] { -1, 17 }) {
+                    var expected = retrieveMultipleParameters(range[0], range[1], pids, pgids, ascending, limit, 1);
+                    var actual = retrieveMultipleParameters(range[0], range[1], pids, pgids, ascending, limit, 4);
+                    assertEquals(expected.size(), actual.size());
+                    for (int k = 0; k < expected.size(); k++) {
+                        var el = expected.get(k);
+                        var al = actual.get(k);
+                        assertEquals(el.time(), al.time());
+                        assertEquals(el.getPids(), al.getPids());
+                        for (int m = 0; m < el.size(); m++) {
+                            assertEquals(el.getValues().get(m).getEngValue(), al.getValues().get(m).getEngValue());
+                        }
+                    }
+                }
+            }
+        }
+        var all = retrieveMultipleParameters(0, TimeEncoding.MAX_INSTANT, pids, pgids, true, -1, 4);
+        assertEquals(300, all.size());
+    }
+
+    @Test
+    public void testMultipleParametersParallelLargeChunks() throws Exception {
+        openDb("none");
+        int p1id = parchive.getParameterIdDb().createAndGet(p1.getQualifiedName(), Type.STRING);
+        var pg1 = parchive.getParameterGroupIdDb().getGroup(IntArray.wrap(p1id));
+
+        // each chunk has more values than can be buffered while waiting for the previous chunks to be consumed
+        int n = 3 * MultiParameterRetrieval.CHUNK_QUEUE_SIZE;
+        long t0 = TimeEncoding.parse("2017-12-20T00:00:00");
+        for (int i = 0; i < 4; i++) {
+            long t = t0 + i * ParameterArchive.getIntervalDuration();
+            PGSegment pgs = new PGSegment(pg1.id, ParameterArchive.getIntervalStart(t));
+            for (int j = 0; j < n; j++) {
+                pgs.addRecord(t + j, IntArray.wrap(p1id),
+                        Arrays.asList(getParameterValue(p1, t + j, "pv_" + i + "_" + j)));
+            }
+            parchive.writeToArchive(pgs);
+        }
+        int[] pids = new int[] { p1id };
+        int[] pgids = new int[] { pg1.id };
+
+        for (boolean ascending : new boolean[] { true, false }) {
+            var all = retrieveMultipleParameters(0, TimeEncoding.MAX_INSTANT, pids, pgids, ascending, -1, 4);
+            assertEquals(4 * n, all.size());
+            for (int k = 1; k < all.size(); k++) {
+                assertEquals(ascending, all.get(k - 1).time() < all.get(k).time());
+            }
+            // the tasks waiting for their buffer to be consumed are stopped when the limit is reached
+            var some = retrieveMultipleParameters(0, TimeEncoding.MAX_INSTANT, pids, pgids, ascending, 100, 4);
+            assertEquals(100, some.size());
+            assertEquals(all.get(99).time(), some.get(99).time());
+        }
+    }
+
     @ParameterizedTest
     @ValueSource(strings = { "none", "YYYY", "YYYY/MM" })
     public void testArrays(String partitioningSchema) throws Exception {
@@ -599,6 +687,116 @@ public class ParameterArchiveTest extends BaseParchiveTest {
         checkEquals(l2a.get(0), 100, pv1_0, pv1_1);
     }
 
+    @ParameterizedTest
+    @ValueSource(strings = { "none", "YYYY" })
+    public void testSingleParameterMultipleGroupsChunks(String partitioningSchema) throws Exception {
+        openDb(partitioningSchema);
+        int n = 3 * SingleParameterRetrieval.MAX_ARRAY_SIZE;
+
+        int p1id = pidMap.createAndGet(p1.getQualifiedName(), Type.STRING);
+        int p2id = pidMap.createAndGet(p2.getQualifiedName(), Type.STRING);
+        var pg1 = pgidMap.getGroup(IntArray.wrap(p1id));
+        var pg2 = pgidMap.getGroup(IntArray.wrap(p1id, p2id));
+
+        // pg1 contains two large segments of the same interval, pg2 one value in between each of them
+        PGSegment seg1 = new PGSegment(pg1.id, 0);
+        for (int i = 0; i < n; i++) {
+            seg1.addRecord(10L * i, IntArray.wrap(p1id), Arrays.asList(getParameterValue(p1, 10L * i, "v" + i)));
+        }
+        seg1.freeze();
+        parchive.writeToArchive(seg1);
+
+        PGSegment seg2 = new PGSegment(pg1.id, 0);
+        seg2.addRecord(10L * n, IntArray.wrap(p1id), Arrays.asList(getParameterValue(p1, 10L * n, "v" + n)));
+        seg2.continueSegment(seg1);
+        for (int i = n + 1; i < 2 * n; i++) {
+            seg2.addRecord(10L * i, IntArray.wrap(p1id), Arrays.asList(getParameterValue(p1, 10L * i, "v" + i)));
+        }
+        parchive.writeToArchive(seg2);
+
+        PGSegment seg3 = new PGSegment(pg2.id, 0);
+        for (int i = 0; i < 2 * n; i += 100) {
+            seg3.addRecord(10L * i + 5, IntArray.wrap(p1id, p2id),
+                    Arrays.asList(getParameterValue(p1, 10L * i + 5, "w" + i), getParameterValue(p2, 10L * i + 5, "")));
+        }
+        parchive.writeToArchive(seg3);
+
+        int[] pgids = new int[] { pg1.id, pg2.id };
+        int total = 2 * n + 2 * n / 100;
+        for (boolean ascending : new boolean[] { true, false }) {
+            List<ParameterValueArray> l = retrieveSingleValueMultigroup(0, TimeEncoding.MAX_INSTANT, p1id, pgids,
+                    ascending);
+            assertTrue(l.size() > 1);
+            int count = 0;
+            long prev = ascending ? Long.MIN_VALUE : Long.MAX_VALUE;
+            for (ParameterValueArray pva : l) {
+                assertTrue(pva.size() <= 3 * SingleParameterRetrieval.MAX_ARRAY_SIZE);
+                for (long t : pva.getTimestamps()) {
+                    assertTrue(ascending ? t > prev : t < prev);
+                    prev = t;
+                }
+                count += pva.size();
+            }
+            // the descending retrieval does not include the start
+            assertEquals(ascending ? total : total - 1, count);
+        }
+
+        // single group retrieval is split in chunks
+        List<ParameterValueArray> l = retrieveSingleParamSingleGroup(0, TimeEncoding.MAX_INSTANT, p1id, pg1.id,
+                true);
+        assertEquals(6, l.size());
+        for (ParameterValueArray pva : l) {
+            assertEquals(SingleParameterRetrieval.MAX_ARRAY_SIZE, pva.size());
+        }
+        assertEquals("v0", l.get(0).getEngValue(0).getStringValue());
+        assertEquals("v" + (2 * n - 1), l.get(5).getEngValue(SingleParameterRetrieval.MAX_ARRAY_SIZE - 1)
+                .getStringValue());
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = { "none", "YYYY" })
+    public void testSingleParameterMultipleGroupsEqualTimestamps(String partitioningSchema) throws Exception {
+        openDb(partitioningSchema);
+        int n = SingleParameterRetrieval.MAX_ARRAY_SIZE + 100;
+
+        int p1id = pidMap.createAndGet(p1.getQualifiedName(), Type.STRING);
+        int p2id = pidMap.createAndGet(p2.getQualifiedName(), Type.STRING);
+        var pg1 = pgidMap.getGroup(IntArray.wrap(p1id));
+        var pg2 = pgidMap.getGroup(IntArray.wrap(p1id, p2id));
+
+        // both groups have values of p1 with the same timestamps
+        PGSegment seg1 = new PGSegment(pg1.id, 0);
+        PGSegment seg2 = new PGSegment(pg2.id, 0);
+        for (int i = 0; i < n; i++) {
+            seg1.addRecord(10L * i, IntArray.wrap(p1id), Arrays.asList(getParameterValue(p1, 10L * i, "v" + i)));
+            seg2.addRecord(10L * i, IntArray.wrap(p1id, p2id),
+                    Arrays.asList(getParameterValue(p1, 10L * i, "w" + i), getParameterValue(p2, 10L * i, "")));
+        }
+        parchive.writeToArchive(seg1);
+        parchive.writeToArchive(seg2);
+
+        int[] pgids = new int[] { pg1.id, pg2.id };
+        for (boolean ascending : new boolean[] { true, false }) {
+            List<ParameterValueArray> l = retrieveSingleValueMultigroup(0, TimeEncoding.MAX_INSTANT, p1id, pgids,
+                    ascending);
+            List<String> values = new ArrayList<>();
+            for (ParameterValueArray pva : l) {
+                for (int k = 0; k < pva.size(); k++) {
+                    values.add(pva.getEngValue(k).getStringValue());
+                }
+            }
+            // the descending retrieval does not include the start
+            int m = ascending ? n : n - 1;
+            assertEquals(2 * m, values.size());
+            for (int j = 0; j < m; j++) {
+                int i = ascending ? j : n - 1 - j;
+                // on equal timestamps, the values come in the order of the parameter groups
+                assertEquals("v" + i, values.get(2 * j));
+                assertEquals("w" + i, values.get(2 * j + 1));
+            }
+        }
+    }
+
     public static YConfiguration backFillerDisabledConfig() {
         Map<String, Object> pam = new HashMap<>();
         Map<String, Object> bfm = new HashMap<>();
@@ -0,0 +1,171 @@
+package org.yamcs.parameterarchive;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.yamcs.YConfiguration;
+import org.yamcs.YamcsServer;
+import org.yamcs.parameter.ParameterValue;
+import org.yamcs.parameterarchive.ParameterRollup.Bucket;
+import org.yamcs.protobuf.Yamcs.Value.Type;
+import org.yamcs.utils.IntArray;
+import org.yamcs.utils.TimeEncoding;
+import org.yamcs.utils.TimeInterval;
+import org.yamcs.utils.ValueUtility;
+import org.yamcs.xtce.Parameter;
+
+public class ParameterRollupTest extends BaseParchiveTest {
+    static Parameter p1, p2;
+
+    @BeforeAll
+    public static void beforeClass() {
+        p1 = new Parameter("p1");
+        p2 = new Parameter("p2");
+        p1.setQualifiedName("/test/p1");
+        p2.setQualifiedName("/test/p2");
+        TimeEncoding.setUp();
+
+        timeService = new MockupTimeService();
+        YamcsServer.setMockupTimeService(timeService);
+    }
+
+    @BeforeEach
+    public void beforeEach() {
+        instance = "ParameterRollupTest";
+    }
+
+    @Test
+    public void testRollups() throws Exception {
+        openDb(null);
+        reopenWithRollups();
+
+        assertEquals(-1, parchive.getRollupTier(500));
+        assertEquals(1, parchive.getRollupTier(30_000));
+        assertEquals(60, parchive.getRollupTier(60_000));
+        assertEquals(60, parchive.getRollupTier(3600_000));
+
+        int p1id = pidMap.createAndGet(p1.getQualifiedName(), Type.DOUBLE);
+        int p2id = pidMap.createAndGet(p2.getQualifiedName(), Type.STRING);
+        var pg = pgidMap.getGroup(IntArray.wrap(p1id, p2id));
+
+        // 240 values every 500 ms written in two segments of the same interval
+        PGSegment seg1 = new PGSegment(pg.id, 0);
+        for (int i = 0; i < 100; i++) {
+            addRecord(seg1, pg.pids, i);
+        }
+        seg1.freeze();
+        parchive.writeToArchive(seg1);
+
+        PGSegment seg2 = new PGSegment(pg.id, 0);
+        addRecord(seg2, pg.pids, 100);
+        seg2.continueSegment(seg1);
+        for (int i = 101; i < 240; i++) {
+            addRecord(seg2, pg.pids, i);
+        }
+        parchive.writeToArchive(seg2);
+
+        RollupRetrieval rr = new RollupRetrieval(parchive, p1.getQualifiedName(), 0, 200_000, 60);
+        assertTrue(rr.isComplete());
+        List<Bucket> buckets = new ArrayList<>();
+        assertEquals(119_500, rr.retrieve(buckets::add));
+
+        // the bucket [0, 60000) is split between the two segments
+        assertEquals(3, buckets.size());
+        assertEquals(240, buckets.stream().mapToInt(Bucket::getCount).sum());
+
+        Bucket b = buckets.get(2);
+        assertEquals(60_000, b.getStart());
+        assertEquals(120, b.getCount());
+        assertEquals(120, b.getMin(), 1e-10);
+        assertEquals(239, b.getMax(), 1e-10);
+        assertEquals(179.5, b.getAvg(), 1e-10);
+        assertEquals(60_000, b.getMinTime());
+        assertEquals(119_500, b.getMaxTime());
+
+        // the bucket partially overlapping with the start is included
+        buckets.clear();
+        new RollupRetrieval(parchive, p1.getQualifiedName(), 70_000, 200_000, 60).retrieve(buckets::add);
+        assertEquals(1, buckets.size());
+
+        // the refused buckets are returned as intervals limited to the requested range and to the last value
+        rr = new RollupRetrieval(parchive, p1.getQualifiedName(), 70_000, 200_000, 60);
+        assertEquals(119_500, rr.retrieve(bucket -> false));
+        List<TimeInterval> rejected = rr.getRejectedIntervals();
+        assertEquals(1, rejected.size());
+        assertEquals(70_000, rejected.get(0).getStart());
+        assertEquals(119_501, rejected.get(0).getEnd());
+
+        // no rollups for non numeric parameters
+        assertFalse(new RollupRetrieval(parchive, p2.getQualifiedName(), 0, 200_000, 60).isComplete());
+
+        // no rollups for tiers not configured
+        assertFalse(new RollupRetrieval(parchive, p1.getQualifiedName(), 0, 200_000, 10).isComplete());
+
+        // rewrite the interval, the old rollups have to be removed
+        PGSegment seg3 = new PGSegment(pg.id, 0);
+        for (int i = 0; i < 10; i++) {
+            addRecord(seg3, pg.pids, i);
+        }
+        parchive.writeToArchive(seg3);
+        buckets.clear();
+        assertEquals(4500, new RollupRetrieval(parchive, p1.getQualifiedName(), 0, 200_000, 60)
+                .retrieve(buckets::add));
+        assertEquals(1, buckets.size());
+        assertEquals(10, buckets.get(0).getCount());
+    }
+
+    @Test
+    public void testDataWrittenBeforeEnablingRollups() throws Exception {
+        openDb(null);
+        int p1id = pidMap.createAndGet(p1.getQualifiedName(), Type.DOUBLE);
+        var pg = pgidMap.getGroup(IntArray.wrap(p1id));
+
+        PGSegment seg1 = new PGSegment(pg.id, 0);
+        for (int i = 0; i < 10; i++) {
+            seg1.addRecord(500L * i, pg.pids, Arrays.asList(getDoubleValue(p1, 500L * i, i)));
+        }
+        parchive.writeToArchive(seg1);
+
+        reopenWithRollups();
+        assertFalse(new RollupRetrieval(parchive, p1.getQualifiedName(), 0, 200_000, 60).isComplete());
+
+        long t = ParameterArchive.getIntervalDuration();
+        PGSegment seg2 = new PGSegment(pg.id, ParameterArchive.getIntervalStart(t));
+        seg2.addRecord(t, pg.pids, Arrays.asList(getDoubleValue(p1, t, 1)));
+        parchive.writeToArchive(seg2);
+
+        // the first interval has still no rollup
+        assertFalse(new RollupRetrieval(parchive, p1.getQualifiedName(), 0, t + 1000, 60).isComplete());
+        // the second one has
+        assertTrue(new RollupRetrieval(parchive, p1.getQualifiedName(), t, t + 1000, 60).isComplete());
+    }
+
+    private void reopenWithRollups() throws Exception {
+        YConfiguration config = ParameterArchiveTest.backFillerDisabledConfig();
+        config.getRoot().put("rollupTiers", Arrays.asList(60, 1));
+        parchive = new ParameterArchive();
+        parchive.init(instance, "test", parchive.getSpec().validate(config));
+        pidMap = parchive.getParameterIdDb();
+        pgidMap = parchive.getParameterGroupIdDb();
+    }
+
+    private void addRecord(PGSegment seg, IntArray pids, int i) {
+        long t = 500L * i;
+        seg.addRecord(t, pids, Arrays.asList(getDoubleValue(p1, t, i), getParameterValue(p2, t, "v" + i)));
+    }
+
+    private ParameterValue getDoubleValue(Parameter p, long t, double v) {
+        ParameterValue pv = new ParameterValue(p);
+        pv.setGenerationTime(t);
+        pv.setEngValue(ValueUtility.getDoubleValue(v));
+        return pv;
+    }
+}
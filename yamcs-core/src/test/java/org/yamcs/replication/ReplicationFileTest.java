@@ -12,13 +12,17 @@ import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Random;
 import java.util.zip.CRC32;
 
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.yamcs.replication.Message.TransactionMessage;
+import org.yamcs.utils.DecodingException;
 import org.yamcs.utils.FileUtils;
 
 public class ReplicationFileTest {
@@ -268,6 +272,146 @@ public class ReplicationFileTest {
 
     }
 
+    @Test
+    public void testCompressed() throws Exception {
+        Path file1 = dir.resolve("t7");
+
+        ReplicationFile rf = ReplicationFile.newFile("test", file1, 0, 10, 17, 100000, ReplicationCompression.DEFLATE,
+                1000);
+        MyTransaction meta1 = new MyTransaction(STREAM_INFO, 10);
+        meta1.txid = rf.writeData(meta1);
+        assertEquals(0, meta1.txid);
+
+        List<MyTransaction> txs = new ArrayList<>();
+        for (int i = 0; i < 25; i++) {
+            MyTransaction tx = compressibleTransaction(100);
+            tx.txid = rf.writeData(tx);
+            assertEquals(i + 1, tx.txid);
+            txs.add(tx);
+        }
+        // the last transactions are waiting in the pending block
+        assertTrue(rf.numTx() < 26);
+        rf.flush();
+        assertEquals(26, rf.numTx());
+
+        ByteBuffer buf = rf.tail(1).buf;
+        // 25 x 120 bytes uncompressed
+        assertTrue(buf.remaining() < 1000);
+        verifyData(buf, txs);
+
+        // starting in the middle of a compressed block returns the full block
+        List<TransactionMessage> msgs = readAll(rf.tail(15).buf);
+        assertTrue(msgs.get(0).txId() <= 15);
+        assertEquals(25, msgs.get(msgs.size() - 1).txId());
+
+        verifyMetadata(rf, meta1);
+
+        // a metadata transaction flushes the pending block
+        MyTransaction tx26 = compressibleTransaction(100);
+        tx26.txid = rf.writeData(tx26);
+        txs.add(tx26);
+        MyTransaction meta2 = new MyTransaction(STREAM_INFO, 10);
+        meta2.txid = rf.writeData(meta2);
+        assertEquals(27, meta2.txid);
+        assertEquals(28, rf.numTx());
+        verifyMetadata(rf, meta1, meta2);
+
+        // recover the transactions without the header being updated
+        ReplicationFile rf1 = ReplicationFile.openReadOnly("test", file1, 0);
+        assertEquals(28, rf1.numTx());
+        assertEquals(ReplicationCompression.DEFLATE, rf1.getCompression());
+        verifyData(rf1.tail(1).buf, txs);
+        rf1.close();
+
+        MyTransaction tx28 = compressibleTransaction(100);
+        tx28.txid = rf.writeData(tx28);
+        rf.close();
+
+        ReplicationFile rf2 = ReplicationFile.openReadWrite("test", file1, 0, 100000, 1000);
+        assertEquals(29, rf2.numTx());
+        assertEquals(ReplicationCompression.DEFLATE, rf2.getCompression());
+        MyTransaction tx29 = compressibleTransaction(100);
+        assertEquals(29, rf2.writeData(tx29));
+        rf2.close();
+    }
+
+    @Test
+    public void testCompressedFileFull() throws Exception {
+        Path file1 = dir.resolve("t8");
+        int size = ReplicationFile.headerSize(10, 2) + 1000;
+        ReplicationFile rf = ReplicationFile.newFile("test", file1, 0, 10, 2, size, ReplicationCompression.DEFLATE,
+                500);
+        long txid;
+        int n = 0;
+        while ((txid = rf.writeData(compressibleTransaction(100))) != -1) {
+            assertEquals(n, txid);
+            n++;
+        }
+        // the file is full either because all the pages or all the space have been used
+        assertTrue(rf.isFull());
+        assertEquals(n, rf.numTx());
+
+        // a transaction larger than the block is written uncompressed
+        Path file2 = dir.resolve("t9");
+        ReplicationFile rf2 = ReplicationFile.newFile("test", file2, 0, 10, 2, 10000, ReplicationCompression.DEFLATE,
+                500);
+        MyTransaction tx = compressibleTransaction(1000);
+        assertEquals(0, rf2.writeData(tx));
+        assertEquals(1, rf2.numTx());
+        verifyData(rf2.tail(0).buf, List.of(tx));
+
+        rf.close();
+        rf2.close();
+    }
+
+    private MyTransaction compressibleTransaction(int size) {
+        MyTransaction tx = new MyTransaction(DATA, size);
+        for (int i = 0; i < size; i++) {
+            tx.b[i] = (byte) (i % 7);
+        }
+        tx.instanceId = 1;
+        return tx;
+    }
+
+    private void verifyData(ByteBuffer buf, List<MyTransaction> txs) throws DecodingException {
+        List<TransactionMessage> msgs = readAll(buf);
+        assertEquals(txs.size(), msgs.size());
+        for (int i = 0; i < txs.size(); i++) {
+            MyTransaction tx = txs.get(i);
+            TransactionMessage msg = msgs.get(i);
+            assertEquals(tx.txid, msg.txId());
+            assertEquals(tx.instanceId, msg.instanceId);
+            byte[] b = new byte[msg.buf().remaining()];
+            msg.buf().get(b);
+            assertArrayEquals(tx.b, b);
+        }
+    }
+
+    // decodes all the DATA transactions from the buffer, inflating the compressed blocks
+    private List<TransactionMessage> readAll(ByteBuffer buf) throws DecodingException {
+        List<TransactionMessage> result = new ArrayList<>();
+        while (buf.hasRemaining()) {
+            ByteBuffer record = buf.slice();
+            record.limit((buf.getInt(buf.position()) & 0xFFFFFF) + 4);
+            buf.position(buf.position() + record.limit());
+            if (record.get(0) == STREAM_INFO) {// the test metadata is not a valid StreamInfo
+                continue;
+            }
+
+            TransactionMessage msg = (TransactionMessage) Message.decode(record);
+            if (msg.type() == Message.COMPRESSED) {
+                int count = msg.buf().getInt();
+                int uncompressedLength = msg.buf().getInt();
+                for (ByteBuffer r : CompressedBlock.inflate(msg.buf(), count, uncompressedLength)) {
+                    result.add((TransactionMessage) Message.decode(r));
+                }
+            } else {
+                result.add(msg);
+            }
+        }
+        return result;
+    }
+
     void verifyMetadata(ReplicationFile rf, MyTransaction... metaRecords) {
         Iterator<ByteBuffer> it = rf.metadataIterator();
 
@@ -0,0 +1,128 @@
+package org.yamcs.replication;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.yamcs.yarch.Stream;
+import org.yamcs.yarch.Tuple;
+import org.yamcs.yarch.YarchTestCase;
+
+public class ReplicationSlaveTest extends YarchTestCase {
+    ReplicationSlave slave;
+    Stream s1;
+    Stream s2;
+
+    @BeforeEach
+    public void createSlave() throws Exception {
+        ydb.execute("create stream s1 (x int)");
+        ydb.execute("create stream s2 (x int)");
+        s1 = ydb.getStream("s1");
+        s2 = ydb.getStream("s2");
+
+        slave = new ReplicationSlave();
+        slave.txtfilePath = Files.createTempFile("replslave", "-lastid.txt");
+        slave.lastTxFile = new RandomAccessFile(slave.txtfilePath.toFile(), "rw");
+        slave.lastTxId = -1;
+        slave.persistedTxId = -1;
+        slave.applyQueueSize = 1024;
+    }
+
+    @AfterEach
+    public void closeSlave() throws IOException {
+        slave.lastTxFile.close();
+        Files.deleteIfExists(slave.txtfilePath);
+    }
+
+    @Test
+    public void testPerStreamOrder() throws Exception {
+        int n = 1000;
+        List<Integer> l1 = Collections.synchronizedList(new ArrayList<>());
+        List<Integer> l2 = Collections.synchronizedList(new ArrayList<>());
+        s1.addSubscriber((s, t) -> l1.add((Integer) t.getColumn("x")));
+        s2.addSubscriber((s, t) -> l2.add((Integer) t.getColumn("x")));
+
+        long txId = 0;
+        for (int i = 0; i < n; i++) {
+            apply(s1, txId++, i);
+            apply(s2, txId++, i);
+        }
+        drain();
+
+        List<Integer> expected = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            expected.add(i);
+        }
+        assertEquals(expected, l1);
+        assertEquals(expected, l2);
+        assertEquals(2 * n - 1, slave.getAppliedTxId());
+        assertEquals(2 * n - 1, readLastTxFile());
+    }
+
+    @Test
+    public void testOutOfOrderCompletion() throws Exception {
+        CountDownLatch blocked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        s1.addSubscriber((s, t) -> {
+            if ((Integer) t.getColumn("x") == 1) {
+                blocked.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+        CountDownLatch s2Done = new CountDownLatch(4);
+        s2.addSubscriber((s, t) -> s2Done.countDown());
+
+        apply(s1, 0, 0);
+        apply(s1, 1, 1);
+        for (int i = 2; i <= 5; i++) {
+            apply(s2, i, i);
+        }
+        assertTrue(blocked.await(10, TimeUnit.SECONDS));
+        assertTrue(s2Done.await(10, TimeUnit.SECONDS));
+
+        // the transactions 2 to 5 have been applied but 1 is still pending
+        slave.updateLastTxFile();
+        assertEquals(0, slave.getAppliedTxId());
+        assertEquals(0, readLastTxFile());
+
+        release.countDown();
+        drain();
+        assertEquals(5, slave.getAppliedTxId());
+        assertEquals(5, readLastTxFile());
+    }
+
+    // mimics the slave channel handler which updates the lastTxId after passing the tuple to the applier
+    private void apply(Stream stream, long txId, int x) {
+        synchronized (slave.pendingTxIds) {
+            slave.getApplier(stream).apply(txId, new Tuple(stream.getDefinition(), new Object[] { x }));
+            slave.lastTxId = txId;
+        }
+    }
+
+    // waits for the appliers to finish and persists the last applied transaction, as done when stopping the service
+    private void drain() {
+        for (var applier : slave.appliers.values()) {
+            applier.shutdown();
+        }
+        slave.updateLastTxFile();
+    }
+
+    private long readLastTxFile() throws IOException {
+        return Long.parseLong(Files.readAllLines(slave.txtfilePath).get(0));
+    }
+}
@@ -0,0 +1,274 @@
+package org.yamcs.yarch;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.yamcs.yarch.AsyncStreamSubscriber.Config;
+import org.yamcs.yarch.AsyncStreamSubscriber.OverflowPolicy;
+
+public class AsyncStreamTest extends YarchTestCase {
+
+    @Test
+    public void testDeliveryInOrder() throws Exception {
+        Stream s = createStream("async1");
+        s.enableAsyncDelivery(new Config(16, 5, OverflowPolicy.BLOCK));
+
+        BatchRecorder rec1 = new BatchRecorder();
+        BatchRecorder rec2 = new BatchRecorder();
+        s.addSubscriber(rec1);
+        s.addSubscriber(rec2);
+
+        int n = 1000;
+        for (int i = 0; i < n; i++) {
+            s.emitTuple(tuple(s, i));
+        }
+        s.close();
+
+        for (BatchRecorder rec : List.of(rec1, rec2)) {
+            assertTrue(rec.closed.await(10, TimeUnit.SECONDS));
+            assertEquals(n, rec.values.size());
+            for (int i = 0; i < n; i++) {
+                assertEquals(i, rec.values.get(i));
+            }
+            assertTrue(rec.maxBatchSize <= 5);
+        }
+        long delivered = s.getAsyncSubscribers().stream().mapToLong(AsyncStreamSubscriber::getDeliveredCount).sum();
+        assertEquals(2 * n, delivered);
+    }
+
+    @Test
+    public void testDropWhenFull() throws Exception {
+        Stream s = createStream("async2");
+        s.enableAsyncDelivery(new Config(2, 1, OverflowPolicy.DROP));
+
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch first = new CountDownLatch(1);
+        BatchRecorder rec = new BatchRecorder() {
+            @Override
+            public void onTuple(Stream stream, Tuple tuple) {
+                first.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                super.onTuple(stream, tuple);
+            }
+        };
+        s.addSubscriber(rec);
+
+        s.emitTuple(tuple(s, 0));
+        assertTrue(first.await(10, TimeUnit.SECONDS));
+        // the subscriber is blocked with tuple 0, the queue has space for two more
+        for (int i = 1; i < 10; i++) {
+            s.emitTuple(tuple(s, i));
+        }
+        AsyncStreamSubscriber as = s.getAsyncSubscribers().iterator().next();
+        assertEquals(7, as.getDroppedCount());
+        assertEquals(2, as.getQueueDepth());
+
+        release.countDown();
+        s.close();
+        assertTrue(rec.closed.await(10, TimeUnit.SECONDS));
+        assertEquals(List.of(0, 1, 2), rec.values);
+    }
+
+    @Test
+    public void testRemoveSubscriber() throws Exception {
+        Stream s = createStream("async3");
+        BatchRecorder rec = new BatchRecorder();
+        s.addSubscriber(rec);
+        // existing subscribers are switched to asynchronous delivery
+        s.enableAsyncDelivery(new Config(16, 16, OverflowPolicy.BLOCK));
+        assertEquals(1, s.getAsyncSubscribers().size());
+        assertTrue(s.getSubscribers().contains(rec));
+
+        AsyncStreamSubscriber as = s.getAsyncSubscribers().iterator().next();
+        s.removeSubscriber(rec);
+        assertTrue(s.getAsyncSubscribers().isEmpty());
+        as.thread.join(10000);
+        assertFalse(as.thread.isAlive());
+
+        assertThrows(IllegalStateException.class,
+                () -> s.enableAsyncDelivery(new Config(16, 16, OverflowPolicy.BLOCK)));
+    }
+
+    @Test
+    public void testCloseFromSubscriber() throws Exception {
+        Stream s = createStream("async4");
+        s.enableAsyncDelivery(new Config(2, 1, OverflowPolicy.BLOCK));
+
+        CountDownLatch release = new CountDownLatch(1);
+        BatchRecorder rec = new BatchRecorder() {
+            @Override
+            public void onTuple(Stream stream, Tuple tuple) {
+                super.onTuple(stream, tuple);
+                if (values.size() == 1) {
+                    try {
+                        // wait for the queue to fill up before closing the stream
+                        release.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    stream.close();
+                }
+            }
+        };
+        s.addSubscriber(rec);
+
+        s.emitTuple(tuple(s, 0));
+        s.emitTuple(tuple(s, 1));
+        s.emitTuple(tuple(s, 2));
+        release.countDown();
+
+        // the tuples in the queue are still delivered
+        assertTrue(rec.closed.await(10, TimeUnit.SECONDS));
+        assertEquals(List.of(0, 1, 2), rec.values);
+    }
+
+    @Test
+    public void testFailingTuple() throws Exception {
+        Stream s = createStream("async5");
+        List<Tuple> failed = new ArrayList<>();
+        s.exceptionHandler((tuple, subscr, t) -> failed.add(tuple));
+        s.enableAsyncDelivery(new Config(16, 16, OverflowPolicy.BLOCK));
+
+        CountDownLatch release = new CountDownLatch(1);
+        BatchRecorder rec = new BatchRecorder() {
+            @Override
+            public void onTuple(Stream stream, Tuple tuple) {
+                try {
+                    // make sure all the tuples are delivered in one batch
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                if ((Integer) tuple.getColumn("x") == 2) {
+                    throw new IllegalStateException("failed");
+                }
+                super.onTuple(stream, tuple);
+            }
+        };
+        s.addSubscriber(rec);
+        for (int i = 0; i < 5; i++) {
+            s.emitTuple(tuple(s, i));
+        }
+        release.countDown();
+        s.close();
+
+        assertTrue(rec.closed.await(10, TimeUnit.SECONDS));
+        // the tuples after the failing one are still delivered
+        assertEquals(List.of(0, 1, 3, 4), rec.values);
+        assertEquals(1, failed.size());
+        assertEquals(2, (int) failed.get(0).getColumn("x"));
+        assertEquals(4, s.getAsyncSubscribers().iterator().next().getDeliveredCount());
+    }
+
+    @Test
+    public void testFailingBatch() throws Exception {
+        Stream s = createStream("async7");
+        List<Tuple> failed = new ArrayList<>();
+        s.exceptionHandler((tuple, subscr, t) -> failed.add(tuple));
+        s.enableAsyncDelivery(new Config(16, 16, OverflowPolicy.BLOCK));
+
+        CountDownLatch release = new CountDownLatch(1);
+        BatchRecorder rec = new BatchRecorder() {
+            boolean first = true;
+
+            @Override
+            public void onTuples(Stream stream, List<Tuple> tuples) {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                if (first) {
+                    // fails without telling which tuple
+                    first = false;
+                    throw new IllegalStateException("failed");
+                }
+                super.onTuples(stream, tuples);
+            }
+        };
+        s.addSubscriber(rec);
+        for (int i = 0; i < 5; i++) {
+            s.emitTuple(tuple(s, i));
+        }
+        release.countDown();
+        s.close();
+
+        assertTrue(rec.closed.await(10, TimeUnit.SECONDS));
+        // the exception is reported for the first tuple, the others are delivered one by one
+        assertEquals(1, failed.size());
+        assertEquals(0, (int) failed.get(0).getColumn("x"));
+        assertEquals(List.of(1, 2, 3, 4), rec.values);
+        assertEquals(4, s.getAsyncSubscribers().iterator().next().getDeliveredCount());
+    }
+
+    @Test
+    public void testRemoveSubscriberAndWait() throws Exception {
+        Stream s = createStream("async6");
+        s.enableAsyncDelivery(new Config(16, 16, OverflowPolicy.BLOCK));
+
+        CountDownLatch inside = new CountDownLatch(1);
+        BatchRecorder rec = new BatchRecorder() {
+            @Override
+            public void onTuple(Stream stream, Tuple tuple) {
+                inside.countDown();
+                try {
+                    Thread.sleep(200);
+                } catch (InterruptedException e) {
+                    // the delivery thread is not interrupted when the subscriber is removed
+                    throw new IllegalStateException(e);
+                }
+                super.onTuple(stream, tuple);
+            }
+        };
+        s.addSubscriber(rec);
+        s.emitTuple(tuple(s, 0));
+        assertTrue(inside.await(10, TimeUnit.SECONDS));
+
+        assertTrue(s.removeSubscriberAndWait(rec, 10, TimeUnit.SECONDS));
+        // the batch being delivered has been finished
+        assertEquals(List.of(0), rec.values);
+    }
+
+    private Stream createStream(String name) throws Exception {
+        execute("create stream " + name + " (x int)");
+        return ydb.getStream(name);
+    }
+
+    private Tuple tuple(Stream s, int x) {
+        return new Tuple(s.getDefinition(), new Object[] { x });
+    }
+
+    static class BatchRecorder implements StreamSubscriber {
+        final List<Integer> values = new ArrayList<>();
+        final CountDownLatch closed = new CountDownLatch(1);
+        volatile int maxBatchSize;
+
+        @Override
+        public void onTuples(Stream stream, List<Tuple> tuples) {
+            maxBatchSize = Math.max(maxBatchSize, tuples.size());
+            StreamSubscriber.super.onTuples(stream, tuples);
+        }
+
+        @Override
+        public void onTuple(Stream stream, Tuple tuple) {
+            values.add((Integer) tuple.getColumn("x"));
+        }
+
+        @Override
+        public void streamClosed(Stream stream) {
+            closed.countDown();
+        }
+    }
+}
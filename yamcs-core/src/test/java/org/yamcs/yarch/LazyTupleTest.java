@@ -0,0 +1,82 @@
+package org.yamcs.yarch;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+
+public class LazyTupleTest extends YarchTestCase {
+
+    private Tuple roundTrip(TableDefinition tblDef, Tuple t) {
+        Row row = tblDef.generateRow(t);
+        byte[] v = tblDef.serializeValue(t, row);
+        return tblDef.deserialize(row.getKey(), v);
+    }
+
+    @Test
+    public void testColumns() throws Exception {
+        ydb.execute("create table lazy1(gentime timestamp, seq int, name string, data binary, val double, "
+                + "cnt long, primary key(gentime, seq))");
+        TableDefinition tblDef = ydb.getTable("lazy1");
+
+        TupleDefinition tdef = new TupleDefinition();
+        tdef.addColumn("gentime", DataType.TIMESTAMP);
+        tdef.addColumn("seq", DataType.INT);
+        tdef.addColumn("name", DataType.STRING);
+        tdef.addColumn("data", DataType.BINARY);
+        tdef.addColumn("val", DataType.DOUBLE);
+        tdef.addColumn("cnt", DataType.LONG);
+        Tuple t = new Tuple(tdef, Arrays.asList(-1000L, -3, "lazy", new byte[] { 1, 2, 3 }, 3.14, 1L << 40));
+
+        Tuple t1 = roundTrip(tblDef, t);
+        assertTrue(t1 instanceof LazyTuple);
+        assertEquals(6, t1.size());
+
+        // primitive getters decoding from the serialized data
+        assertEquals(-1000L, t1.getTimestampColumn("gentime"));
+        assertEquals(-3, t1.getIntColumn("seq"));
+        assertEquals(3.14, t1.getDoubleColumn("val"));
+        assertEquals(1L << 40, t1.getLongColumn("cnt"));
+
+        // generic getters
+        assertEquals("lazy", t1.getColumn("name"));
+        assertArrayEquals(new byte[] { 1, 2, 3 }, (byte[]) t1.getColumn("data"));
+        assertEquals(-1000L, (Long) t1.getColumn(0));
+        assertEquals(Arrays.asList(t.getColumns().get(0), t.getColumns().get(1), "lazy"),
+                t1.getColumns().subList(0, 3));
+
+        // modifications
+        t1.setColumn("seq", 7);
+        assertEquals(7, t1.getIntColumn("seq"));
+        assertEquals("lazy", t1.removeColumn("name"));
+        assertEquals(5, t1.size());
+        assertEquals(3.14, t1.getDoubleColumn("val"));
+        t1.addColumn("extra", 5);
+        assertEquals(5, (int) t1.getColumn("extra"));
+        assertEquals(1L << 40, t1.getLongColumn("cnt"));
+    }
+
+    @Test
+    public void testNullColumns() throws Exception {
+        ydb.execute("create table lazy2(id int, a string, b int, c string, primary key(id))");
+        TableDefinition tblDef = ydb.getTable("lazy2");
+
+        TupleDefinition tdef = new TupleDefinition();
+        tdef.addColumn("id", DataType.INT);
+        tdef.addColumn("a", DataType.STRING);
+        tdef.addColumn("b", DataType.INT);
+        tdef.addColumn("c", DataType.STRING);
+
+        Tuple t1 = roundTrip(tblDef, new Tuple(tdef, Arrays.asList(1, null, 10, "x")));
+        assertEquals(3, t1.size());
+        assertFalse(t1.hasColumn("a"));
+        assertNull(t1.getColumn("a"));
+        assertEquals(10, t1.getIntColumn("b"));
+        assertEquals("x", t1.getColumn("c"));
+    }
+}
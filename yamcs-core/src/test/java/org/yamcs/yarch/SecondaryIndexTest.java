@@ -52,6 +52,62 @@ public class SecondaryIndexTest extends YarchTestCase {
         assertFalse(res.hasNext());
     }
 
+    @Test
+    public void testIn() throws Exception {
+        populate("test_in");
+        StreamSqlResult res = ydb.execute("select * from test_in where c in (3, 5)");
+        int n3 = 0, n5 = 0;
+        while (res.hasNext()) {
+            int c = res.next().getColumn("c");
+            if (c == 3) {
+                n3++;
+            } else if (c == 5) {
+                n5++;
+            } else {
+                throw new AssertionError("Unexpected value " + c);
+            }
+        }
+        assertEquals(4, n3);
+        assertEquals(6, n5);
+    }
+
+    @Test
+    public void testInAndRange() throws Exception {
+        populate("test_in_range");
+        StreamSqlResult res = ydb.execute("select * from test_in_range where c > 4 and c in (3, 5, 7) and c < 7");
+        int k = 0;
+        while (res.hasNext()) {
+            assertEquals(5, (int) res.next().getColumn("c"));
+            k++;
+        }
+        assertEquals(6, k);
+    }
+
+    @Test
+    public void testFilterNotIndexed() throws Exception {
+        ydb.execute("create table test_filter(a int, b binary, c int, d string, primary key(a), index(c))");
+        ydb.execute("create stream test_filter_in(a int, b binary, c int, d string)");
+        ydb.execute("insert into test_filter select * from test_filter_in");
+        Stream s = ydb.getStream("test_filter_in");
+        for (int a = 0; a < 100; a++) {
+            s.emitTuple(new Tuple(s.getDefinition(), Arrays.asList(a, new byte[a], a % 10, "r" + (a % 7))));
+        }
+        execute("close stream test_filter_in");
+
+        // the where clause is evaluated on the table rows decoding only the columns c and d
+        StreamSqlResult res = ydb.execute("select * from test_filter where d = 'r3' and c > 5");
+        int k = 0;
+        while (res.hasNext()) {
+            Tuple t = res.next();
+            int a = t.getColumn("a");
+            assertEquals(3, a % 7);
+            assertTrue(a % 10 > 5);
+            assertEquals(a, ((byte[]) t.getColumn("b")).length);
+            k++;
+        }
+        assertEquals(5, k);
+    }
+
     @Test
     public void testDbReload() throws Exception {
         ydb.execute("create table test_reload(a int, b int, primary key(a), index(b))");
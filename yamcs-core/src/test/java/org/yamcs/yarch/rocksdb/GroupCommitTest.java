@@ -0,0 +1,120 @@
+package org.yamcs.yarch.rocksdb;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.yamcs.yarch.ColumnDefinition;
+import org.yamcs.yarch.DataType;
+import org.yamcs.yarch.PartitioningSpec;
+import org.yamcs.yarch.TableDefinition;
+import org.yamcs.yarch.TableWriter.InsertMode;
+import org.yamcs.yarch.Tuple;
+import org.yamcs.yarch.TupleDefinition;
+import org.yamcs.yarch.YarchDatabase;
+import org.yamcs.yarch.YarchTestCase;
+
+/**
+ * The group commit is enabled for the table in yamcs.yarchtest_GroupCommitTest.yaml with maxBatchSize 10 and
+ * maxDelay 1000 ms
+ */
+public class GroupCommitTest extends YarchTestCase {
+    private TupleDefinition tdef;
+    private TableDefinition tblDef;
+    private RdbStorageEngine rse;
+
+    @BeforeEach
+    public void before() throws Exception {
+        tdef = new TupleDefinition();
+        tdef.addColumn(new ColumnDefinition("gentime", DataType.TIMESTAMP));
+        tdef.addColumn(new ColumnDefinition("packetid", DataType.INT));
+        tdef.addColumn(new ColumnDefinition("col3", DataType.INT));
+        tblDef = new TableDefinition("GroupCommitTest", tdef, Arrays.asList("gentime"));
+
+        PartitioningSpec pspec = PartitioningSpec.timeAndValueSpec("gentime", "packetid", "YYYY");
+        pspec.setValueColumnType(DataType.INT);
+        tblDef.setPartitioningSpec(pspec);
+        tblDef.setStorageEngineName(YarchDatabase.RDB_ENGINE_NAME);
+
+        ydb.createTable(tblDef);
+        rse = (RdbStorageEngine) ydb.getStorageEngine(tblDef);
+    }
+
+    @AfterEach
+    public void after() throws Exception {
+        ydb.dropTable("GroupCommitTest");
+    }
+
+    @Test
+    public void testBatchSizeAndDelay() throws Exception {
+        RdbTableWriter tw = rse.newTableWriter(ydb, tblDef, InsertMode.INSERT);
+        for (int i = 0; i < 25; i++) {
+            tw.onTuple(null, new Tuple(tdef, new Object[] { 1000L * i, i % 3, i }));
+        }
+        // two batches of 10 records have been written
+        assertEquals(20, count());
+        GroupCommitStats stats = rse.getTablespace(ydb).getTable(tblDef).getGroupCommitStats();
+        assertEquals(2, stats.getCommitCount());
+        assertEquals(10, stats.getAndResetMaxBatchSize());
+
+        // the remaining 5 are written after the delay
+        ScheduledFuture<?> commitFuture = tw.getCommitFuture();
+        assertNotNull(commitFuture);
+        commitFuture.get(10, TimeUnit.SECONDS);
+        assertEquals(25, count());
+        assertEquals(25, stats.getRecordCount());
+        tw.close();
+    }
+
+    @Test
+    public void testInsertDuplicates() throws Exception {
+        RdbTableWriter tw = rse.newTableWriter(ydb, tblDef, InsertMode.INSERT);
+        List<Tuple> tuples = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            tuples.add(new Tuple(tdef, new Object[] { 1000L * i, 1, i }));
+        }
+        // same key, already in the batch
+        tuples.add(new Tuple(tdef, new Object[] { 0L, 1, 100 }));
+        // the batch is written at the end of the list
+        tw.onTuples(null, tuples);
+        assertEquals(5, count());
+
+        // same key, already in the database
+        tw.onTuple(null, new Tuple(tdef, new Object[] { 1000L, 1, 100 }));
+        tw.close();
+
+        List<Tuple> l = fetch();
+        assertEquals(5, l.size());
+        assertEquals(0, l.get(0).getIntColumn("col3"));
+        assertEquals(1, l.get(1).getIntColumn("col3"));
+    }
+
+    @Test
+    public void testUpsert() throws Exception {
+        RdbTableWriter tw = rse.newTableWriter(ydb, tblDef, InsertMode.UPSERT);
+        tw.onTuple(null, new Tuple(tdef, new Object[] { 0L, 1, 1 }));
+        tw.onTuple(null, new Tuple(tdef, new Object[] { 0L, 1, 2 }));
+        // the batch is written when closing the writer
+        tw.close();
+
+        List<Tuple> l = fetch();
+        assertEquals(1, l.size());
+        assertEquals(2, l.get(0).getIntColumn("col3"));
+    }
+
+    private int count() throws Exception {
+        return fetch().size();
+    }
+
+    private List<Tuple> fetch() throws Exception {
+        return fetchAllFromTable("GroupCommitTest");
+    }
+}
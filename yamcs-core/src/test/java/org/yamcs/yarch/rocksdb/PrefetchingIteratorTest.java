@@ -0,0 +1,186 @@
+package org.yamcs.yarch.rocksdb;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.yamcs.utils.ByteArrayUtils;
+
+public class PrefetchingIteratorTest {
+    static final int PERMITS = 4;
+    ExecutorService executor;
+    Semaphore permits = new Semaphore(PERMITS);
+
+    @BeforeEach
+    public void before() {
+        // only one thread such that the iterators have to share it
+        executor = Executors.newSingleThreadExecutor();
+    }
+
+    @AfterEach
+    public void after() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testAscending() {
+        int n = 3 * PrefetchingIterator.MAX_BATCH_SIZE + 7;
+        ListIterator lit = new ListIterator(n, true);
+        PrefetchingIterator it = new PrefetchingIterator(lit, true, executor, permits);
+        for (int i = 0; i < n; i++) {
+            assertTrue(it.isValid());
+            assertArrayEquals(ByteArrayUtils.encodeInt(i), it.key());
+            assertArrayEquals(ByteArrayUtils.encodeInt(2 * i), it.value());
+            it.next();
+        }
+        assertFalse(it.isValid());
+        it.close();
+        assertTrue(lit.closed);
+        assertEquals(PERMITS, permits.availablePermits());
+    }
+
+    @Test
+    public void testDescending() {
+        int n = PrefetchingIterator.MAX_BATCH_SIZE;
+        PrefetchingIterator it = new PrefetchingIterator(new ListIterator(n, false), false, executor, permits);
+        for (int i = n - 1; i >= 0; i--) {
+            assertArrayEquals(ByteArrayUtils.encodeInt(i), it.key());
+            it.prev();
+        }
+        assertFalse(it.isValid());
+        it.close();
+    }
+
+    @Test
+    public void testEmpty() {
+        PrefetchingIterator it = new PrefetchingIterator(new ListIterator(0, true), true, executor, permits);
+        assertFalse(it.isValid());
+        it.close();
+    }
+
+    @Test
+    public void testMerge() {
+        // two partitions with interleaved keys sharing the same executor thread
+        ListIterator lit1 = new ListIterator(5000, true);
+        ListIterator lit2 = new ListIterator(3000, true);
+        List<DbIterator> itList = Arrays.asList(new PrefetchingIterator(lit1, true, executor, permits),
+                new PrefetchingIterator(lit2, true, executor, permits));
+        MergingIterator mit = new MergingIterator(new ArrayList<>(itList),
+                new RdbTableWalker.SuffixAscendingComparator(0));
+        int k = 0;
+        int prev = -1;
+        while (mit.isValid()) {
+            int x = ByteArrayUtils.decodeInt(mit.key(), 0);
+            assertTrue(x >= prev);
+            prev = x;
+            k++;
+            mit.next();
+        }
+        assertEquals(8000, k);
+        mit.close();
+        assertTrue(lit1.closed);
+        assertTrue(lit2.closed);
+    }
+
+    @Test
+    public void testCloseBeforeEnd() {
+        ListIterator lit = new ListIterator(10 * PrefetchingIterator.MAX_BATCH_SIZE, true);
+        PrefetchingIterator it = new PrefetchingIterator(lit, true, executor, permits);
+        it.next();
+        it.close();
+        assertTrue(lit.closed);
+        assertFalse(it.isValid());
+        assertEquals(PERMITS, permits.availablePermits());
+    }
+
+    @Test
+    public void testNoPermit() throws Exception {
+        // all the permits are taken by other iterators, the batches are read on demand
+        permits.acquire(PERMITS);
+        int n = 2 * PrefetchingIterator.MAX_BATCH_SIZE + 3;
+        ListIterator lit = new ListIterator(n, true);
+        PrefetchingIterator it = new PrefetchingIterator(lit, true, executor, permits);
+        assertEquals(0, lit.idx);
+        for (int i = 0; i < n; i++) {
+            assertArrayEquals(ByteArrayUtils.encodeInt(i), it.key());
+            it.next();
+            if (i == 10) {
+                // a permit becomes available, the following batches are read ahead again
+                permits.release();
+            }
+        }
+        assertFalse(it.isValid());
+        it.close();
+        assertEquals(1, permits.availablePermits());
+    }
+
+    @Test
+    public void testExecutorShutdown() {
+        // the batches are read in the consumer thread and the permits are not lost
+        executor.shutdown();
+        int n = 2 * PrefetchingIterator.MAX_BATCH_SIZE + 3;
+        PrefetchingIterator it = new PrefetchingIterator(new ListIterator(n, true), true, executor, permits);
+        for (int i = 0; i < n; i++) {
+            assertArrayEquals(ByteArrayUtils.encodeInt(i), it.key());
+            it.next();
+        }
+        assertFalse(it.isValid());
+        it.close();
+        assertEquals(PERMITS, permits.availablePermits());
+    }
+
+    /**
+     * iterates over the keys 0..n-1 (encoded as int) with the values 2*key
+     */
+    static class ListIterator implements DbIterator {
+        final int n;
+        int idx;
+        volatile boolean closed;
+
+        ListIterator(int n, boolean ascending) {
+            this.n = n;
+            this.idx = ascending ? 0 : n - 1;
+        }
+
+        @Override
+        public boolean isValid() {
+            return !closed && idx >= 0 && idx < n;
+        }
+
+        @Override
+        public void next() {
+            idx++;
+        }
+
+        @Override
+        public void prev() {
+            idx--;
+        }
+
+        @Override
+        public byte[] key() {
+            return ByteArrayUtils.encodeInt(idx);
+        }
+
+        @Override
+        public byte[] value() {
+            return ByteArrayUtils.encodeInt(2 * idx);
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+    }
+}
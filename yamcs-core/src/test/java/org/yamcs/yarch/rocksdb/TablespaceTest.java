@@ -171,6 +171,22 @@ public class TablespaceTest {
         tablespace2.close();
     }
 
+    @Test
+    public void testMemoryUsage() throws Exception {
+        String dir = testDir + File.separator + "tablespace5";
+        Tablespace tablespace = new Tablespace("tablespace5");
+        tablespace.setCustomDataDir(dir);
+        tablespace.loadDb(false);
+        YRDB rdb = tablespace.getRdb();
+        rdb.put(new byte[] { 1, 2, 3, 4, 5 }, new byte[1000]);
+
+        var memUsage = tablespace.getApproximateMemoryUsage();
+        assertTrue(memUsage.cfMemoryUsage.containsKey(YRDB.DEFAULT_CF));
+        assertTrue(memUsage.cfMemoryUsage.containsKey(Tablespace.CF_METADATA));
+        assertTrue(memUsage.cfMemoryUsage.get(YRDB.DEFAULT_CF).memtableMemoryUsage > 0);
+        tablespace.close();
+    }
+
     private TablespaceRecord createTablePartitionRecord(Tablespace tablespace, String yamcsInstance, String tblName,
             String dir, byte[] bvalue) throws RocksDBException {
         TablespaceRecord.Builder trb = TablespaceRecord.newBuilder().setType(Type.TABLE_PARTITION)
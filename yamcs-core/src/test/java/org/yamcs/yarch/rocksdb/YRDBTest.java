@@ -0,0 +1,106 @@
+package org.yamcs.yarch.rocksdb;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.rocksdb.FlushOptions;
+import org.rocksdb.RocksDB;
+import org.yamcs.utils.ByteArrayUtils;
+import org.yamcs.utils.FileUtils;
+
+public class YRDBTest {
+    Path dir;
+    YRDB rdb;
+
+    @BeforeAll
+    public static void initRocksDb() {
+        RocksDB.loadLibrary();
+    }
+
+    @BeforeEach
+    public void before() throws Exception {
+        dir = Files.createTempDirectory("yrdbtest");
+        rdb = new YRDB(dir.toString(), false);
+
+        // three prefixes, each one written in its own SST file
+        for (int p : new int[] { 1, 2, 0xFFFFFFFF }) {
+            for (int i = 0; i < 10; i++) {
+                rdb.put(key(p, i), ByteArrayUtils.encodeInt(i));
+            }
+            try (FlushOptions fo = new FlushOptions()) {
+                rdb.getDb().flush(fo);
+            }
+        }
+    }
+
+    @AfterEach
+    public void after() throws Exception {
+        rdb.close();
+        FileUtils.deleteRecursively(dir);
+    }
+
+    @Test
+    public void testPrefixIterator() {
+        assertEquals(List.of(0, 1, 2, 3, 4, 5, 6, 7, 8, 9), ascending(ByteArrayUtils.encodeInt(2)));
+        assertEquals(List.of(3), ascending(key(1, 3)));
+        assertEquals(List.of(), ascending(ByteArrayUtils.encodeInt(3)));
+        assertEquals(10, ascending(ByteArrayUtils.encodeInt(0xFFFFFFFF)).size());
+        // prefix shorter than the prefix extractor
+        assertEquals(20, ascending(new byte[] { 0, 0 }).size());
+    }
+
+    @Test
+    public void testDescendingPrefixIterator() {
+        assertEquals(List.of(9, 8, 7, 6, 5, 4, 3, 2, 1, 0), descending(ByteArrayUtils.encodeInt(1)));
+        assertEquals(List.of(9, 8, 7, 6, 5, 4, 3, 2, 1, 0), descending(ByteArrayUtils.encodeInt(2)));
+        assertEquals(List.of(), descending(ByteArrayUtils.encodeInt(3)));
+        assertEquals(10, descending(ByteArrayUtils.encodeInt(0xFFFFFFFF)).size());
+        assertEquals(20, descending(new byte[] { 0, 0 }).size());
+    }
+
+    @Test
+    public void testLastPrefix() {
+        // no key after the prefix
+        byte[] prefix = Arrays.copyOf(key(0xFFFFFFFF, 0), 7);
+        assertEquals(List.of(9, 8, 7, 6, 5, 4, 3, 2, 1, 0), descending(prefix));
+        assertEquals(List.of(0, 1, 2, 3, 4, 5, 6, 7, 8, 9), ascending(prefix));
+    }
+
+    private List<Integer> ascending(byte[] prefix) {
+        List<Integer> l = new ArrayList<>();
+        try (DbIterator it = rdb.newPrefixIterator(prefix)) {
+            while (it.isValid()) {
+                l.add(ByteArrayUtils.decodeInt(it.value(), 0));
+                it.next();
+            }
+        }
+        return l;
+    }
+
+    private List<Integer> descending(byte[] prefix) {
+        List<Integer> l = new ArrayList<>();
+        try (DbIterator it = rdb.newDescendingPrefixIterator(prefix)) {
+            while (it.isValid()) {
+                l.add(ByteArrayUtils.decodeInt(it.value(), 0));
+                it.prev();
+            }
+        }
+        return l;
+    }
+
+    static byte[] key(int prefix, int i) {
+        byte[] k = new byte[8];
+        ByteArrayUtils.encodeInt(prefix, k, 0);
+        ByteArrayUtils.encodeInt(i, k, 4);
+        return k;
+    }
+}
@@ -333,6 +333,7 @@ export interface AlgorithmStatus {
   lastRun?: string;
   errorCount: number;
   execTimeNs: number;
+  cpuTimeNs: number;
   errorMessage?: string;
   errorTime?: string;
 }
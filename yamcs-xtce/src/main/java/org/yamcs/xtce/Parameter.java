@@ -22,6 +22,9 @@ public class Parameter extends NameDescription {
      */
     String recordingGroup = null;
 
+    // assigned by the MDB containing the parameter, 0 means not assigned
+    private transient volatile int index;
+
     public Parameter(String name) {
         super(name);
     }
@@ -86,6 +89,23 @@ public class Parameter extends NameDescription {
                 + ((xtceAliasSet == null) ? "" : " aliases: " + xtceAliasSet.toString());
     }
 
+    /**
+     * Returns the index of this parameter in the MDB or 0 if the parameter has not been added to an MDB.
+     * <p>
+     * The parameters of one MDB have consecutive indices starting from 1. They can be used to look up data associated
+     * to a parameter in arrays rather than hash maps. They are not persisted and are not stable across restarts.
+     */
+    public int getIndex() {
+        return index;
+    }
+
+    /**
+     * Called by the MDB when the parameter is added to it
+     */
+    public void setIndex(int index) {
+        this.index = index;
+    }
+
     public boolean isPersistent() {
         return persistent;
     }